@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.benchmarks;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark inputs: the Erlang sources found in testData, or generated large files.
+ */
+final class ErlangBenchmarkCorpus {
+  static final String TEST_DATA = "testData";
+  static final String LARGE = "large";
+
+  private ErlangBenchmarkCorpus() {
+  }
+
+  static final class Input {
+    final String myName;
+    final String myText;
+
+    Input(@NotNull String name, @NotNull String text) {
+      myName = name;
+      myText = text;
+    }
+  }
+
+  /**
+   * @param corpus     {@link #TEST_DATA} or {@link #LARGE}
+   * @param extensions extensions of the files to load, the first one is used for the generated file
+   */
+  @NotNull
+  static List<Input> load(@NotNull String corpus, @NotNull String... extensions) throws IOException {
+    List<Input> inputs = new ArrayList<>();
+    if (LARGE.equals(corpus)) {
+      String extension = extensions[0];
+      String text = "hrl".equals(extension) ? generateHeader(5000) :
+                    "config".equals(extension) ? generateConfig(20000) :
+                    generateModule(5000);
+      inputs.add(new Input("large." + extension, text));
+      return inputs;
+    }
+    Pattern pattern = Pattern.compile(".*\\.(" + StringUtil.join(Arrays.asList(extensions), "|") + ")");
+    for (File file : FileUtil.findFilesByMask(pattern, new File(TEST_DATA))) {
+      inputs.add(new Input(file.getName(), StringUtil.convertLineSeparators(FileUtil.loadFile(file, "UTF-8"))));
+    }
+    return inputs;
+  }
+
+  @NotNull
+  static String generateModule(int functions) {
+    StringBuilder text = new StringBuilder("-module(large).\n-include(\"large.hrl\").\n-export([");
+    for (int i = 0; i < functions; i++) {
+      text.append(i > 0 ? ", " : "").append("function").append(i).append("/2");
+    }
+    text.append("]).\n\n");
+    for (int i = 0; i < functions; i++) {
+      text.append("-spec function").append(i).append("(integer(), list()) -> term().\n")
+          .append("function").append(i).append("(A, B) when is_integer(A) ->\n")
+          .append("  C = A + length(B),\n")
+          .append("  case lists:keyfind(C, 1, B) of\n")
+          .append("    {C, Value} -> #{value => Value, next => function").append((i + 1) % functions).append("(C, B)};\n")
+          .append("    false -> <<\"missing \", (integer_to_binary(C))/binary>>\n")
+          .append("  end;\n")
+          .append("function").append(i).append("(_, _) ->\n")
+          .append("  ?MODULE:fallback(fun(X) -> X * 2 end, \"").append(i).append("\", 'atom_").append(i).append("').\n\n");
+    }
+    return text.toString();
+  }
+
+  @NotNull
+  static String generateHeader(int macros) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < macros; i++) {
+      text.append("-record(record").append(i).append(", {id = 0 :: integer(), name :: binary()}).\n")
+          .append("-define(ITEM").append(i).append("_t, #{id => 0, name => <<>>, count").append(i).append(" => []}).\n");
+    }
+    return text.toString();
+  }
+
+  @NotNull
+  static String generateConfig(int entries) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < entries; i++) {
+      text.append("{item_").append(i).append(", [{id, ").append(i).append("}, {name, <<\"item ").append(i)
+          .append("\">>}, {tags, [a, b, c]}, {limits, #{min => 0, max => ").append(i * 10).append("}}]}.\n");
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.benchmarks;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileTypes.FileTypeManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A light test project with the plugin loaded, shared by all benchmarks of a trial.
+ */
+@State(Scope.Benchmark)
+public class ErlangBenchmarkEnvironment {
+  private IdeaProjectTestFixture myFixture;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    myFixture = IdeaTestFixtureFactory.getFixtureFactory().createLightFixtureBuilder(new DefaultLightProjectDescriptor()).getFixture();
+    EdtTestUtil.runInEdtAndWait(() -> myFixture.setUp());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    EdtTestUtil.runInEdtAndWait(() -> myFixture.tearDown());
+  }
+
+  @NotNull
+  public Project getProject() {
+    return myFixture.getProject();
+  }
+
+  /**
+   * Creates a non-physical file, the file type is chosen by name.
+   */
+  @NotNull
+  public PsiFile createFile(@NotNull String name, @NotNull String text) {
+    return ReadAction.compute(() -> PsiFileFactory.getInstance(getProject())
+      .createFileFromText(name, FileTypeManager.getInstance().getFileTypeByFileName(name), text));
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.benchmarks;
+
+import com.ericsson.otp.erlang.*;
+import org.intellij.erlang.debugger.node.ErlangDebuggerChannel;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends debugger commands and replies back and forth over a loopback connection, 10k round-trips per invocation.
+ * <p>
+ * {@code channelRoundTrips} uses the debugger's framing, {@code streamRoundTrips} the former per-message
+ * stream framing. Run with -PjmhArgs="ErlangDebuggerChannel -prof gc" to compare allocations per round-trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ErlangDebuggerChannelBenchmark {
+  private static final int ROUND_TRIPS = 10000;
+  private static final long TIMEOUT = 1000;
+
+  private final OtpErlangObject myCommand = new OtpErlangTuple(new OtpErlangObject[]{
+    new OtpErlangAtom("evaluate"),
+    new OtpErlangPid("debugger@localhost", 42, 0, 0),
+    new OtpErlangString("lists:sum([X * 2 || X <- Xs])"),
+  });
+  private final OtpErlangObject myReply = new OtpErlangTuple(new OtpErlangObject[]{
+    new OtpErlangAtom("breakpoint_reached"),
+    new OtpErlangPid("debugger@localhost", 42, 0, 0),
+    new OtpErlangList(new OtpErlangObject[]{
+      new OtpErlangTuple(new OtpErlangObject[]{new OtpErlangAtom("Xs"), new OtpErlangList("0123456789")}),
+      new OtpErlangTuple(new OtpErlangObject[]{new OtpErlangAtom("Bin"), new OtpErlangBinary(new byte[512])}),
+    }),
+  });
+
+  private ErlangDebuggerChannel myIdeChannel;
+  private ErlangDebuggerChannel myNodeChannel;
+  private Socket myIdeSocket;
+  private Socket myNodeSocket;
+
+  @Setup
+  public void setUp() throws IOException {
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(loopback, 0));
+      SocketChannel node = SocketChannel.open(server.getLocalAddress());
+      myIdeChannel = new ErlangDebuggerChannel(server.accept());
+      myNodeChannel = new ErlangDebuggerChannel(node);
+    }
+    try (ServerSocket server = new ServerSocket(0, 1, loopback)) {
+      myNodeSocket = new Socket(loopback, server.getLocalPort());
+      myIdeSocket = server.accept();
+      myNodeSocket.setTcpNoDelay(true);
+      myIdeSocket.setTcpNoDelay(true);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    myIdeChannel.close();
+    myNodeChannel.close();
+    myIdeSocket.close();
+    myNodeSocket.close();
+  }
+
+  @Benchmark
+  public int channelRoundTrips() throws IOException {
+    int received = 0;
+    for (int i = 0; i < ROUND_TRIPS; i++) {
+      myIdeChannel.send(myCommand);
+      if (myNodeChannel.receive(TIMEOUT) != null) received++;
+      myNodeChannel.send(myReply);
+      if (myIdeChannel.receive(TIMEOUT) != null) received++;
+    }
+    return received;
+  }
+
+  @Benchmark
+  public int streamRoundTrips() throws IOException, OtpErlangDecodeException {
+    int received = 0;
+    for (int i = 0; i < ROUND_TRIPS; i++) {
+      streamSend(myIdeSocket, myCommand);
+      if (streamReceive(myNodeSocket) != null) received++;
+      streamSend(myNodeSocket, myReply);
+      if (streamReceive(myIdeSocket) != null) received++;
+    }
+    return received;
+  }
+
+  private static void streamSend(Socket socket, OtpErlangObject message) throws IOException {
+    OutputStream out = socket.getOutputStream();
+    byte[] bytes = new OtpOutputStream(message).toByteArray();
+    byte[] sizeBytes = ByteBuffer.allocate(4).putInt(1 + bytes.length).array();
+    out.write(sizeBytes);
+    out.write(OtpExternal.versionTag);
+    out.write(bytes);
+  }
+
+  private static OtpErlangObject streamReceive(Socket socket) throws IOException, OtpErlangDecodeException {
+    InputStream in = socket.getInputStream();
+    byte[] sizeBytes = new byte[4];
+    new DataInputStream(in).readFully(sizeBytes);
+    byte[] objectBytes = new byte[ByteBuffer.wrap(sizeBytes).getInt()];
+    new DataInputStream(in).readFully(objectBytes);
+    return new OtpInputStream(objectBytes).read_any();
+  }
+}
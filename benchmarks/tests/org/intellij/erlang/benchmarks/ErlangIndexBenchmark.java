@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.benchmarks;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileTypes.FileTypeManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.LightVirtualFile;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.FileContentImpl;
+import com.intellij.util.indexing.IndexingDataKeys;
+import org.intellij.erlang.index.ErlangApplicationIndex;
+import org.intellij.erlang.index.ErlangAtomIndex;
+import org.intellij.erlang.index.ErlangModuleIndex;
+import org.intellij.erlang.index.ErlangTypeMapsFieldIndex;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the data indexers of the plugin's file based indexes over already parsed files, as the indexing
+ * infrastructure does after loading the file content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ErlangIndexBenchmark {
+  @Param({"atom", "module", "application", "typeMapsField"})
+  public String index;
+
+  @Param({ErlangBenchmarkCorpus.TEST_DATA, ErlangBenchmarkCorpus.LARGE})
+  public String corpus;
+
+  private DataIndexer<String, Void, FileContent> myIndexer;
+  private final List<FileContent> myContents = new ArrayList<>();
+
+  @Setup
+  public void setUp(ErlangBenchmarkEnvironment environment) throws IOException {
+    String[] extensions;
+    switch (index) {
+      case "atom":
+        myIndexer = new ErlangAtomIndex().getIndexer();
+        extensions = new String[]{"erl", "config"};
+        break;
+      case "module":
+        myIndexer = new ErlangModuleIndex().getIndexer();
+        extensions = new String[]{"erl", "config"};
+        break;
+      case "application":
+        myIndexer = new ErlangApplicationIndex().getIndexer();
+        extensions = new String[]{"app", "src"};
+        break;
+      case "typeMapsField":
+        myIndexer = new ErlangTypeMapsFieldIndex().getIndexer();
+        extensions = new String[]{"hrl"};
+        break;
+      default:
+        throw new IllegalArgumentException(index);
+    }
+    List<ErlangBenchmarkCorpus.Input> inputs = ErlangBenchmarkCorpus.LARGE.equals(corpus) && "application".equals(index)
+                                               ? generateApplications(5000)
+                                               : ErlangBenchmarkCorpus.load(corpus, extensions);
+    for (ErlangBenchmarkCorpus.Input input : inputs) {
+      myContents.add(createContent(environment, input));
+    }
+  }
+
+  @Benchmark
+  public int map() {
+    return ReadAction.compute(() -> {
+      int keys = 0;
+      for (FileContent content : myContents) {
+        keys += myIndexer.map(content).size();
+      }
+      return keys;
+    });
+  }
+
+  @NotNull
+  private static FileContent createContent(@NotNull ErlangBenchmarkEnvironment environment,
+                                           @NotNull ErlangBenchmarkCorpus.Input input) throws IOException {
+    LightVirtualFile file = new LightVirtualFile(input.myName, FileTypeManager.getInstance().getFileTypeByFileName(input.myName), input.myText);
+    PsiFile psiFile = environment.createFile(input.myName, input.myText);
+    ReadAction.run(() -> psiFile.getNode().getLastChildNode());
+    FileContent content = FileContentImpl.createByFile(file);
+    content.putUserData(IndexingDataKeys.PROJECT, environment.getProject());
+    content.putUserData(IndexingDataKeys.PSI_FILE, psiFile);
+    return content;
+  }
+
+  @NotNull
+  private static List<ErlangBenchmarkCorpus.Input> generateApplications(int count) {
+    List<ErlangBenchmarkCorpus.Input> inputs = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      inputs.add(new ErlangBenchmarkCorpus.Input("app" + i + ".app.src", "{application, app" + i + ", [{vsn, \"1.0.0\"}]}.\n"));
+    }
+    return inputs;
+  }
+}
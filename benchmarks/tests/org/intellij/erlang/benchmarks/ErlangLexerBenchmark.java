@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.benchmarks;
+
+import com.intellij.lexer.FlexAdapter;
+import com.intellij.lexer.Lexer;
+import org.intellij.erlang.parser.ErlangLexer;
+import org.intellij.erlang.parser._ErlangLexer;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ErlangLexerBenchmark {
+  @Param({ErlangBenchmarkCorpus.TEST_DATA, ErlangBenchmarkCorpus.LARGE})
+  public String corpus;
+
+  private List<ErlangBenchmarkCorpus.Input> myInputs;
+
+  @Setup
+  public void setUp() throws IOException {
+    myInputs = ErlangBenchmarkCorpus.load(corpus, "erl", "hrl");
+  }
+
+  @Benchmark
+  public int flexLexer() {
+    return lex(new FlexAdapter(new _ErlangLexer()));
+  }
+
+  @Benchmark
+  public int erlangLexer() {
+    return lex(new ErlangLexer());
+  }
+
+  private int lex(@NotNull Lexer lexer) {
+    int tokens = 0;
+    for (ErlangBenchmarkCorpus.Input input : myInputs) {
+      lexer.start(input.myText);
+      while (lexer.getTokenType() != null) {
+        tokens++;
+        lexer.advance();
+      }
+    }
+    return tokens;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.benchmarks;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the complete AST of each input, including the time to create a non-physical file for it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ErlangParserBenchmark {
+  @Param({ErlangBenchmarkCorpus.TEST_DATA, ErlangBenchmarkCorpus.LARGE})
+  public String corpus;
+
+  private List<ErlangBenchmarkCorpus.Input> myInputs;
+
+  @Setup
+  public void setUp() throws IOException {
+    myInputs = ErlangBenchmarkCorpus.load(corpus, "erl", "hrl");
+  }
+
+  @Benchmark
+  public int parse(ErlangBenchmarkEnvironment environment) {
+    return ReadAction.compute(() -> parseAll(environment));
+  }
+
+  /**
+   * Parse throughput in corpora per second, compare the reports of two commits to see the effect of a parser change.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public int parseThroughput(ErlangBenchmarkEnvironment environment) {
+    return ReadAction.compute(() -> parseAll(environment));
+  }
+
+  private int parseAll(ErlangBenchmarkEnvironment environment) {
+    int lastChildren = 0;
+    for (ErlangBenchmarkCorpus.Input input : myInputs) {
+      PsiFile file = environment.createFile(input.myName, input.myText);
+      if (file.getNode().getLastChildNode() != null) lastChildren++;
+    }
+    return lastChildren;
+  }
+}
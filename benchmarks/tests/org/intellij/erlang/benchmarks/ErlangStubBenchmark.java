@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.benchmarks;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.stubs.StubBuilder;
+import org.intellij.erlang.stubs.types.ErlangFileElementType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds stub trees of already parsed files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ErlangStubBenchmark {
+  @Param({ErlangBenchmarkCorpus.TEST_DATA, ErlangBenchmarkCorpus.LARGE})
+  public String corpus;
+
+  private final List<PsiFile> myFiles = new ArrayList<>();
+
+  @Setup
+  public void setUp(ErlangBenchmarkEnvironment environment) throws IOException {
+    for (ErlangBenchmarkCorpus.Input input : ErlangBenchmarkCorpus.load(corpus, "erl", "hrl")) {
+      PsiFile file = environment.createFile(input.myName, input.myText);
+      ReadAction.run(() -> file.getNode().getLastChildNode());
+      myFiles.add(file);
+    }
+  }
+
+  @Benchmark
+  public int buildStubs() {
+    return ReadAction.compute(() -> {
+      StubBuilder builder = ErlangFileElementType.INSTANCE.getBuilder();
+      int stubs = 0;
+      for (PsiFile file : myFiles) {
+        stubs += builder.buildStubTree(file).getChildrenStubs().size();
+      }
+      return stubs;
+    });
+  }
+}
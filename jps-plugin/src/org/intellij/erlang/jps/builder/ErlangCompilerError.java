@@ -16,36 +16,34 @@
 
 package org.intellij.erlang.jps.builder;
 
-import org.jetbrains.jps.incremental.messages.BuildMessage;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
-import com.intellij.openapi.vfs.VfsUtilCore;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.incremental.messages.BuildMessage;
 
 import java.io.File;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Function;
 
 public class ErlangCompilerError {
-  static final Pattern COMPILER_MESSAGE_PATTERN = Pattern.compile("^(\\S+):(\\d+):(\\s*Warning:)?\\s*(.+)$");
-  static final int PATH_MATCH_INDEX = 1;
-  static final int LINE_MATCH_INDEX = 2;
-  static final int WARNING_MATCH_INDEX = 3;
-  static final int DETAILS_MATCH_INDEX = 4;
+  private static final String WARNING_PREFIX = "Warning:";
+  private static final String LOWERCASE_WARNING_PREFIX = "warning:";
 
   private final String myErrorMessage;
   private final String myUrl;
   private final int myLine;
+  private final int myColumn;
   private final BuildMessage.Kind myKind;
 
   private ErlangCompilerError(@NotNull String errorMessage,
                               @NotNull String url,
                               int line,
+                              int column,
                               @NotNull BuildMessage.Kind category) {
     this.myErrorMessage = errorMessage;
     this.myUrl = url;
     this.myLine = line;
+    this.myColumn = column;
     this.myKind = category;
   }
 
@@ -63,6 +61,13 @@ public class ErlangCompilerError {
     return myLine;
   }
 
+  /**
+   * @return 1-based column or -1 if the compiler did not report one.
+   */
+  public int getColumn() {
+    return myColumn;
+  }
+
   @NotNull
   public BuildMessage.Kind getKind() {
     return myKind;
@@ -70,26 +75,93 @@ public class ErlangCompilerError {
 
   @Nullable
   public static ErlangCompilerError create(@NotNull String rootPath, @NotNull String erlcMessage) {
-    Matcher matcher = COMPILER_MESSAGE_PATTERN.matcher(StringUtil.trimTrailing(erlcMessage));
-    if (!matcher.find()) return null;
+    String message = StringUtil.trimTrailing(erlcMessage);
+    return parse(message, 0, message.length(), path -> resolvePath(rootPath, path));
+  }
 
-    String relativeFilePath = FileUtil.toSystemIndependentName(matcher.group(PATH_MATCH_INDEX));
-    File path = StringUtil.isEmpty(rootPath) ? new File(relativeFilePath) : new File(FileUtil.toSystemIndependentName(rootPath), relativeFilePath);
-    if(!path.exists()) return null;
+  /**
+   * Parses a "Path:Line:[Column:] [Warning:] Details" header without regular expressions.
+   * The location is the leftmost ":Line:" inside the first whitespace-free token of the line,
+   * so Windows drive letters and a trailing column are handled.
+   *
+   * @param pathResolver maps the path written by the compiler to an existing file path, or returns null
+   */
+  @Nullable
+  static ErlangCompilerError parse(@NotNull CharSequence text, int start, int end,
+                                   @NotNull Function<String, String> pathResolver) {
+    int tokenEnd = start;
+    while (tokenEnd < end && !Character.isWhitespace(text.charAt(tokenEnd))) tokenEnd++;
 
-    String line = matcher.group(LINE_MATCH_INDEX);
-    String warning = matcher.group(WARNING_MATCH_INDEX);
-    String details = matcher.group(DETAILS_MATCH_INDEX);
-    return createCompilerError(path.getPath(), line, warning, details);
+    for (int colon = indexOf(text, ':', start + 1, tokenEnd); colon >= 0; colon = indexOf(text, ':', colon + 1, tokenEnd)) {
+      int lineEnd = skipDigits(text, colon + 1, tokenEnd);
+      if (lineEnd == colon + 1 || lineEnd >= tokenEnd || text.charAt(lineEnd) != ':') continue;
+
+      int locationEnd = lineEnd;
+      int column = -1;
+      int columnEnd = skipDigits(text, lineEnd + 1, tokenEnd);
+      if (columnEnd > lineEnd + 1 && columnEnd < tokenEnd && text.charAt(columnEnd) == ':') {
+        column = parseInt(text, lineEnd + 1, columnEnd);
+        locationEnd = columnEnd;
+      }
+
+      int detailsStart = skipWhitespace(text, locationEnd + 1, end);
+      BuildMessage.Kind kind = BuildMessage.Kind.ERROR;
+      if (startsWith(text, detailsStart, end, WARNING_PREFIX) || startsWith(text, detailsStart, end, LOWERCASE_WARNING_PREFIX)) {
+        kind = BuildMessage.Kind.WARNING;
+        detailsStart = skipWhitespace(text, detailsStart + WARNING_PREFIX.length(), end);
+      }
+      if (detailsStart >= end) return null;
+
+      String path = pathResolver.apply(text.subSequence(start, colon).toString());
+      if (path == null) return null;
+      int line = parseInt(text, colon + 1, lineEnd);
+      return new ErlangCompilerError(text.subSequence(detailsStart, end).toString(), path, line, column, kind);
+    }
+    return null;
   }
 
-  @NotNull
-  private static ErlangCompilerError createCompilerError(@NotNull String filePath,
-                                                         @Nullable String line,
-                                                         @Nullable String warning,
-                                                         @NotNull String details) {
-    int lineNumber = StringUtil.parseInt(line, -1);
-    BuildMessage.Kind category = warning != null ? BuildMessage.Kind.WARNING : BuildMessage.Kind.ERROR;
-    return new ErlangCompilerError(details, filePath, lineNumber, category);
+  @Nullable
+  static String resolvePath(@NotNull String rootPath, @NotNull String compilerPath) {
+    String relativeFilePath = FileUtil.toSystemIndependentName(compilerPath);
+    File path = StringUtil.isEmpty(rootPath) || FileUtil.isAbsolute(relativeFilePath)
+                ? new File(relativeFilePath)
+                : new File(FileUtil.toSystemIndependentName(rootPath), relativeFilePath);
+    return path.exists() ? path.getPath() : null;
+  }
+
+  private static int indexOf(@NotNull CharSequence text, char c, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (text.charAt(i) == c) return i;
+    }
+    return -1;
+  }
+
+  private static int skipDigits(@NotNull CharSequence text, int from, int to) {
+    int i = from;
+    while (i < to && text.charAt(i) >= '0' && text.charAt(i) <= '9') i++;
+    return i;
+  }
+
+  private static int skipWhitespace(@NotNull CharSequence text, int from, int to) {
+    int i = from;
+    while (i < to && Character.isWhitespace(text.charAt(i))) i++;
+    return i;
+  }
+
+  private static boolean startsWith(@NotNull CharSequence text, int from, int to, @NotNull String prefix) {
+    if (to - from < prefix.length()) return false;
+    for (int i = 0; i < prefix.length(); i++) {
+      if (text.charAt(from + i) != prefix.charAt(i)) return false;
+    }
+    return true;
+  }
+
+  private static int parseInt(@NotNull CharSequence text, int from, int to) {
+    int result = 0;
+    for (int i = from; i < to; i++) {
+      if (result > (Integer.MAX_VALUE - 9) / 10) return -1;
+      result = result * 10 + (text.charAt(i) - '0');
+    }
+    return result;
   }
 }
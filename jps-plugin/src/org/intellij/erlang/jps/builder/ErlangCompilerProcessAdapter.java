@@ -18,40 +18,27 @@ package org.intellij.erlang.jps.builder;
 
 import com.intellij.execution.process.ProcessEvent;
 import com.intellij.openapi.util.Key;
-import com.intellij.openapi.vfs.VirtualFileManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jps.incremental.CompileContext;
-import org.jetbrains.jps.incremental.messages.BuildMessage;
-import org.jetbrains.jps.incremental.messages.CompilerMessage;
 
 public class ErlangCompilerProcessAdapter extends BuilderProcessAdapter {
+  private final ErlangDiagnosticParser myParser;
+
   public ErlangCompilerProcessAdapter(@NotNull CompileContext context,
                                       @NotNull String builderName,
                                       @NotNull String compileTargetRootPath) {
     super(context, builderName, compileTargetRootPath);
+    myParser = new ErlangDiagnosticParser(builderName, compileTargetRootPath, this::showMessage);
   }
 
   @Override
   public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
-    showMessage(createCompilerMessage(myBuilderName, myCompileTargetRootPath, event.getText()));
+    myParser.feed(event.getText());
   }
 
-  @NotNull
-  public static CompilerMessage createCompilerMessage(@NotNull String builderName,
-                                                      @NotNull String compileTargetRootPath,
-                                                      @NotNull String text) {
-    BuildMessage.Kind kind = BuildMessage.Kind.INFO;
-    String messageText = text;
-    String sourcePath = null;
-    long line = -1L;
-
-    ErlangCompilerError error = ErlangCompilerError.create(compileTargetRootPath, text);
-    if (error != null) {
-      kind = error.getKind();
-      messageText = error.getErrorMessage();
-      sourcePath = (error.getUrl());
-      line = error.getLine();
-    }
-    return new CompilerMessage(builderName, kind, messageText, sourcePath, -1L, -1L, -1L, line, -1L);
+  @Override
+  public void processTerminated(@NotNull ProcessEvent event) {
+    super.processTerminated(event);
+    myParser.finish();
   }
 }
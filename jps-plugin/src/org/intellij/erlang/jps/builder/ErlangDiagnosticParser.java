@@ -0,0 +1,227 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.jps.builder;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.incremental.messages.BuildMessage;
+import org.jetbrains.jps.incremental.messages.CompilerMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streaming parser of erlc and rebar output.
+ * <p>
+ * Text may be fed in arbitrary chunks. A "Path:Line:[Column:]" header line starts a diagnostic, the lines
+ * starting with '%' or whitespace that follow it (the source excerpt and caret marker printed by erlc since
+ * OTP 24) are appended to it, and the caret marker gives the reported column range. Any other line becomes a
+ * plain message, again together with its indented continuation lines.
+ * <p>
+ * Compiler paths are resolved against the root once per distinct path.
+ */
+public class ErlangDiagnosticParser {
+  private static final String MISSING_FILE = "";
+
+  private final String myBuilderName;
+  private final String myRootPath;
+  private final Consumer<CompilerMessage> myConsumer;
+  private final Function<String, CompilerMessage> myPlainMessageFactory;
+  private final Map<String, String> myResolvedPaths = new HashMap<>();
+  private final Map<String, int[]> myLineOffsets = new HashMap<>();
+  private final StringBuilder myPartialLine = new StringBuilder();
+
+  private final StringBuilder myPendingText = new StringBuilder();
+  private boolean myHasPending;
+  @Nullable private ErlangCompilerError myPendingError;
+  private int myPendingRangeLength;
+
+  public ErlangDiagnosticParser(@NotNull String builderName,
+                                @NotNull String rootPath,
+                                @NotNull Consumer<CompilerMessage> consumer) {
+    this(builderName, rootPath, consumer, text -> new CompilerMessage(builderName, BuildMessage.Kind.INFO, text));
+  }
+
+  public ErlangDiagnosticParser(@NotNull String builderName,
+                                @NotNull String rootPath,
+                                @NotNull Consumer<CompilerMessage> consumer,
+                                @NotNull Function<String, CompilerMessage> plainMessageFactory) {
+    myBuilderName = builderName;
+    myRootPath = rootPath;
+    myConsumer = consumer;
+    myPlainMessageFactory = plainMessageFactory;
+  }
+
+  public void feed(@NotNull CharSequence text) {
+    int lineStart = 0;
+    int length = text.length();
+    for (int i = 0; i < length; i++) {
+      if (text.charAt(i) != '\n') continue;
+      if (myPartialLine.length() > 0) {
+        myPartialLine.append(text, lineStart, i);
+        processLine(myPartialLine, 0, trimCarriageReturn(myPartialLine, 0, myPartialLine.length()));
+        myPartialLine.setLength(0);
+      }
+      else {
+        processLine(text, lineStart, trimCarriageReturn(text, lineStart, i));
+      }
+      lineStart = i + 1;
+    }
+    if (lineStart < length) {
+      myPartialLine.append(text, lineStart, length);
+    }
+  }
+
+  /**
+   * Processes the last unterminated line and emits the pending message, if any.
+   */
+  public void finish() {
+    if (myPartialLine.length() > 0) {
+      processLine(myPartialLine, 0, trimCarriageReturn(myPartialLine, 0, myPartialLine.length()));
+      myPartialLine.setLength(0);
+    }
+    flushPending();
+  }
+
+  private void processLine(@NotNull CharSequence text, int start, int end) {
+    if (myHasPending && isContinuation(text, start, end)) {
+      appendContinuation(text, start, end);
+      return;
+    }
+    flushPending();
+
+    ErlangCompilerError error = ErlangCompilerError.parse(text, start, end, this::resolvePath);
+    myHasPending = true;
+    myPendingError = error;
+    myPendingRangeLength = 0;
+    if (error != null) {
+      myPendingText.append(error.getErrorMessage());
+    }
+    else {
+      appendTrimmed(myPendingText, text, start, end);
+    }
+  }
+
+  private void appendContinuation(@NotNull CharSequence text, int start, int end) {
+    if (myPendingError != null) {
+      if (myPendingRangeLength == 0) {
+        myPendingRangeLength = caretRangeLength(text, start, end);
+      }
+      myPendingText.append('\n').append(text, start, end);
+    }
+    else if (start < end) {
+      myPendingText.append('\n');
+      appendTrimmed(myPendingText, text, start, end);
+    }
+  }
+
+  private void flushPending() {
+    if (!myHasPending) return;
+    String text = myPendingText.toString();
+    ErlangCompilerError error = myPendingError;
+    myHasPending = false;
+    myPendingError = null;
+    myPendingText.setLength(0);
+
+    if (error == null) {
+      myConsumer.accept(myPlainMessageFactory.apply(text));
+      return;
+    }
+    long beginOffset = -1L;
+    long endOffset = -1L;
+    int[] lineOffsets = error.getColumn() > 0 ? getLineOffsets(error.getUrl()) : null;
+    if (lineOffsets != null && error.getLine() > 0 && error.getLine() <= lineOffsets.length) {
+      beginOffset = lineOffsets[error.getLine() - 1] + error.getColumn() - 1;
+      endOffset = beginOffset + Math.max(myPendingRangeLength, 1);
+    }
+    myConsumer.accept(new CompilerMessage(myBuilderName, error.getKind(), text, error.getUrl(),
+                                          beginOffset, endOffset, beginOffset, error.getLine(), error.getColumn()));
+  }
+
+  @Nullable
+  private String resolvePath(@NotNull String compilerPath) {
+    String resolved = myResolvedPaths.get(compilerPath);
+    if (resolved == null) {
+      resolved = ErlangCompilerError.resolvePath(myRootPath, compilerPath);
+      myResolvedPaths.put(compilerPath, resolved != null ? resolved : MISSING_FILE);
+    }
+    return resolved == null || resolved.isEmpty() ? null : resolved;
+  }
+
+  @Nullable
+  private int[] getLineOffsets(@NotNull String path) {
+    int[] offsets = myLineOffsets.get(path);
+    if (offsets == null) {
+      offsets = computeLineOffsets(path);
+      myLineOffsets.put(path, offsets);
+    }
+    return offsets.length > 0 ? offsets : null;
+  }
+
+  @NotNull
+  private static int[] computeLineOffsets(@NotNull String path) {
+    CharSequence text;
+    try {
+      text = FileUtil.loadFileText(new File(path), "UTF-8");
+    }
+    catch (IOException e) {
+      return new int[0];
+    }
+    int lines = 1;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') lines++;
+    }
+    int[] offsets = new int[lines];
+    int line = 1;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') offsets[line++] = i + 1;
+    }
+    return offsets;
+  }
+
+  // "%     |     ^~~~~" -> 5
+  private static int caretRangeLength(@NotNull CharSequence text, int start, int end) {
+    if (start >= end || text.charAt(start) != '%') return 0;
+    int bar = start;
+    while (bar < end && text.charAt(bar) != '|') bar++;
+    int caret = bar + 1;
+    while (caret < end && text.charAt(caret) == ' ') caret++;
+    if (caret >= end || text.charAt(caret) != '^') return 0;
+    int rangeEnd = caret + 1;
+    while (rangeEnd < end && (text.charAt(rangeEnd) == '~' || text.charAt(rangeEnd) == '^')) rangeEnd++;
+    return rangeEnd - caret;
+  }
+
+  private static boolean isContinuation(@NotNull CharSequence text, int start, int end) {
+    return start == end || text.charAt(start) == '%' || Character.isWhitespace(text.charAt(start));
+  }
+
+  private static void appendTrimmed(@NotNull StringBuilder builder, @NotNull CharSequence text, int start, int end) {
+    while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+    while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+    builder.append(text, start, end);
+  }
+
+  private static int trimCarriageReturn(@NotNull CharSequence text, int start, int end) {
+    return end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+  }
+}
@@ -29,11 +29,15 @@ public class ErlangCompilerOptions {
   public ErlangCompilerOptions(ErlangCompilerOptions options) {
     myUseRebarCompiler = options.myUseRebarCompiler;
     myAddDebugInfoEnabled = options.myAddDebugInfoEnabled;
+    myRebarIncrementalBuild = options.myRebarIncrementalBuild;
   }
 
   @Tag("useRebarCompiler")
   public boolean myUseRebarCompiler = false;
 
+  @Tag("rebarIncrementalBuild")
+  public boolean myRebarIncrementalBuild = false;
+
   @Tag("useDebugInfo")
   public boolean myAddDebugInfoEnabled = true;
 
@@ -20,7 +20,9 @@ import com.intellij.execution.ExecutionException;
 import com.intellij.execution.configurations.GeneralCommandLine;
 import com.intellij.execution.process.BaseOSProcessHandler;
 import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.jps.builder.*;
 import org.intellij.erlang.jps.model.ErlangCompilerOptions;
 import org.intellij.erlang.jps.model.JpsErlangSdkType;
@@ -42,11 +44,15 @@ import org.jetbrains.jps.util.JpsPathUtil;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.Collections;
+import java.util.*;
 
 public class RebarBuilder extends TargetBuilder<ErlangSourceRootDescriptor, ErlangTarget> {
   private static final String NAME = "rebar";
   private static final String REBAR_CONFIG_FILE_NAME = "rebar.config";
+  private static final String APP_SRC_EXTENSION = ".app.src";
+  private static final String APP_EXTENSION = ".app";
+  private static final String HEADER_EXTENSION = ".hrl";
+  private static final Set<String> DEPENDENCY_DIRECTORY_NAMES = ContainerUtil.newHashSet("deps", "_build", "_checkouts");
 
   public RebarBuilder() {
     super(Collections.singleton(ErlangTargetType.INSTANCE));
@@ -80,14 +86,33 @@ public class RebarBuilder extends TargetBuilder<ErlangSourceRootDescriptor, Erla
 
     JpsSdk<JpsDummyElement> sdk = ErlangTargetBuilderUtil.getSdk(context, module);
     String escriptPath = JpsErlangSdkType.getScriptInterpreterExecutable(sdk.getHomePath()).getAbsolutePath();
+    boolean rebar3 = rebarPath.contains("rebar3");
+    List<File> changedFiles = compilerOptions.myRebarIncrementalBuild ? collectChangedFiles(target, holder) : null;
     boolean isRebarRun = false;
     for (String contentRootUrl : module.getContentRootsList().getUrls()) {
       String contentRootPath = JpsPathUtil.urlToPath(contentRootUrl);
       File contentRootDir = JpsPathUtil.urlToFile(contentRootUrl);
       File rebarConfigFile = new File(contentRootDir, REBAR_CONFIG_FILE_NAME);
       if (!rebarConfigFile.exists()) continue;
-      runRebar(escriptPath, rebarPath, contentRootPath, compilerOptions.myAddDebugInfoEnabled, context);
       isRebarRun = true;
+      Set<File> appDirs = changedFiles != null ? getChangedAppDirectories(changedFiles, contentRootDir) : null;
+      if (appDirs == null) {
+        runRebar(escriptPath, rebarPath, contentRootPath, compilerOptions.myAddDebugInfoEnabled, context);
+      }
+      else if (rebar3) {
+        if (appDirs.isEmpty()) continue;
+        boolean depsOnly = ContainerUtil.and(appDirs, appDir -> isDependency(appDir, contentRootDir));
+        runRebar(escriptPath, rebarPath, contentRootPath, compilerOptions.myAddDebugInfoEnabled, context,
+                 depsOnly ? new String[]{"compile", "--deps_only"} : new String[]{"compile"});
+      }
+      else {
+        if (appDirs.isEmpty()) continue;
+        List<String> appNames = getAppNames(appDirs, contentRootDir);
+        String[] arguments = appNames != null
+                             ? new String[]{"compile", "skip_deps=true", "apps=" + StringUtil.join(appNames, ",")}
+                             : new String[]{"compile"};
+        runRebar(escriptPath, rebarPath, contentRootPath, compilerOptions.myAddDebugInfoEnabled, context, arguments);
+      }
     }
     if (!isRebarRun) {
       String messageText = "Skipped module '" + module.getName() + "' because rebar.config is not found.";
@@ -101,16 +126,122 @@ public class RebarBuilder extends TargetBuilder<ErlangSourceRootDescriptor, Erla
     return NAME;
   }
 
+  @NotNull
+  private static List<File> collectChangedFiles(@NotNull ErlangTarget target,
+                                                @NotNull DirtyFilesHolder<ErlangSourceRootDescriptor, ErlangTarget> holder) throws IOException {
+    List<File> changedFiles = new ArrayList<>(new DirtyFilesProcessor<File, ErlangTarget>() {
+      @Nullable
+      @Override
+      protected File getDirtyElement(@NotNull File file) {
+        return file;
+      }
+    }.collectDirtyElements(holder));
+    for (String removedPath : holder.getRemovedFiles(target)) {
+      changedFiles.add(new File(removedPath));
+    }
+    return changedFiles;
+  }
+
+  /**
+   * Maps changed files to the OTP applications containing them.
+   *
+   * @return application directories to rebuild, or null if the whole content root has to be rebuilt
+   * because a changed file is a header or the root rebar.config, or does not belong to a nested application.
+   * Headers may be included by other applications, so they always trigger a full build.
+   */
+  @Nullable
+  static Set<File> getChangedAppDirectories(@NotNull Collection<File> changedFiles, @NotNull File contentRootDir) {
+    Set<File> appDirs = new LinkedHashSet<>();
+    Map<File, Boolean> isAppDirectory = new HashMap<>();
+    for (File file : changedFiles) {
+      if (!FileUtil.isAncestor(contentRootDir, file, true)) continue;
+      if (file.getName().endsWith(HEADER_EXTENSION)) return null;
+      if (FileUtil.filesEqual(file, new File(contentRootDir, REBAR_CONFIG_FILE_NAME))) return null;
+      File appDir = findAppDirectory(file, contentRootDir, isAppDirectory);
+      if (appDir == null || FileUtil.filesEqual(appDir, contentRootDir)) return null;
+      appDirs.add(appDir);
+    }
+    return appDirs;
+  }
+
+  @Nullable
+  private static File findAppDirectory(@NotNull File file, @NotNull File contentRootDir, @NotNull Map<File, Boolean> isAppDirectory) {
+    for (File dir = file.getParentFile(); dir != null; dir = dir.getParentFile()) {
+      Boolean isApp = isAppDirectory.get(dir);
+      if (isApp == null) {
+        isApp = isAppDirectory(dir);
+        isAppDirectory.put(dir, isApp);
+      }
+      if (isApp) return dir;
+      if (FileUtil.filesEqual(dir, contentRootDir)) return null;
+    }
+    return null;
+  }
+
+  private static boolean isAppDirectory(@NotNull File dir) {
+    return new File(dir, REBAR_CONFIG_FILE_NAME).isFile() || findAppName(dir) != null;
+  }
+
+  private static boolean isDependency(@NotNull File appDir, @NotNull File contentRootDir) {
+    for (File dir = appDir.getParentFile(); dir != null && !FileUtil.filesEqual(dir, contentRootDir); dir = dir.getParentFile()) {
+      if (DEPENDENCY_DIRECTORY_NAMES.contains(dir.getName())) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Resolves the names rebar2 expects in its "apps=" option. The build itself runs from the content root, so
+   * the umbrella rebar.config and its sub_dirs order still apply.
+   *
+   * @return application names, or null if one of the applications is a dependency or has no application resource file.
+   */
+  @Nullable
+  static List<String> getAppNames(@NotNull Collection<File> appDirs, @NotNull File contentRootDir) {
+    List<String> appNames = new ArrayList<>(appDirs.size());
+    for (File appDir : appDirs) {
+      if (isDependency(appDir, contentRootDir)) return null;
+      String appName = findAppName(appDir);
+      if (appName == null) return null;
+      appNames.add(appName);
+    }
+    return appNames;
+  }
+
+  @Nullable
+  private static String findAppName(@NotNull File appDir) {
+    String appName = findFileBaseName(new File(appDir, "src"), APP_SRC_EXTENSION);
+    return appName != null ? appName : findFileBaseName(new File(appDir, "ebin"), APP_EXTENSION);
+  }
+
+  @Nullable
+  private static String findFileBaseName(@NotNull File dir, @NotNull String suffix) {
+    String[] names = dir.list();
+    if (names == null) return null;
+    for (String name : names) {
+      if (name.endsWith(suffix)) return StringUtil.trimEnd(name, suffix);
+    }
+    return null;
+  }
+
   private static void runRebar(@NotNull String escriptPath,
                                @NotNull String rebarPath,
                                @Nullable String contentRootPath,
                                boolean addDebugInfo,
                                @NotNull CompileContext context) throws ProjectBuildException {
+    runRebar(escriptPath, rebarPath, contentRootPath, addDebugInfo, context, "compile");
+  }
+
+  private static void runRebar(@NotNull String escriptPath,
+                               @NotNull String rebarPath,
+                               @Nullable String contentRootPath,
+                               boolean addDebugInfo,
+                               @NotNull CompileContext context,
+                               @NotNull String... rebarArguments) throws ProjectBuildException {
     GeneralCommandLine commandLine = new GeneralCommandLine();
     commandLine.withWorkDirectory(contentRootPath);
     commandLine.setExePath(escriptPath);
     commandLine.addParameter(rebarPath);
-    commandLine.addParameter("compile");
+    commandLine.addParameters(rebarArguments);
 
     if (addDebugInfo) {
       commandLine.getEnvironment().put("ERL_FLAGS", "+debug_info");
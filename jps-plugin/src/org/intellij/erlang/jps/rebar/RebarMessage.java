@@ -25,7 +25,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class RebarMessage {
-  private static final Pattern LOG_MESSAGE_PATTERN = Pattern.compile("(ERROR|WARN|INFO|DEBUG):(.+)");
+  private static final Pattern LOG_MESSAGE_PATTERN = Pattern.compile("(ERROR|WARN|INFO|DEBUG):(.+)", Pattern.DOTALL);
   private final BuildMessage.Kind myKind;
   private final String myDetails;
 
@@ -19,59 +19,37 @@ package org.intellij.erlang.jps.rebar;
 import com.intellij.execution.process.ProcessEvent;
 import com.intellij.openapi.util.Key;
 import org.intellij.erlang.jps.builder.BuilderProcessAdapter;
-import org.intellij.erlang.jps.builder.ErlangCompilerProcessAdapter;
+import org.intellij.erlang.jps.builder.ErlangDiagnosticParser;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jps.incremental.CompileContext;
+import org.jetbrains.jps.incremental.messages.BuildMessage;
 import org.jetbrains.jps.incremental.messages.CompilerMessage;
 
 public class RebarProcessAdapter extends BuilderProcessAdapter {
-  private final StringBuilder myMessageBuilder = new StringBuilder();
+  private final ErlangDiagnosticParser myParser;
 
   public RebarProcessAdapter(@NotNull CompileContext context,
                              @NotNull String builderName,
                              @NotNull String compileTargetRootPath) {
     super(context, builderName, compileTargetRootPath);
+    myParser = new ErlangDiagnosticParser(builderName, compileTargetRootPath, this::showMessage, this::createCompilerMessage);
   }
 
   @Override
   public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
-    addToProcessing(event.getText());
+    myParser.feed(event.getText());
   }
 
   @Override
   public void processTerminated(@NotNull ProcessEvent event) {
     super.processTerminated(event);
-    if (myMessageBuilder.length() > 0) {
-      processMessage(myMessageBuilder.toString());
-    }
-  }
-
-  private void processMessage(@NotNull String message) {
-    showMessage(createCompilerMessage(message));
+    myParser.finish();
   }
 
   @NotNull
   private CompilerMessage createCompilerMessage(@NotNull String messageText) {
     RebarMessage message = RebarMessage.create(messageText);
     return message != null ? new CompilerMessage(myBuilderName, message.getKind(), message.getDetails())
-                           : getDefaultCompilerMessage(messageText);
-  }
-
-  @NotNull
-  private CompilerMessage getDefaultCompilerMessage(@NotNull String messageText) {
-    return ErlangCompilerProcessAdapter.createCompilerMessage(myBuilderName, myCompileTargetRootPath, messageText);
-  }
-
-  private void addToProcessing(@NotNull String messagePart) {
-    if (!isMessageContinue(messagePart) && myMessageBuilder.length() != 0) {
-      processMessage(myMessageBuilder.toString());
-      myMessageBuilder.setLength(0);
-    }
-    myMessageBuilder.append(messagePart.trim());
-  }
-
-
-  private static boolean isMessageContinue(@NotNull String messagePart) {
-    return messagePart.isEmpty() || Character.isWhitespace(messagePart.charAt(0));
+                           : new CompilerMessage(myBuilderName, BuildMessage.Kind.INFO, messageText);
   }
 }
@@ -19,46 +19,90 @@ package org.intellij.erlang.jps.builder;
 import com.intellij.testFramework.UsefulTestCase;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.incremental.messages.BuildMessage;
 
-import java.util.regex.Matcher;
-
-import static org.intellij.erlang.jps.builder.ErlangCompilerError.*;
-
+import java.util.function.Function;
 
 public class ErlangCompilerErrorTest extends UsefulTestCase {
 
   public void testMatchesMessageFromErlcOnWindows() {
-    doRegexMatchTest(
+    doParseTest(
       "e:/test/test_db.erl:47: syntax error before: 'case'",
       "e:/test/test_db.erl",
-      "47",
-      null,
+      47,
+      -1,
+      BuildMessage.Kind.ERROR,
       "syntax error before: 'case'"
     );
   }
 
   public void testMatchesMessageFromErlcOnMac() {
-    doRegexMatchTest(
+    doParseTest(
       "test/testmeah.erl:18: unterminated atom starting with 't compile\\n'",
       "test/testmeah.erl",
-      "18",
-      null,
+      18,
+      -1,
+      BuildMessage.Kind.ERROR,
       "unterminated atom starting with 't compile\\n'"
     );
   }
 
-  private static void doRegexMatchTest(
-    @NotNull String erlcMessage,
-    @Nullable String path,
-    @Nullable String line,
-    @Nullable String warning,
-    @Nullable String details
-  ) {
-    Matcher matcher = COMPILER_MESSAGE_PATTERN.matcher(erlcMessage);
-    assertTrue(matcher.matches());
-    assertEquals(path, matcher.group(PATH_MATCH_INDEX));
-    assertEquals(line, matcher.group(LINE_MATCH_INDEX));
-    assertEquals(warning, matcher.group(WARNING_MATCH_INDEX));
-    assertEquals(details, matcher.group(DETAILS_MATCH_INDEX));
+  public void testMatchesMessageWithColumn() {
+    doParseTest(
+      "src/test.erl:12:5: function foo/0 undefined",
+      "src/test.erl",
+      12,
+      5,
+      BuildMessage.Kind.ERROR,
+      "function foo/0 undefined"
+    );
+  }
+
+  public void testMatchesWarning() {
+    doParseTest(
+      "src/test.erl:3:1: Warning: function bar/1 is unused",
+      "src/test.erl",
+      3,
+      1,
+      BuildMessage.Kind.WARNING,
+      "function bar/1 is unused"
+    );
+  }
+
+  public void testMatchesLowercaseWarningOnWindows() {
+    doParseTest(
+      "c:/project/src/test.erl:7: warning: variable 'X' is unused",
+      "c:/project/src/test.erl",
+      7,
+      -1,
+      BuildMessage.Kind.WARNING,
+      "variable 'X' is unused"
+    );
+  }
+
+  public void testDoesNotMatchPlainText() {
+    assertNull(parse("Compiling src/test.erl"));
+    assertNull(parse("test.erl:12: "));
+    assertNull(parse("==> test (compile)"));
+  }
+
+  @Nullable
+  private static ErlangCompilerError parse(@NotNull String erlcMessage) {
+    return ErlangCompilerError.parse(erlcMessage, 0, erlcMessage.length(), Function.identity());
+  }
+
+  private static void doParseTest(@NotNull String erlcMessage,
+                                  @NotNull String path,
+                                  int line,
+                                  int column,
+                                  @NotNull BuildMessage.Kind kind,
+                                  @NotNull String details) {
+    ErlangCompilerError error = parse(erlcMessage);
+    assertNotNull(error);
+    assertEquals(path, error.getUrl());
+    assertEquals(line, error.getLine());
+    assertEquals(column, error.getColumn());
+    assertEquals(kind, error.getKind());
+    assertEquals(details, error.getErrorMessage());
   }
 }
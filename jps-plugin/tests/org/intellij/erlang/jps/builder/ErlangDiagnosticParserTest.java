@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.jps.builder;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jps.incremental.messages.BuildMessage;
+import org.jetbrains.jps.incremental.messages.CompilerMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ErlangDiagnosticParserTest extends UsefulTestCase {
+  private static final String SOURCE = "-module(test).\n" +
+                                       "-export([foo/0]).\n" +
+                                       "\n" +
+                                       "foo() -> bar(X).\n";
+
+  private File myRoot;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myRoot = FileUtil.createTempDirectory("erlang-diagnostics", null);
+    FileUtil.writeToFile(new File(myRoot, "src/test.erl"), SOURCE);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myRoot);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testSingleLineDiagnostics() {
+    List<CompilerMessage> messages = parse("src/test.erl:4: function bar/1 undefined\n" +
+                                           "src/test.erl:4: Warning: variable 'X' is unbound\n");
+    assertSize(2, messages);
+    assertMessage(messages.get(0), BuildMessage.Kind.ERROR, "function bar/1 undefined", 4, -1);
+    assertMessage(messages.get(1), BuildMessage.Kind.WARNING, "variable 'X' is unbound", 4, -1);
+    assertEquals(-1L, messages.get(0).getProblemBeginOffset());
+  }
+
+  public void testMultiLineDiagnosticWithCaretRange() {
+    List<CompilerMessage> messages = parse("src/test.erl:4:10: function bar/1 undefined\n" +
+                                           "%    4| foo() -> bar(X).\n" +
+                                           "%     |          ^~~\n" +
+                                           "\n" +
+                                           "src/test.erl:4:14: variable 'X' is unbound\n" +
+                                           "%    4| foo() -> bar(X).\n" +
+                                           "%     |              ^\n");
+    assertSize(2, messages);
+    CompilerMessage undefined = messages.get(0);
+    assertMessage(undefined, BuildMessage.Kind.ERROR, "function bar/1 undefined\n" +
+                                                      "%    4| foo() -> bar(X).\n" +
+                                                      "%     |          ^~~\n", 4, 10);
+    int lineStart = SOURCE.indexOf("foo() ->");
+    assertEquals(lineStart + 9, undefined.getProblemBeginOffset());
+    assertEquals(lineStart + 12, undefined.getProblemEndOffset());
+    assertEquals("bar", SOURCE.substring((int)undefined.getProblemBeginOffset(), (int)undefined.getProblemEndOffset()));
+
+    CompilerMessage unbound = messages.get(1);
+    assertEquals("X", SOURCE.substring((int)unbound.getProblemBeginOffset(), (int)unbound.getProblemEndOffset()));
+  }
+
+  public void testChunksSplitInsideLines() {
+    String output = "src/test.erl:4:10: function bar/1 undefined\r\n" +
+                    "Compiling src/test.erl\r\n" +
+                    "  with options [debug_info]\r\n";
+    List<CompilerMessage> messages = new ArrayList<>();
+    ErlangDiagnosticParser parser = new ErlangDiagnosticParser("erlc", myRoot.getPath(), messages::add);
+    for (int i = 0; i < output.length(); i += 7) {
+      parser.feed(output.substring(i, Math.min(output.length(), i + 7)));
+    }
+    parser.finish();
+    assertSize(2, messages);
+    assertMessage(messages.get(0), BuildMessage.Kind.ERROR, "function bar/1 undefined", 4, 10);
+    assertEquals(BuildMessage.Kind.INFO, messages.get(1).getKind());
+    assertEquals("Compiling src/test.erl\nwith options [debug_info]", messages.get(1).getMessageText());
+  }
+
+  public void testUnknownFileIsPlainMessage() {
+    List<CompilerMessage> messages = parse("src/missing.erl:4: function bar/1 undefined");
+    assertSize(1, messages);
+    assertEquals(BuildMessage.Kind.INFO, messages.get(0).getKind());
+    assertNull(messages.get(0).getSourcePath());
+  }
+
+  public void testThroughput() throws IOException {
+    int files = 50;
+    StringBuilder output = new StringBuilder();
+    for (int i = 0; i < files; i++) {
+      FileUtil.writeToFile(new File(myRoot, "src/test" + i + ".erl"), SOURCE);
+    }
+    for (int i = 0; i < 10000; i++) {
+      output.append("src/test").append(i % files).append(".erl:4:14: Warning: variable 'X' is unbound\n")
+            .append("%    4| foo() -> bar(X).\n")
+            .append("%     |              ^\n")
+            .append("\n");
+    }
+    String text = output.toString();
+    PlatformTestUtil.startPerformanceTest("Parsing 10000 erlc diagnostics", 1000, () -> {
+      List<CompilerMessage> messages = new ArrayList<>();
+      ErlangDiagnosticParser parser = new ErlangDiagnosticParser("erlc", myRoot.getPath(), messages::add);
+      for (int i = 0; i < text.length(); i += 4096) {
+        parser.feed(text.substring(i, Math.min(text.length(), i + 4096)));
+      }
+      parser.finish();
+      assertSize(10000, messages);
+    }).attempts(3).assertTiming();
+  }
+
+  @NotNull
+  private List<CompilerMessage> parse(@NotNull String output) {
+    List<CompilerMessage> messages = new ArrayList<>();
+    ErlangDiagnosticParser parser = new ErlangDiagnosticParser("erlc", myRoot.getPath(), messages::add);
+    parser.feed(output);
+    parser.finish();
+    return messages;
+  }
+
+  private static void assertMessage(@NotNull CompilerMessage message,
+                                    @NotNull BuildMessage.Kind kind,
+                                    @NotNull String text,
+                                    long line,
+                                    long column) {
+    assertEquals(kind, message.getKind());
+    assertEquals(text, message.getMessageText());
+    assertEquals(line, message.getLine());
+    assertEquals(column, message.getColumn());
+    assertNotNull(message.getSourcePath());
+  }
+}
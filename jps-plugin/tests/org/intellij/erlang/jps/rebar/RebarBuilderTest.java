@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.jps.rebar;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class RebarBuilderTest extends UsefulTestCase {
+  private File myRoot;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myRoot = FileUtil.createTempDirectory("rebar-umbrella", null);
+    createFile("rebar.config");
+    createFile("apps/foo/src/foo.app.src");
+    createFile("apps/foo/src/foo.erl");
+    createFile("apps/foo/include/foo.hrl");
+    createFile("apps/bar/src/bar.app.src");
+    createFile("apps/bar/src/nested/bar.erl");
+    createFile("src/root.erl");
+    createFile("deps/baz/ebin/baz.app");
+    createFile("deps/baz/src/baz.erl");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myRoot);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testChangedFilesAreMappedToApps() {
+    Set<File> appDirs = RebarBuilder.getChangedAppDirectories(
+      Arrays.asList(file("apps/foo/src/foo.erl"), file("apps/bar/src/nested/bar.erl")),
+      myRoot);
+    assertNotNull(appDirs);
+    assertSameElements(appDirs, file("apps/foo"), file("apps/bar"));
+  }
+
+  public void testRemovedFileIsMappedToApp() {
+    Set<File> appDirs = RebarBuilder.getChangedAppDirectories(Collections.singletonList(file("apps/bar/src/removed.erl")), myRoot);
+    assertNotNull(appDirs);
+    assertSameElements(appDirs, file("apps/bar"));
+  }
+
+  public void testFileOutsideOfAppsRebuildsRoot() {
+    assertNull(RebarBuilder.getChangedAppDirectories(Arrays.asList(file("apps/foo/src/foo.erl"), file("src/root.erl")), myRoot));
+  }
+
+  public void testChangedHeaderRebuildsRoot() {
+    assertNull(RebarBuilder.getChangedAppDirectories(
+      Arrays.asList(file("apps/bar/src/nested/bar.erl"), file("apps/foo/include/foo.hrl")), myRoot));
+  }
+
+  public void testChangedRootConfigRebuildsRoot() {
+    assertNull(RebarBuilder.getChangedAppDirectories(Collections.singletonList(file("rebar.config")), myRoot));
+  }
+
+  public void testAppNames() {
+    List<String> appNames = RebarBuilder.getAppNames(Arrays.asList(file("apps/foo"), file("apps/bar")), myRoot);
+    assertNotNull(appNames);
+    assertOrderedEquals(appNames, "foo", "bar");
+  }
+
+  public void testDependencyHasNoAppNames() {
+    Set<File> appDirs = RebarBuilder.getChangedAppDirectories(Collections.singletonList(file("deps/baz/src/baz.erl")), myRoot);
+    assertNotNull(appDirs);
+    assertSameElements(appDirs, file("deps/baz"));
+    assertNull(RebarBuilder.getAppNames(appDirs, myRoot));
+  }
+
+  @NotNull
+  private File file(@NotNull String relativePath) {
+    return new File(myRoot, relativePath);
+  }
+
+  private void createFile(@NotNull String relativePath) throws IOException {
+    FileUtil.writeToFile(file(relativePath), "");
+  }
+}
@@ -1,5 +1,131 @@
 -module(debug_condition).
--compile(export_all).
-%% API
 
+% Conditions, hit counts and log expressions of breakpoints.
+%
+% Expressions are parsed once when a breakpoint is set and kept in a table owned by the listener. The interpreter
+% calls debug_condition:Key(Bindings) on every hit of a breakpoint set with int:test_at_break/3, where Key names
+% the breakpoint, so all such calls end up in '$handle_undefined_function'/2. A breakpoint which does not suspend
+% sends its log output to the IDE and lets the process continue. A suspending breakpoint sends only the value of
+% its log expression, the IDE logs the message itself when the process is suspended.
+%
+% The module is loaded on all connected nodes with DEBUGGER_NODE defined, hits on other nodes are checked
+% on the debugger node.
 
+-export([init/0, set/4, delete/2, check/2]).
+-export(['$handle_undefined_function'/2]).
+
+-include("process_names.hrl").
+-include("remote_debugger_messages.hrl").
+
+-ifndef(DEBUGGER_NODE).
+-define(DEBUGGER_NODE, node()).
+-endif.
+
+-record(breakpoint, {key, module, line, condition, hit_count = 0, hits = 0, suspend = true, log_message = false,
+                     log_expression}).
+
+init() ->
+  ets:new(?RDEBUG_BREAKPOINTS, [named_table, public, set, {keypos, #breakpoint.key}]).
+
+% Returns {ok, Key} if hits of the breakpoint should be checked by debug_condition:Key/1, {ok, undefined} if
+% the breakpoint should always suspend without evaluating anything.
+set(Module, Line, Condition, Options) ->
+  Key = key(Module, Line),
+  ets:delete(?RDEBUG_BREAKPOINTS, Key),
+  HitCount = proplists:get_value(hit_count, Options, 0),
+  Suspend = proplists:get_value(suspend, Options, true),
+  LogMessage = proplists:get_value(log_message, Options, false),
+  case {compile(Condition), compile(proplists:get_value(log_expression, Options, ""))} of
+    {{ok, undefined}, {ok, undefined}} when HitCount =< 1, Suspend ->
+      {ok, undefined};
+    {{ok, CompiledCondition}, {ok, CompiledLogExpression}} ->
+      ets:insert(?RDEBUG_BREAKPOINTS, #breakpoint{key = Key, module = Module, line = Line,
+                                                  condition = CompiledCondition, hit_count = HitCount,
+                                                  suspend = Suspend, log_message = LogMessage,
+                                                  log_expression = CompiledLogExpression}),
+      {ok, Key};
+    {{error, Reason}, _} ->
+      {error, {bad_condition, Reason}};
+    {_, {error, Reason}} ->
+      {error, {bad_log_expression, Reason}}
+  end.
+
+delete(Module, Line) ->
+  ets:delete(?RDEBUG_BREAKPOINTS, key(Module, Line)).
+
+'$handle_undefined_function'(Key, [Bindings]) ->
+  check(Key, Bindings);
+'$handle_undefined_function'(Function, Args) ->
+  error_handler:raise_undef_exception(?MODULE, Function, Args).
+
+% Returns true if the interpreter should suspend the process at the breakpoint.
+check(Key, Bindings) ->
+  DebuggerNode = ?DEBUGGER_NODE,
+  case node() of
+    DebuggerNode ->
+      case ets:lookup(?RDEBUG_BREAKPOINTS, Key) of
+        [Breakpoint] -> hit(Breakpoint, Bindings);
+        [] -> true
+      end;
+    _ ->
+      case rpc:call(DebuggerNode, ?MODULE, check, [Key, Bindings]) of
+        Suspend when is_boolean(Suspend) -> Suspend;
+        _ -> true
+      end
+  end.
+
+hit(#breakpoint{condition = Condition} = Breakpoint, Bindings) ->
+  is_satisfied(Condition, Bindings) andalso is_counted(Breakpoint) andalso suspend_or_log(Breakpoint, Bindings).
+
+is_satisfied(undefined, _Bindings) ->
+  true;
+is_satisfied(Condition, Bindings) ->
+  try debug_eval:eval_compiled(Condition, Bindings) of
+    {ok, true} -> true;
+    _ -> false
+  catch
+    _:_ -> false
+  end.
+
+% true on every HitCount-th hit which satisfies the condition
+is_counted(#breakpoint{hit_count = HitCount}) when HitCount =< 1 ->
+  true;
+is_counted(#breakpoint{key = Key, hit_count = HitCount}) ->
+  ets:update_counter(?RDEBUG_BREAKPOINTS, Key, {#breakpoint.hits, 1, HitCount - 1, 0}) =:= 0.
+
+suspend_or_log(#breakpoint{suspend = true} = Breakpoint, Bindings) ->
+  log(Breakpoint#breakpoint{log_message = false}, Bindings),
+  true;
+suspend_or_log(Breakpoint, Bindings) ->
+  log(Breakpoint, Bindings),
+  false.
+
+log(#breakpoint{log_message = false, log_expression = undefined}, _Bindings) ->
+  ok;
+log(#breakpoint{module = Module, line = Line, log_message = LogMessage, log_expression = LogExpression}, Bindings) ->
+  ?RDEBUG_NOTIFIER ! #breakpoint_log{module = Module, line = Line, message = LogMessage,
+                                     value = log_value(LogExpression, Bindings)}.
+
+log_value(undefined, _Bindings) ->
+  undefined;
+log_value(LogExpression, Bindings) ->
+  try debug_eval:eval_compiled(LogExpression, Bindings) of
+    {ok, Value} -> format(Value);
+    {unbound_var, Var} -> format({unbound_var, Var})
+  catch
+    Class:Reason -> format({Class, Reason})
+  end.
+
+format(Value) ->
+  case io_lib:printable_unicode_list(Value) of
+    true -> unicode:characters_to_binary(Value);
+    false -> unicode:characters_to_binary(io_lib:format("~tp", [Value]))
+  end.
+
+compile("") ->
+  {ok, undefined};
+compile(Expression) ->
+  debug_eval:compile_expression(Expression).
+
+key(Module, Line) ->
+  list_to_atom(lists:concat([Module, ":", Line])).
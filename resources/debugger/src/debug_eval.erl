@@ -2,7 +2,7 @@
 
 
 %% API
--export([eval_with_bindings/2, parse_expression/1, check_bindings/3]).
+-export([parse_expression/1, check_bindings/3, compile_expression/1, eval_compiled/2]).
 
 parse_expression(Expression) ->
   {ok,Scanned,_} = erl_scan:string(Expression),
@@ -25,23 +25,42 @@ check_bindings(Parsed, Bindings, CBindings) ->
   end.
 
 
-eval_with_bindings(Expression, Bindings) ->
+% Parses an expression for repeated evaluation. Free variables of the expression are found once here,
+% so evaluation only has to look their values up.
+compile_expression(Expression) ->
   case catch parse_expression(Expression) of
     {ok, Parsed} ->
-      try
-        %% erl_eval only allow used Bind in Bindings
-        FixResult = check_bindings(Parsed, Bindings, []),
-        case FixResult of
-          {ok, NewBindings} ->
-            {value, V, _} = erl_eval:exprs(Parsed, NewBindings),
-            V;
-          _ ->
-            false
-        end
-      catch
-        _ ->
-          false
+      case free_variables(Parsed, erl_eval:new_bindings()) of
+        {ok, Variables} -> {ok, {Parsed, Variables}};
+        Error -> Error
       end;
     _ ->
-      false
-  end.
\ No newline at end of file
+      {error, {parse_failed, Expression}}
+  end.
+
+free_variables(Parsed, Bindings) ->
+  case erl_eval:check_command(Parsed, Bindings) of
+    ok ->
+      {ok, [Var || {Var, _} <- erl_eval:bindings(Bindings)]};
+    {error, {_, erl_lint, {unbound_var, Var}}} ->
+      free_variables(Parsed, erl_eval:add_binding(Var, undefined, Bindings));
+    {error, Error} ->
+      {error, Error}
+  end.
+
+eval_compiled({Parsed, Variables}, Bindings) ->
+  case bind(Variables, Bindings, erl_eval:new_bindings()) of
+    {ok, UsedBindings} ->
+      {value, V, _} = erl_eval:exprs(Parsed, UsedBindings),
+      {ok, V};
+    Error ->
+      Error
+  end.
+
+bind([], _Bindings, Acc) ->
+  {ok, Acc};
+bind([Var | Rest], Bindings, Acc) ->
+  case int:get_binding(Var, Bindings) of
+    {value, V} -> bind(Rest, Bindings, erl_eval:add_binding(Var, V, Acc));
+    _ -> {unbound_var, Var}
+  end.
@@ -2,6 +2,12 @@
 
 -export([run/1]).
 
+% error_handler callbacks of debugged processes
+-export([undefined_function/3, undefined_lambda/3]).
+
+-export([maybe_interpret/1]).
+
+-include("process_names.hrl").
 -include("remote_debugger_messages.hrl").
 
 run(PassiveSocket) ->
@@ -26,4 +32,27 @@ reader_loop(Socket, Listener) ->
     {error, Reason} ->
       erlang:exit({recv_failed, Reason})
   end,
-  reader_loop(Socket, Listener).
\ No newline at end of file
+  reader_loop(Socket, Listener).
+
+% A debugged process runs with this module as its error_handler, so a module registered for on-demand
+% interpretation is interpreted right before it is loaded for the first time. Processes it spawns use the
+% default error_handler, the listener calls maybe_interpret/1 for them when it is traced.
+undefined_function(Module, Function, Args) ->
+  maybe_interpret(Module),
+  error_handler:undefined_function(Module, Function, Args).
+
+undefined_lambda(Module, Fun, Args) ->
+  maybe_interpret(Module),
+  error_handler:undefined_lambda(Module, Fun, Args).
+
+maybe_interpret(Module) ->
+  case catch ets:take(?RDEBUG_ON_DEMAND_MODULES, Module) of
+    [{Module, SourcePath}] ->
+      Status = case int:ni(SourcePath) of
+                 {module, _} -> ok;
+                 error -> int:interpretable(SourcePath)
+               end,
+      ?RDEBUG_NOTIFIER ! #interpret_modules_response{node = node(), statuses = [{Module, Status}]};
+    _ ->
+      ok
+  end.
\ No newline at end of file
@@ -12,6 +12,9 @@
 
 run(Debugger, DebugRoot) ->
   register(?RDEBUG_LISTENER, self()),
+  ets:new(?RDEBUG_ON_DEMAND_MODULES, [named_table, public, set]),
+  load_debug_condition(DebugRoot),
+  debug_condition:init(),
   Debugger ! #register_listener{pid = self()},
   loop(#state{debug_root = DebugRoot}).
 
@@ -33,11 +36,11 @@ handle_message(Message, State) ->
 uses_state(#interpret_modules{}) -> true;
 uses_state(#debug_remote_node{}) -> true;
 uses_state(#evaluate{}) -> true;
-uses_state(#set_breakpoint{}) -> true;
 uses_state(_Message)             -> false.
 
 process_message({interpret_modules, NewModules},
                 #state{remote_need_interprete_modules = Modules} = State) when is_list(NewModules) ->
+  [ets:delete(?RDEBUG_ON_DEMAND_MODULES, list_to_atom(filename:basename(M, ".erl"))) || M <- NewModules],
   LeftModules = interpret_modules(NewModules++Modules, State#state.remote_node),
   State#state{remote_need_interprete_modules = LeftModules};
 process_message({evaluate, Pid, Expression, MaybeStackPointer}, #state{remote_node = Node}=State) when is_pid(Pid), is_list(Expression) ->
@@ -48,23 +51,30 @@ process_message({evaluate, Pid, Expression, MaybeStackPointer}, #state{remote_no
       evaluate2(Pid, Expression, MaybeStackPointer, Node)
   end,
   State;
-process_message({debug_remote_node, Node, Cookie}, #state{remote_need_interprete_modules = Modules} = State) ->
-  debug_remote_node(Node, Cookie, Modules), State#state{remote_node = Node, remote_need_interprete_modules = []};
-
-% commands from remote debugger
-process_message({set_breakpoint, Module, Line, Condition}, #state{debug_root = DebugRoot}=State) when is_atom(Module),
-                                                     is_integer(Line), is_list(Condition) ->
-  set_breakpoint(Module, Line),
-  if
-    length(Condition) > 0 ->
-      ensure_condition(Condition, DebugRoot),
-      int:test_at_break(Module, Line, {debug_condition, list_to_atom(Condition)});
-    true ->
-      pass
+process_message({debug_remote_node, Node, Cookie}, #state{remote_need_interprete_modules = Modules,
+                                                           debug_root = DebugRoot} = State) ->
+  case debug_remote_node(Node, Cookie, Modules) of
+    true -> load_debug_condition(DebugRoot);
+    false -> ok
   end,
-  State.
-
+  State#state{remote_node = Node, remote_need_interprete_modules = []}.
 
+% commands from remote debugger
+process_message({set_breakpoint, Module, Line, Condition, Options}) when is_atom(Module),
+                                                                         is_integer(Line),
+                                                                         is_list(Condition),
+                                                                         is_list(Options) ->
+  case debug_condition:set(Module, Line, Condition, Options) of
+    {ok, undefined} ->
+      set_breakpoint(Module, Line);
+    {ok, Key} ->
+      set_breakpoint(Module, Line),
+      int:test_at_break(Module, Line, {debug_condition, Key});
+    {error, Reason} ->
+      ?RDEBUG_NOTIFIER ! #set_breakpoint_response{module = Module, line = Line, status = {error, Reason}}
+  end;
+process_message({interpret_on_demand, Modules}) when is_list(Modules) ->
+  ets:insert(?RDEBUG_ON_DEMAND_MODULES, Modules);
 process_message({remove_breakpoint, Module, Line}) when is_atom(Module),
                                                         is_integer(Line) ->
   remove_breakpoint(Module, Line);
@@ -80,6 +90,10 @@ process_message({step_out, Pid}) when is_pid(Pid) ->
   step_out(Pid);
 process_message({continue, Pid}) when is_pid(Pid) ->
   continue(Pid);
+process_message({trace, _Pid, call, {error_handler, _Function, [Module | _]}}) when is_atom(Module) ->
+  remote_debugger:maybe_interpret(Module);
+process_message({trace, _Pid, call, _MFA}) ->
+  ok;
 % responses from interpreter
 process_message({_Meta, {eval_rsp, EvalResponse}}) ->
   evaluate_response(EvalResponse);
@@ -107,6 +121,7 @@ set_breakpoint(Module, Line, Expression) ->
   ?RDEBUG_NOTIFIER ! Response.
 
 remove_breakpoint(Module, Line) ->
+  debug_condition:delete(Module, Line),
   int:delete_break(Module, Line).
 
 
@@ -117,9 +132,26 @@ run_debugger(Module, Function, ArgsString) ->
       %%TODO report error
       exit(normal);
     ArgsList ->
-      spawn_opt(Module, Function, ArgsList, [])
+      case ets:info(?RDEBUG_ON_DEMAND_MODULES, size) of
+        0 ->
+          spawn_opt(Module, Function, ArgsList, []);
+        _ ->
+          trace_error_handler_calls(),
+          Listener = self(),
+          spawn_opt(fun() ->
+                      process_flag(error_handler, remote_debugger),
+                      % error_handler is not inherited: processes spawned from here report their calls to the
+                      % default one to the listener, which interprets the module right after it is loaded
+                      erlang:trace(self(), true, [call, set_on_spawn, {tracer, Listener}]),
+                      apply(Module, Function, ArgsList)
+                    end, [])
+      end
   end.
 
+trace_error_handler_calls() ->
+  erlang:trace_pattern({error_handler, undefined_function, 3}, true, [local]),
+  erlang:trace_pattern({error_handler, undefined_lambda, 3}, true, [local]).
+
 step_into(Pid) ->
   update_break_state(Pid),
   int:step(Pid).
@@ -207,7 +239,7 @@ get_meta(Pid) ->
   dbg_iserver:call({get_meta, Pid}).
 
 evaluate_response(EvalResponse) ->
-  ?RDEBUG_NOTIFIER ! #evaluate_response{result = EvalResponse}.
+  ?RDEBUG_NOTIFIER ! #evaluate_response{result = remote_debugger_notifier:summarize(EvalResponse)}.
 
 parse_args(ArgsString) ->
   case erl_scan:string(ArgsString ++ ".") of
@@ -231,13 +263,15 @@ eval_argslist(ExprList) ->
   end.
 
 debug_remote_node(Node, Cookie, Modules) ->
-  NodeConnected = connect_to_remote_node(Node, Cookie),
+  % net_kernel returns ignored when the local node is not alive
+  NodeConnected = connect_to_remote_node(Node, Cookie) =:= true,
   Status = if
     NodeConnected -> ok;
     true -> {failed_to_connect, Node, Cookie}
   end,
   send_debug_remote_node_response(Node, Status),
-  NodeConnected andalso interpret_modules(Modules, Node).
+  NodeConnected andalso interpret_modules(Modules, Node),
+  NodeConnected.
 
 send_debug_remote_node_response(Node, ok) ->
   ?RDEBUG_NOTIFIER ! #debug_remote_node_response{node = Node, status = ok};
@@ -285,19 +319,7 @@ get_orignal_stack(Pid) ->
   end.
 
 
-ensure_condition(Condition, DebugRoot) ->
-  case erlang:function_exported(debug_condition, list_to_atom(Condition), 1) of
-    true ->
-      pass;
-    _ ->
-      add_condition(Condition,DebugRoot)
-  end.
-
-add_condition(Condition,DebugRoot) ->
-  FunString =  io_lib:format("'~s'(B) -> debug_eval:eval_with_bindings(\"~s\", B).\n",[Condition,Condition]),
-  ConditionFile = filename:append(DebugRoot, "debug_condition.erl"),
-  EvalFile = filename:append(DebugRoot, "debug_eval.erl"),
-  file:write_file(ConditionFile, FunString, [append]),
-  io:format("add condition ~s~n",[Condition]),
-  c:nc(EvalFile,[{outdir,DebugRoot}]),
-  c:nc(ConditionFile, [nowarn_export_all,{outdir,DebugRoot}]).
\ No newline at end of file
+% (re)loads debug_condition on all connected nodes, hits on other nodes are checked on this one
+load_debug_condition(DebugRoot) ->
+  ConditionFile = filename:join(DebugRoot, "debug_condition.erl"),
+  c:nc(ConditionFile, [{outdir, DebugRoot}, {d, 'DEBUGGER_NODE', node()}]).
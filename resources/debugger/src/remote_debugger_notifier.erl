@@ -4,7 +4,15 @@
 -include("remote_debugger_messages.hrl").
 -include("trace_utils.hrl").
 
--export([run/1, breakpoint_reached/1, snapshot_with_stacks/0]).
+-export([run/1, breakpoint_reached/1, snapshot_with_stacks/0, summarize/1]).
+
+% Values are summarized before they are sent to the IDE: at most ?SUMMARY_ELEMENTS list, tuple and map elements
+% per value and ?SUMMARY_BYTES bytes per binary are sent. A truncated term is replaced with
+% {?TRUNCATED, Prefix, Size} where Prefix is a term of the same type and Size is the element or byte count
+% of the original term.
+-define(SUMMARY_ELEMENTS, 10000).
+-define(SUMMARY_BYTES, 4096).
+-define(TRUNCATED, '$truncated').
 
 run(Debugger) ->
   register(?RDEBUG_NOTIFIER, self()),
@@ -44,7 +52,10 @@ do_get_stackframes(Pid) ->
   end.
 
 get_bindings(MetaPid, SP) ->
-  int:meta(MetaPid, bindings, SP).
+  summarize_bindings(int:meta(MetaPid, bindings, SP)).
+
+summarize_bindings(Bindings) ->
+  [{Name, summarize(Value)} || {Name, Value} <- Bindings].
 
 
 get_stack_frame(MetaPid, [{SP, MFA}|Left]=_Stack) ->
@@ -52,7 +63,48 @@ get_stack_frame(MetaPid, [{SP, MFA}|Left]=_Stack) ->
 
 get_stack_frame2(MetaPid, [{SP, MFA}|Left]=_Stack, Acc) ->
   {_SP2, Fun, Bindings} = int:meta(MetaPid, stack_frame, {up, SP+1}),
-  get_stack_frame2(MetaPid, Left, [{SP, MFA, Fun, Bindings}|Acc]);
+  get_stack_frame2(MetaPid, Left, [{SP, MFA, Fun, summarize_bindings(Bindings)}|Acc]);
 get_stack_frame2(_MetaPid, []=_Stack, Acc) ->
   Acc.
 
+summarize(Term) ->
+  {Summary, _Budget} = summarize(Term, ?SUMMARY_ELEMENTS),
+  Summary.
+
+summarize(Binary, Budget) when is_binary(Binary), byte_size(Binary) > ?SUMMARY_BYTES ->
+  {{?TRUNCATED, binary:part(Binary, 0, ?SUMMARY_BYTES), byte_size(Binary)}, Budget};
+summarize(List, Budget) when is_list(List) ->
+  summarize_list(List, Budget, []);
+summarize(Tuple, Budget) when is_tuple(Tuple) ->
+  case summarize_list(tuple_to_list(Tuple), Budget, []) of
+    {{?TRUNCATED, Prefix, Size}, Left} -> {{?TRUNCATED, list_to_tuple(Prefix), Size}, Left};
+    {Elements, Left} -> {list_to_tuple(Elements), Left}
+  end;
+summarize(Map, Budget) when is_map(Map) ->
+  summarize_map(maps:to_list(Map), map_size(Map), Budget, []);
+summarize(Term, Budget) ->
+  {Term, Budget}.
+
+summarize_list([], Budget, Acc) ->
+  {lists:reverse(Acc), Budget};
+summarize_list([_ | _] = List, Budget, Acc) when Budget =< 0 ->
+  {{?TRUNCATED, lists:reverse(Acc), length(Acc) + count_elements(List, 0)}, 0};
+summarize_list([Head | Tail], Budget, Acc) ->
+  {Summary, Left} = summarize(Head, Budget - 1),
+  summarize_list(Tail, Left, [Summary | Acc]);
+summarize_list(ImproperTail, Budget, Acc) ->
+  {Summary, Left} = summarize(ImproperTail, Budget),
+  {lists:reverse(Acc, Summary), Left}.
+
+% every entry costs one element, entries are kept whole or dropped, so the prefix is still a map
+summarize_map([], _Size, Budget, Acc) ->
+  {maps:from_list(Acc), Budget};
+summarize_map(_Pairs, Size, Budget, Acc) when Budget =< 0 ->
+  {{?TRUNCATED, maps:from_list(Acc), Size}, 0};
+summarize_map([{Key, Value} | Tail], Size, Budget, Acc) ->
+  {KeySummary, KeyLeft} = summarize(Key, Budget - 1),
+  {ValueSummary, Left} = summarize(Value, KeyLeft),
+  summarize_map(Tail, Size, Left, [{KeySummary, ValueSummary} | Acc]).
+
+count_elements([_ | Tail], Count) -> count_elements(Tail, Count + 1);
+count_elements(_, Count) -> Count.
@@ -19,17 +19,20 @@ package org.intellij.erlang.completion;
 import com.intellij.codeInsight.completion.*;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
+import com.intellij.codeInsight.lookup.LookupElementDecorator;
 import com.intellij.lang.ASTNode;
 import com.intellij.openapi.actionSystem.IdeActions;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.keymap.KeymapUtil;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -45,6 +48,7 @@ import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.Function;
 import com.intellij.util.ObjectUtils;
 import com.intellij.util.ProcessingContext;
+import com.intellij.util.Processor;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.containers.JBIterable;
 import org.intellij.erlang.ErlangFileType;
@@ -71,6 +75,7 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.util.*;
+import java.util.function.Predicate;
 
 import static com.intellij.patterns.PlatformPatterns.psiElement;
 import static com.intellij.patterns.StandardPatterns.instanceOf;
@@ -84,6 +89,7 @@ public class ErlangCompletionContributor extends CompletionContributor {
   public static final int BIF_PRIORITY                = -5;
   public static final int EXTERNAL_FUNCTIONS_PRIORITY = -7;
   public static final int KEYWORD_PRIORITY            = -10;
+  private static final int PROJECT_MODULE_PRIORITY     = -14;
   private static final int MODULE_PRIORITY             = -15;
   @Nullable
   private String myGetCallModule;
@@ -245,8 +251,9 @@ public class ErlangCompletionContributor extends CompletionContributor {
             String prefix = originalColonQExpr != null ?
               StringUtil.first(originalColonQExpr.getText(), parameters.getOffset() - originalColonQExpr.getTextOffset(), false) :
               moduleName != null ? moduleName + ":" : null;
-            (StringUtil.isEmpty(prefix) ? result : result.withPrefixMatcher(result.getPrefixMatcher().cloneWithPrefix(prefix) ))
-              .addAllElements(getAllExportedFunctionsWithModuleLookupElements(file.getProject(), false, moduleName));
+            addAllExportedFunctionsWithModuleLookupElements(
+              StringUtil.isEmpty(prefix) ? result : result.withPrefixMatcher(result.getPrefixMatcher().cloneWithPrefix(prefix)),
+              file.getProject(), false, moduleName);
           }
           else if (grandPa instanceof ErlangRecordField || grandPa instanceof ErlangRecordTuple) {
             Pair<List<ErlangTypedExpr>, List<ErlangQAtom>> recordFields = getRecordFields(grandPa);
@@ -276,7 +283,7 @@ public class ErlangCompletionContributor extends CompletionContributor {
               && (grandPa instanceof ErlangExpression || ErlangParserUtil.isCodeFragment(file))
               && (inFunction(position) || inConsole || PsiTreeUtil.getParentOfType(position, ErlangTypedRecordFields.class) != null)) {
             result.addAllElements(getFunctionLookupElements(file, false, null));
-            result.addAllElements(getAllExportedFunctionsWithModuleLookupElements(file.getProject(), false, null));
+            addAllExportedFunctionsWithModuleLookupElements(result, file.getProject(), false, null);
           }
 
           int invocationCount = parameters.getInvocationCount();
@@ -548,16 +555,7 @@ public class ErlangCompletionContributor extends CompletionContributor {
 
   private static void suggestModules(@NotNull CompletionResultSet result, @NotNull PsiElement position, boolean withColon) {
     Project project = position.getProject();
-
-    Collection<String> names = ErlangModuleIndex.getNames(project);
-    for (String name : names) {
-      result.addElement(
-        PrioritizedLookupElement.withPriority(
-          LookupElementBuilder.create(name)
-            .withIcon(ErlangIcons.MODULE)
-            .withInsertHandler(new QuoteInsertHandler.ModuleInsertHandler(name, withColon)),
-          MODULE_PRIORITY));
-    }
+    addModuleNames(result, project, processor -> ErlangModuleIndex.processNames(project, processor), withColon, false);
   }
 
   private static void add_file_atoms(@NotNull CompletionResultSet result, PsiFile file){
@@ -572,17 +570,61 @@ public class ErlangCompletionContributor extends CompletionContributor {
 
   private static void suggestBehaviours(@NotNull CompletionResultSet result, @NotNull PsiElement position) {
     Project project = position.getProject();
-    Collection<ErlangModule> modules = ErlangBehaviourModuleIndex.getModules(project,
-                                                                             GlobalSearchScope.allScope(project));
-    for (ErlangModule module : modules) {
-      QuoteInsertHandler.ModuleInsertHandler handler =
-        new QuoteInsertHandler.ModuleInsertHandler(module.getName(), false);
-      result.addElement(
-        PrioritizedLookupElement.withPriority(
-          LookupElementBuilder.create(module)
-                              .withIcon(ErlangIcons.MODULE)
-                              .withInsertHandler(handler),
-          MODULE_PRIORITY));
+    addModuleNames(result, project, processor -> ErlangBehaviourModuleIndex.processNames(project, processor), false, true);
+  }
+
+  /**
+   * Adds module names matching the prefix, project modules first. Names are taken from the index keys without
+   * loading PSI, and at most "erlang.completion.modules.limit" of them are added per completion invocation.
+   * With withModuleElement the module is resolved when the lookup element is asked for its PSI element.
+   */
+  private static void addModuleNames(@NotNull CompletionResultSet result,
+                                     @NotNull Project project,
+                                     @NotNull Predicate<Processor<String>> names,
+                                     boolean withColon,
+                                     boolean withModuleElement) {
+    PrefixMatcher matcher = result.getPrefixMatcher();
+    Set<String> projectModules = ErlangModuleIndex.getProjectModuleNames(project);
+    int limit = Registry.intValue("erlang.completion.modules.limit", 1000);
+    int[] added = {0};
+    for (boolean inProject : new boolean[]{true, false}) {
+      boolean completed = names.test(name -> {
+        ProgressManager.checkCanceled();
+        if (projectModules.contains(name) != inProject || !matcher.prefixMatches(name)) return true;
+        LookupElement element = LookupElementBuilder.create(name)
+          .withIcon(ErlangIcons.MODULE)
+          .withInsertHandler(new QuoteInsertHandler.ModuleInsertHandler(name, withColon));
+        if (withModuleElement) {
+          element = new ModuleLookupElement(element, project, name);
+        }
+        result.addElement(PrioritizedLookupElement.withPriority(element, inProject ? PROJECT_MODULE_PRIORITY : MODULE_PRIORITY));
+        return ++added[0] < limit && !result.isStopped();
+      });
+      if (!completed) {
+        result.restartCompletionOnAnyPrefixChange();
+        return;
+      }
+    }
+  }
+
+  private static class ModuleLookupElement extends LookupElementDecorator<LookupElement> {
+    private final Project myProject;
+    private final String myModuleName;
+
+    ModuleLookupElement(@NotNull LookupElement delegate, @NotNull Project project, @NotNull String moduleName) {
+      super(delegate);
+      myProject = project;
+      myModuleName = moduleName;
+    }
+
+    @Nullable
+    @Override
+    public PsiElement getPsiElement() {
+      for (ErlangFile file : ErlangModuleIndex.getFilesByName(myProject, myModuleName, GlobalSearchScope.allScope(myProject))) {
+        ErlangModule module = file.getModule();
+        if (module != null) return module;
+      }
+      return null;
     }
   }
 
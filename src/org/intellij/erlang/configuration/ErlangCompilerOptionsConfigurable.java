@@ -40,6 +40,7 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
   private JPanel myRootPanel;
   private JCheckBox myUseRebarCompilerCheckBox;
   private JButton myConfigureRebarButton;
+  private JCheckBox myRebarIncrementalBuildCheckBox;
   private JCheckBox myAddDebugInfoCheckBox;
   private RawCommandLineEditor myAdditionalErlcArgumentsEditor;
   private JLabel myAdditionalErlcArgumentsLabel;
@@ -93,6 +94,7 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
     myUseRebarCompilerCheckBox.setEnabled(rebarPathIsSet);
     myConfigureRebarButton.setVisible(!rebarPathIsSet);
     setUseRebarCompiler(rebarPathIsSet && mySettings.isUseRebarCompilerEnabled());
+    myRebarIncrementalBuildCheckBox.setSelected(mySettings.isRebarIncrementalBuildEnabled());
     myAddDebugInfoCheckBox.setSelected(mySettings.isAddDebugInfoEnabled());
     myAdditionalErlcArgumentsEditor.setText(argumentsString(mySettings.getAdditionalErlcArguments()));
   }
@@ -100,6 +102,7 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
   @Override
   public void apply() {
     mySettings.setUseRebarCompilerEnabled(myUseRebarCompilerCheckBox.isSelected());
+    mySettings.setRebarIncrementalBuildEnabled(myRebarIncrementalBuildCheckBox.isSelected());
     mySettings.setAddDebugInfoEnabled(myAddDebugInfoCheckBox.isSelected());
     mySettings.setAdditionalErlcArguments(arguments(myAdditionalErlcArgumentsEditor.getText()));
   }
@@ -107,6 +110,7 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
   @Override
   public boolean isModified() {
     return myUseRebarCompilerCheckBox.isSelected() != mySettings.isUseRebarCompilerEnabled() ||
+           myRebarIncrementalBuildCheckBox.isSelected() != mySettings.isRebarIncrementalBuildEnabled() ||
            myAddDebugInfoCheckBox.isSelected() != mySettings.isAddDebugInfoEnabled() ||
            !StringUtil.equals(myAdditionalErlcArgumentsEditor.getText(),
                               argumentsString(mySettings.getAdditionalErlcArguments()));
@@ -114,6 +118,7 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
 
   private void setUseRebarCompiler(boolean useRebarCompiler) {
     myUseRebarCompilerCheckBox.setSelected(useRebarCompiler);
+    myRebarIncrementalBuildCheckBox.setEnabled(useRebarCompiler);
 
     myAdditionalErlcArgumentsLabel.setVisible(!useRebarCompiler);
     myAdditionalErlcArgumentsEditor.setVisible(!useRebarCompiler);
@@ -53,6 +53,14 @@ public class ErlangCompilerSettings implements PersistentStateComponent<ErlangCo
     myCompilerOptions.myUseRebarCompiler = useRebarCompiler;
   }
 
+  public boolean isRebarIncrementalBuildEnabled() {
+    return myCompilerOptions.myRebarIncrementalBuild;
+  }
+
+  public void setRebarIncrementalBuildEnabled(boolean incrementalBuild) {
+    myCompilerOptions.myRebarIncrementalBuild = incrementalBuild;
+  }
+
   public boolean isAddDebugInfoEnabled() {
     return myCompilerOptions.myAddDebugInfoEnabled;
   }
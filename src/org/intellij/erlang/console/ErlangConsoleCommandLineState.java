@@ -31,18 +31,21 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.io.BaseOutputReader;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class ErlangConsoleCommandLineState extends CommandLineState {
   @NotNull private final ErlangConsoleRunConfiguration myConfig;
+  @Nullable private final ErlangConsoleNodeSession myNodeSession;
 
   public ErlangConsoleCommandLineState(@NotNull ErlangConsoleRunConfiguration config,
                                        @NotNull ExecutionEnvironment env) {
     super(env);
     myConfig = config;
+    myNodeSession = config.isUseNodeConnection() ? ErlangConsoleNodeSession.create() : null;
     TextConsoleBuilder consoleBuilder = new TextConsoleBuilderImpl(myConfig.getProject()) {
       @Override
       public ConsoleView getConsole() {
-        ErlangConsoleView consoleView = new ErlangConsoleView(myConfig.getProject());
+        ErlangConsoleView consoleView = new ErlangConsoleView(myConfig.getProject(), myNodeSession);
         ErlangConsoleUtil.attachFilters(myConfig.getProject(), consoleView);
         return consoleView;
       }
@@ -59,6 +62,9 @@ public class ErlangConsoleCommandLineState extends CommandLineState {
     commandLine.setExePath(ErlangConsoleUtil.getErlPath(project, module));
     String consoleArgs = myConfig.getConsoleArgs();
     commandLine.addParameters(StringUtil.split(consoleArgs, " "));
+    if (myNodeSession != null) {
+      commandLine.addParameters(myNodeSession.getNodeArgs());
+    }
     commandLine.addParameters(ErlangConsoleUtil.getCodePath(project, module, myConfig.isUseTestCodePath()));
     commandLine.setWorkDirectory(ErlangConsoleUtil.getWorkingDirPath(project, myConfig.getWorkingDirPath()));
     OSProcessHandler handler = new OSProcessHandler(commandLine.createProcess(), commandLine.getCommandLineString()){
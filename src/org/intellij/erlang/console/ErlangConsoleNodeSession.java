@@ -0,0 +1,419 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.console;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates console input on an Erlang node over the distribution protocol.
+ * <p>
+ * Input is scanned, split into dot-terminated expression sequences, parsed and evaluated with
+ * {@code erl_eval:exprs/2}. Bindings are kept between evaluations and can be forgotten with {@code f()} and
+ * {@code f(Var)} and listed with {@code b()}, as in the shell. Output produced by evaluated code goes to the
+ * node's standard output.
+ */
+final class ErlangConsoleNodeSession {
+  private static final Logger LOG = Logger.getInstance(ErlangConsoleNodeSession.class);
+  private static final int CONNECT_ATTEMPTS = 50;
+  private static final long CONNECT_RETRY_MS = 200;
+  static final int CHUNK_SIZE = 16 * 1024;
+
+  private final String myNodeName;
+  private final String myCookie;
+  @Nullable private volatile OtpConnection myConnection;
+  private OtpErlangObject myBindings = new OtpErlangList();
+
+  ErlangConsoleNodeSession(@NotNull String nodeName, @NotNull String cookie) {
+    myNodeName = nodeName;
+    myCookie = cookie;
+  }
+
+  @NotNull
+  static ErlangConsoleNodeSession create() {
+    String id = Long.toHexString(System.nanoTime());
+    return new ErlangConsoleNodeSession("erlang_console_" + id + "@localhost", UUID.randomUUID().toString().replace("-", ""));
+  }
+
+  /**
+   * Arguments making the started node reachable by this session.
+   */
+  @NotNull
+  List<String> getNodeArgs() {
+    return Arrays.asList("-sname", myNodeName, "-setcookie", myCookie, "-noshell");
+  }
+
+  /**
+   * Evaluates console input. Each result is reported once it is available, so a failing expression does not
+   * prevent reporting of the preceding ones.
+   */
+  synchronized void evaluate(@NotNull String text, @NotNull Consumer<EvaluationResult> resultConsumer) {
+    String command = text.trim();
+    if (handleShellCommand(command, resultConsumer)) return;
+    try {
+      OtpErlangObject scanned = call("erl_scan", "string", new OtpErlangString(text));
+      OtpErlangTuple scanResult = scanned instanceof OtpErlangTuple ? (OtpErlangTuple) scanned : null;
+      if (scanResult == null || !isAtom(scanResult.elementAt(0), "ok")) {
+        resultConsumer.accept(EvaluationResult.error(formatError(scanResult != null ? scanResult.elementAt(1) : scanned)));
+        return;
+      }
+      for (OtpErlangList tokens : splitAtDots(scanResult.elementAt(1))) {
+        EvaluationResult result = evaluateTokens(tokens);
+        resultConsumer.accept(result);
+        if (result.getError() != null) return;
+      }
+    } catch (IOException | OtpException e) {
+      LOG.debug("Failed to evaluate on " + myNodeName, e);
+      disconnect();
+      resultConsumer.accept(EvaluationResult.error("Connection to " + myNodeName + " failed: " + e.getMessage()));
+    }
+  }
+
+  /**
+   * Names and values bound by previous evaluations.
+   */
+  @NotNull
+  synchronized Map<String, OtpErlangObject> getBindings() {
+    Map<String, OtpErlangObject> bindings = new LinkedHashMap<>();
+    if (myBindings instanceof OtpErlangList) {
+      for (OtpErlangObject binding : (OtpErlangList) myBindings) {
+        if (binding instanceof OtpErlangTuple && ((OtpErlangTuple) binding).arity() == 2 &&
+            ((OtpErlangTuple) binding).elementAt(0) instanceof OtpErlangAtom) {
+          bindings.put(((OtpErlangAtom) ((OtpErlangTuple) binding).elementAt(0)).atomValue(), ((OtpErlangTuple) binding).elementAt(1));
+        }
+      }
+    }
+    else if (myBindings instanceof OtpErlangMap) {
+      OtpErlangMap map = (OtpErlangMap) myBindings;
+      for (OtpErlangObject key : map.keys()) {
+        if (key instanceof OtpErlangAtom) {
+          bindings.put(((OtpErlangAtom) key).atomValue(), map.get(key));
+        }
+      }
+    }
+    return bindings;
+  }
+
+  /**
+   * Closes the connection, which also interrupts an evaluation in progress.
+   */
+  void disconnect() {
+    OtpConnection connection = myConnection;
+    myConnection = null;
+    if (connection != null) {
+      connection.close();
+    }
+  }
+
+  @NotNull
+  private EvaluationResult evaluateTokens(@NotNull OtpErlangList tokens) throws IOException, OtpException {
+    OtpErlangObject parsed = call("erl_parse", "parse_exprs", tokens);
+    OtpErlangTuple parseResult = parsed instanceof OtpErlangTuple ? (OtpErlangTuple) parsed : null;
+    if (parseResult == null || !isAtom(parseResult.elementAt(0), "ok")) {
+      return EvaluationResult.error(formatError(parseResult != null ? parseResult.elementAt(1) : parsed));
+    }
+    OtpErlangObject evaluated = call("erl_eval", "exprs", parseResult.elementAt(1), myBindings);
+    // {value, Value, NewBindings} or {badrpc, Reason} if an exception was raised
+    OtpErlangTuple evalResult = evaluated instanceof OtpErlangTuple ? (OtpErlangTuple) evaluated : null;
+    if (evalResult == null || evalResult.arity() != 3 || !isAtom(evalResult.elementAt(0), "value")) {
+      return EvaluationResult.error(formatException(evaluated));
+    }
+    myBindings = evalResult.elementAt(2);
+    return EvaluationResult.value(evalResult.elementAt(1));
+  }
+
+  private boolean handleShellCommand(@NotNull String command, @NotNull Consumer<EvaluationResult> resultConsumer) {
+    if ("f().".equals(command)) {
+      myBindings = new OtpErlangList();
+      resultConsumer.accept(EvaluationResult.value(new OtpErlangAtom("ok")));
+      return true;
+    }
+    if (command.startsWith("f(") && command.endsWith(").")) {
+      String name = command.substring(2, command.length() - 2).trim();
+      if (name.isEmpty() || !Character.isUpperCase(name.charAt(0)) && name.charAt(0) != '_') return false;
+      Map<String, OtpErlangObject> bindings = getBindings();
+      bindings.remove(name);
+      myBindings = toBindingList(bindings);
+      resultConsumer.accept(EvaluationResult.value(new OtpErlangAtom("ok")));
+      return true;
+    }
+    if ("b().".equals(command)) {
+      StringBuilder builder = new StringBuilder();
+      for (Map.Entry<String, OtpErlangObject> binding : getBindings().entrySet()) {
+        builder.append(binding.getKey()).append(" = ").append(binding.getValue()).append('\n');
+      }
+      resultConsumer.accept(EvaluationResult.output(builder.toString()));
+      return true;
+    }
+    return false;
+  }
+
+  @NotNull
+  private OtpErlangObject call(@NotNull String module, @NotNull String function, @NotNull OtpErlangObject... args)
+    throws IOException, OtpException {
+    OtpConnection connection = getConnection();
+    connection.sendRPC(module, function, args);
+    return connection.receiveRPC();
+  }
+
+  @NotNull
+  private OtpConnection getConnection() throws IOException, OtpAuthException {
+    OtpConnection connection = myConnection;
+    if (connection != null && connection.isConnected()) return connection;
+    OtpSelf self = new OtpSelf("intellij_console_" + Long.toHexString(System.nanoTime()) + "@localhost", myCookie);
+    OtpPeer peer = new OtpPeer(myNodeName);
+    IOException lastError = null;
+    // the node may still be starting
+    for (int attempt = 0; attempt < CONNECT_ATTEMPTS; attempt++) {
+      try {
+        connection = self.connect(peer);
+        myConnection = connection;
+        return connection;
+      } catch (IOException e) {
+        lastError = e;
+      }
+      try {
+        Thread.sleep(CONNECT_RETRY_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    throw lastError != null ? lastError : new IOException("Failed to connect to " + myNodeName);
+  }
+
+  // {Location, Module, Descriptor}
+  @NotNull
+  private String formatError(@Nullable OtpErlangObject errorInfo) throws IOException, OtpException {
+    if (errorInfo instanceof OtpErlangTuple && ((OtpErlangTuple) errorInfo).arity() == 3 &&
+        ((OtpErlangTuple) errorInfo).elementAt(1) instanceof OtpErlangAtom) {
+      OtpErlangTuple info = (OtpErlangTuple) errorInfo;
+      OtpErlangObject message = call(((OtpErlangAtom) info.elementAt(1)).atomValue(), "format_error", info.elementAt(2));
+      String text = stringValue(call("unicode", "characters_to_list", message));
+      if (text != null) return "* " + location(info.elementAt(0)) + text;
+    }
+    return "* " + errorInfo;
+  }
+
+  @NotNull
+  private static String formatException(@Nullable OtpErlangObject result) {
+    // {badrpc, {'EXIT', {Reason, Stacktrace}}}
+    if (result instanceof OtpErlangTuple && isAtom(((OtpErlangTuple) result).elementAt(0), "badrpc")) {
+      OtpErlangObject reason = ((OtpErlangTuple) result).elementAt(1);
+      if (reason instanceof OtpErlangTuple && isAtom(((OtpErlangTuple) reason).elementAt(0), "EXIT")) {
+        OtpErlangObject exit = ((OtpErlangTuple) reason).elementAt(1);
+        if (exit instanceof OtpErlangTuple && ((OtpErlangTuple) exit).arity() == 2) {
+          exit = ((OtpErlangTuple) exit).elementAt(0);
+        }
+        return "** exception error: " + exit;
+      }
+      return "** exception error: " + reason;
+    }
+    return "** unexpected result: " + result;
+  }
+
+  @NotNull
+  private static String location(@Nullable OtpErlangObject location) {
+    if (location instanceof OtpErlangLong) return location + ": ";
+    if (location instanceof OtpErlangTuple && ((OtpErlangTuple) location).arity() == 2) {
+      return ((OtpErlangTuple) location).elementAt(0) + ":" + ((OtpErlangTuple) location).elementAt(1) + ": ";
+    }
+    return "";
+  }
+
+  @NotNull
+  static List<OtpErlangList> splitAtDots(@Nullable OtpErlangObject tokens) {
+    List<OtpErlangList> sequences = new ArrayList<>();
+    if (!(tokens instanceof OtpErlangList)) return sequences;
+    List<OtpErlangObject> sequence = new ArrayList<>();
+    for (OtpErlangObject token : (OtpErlangList) tokens) {
+      sequence.add(token);
+      if (token instanceof OtpErlangTuple && isAtom(((OtpErlangTuple) token).elementAt(0), "dot")) {
+        sequences.add(new OtpErlangList(sequence.toArray(new OtpErlangObject[0])));
+        sequence.clear();
+      }
+    }
+    if (!sequence.isEmpty()) {
+      sequences.add(new OtpErlangList(sequence.toArray(new OtpErlangObject[0])));
+    }
+    return sequences;
+  }
+
+  @NotNull
+  private static OtpErlangList toBindingList(@NotNull Map<String, OtpErlangObject> bindings) {
+    List<OtpErlangObject> list = new ArrayList<>(bindings.size());
+    for (Map.Entry<String, OtpErlangObject> binding : bindings.entrySet()) {
+      list.add(new OtpErlangTuple(new OtpErlangObject[]{new OtpErlangAtom(binding.getKey()), binding.getValue()}));
+    }
+    return new OtpErlangList(list.toArray(new OtpErlangObject[0]));
+  }
+
+  /**
+   * Prints a term in chunks of at most {@link #CHUNK_SIZE} characters, so large values don't have to be
+   * rendered into a single string.
+   */
+  static void printTerm(@NotNull OtpErlangObject term, @NotNull Consumer<String> chunkConsumer) {
+    StringBuilder builder = new StringBuilder();
+    appendTerm(builder, term, chunkConsumer);
+    if (builder.length() > 0) {
+      chunkConsumer.accept(builder.toString());
+    }
+  }
+
+  private static void appendTerm(@NotNull StringBuilder builder, @NotNull OtpErlangObject term, @NotNull Consumer<String> chunkConsumer) {
+    if (term instanceof OtpErlangTuple) {
+      appendElements(builder, "{", ((OtpErlangTuple) term).elements(), null, "}", chunkConsumer);
+    }
+    else if (term instanceof OtpErlangList) {
+      String string = stringValue(term);
+      if (string != null && isPrintable(string)) {
+        builder.append(new OtpErlangString(string));
+      }
+      else {
+        OtpErlangList list = (OtpErlangList) term;
+        appendElements(builder, "[", list.elements(), list.getLastTail(), "]", chunkConsumer);
+      }
+    }
+    else if (term instanceof OtpErlangMap) {
+      OtpErlangMap map = (OtpErlangMap) term;
+      builder.append("#{");
+      OtpErlangObject[] keys = map.keys();
+      for (int i = 0; i < keys.length; i++) {
+        if (i > 0) builder.append(',');
+        appendTerm(builder, keys[i], chunkConsumer);
+        builder.append(" => ");
+        appendTerm(builder, map.get(keys[i]), chunkConsumer);
+      }
+      builder.append('}');
+    }
+    else if (term instanceof OtpErlangBinary) {
+      appendBinary(builder, ((OtpErlangBinary) term).binaryValue());
+    }
+    else {
+      builder.append(term);
+    }
+    if (builder.length() >= CHUNK_SIZE) {
+      chunkConsumer.accept(builder.toString());
+      builder.setLength(0);
+    }
+  }
+
+  private static void appendElements(@NotNull StringBuilder builder,
+                                     @NotNull String open,
+                                     @NotNull OtpErlangObject[] elements,
+                                     @Nullable OtpErlangObject tail,
+                                     @NotNull String close,
+                                     @NotNull Consumer<String> chunkConsumer) {
+    builder.append(open);
+    for (int i = 0; i < elements.length; i++) {
+      if (i > 0) builder.append(',');
+      appendTerm(builder, elements[i], chunkConsumer);
+    }
+    if (tail != null) {
+      builder.append('|');
+      appendTerm(builder, tail, chunkConsumer);
+    }
+    builder.append(close);
+  }
+
+  private static void appendBinary(@NotNull StringBuilder builder, @NotNull byte[] bytes) {
+    String text = new String(bytes, StandardCharsets.UTF_8);
+    if (bytes.length > 0 && isPrintable(text) && Arrays.equals(text.getBytes(StandardCharsets.UTF_8), bytes)) {
+      builder.append("<<").append(new OtpErlangString(text)).append(">>");
+      return;
+    }
+    builder.append("<<");
+    for (int i = 0; i < bytes.length; i++) {
+      if (i > 0) builder.append(',');
+      builder.append(bytes[i] & 0xFF);
+    }
+    builder.append(">>");
+  }
+
+  @Nullable
+  private static String stringValue(@Nullable OtpErlangObject object) {
+    if (object instanceof OtpErlangString) return ((OtpErlangString) object).stringValue();
+    if (object instanceof OtpErlangList && ((OtpErlangList) object).arity() > 0) {
+      try {
+        return ((OtpErlangList) object).stringValue();
+      } catch (OtpErlangException ignore) {
+      }
+    }
+    return null;
+  }
+
+  private static boolean isPrintable(@NotNull String string) {
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c < ' ' && c != '\n' && c != '\t' && c != '\r') return false;
+    }
+    return true;
+  }
+
+  private static boolean isAtom(@Nullable OtpErlangObject object, @NotNull String atom) {
+    return object instanceof OtpErlangAtom && atom.equals(((OtpErlangAtom) object).atomValue());
+  }
+
+  static final class EvaluationResult {
+    @Nullable private final OtpErlangObject myValue;
+    @Nullable private final String myOutput;
+    @Nullable private final String myError;
+
+    private EvaluationResult(@Nullable OtpErlangObject value, @Nullable String output, @Nullable String error) {
+      myValue = value;
+      myOutput = output;
+      myError = error;
+    }
+
+    @NotNull
+    static EvaluationResult value(@NotNull OtpErlangObject value) {
+      return new EvaluationResult(value, null, null);
+    }
+
+    @NotNull
+    static EvaluationResult output(@NotNull String output) {
+      return new EvaluationResult(null, output, null);
+    }
+
+    @NotNull
+    static EvaluationResult error(@NotNull String error) {
+      return new EvaluationResult(null, null, error);
+    }
+
+    @Nullable
+    OtpErlangObject getValue() {
+      return myValue;
+    }
+
+    @Nullable
+    String getOutput() {
+      return myOutput;
+    }
+
+    @Nullable
+    String getError() {
+      return myError;
+    }
+  }
+}
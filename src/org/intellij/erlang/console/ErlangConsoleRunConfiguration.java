@@ -41,6 +41,7 @@ public final class ErlangConsoleRunConfiguration extends ModuleBasedConfiguratio
   @NotNull private String myWorkingDirPath;
   private String myConsoleArgs;
   private Boolean myUseTestCodePath;
+  private boolean myUseNodeConnection;
 
   public ErlangConsoleRunConfiguration(@NotNull String name, @NotNull Project project) {
     super(name, new RunConfigurationModule(project), ErlangConsoleRunConfigurationFactory.getInstance());
@@ -119,4 +120,12 @@ public final class ErlangConsoleRunConfiguration extends ModuleBasedConfiguratio
   public void setUseTestCodePath(Boolean useTestCodePath) {
     myUseTestCodePath = useTestCodePath;
   }
+
+  public boolean isUseNodeConnection() {
+    return myUseNodeConnection;
+  }
+
+  public void setUseNodeConnection(boolean useNodeConnection) {
+    myUseNodeConnection = useNodeConnection;
+  }
 }
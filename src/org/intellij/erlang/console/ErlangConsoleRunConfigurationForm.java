@@ -36,6 +36,7 @@ public final class ErlangConsoleRunConfigurationForm extends SettingsEditor<Erla
   private TextFieldWithBrowseButton myWorkingDirPathField;
   private JComboBox<Module> myModuleComboBox;
   private JCheckBox myUseTestsCodePathCheckBox;
+  private JCheckBox myUseNodeConnectionCheckBox;
 
   @Nullable private final Module myInitialModule;
 
@@ -62,6 +63,7 @@ public final class ErlangConsoleRunConfigurationForm extends SettingsEditor<Erla
     myModuleComboBox.setSelectedItem(config.getConfigurationModule().getModule());
     myConsoleArgsEditor.setText(config.getConsoleArgs());
     myUseTestsCodePathCheckBox.setSelected(config.isUseTestCodePath());
+    myUseNodeConnectionCheckBox.setSelected(config.isUseNodeConnection());
   }
 
   @Override
@@ -70,6 +72,7 @@ public final class ErlangConsoleRunConfigurationForm extends SettingsEditor<Erla
     config.setWorkingDirPath(myWorkingDirPathField.getText());
     config.setConsoleArgs(myConsoleArgsEditor.getText());
     config.setUseTestCodePath(myUseTestsCodePathCheckBox.isSelected());
+    config.setUseNodeConnection(myUseNodeConnectionCheckBox.isSelected());
   }
 
   @NotNull
@@ -19,15 +19,20 @@ package org.intellij.erlang.console;
 import com.intellij.execution.console.ConsoleHistoryController;
 import com.intellij.execution.console.LanguageConsoleImpl;
 import com.intellij.execution.process.ProcessHandler;
+import com.intellij.execution.ui.ConsoleViewContentType;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.ex.EditorEx;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.intellij.erlang.ErlangLanguage;
 import org.intellij.erlang.psi.*;
+import org.intellij.erlang.psi.impl.ErlangElementFactory;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.intellij.erlang.psi.impl.ErlangVarProcessor;
 import org.jetbrains.annotations.NotNull;
@@ -39,16 +44,32 @@ import java.io.OutputStreamWriter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 public final class ErlangConsoleView extends LanguageConsoleImpl {
   @Nullable
   private ConsoleHistoryController myHistoryController;
   @Nullable
   private OutputStreamWriter myProcessInputWriter;
+  @Nullable
+  private final ErlangConsoleNodeSession myNodeSession;
+  @Nullable
+  private final ExecutorService myNodeEvaluator;
   public static final Key<Map<String, List<ErlangExpression>>> ERLANG_RECORD_CONTEXT = Key.create("ERLANG_RECORD_CONTEXT");
 
   public ErlangConsoleView(@NotNull Project project) {
+    this(project, null);
+  }
+
+  /**
+   * @param nodeSession if not null, input is evaluated on the node over the distribution protocol instead of
+   *                    being written to the shell's standard input
+   */
+  ErlangConsoleView(@NotNull Project project, @Nullable ErlangConsoleNodeSession nodeSession) {
     super(project, "Erlang Console", ErlangLanguage.INSTANCE);
+    myNodeSession = nodeSession;
+    myNodeEvaluator = nodeSession != null ? AppExecutorUtil.createBoundedApplicationPoolExecutor("Erlang Console Evaluator", 1) : null;
 
     setPrompt(">");
     PsiFile originalFile = getFile().getOriginalFile();
@@ -76,6 +97,10 @@ public final class ErlangConsoleView extends LanguageConsoleImpl {
   public void dispose() {
     super.dispose();
     ErlangConsoleViewDirectory.getInstance().delConsole(this);
+    if (myNodeSession != null && myNodeEvaluator != null) {
+      myNodeSession.disconnect();
+      myNodeEvaluator.shutdownNow();
+    }
   }
 
   public void append(@NotNull final String text) {
@@ -94,6 +119,13 @@ public final class ErlangConsoleView extends LanguageConsoleImpl {
     Document editorDocument = consoleEditor.getDocument();
     String text = editorDocument.getText();
 
+    if (myNodeSession != null) {
+      addToHistoryInner(new TextRange(0, text.length()), consoleEditor, true, true);
+      myHistoryController.addToHistory(text);
+      evaluateOnNode(myNodeSession, text);
+      return;
+    }
+
     final Map<String, ErlangQVar> context = getFile().getOriginalFile().getUserData(ErlangVarProcessor.ERLANG_VARIABLE_CONTEXT);
     final Map<String, List<ErlangExpression>> recordContext = getFile().getOriginalFile().getUserData(ERLANG_RECORD_CONTEXT);
     if (context != null) { // todo: process only successful statements
@@ -127,6 +159,42 @@ public final class ErlangConsoleView extends LanguageConsoleImpl {
     }
   }
 
+  private void evaluateOnNode(@NotNull ErlangConsoleNodeSession session, @NotNull String text) {
+    assert myNodeEvaluator != null;
+    myNodeEvaluator.execute(() -> {
+      session.evaluate(text, result -> {
+        if (result.getValue() != null) {
+          ErlangConsoleNodeSession.printTerm(result.getValue(), chunk -> print(chunk, ConsoleViewContentType.NORMAL_OUTPUT));
+          print("\n", ConsoleViewContentType.NORMAL_OUTPUT);
+        }
+        else if (result.getOutput() != null) {
+          print(result.getOutput(), ConsoleViewContentType.NORMAL_OUTPUT);
+        }
+        else if (result.getError() != null) {
+          print(result.getError() + "\n", ConsoleViewContentType.ERROR_OUTPUT);
+        }
+      });
+      Set<String> boundNames = session.getBindings().keySet();
+      ApplicationManager.getApplication().invokeLater(() -> updateVariableContext(boundNames), getProject().getDisposed());
+    });
+  }
+
+  /**
+   * Makes the variables bound on the node known to resolve and completion.
+   */
+  private void updateVariableContext(@NotNull Set<String> boundNames) {
+    Map<String, ErlangQVar> context = getFile().getOriginalFile().getUserData(ErlangVarProcessor.ERLANG_VARIABLE_CONTEXT);
+    if (context == null) return;
+    context.keySet().retainAll(boundNames);
+    for (String name : boundNames) {
+      if (context.containsKey(name)) continue;
+      PsiElement qVar = ErlangElementFactory.createQVarFromText(getProject(), name);
+      if (qVar instanceof ErlangQVar) {
+        context.put(name, (ErlangQVar) qVar);
+      }
+    }
+  }
+
   private static void checkRecords(@NotNull ErlangFunctionCallExpression o,
                                    String name,
                                    int size,
@@ -15,29 +15,41 @@
  */
 package org.intellij.erlang.console;
 
+import com.intellij.execution.filters.FileHyperlinkInfo;
 import com.intellij.execution.filters.Filter;
-import com.intellij.execution.filters.HyperlinkInfo;
 import com.intellij.execution.filters.InvalidExpressionException;
-import com.intellij.execution.filters.OpenFileHyperlinkInfo;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.ProjectScope;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.SLRUMap;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Highlights file references in console output.
+ * <p>
+ * Lines which can't contain a reference are rejected by a plain substring check before the regex is run, so
+ * the filter keeps up with large logs. A reference may span up to {@link #CACHE_LINE_SIZE} lines. Paths are
+ * resolved only when a hyperlink is followed, and resolved paths are kept in a bounded cache.
+ */
 public final class FileReferenceFilter implements Filter {
   public static final String PATH_MACROS = "$FILE_PATH$";
   public static final String LINE_MACROS = "$LINE$";
@@ -48,15 +60,24 @@ public final class FileReferenceFilter implements Filter {
 
   private static final Pattern PATTERN_FILENAME = Pattern.compile("[/\\\\]?([^/\\\\]*?\\.erl)$");
 
+  private static final int CACHE_LINE_SIZE = 3;
+  private static final int PATH_CACHE_SIZE = 256;
+
   private final Pattern myPattern;
   private final Project myProject;
   private final int myFileMatchGroup;
   private final int myLineMatchGroup;
   private final int myColumnMatchGroup;
+  @Nullable private final String myAnchor;
+  private final boolean myAnchorFollowedByNumber;
+
+  private final String[] myLines = new String[CACHE_LINE_SIZE];
+  private final boolean[] myLineHasAnchor = new boolean[CACHE_LINE_SIZE];
+  private int myLineCount;
+
+  private final SLRUMap<String, ResolvedPath> myResolvedPaths = new SLRUMap<>(PATH_CACHE_SIZE, PATH_CACHE_SIZE);
+  private long myResolvedPathsStamp = -1;
 
-  private static final int CACHE_LINE_SIZE = 3;
-  private Queue<String> myLineQueue = new LinkedList<>();
-  
   public FileReferenceFilter(@NotNull Project project, @NonNls @NotNull String expression) {
     myProject = project;
     if (StringUtil.isEmpty(expression)) {
@@ -69,6 +90,14 @@ public final class FileReferenceFilter implements Filter {
     if (filePathIndex == -1) {
       throw new InvalidExpressionException("Expression must contain " + PATH_MACROS + " macros.");
     }
+
+    // Cheap pre-check: the text right before a line number followed by a digit, or else the longest plain text
+    // of the expression, must occur in a line that can be matched.
+    List<String> beforeLine = lineIndex != -1 ? literalRuns(expression.substring(0, lineIndex)) : null;
+    String anchor = beforeLine != null ? ContainerUtil.getLastItem(beforeLine) : null;
+    myAnchorFollowedByNumber = !StringUtil.isEmpty(anchor);
+    myAnchor = myAnchorFollowedByNumber ? anchor : longestLiteral(expression);
+
     TreeMap<Integer,String> map = new TreeMap<>();
     map.put(filePathIndex, PATH_MACROS);
     expression = StringUtil.replace(expression, PATH_MACROS, FILE_PATH_REGEXP);
@@ -107,16 +136,28 @@ public final class FileReferenceFilter implements Filter {
   }
 
   public Result applyFilter(@NotNull String line, int entireLength) {
-    Matcher matcher = myPattern.matcher(line);
+    boolean hasAnchor = containsAnchor(line);
+    if (!hasAnchor && !windowContainsAnchor()) {
+      pushLine(line, false);
+      return null;
+    }
+    Matcher matcher = null;
     boolean multiline = false;
-    if (!matcher.find()) {
-      line = cacheLines(myLineQueue, line);
+    if (hasAnchor) {
+      matcher = myPattern.matcher(line);
+      if (!matcher.find()) {
+        matcher = null;
+      }
+    }
+    if (matcher == null) {
+      pushLine(line, hasAnchor);
+      line = joinLines();
       matcher = myPattern.matcher(line);
       if (!matcher.find())
         return null;
       multiline = true;
     }
-    myLineQueue.clear();
+    clearLines();
     String filePath = matcher.group(myFileMatchGroup);
     int fileLine = matchGroupToNumber(matcher, myLineMatchGroup);
     int fileCol = matchGroupToNumber(matcher, myColumnMatchGroup);
@@ -130,10 +171,57 @@ public final class FileReferenceFilter implements Filter {
       highlightStartOffset = entireLength - line.length() + matcher.start(0);
       highlightEndOffset = highlightStartOffset + matcher.end(0) - matcher.start(0);
     }
-    VirtualFile absolutePath = resolveAbsolutePath(filePath);
-    HyperlinkInfo hyperLink = absolutePath != null
-      ? new OpenFileHyperlinkInfo(myProject, absolutePath, fileLine, fileCol) : null;
-    return new Result(highlightStartOffset, highlightEndOffset, hyperLink);
+    return new Result(highlightStartOffset, highlightEndOffset, new FileReferenceHyperlinkInfo(filePath, fileLine, fileCol));
+  }
+
+  private boolean containsAnchor(@NotNull String line) {
+    if (myAnchor == null) return true;
+    int index = line.indexOf(myAnchor);
+    if (!myAnchorFollowedByNumber) return index != -1;
+    while (index != -1) {
+      int next = index + myAnchor.length();
+      if (next < line.length() && isDigit(line.charAt(next))) return true;
+      index = line.indexOf(myAnchor, index + 1);
+    }
+    return false;
+  }
+
+  private boolean windowContainsAnchor() {
+    for (int i = 0; i < myLineCount; i++) {
+      if (myLineHasAnchor[i]) return true;
+    }
+    return false;
+  }
+
+  private void pushLine(@NotNull String line, boolean hasAnchor) {
+    if (myLineCount == CACHE_LINE_SIZE) {
+      System.arraycopy(myLines, 1, myLines, 0, CACHE_LINE_SIZE - 1);
+      System.arraycopy(myLineHasAnchor, 1, myLineHasAnchor, 0, CACHE_LINE_SIZE - 1);
+      myLineCount--;
+    }
+    myLines[myLineCount] = line;
+    myLineHasAnchor[myLineCount] = hasAnchor;
+    myLineCount++;
+  }
+
+  @NotNull
+  private String joinLines() {
+    int length = 0;
+    for (int i = 0; i < myLineCount; i++) {
+      length += myLines[i].length();
+    }
+    StringBuilder concatLine = new StringBuilder(length);
+    for (int i = 0; i < myLineCount; i++) {
+      concatLine.append(myLines[i]);
+    }
+    return concatLine.toString();
+  }
+
+  private void clearLines() {
+    for (int i = 0; i < myLineCount; i++) {
+      myLines[i] = null;
+    }
+    myLineCount = 0;
   }
 
   private static int matchGroupToNumber(@NotNull Matcher matcher, int matchGroup) {
@@ -148,16 +236,33 @@ public final class FileReferenceFilter implements Filter {
   }
 
   @Nullable
-  private VirtualFile resolveAbsolutePath(@NotNull String path) {
-    VirtualFile asIsFile = pathToVirtualFile(path);
-    if (asIsFile != null) {
-      return asIsFile;
+  private VirtualFile getResolvedPath(@NotNull String path) {
+    long stamp = VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS.getModificationCount();
+    synchronized (myResolvedPaths) {
+      if (myResolvedPathsStamp != stamp) {
+        myResolvedPaths.clear();
+        myResolvedPathsStamp = stamp;
+      }
+      ResolvedPath cached = myResolvedPaths.get(path);
+      if (cached != null && (cached.myFile == null || cached.myFile.isValid())) return cached.myFile;
+    }
+    if (DumbService.isDumb(myProject)) {
+      return resolveLocalPath(path);
+    }
+    VirtualFile file = ReadAction.compute(() -> resolveAbsolutePath(path));
+    synchronized (myResolvedPaths) {
+      if (myResolvedPathsStamp == stamp) {
+        myResolvedPaths.put(path, new ResolvedPath(file));
+      }
     }
-    String projectBasedPath = path.startsWith(myProject.getBasePath())
-      ? path : new File(myProject.getBasePath(), path).getAbsolutePath();
-    VirtualFile projectBasedFile = pathToVirtualFile(projectBasedPath);
-    if (projectBasedFile != null) {
-      return projectBasedFile;
+    return file;
+  }
+
+  @Nullable
+  private VirtualFile resolveAbsolutePath(@NotNull String path) {
+    VirtualFile localFile = resolveLocalPath(path);
+    if (localFile != null) {
+      return localFile;
     }
     Matcher filenameMatcher = PATTERN_FILENAME.matcher(path);
     if (filenameMatcher.find()) {
@@ -176,21 +281,143 @@ public final class FileReferenceFilter implements Filter {
     return null;
   }
 
+  @Nullable
+  private VirtualFile resolveLocalPath(@NotNull String path) {
+    VirtualFile asIsFile = pathToVirtualFile(path);
+    if (asIsFile != null) {
+      return asIsFile;
+    }
+    String basePath = myProject.getBasePath();
+    if (basePath == null) {
+      return null;
+    }
+    String projectBasedPath = path.startsWith(basePath)
+      ? path : new File(basePath, path).getAbsolutePath();
+    return pathToVirtualFile(projectBasedPath);
+  }
+
   @Nullable
   private static VirtualFile pathToVirtualFile(@NotNull String path) {
     String normalizedPath = path.replace(File.separatorChar, '/');
     return LocalFileSystem.getInstance().findFileByPath(normalizedPath);
   }
-  
-  private String cacheLines(Queue<String> oldQueue, String line){
-    if (oldQueue.size() >= CACHE_LINE_SIZE)
-      oldQueue.remove();
-    oldQueue.add(line);
-    StringBuilder concatLine = new StringBuilder();
-    for (String l : oldQueue){
-      concatLine.append(l);
+
+  @Nullable
+  private static String longestLiteral(@NotNull String expression) {
+    List<String> runs = literalRuns(expression);
+    if (runs == null) return null;
+    String longest = null;
+    for (String run : runs) {
+      if (!run.isEmpty() && (longest == null || run.length() > longest.length())) {
+        longest = run;
+      }
+    }
+    return longest;
+  }
+
+  /**
+   * Splits an expression into the runs of plain text it requires, outside of groups. The last run is the text
+   * at the end of the expression, possibly empty. Returns null if the expression has a top-level alternation.
+   */
+  @Nullable
+  private static List<String> literalRuns(@NotNull String expression) {
+    String regexp = StringUtil.replace(expression, new String[]{PATH_MACROS, LINE_MACROS, COLUMN_MACROS}, new String[]{"()", "()", "()"});
+    List<String> runs = new ArrayList<>();
+    StringBuilder run = new StringBuilder();
+    int depth = 0;
+    for (int i = 0; i < regexp.length(); i++) {
+      char c = regexp.charAt(i);
+      if (c == '\\' && i + 1 < regexp.length()) {
+        char escaped = regexp.charAt(++i);
+        if (depth == 0 && !Character.isLetterOrDigit(escaped)) {
+          run.append(escaped);
+        }
+        else if (depth == 0) { // \s, \d and so on
+          runs.add(run.toString());
+          run.setLength(0);
+        }
+      }
+      else if (c == '[') {
+        while (++i < regexp.length() && regexp.charAt(i) != ']') {
+          if (regexp.charAt(i) == '\\') i++;
+        }
+        if (depth == 0) {
+          runs.add(run.toString());
+          run.setLength(0);
+        }
+      }
+      else if (c == '(' || c == ')') {
+        if (depth == 0) {
+          runs.add(run.toString());
+          run.setLength(0);
+        }
+        depth += c == '(' ? 1 : -1;
+      }
+      else if (depth > 0) {
+        continue;
+      }
+      else if (c == '|') {
+        return null;
+      }
+      else if (c == '*' || c == '?' || c == '+' || c == '{') {
+        if (run.length() > 0) run.setLength(run.length() - 1); // the quantified character may be absent
+        runs.add(run.toString());
+        run.setLength(0);
+        if (c == '{') {
+          while (i + 1 < regexp.length() && regexp.charAt(i) != '}') i++;
+        }
+      }
+      else if (c == '.' || c == '^' || c == '$') {
+        runs.add(run.toString());
+        run.setLength(0);
+      }
+      else {
+        run.append(c);
+      }
+    }
+    runs.add(run.toString());
+    return runs;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static final class ResolvedPath {
+    @Nullable private final VirtualFile myFile;
+
+    private ResolvedPath(@Nullable VirtualFile file) {
+      myFile = file;
+    }
+  }
+
+  /**
+   * Resolves the referenced file when the hyperlink is followed.
+   */
+  private final class FileReferenceHyperlinkInfo implements FileHyperlinkInfo {
+    private final String myPath;
+    private final int myLine;
+    private final int myColumn;
+
+    private FileReferenceHyperlinkInfo(@NotNull String path, int line, int column) {
+      myPath = path;
+      myLine = line;
+      myColumn = column;
+    }
+
+    @Nullable
+    @Override
+    public OpenFileDescriptor getDescriptor() {
+      VirtualFile file = getResolvedPath(myPath);
+      return file != null ? new OpenFileDescriptor(myProject, file, myLine, myColumn) : null;
+    }
+
+    @Override
+    public void navigate(Project project) {
+      OpenFileDescriptor descriptor = getDescriptor();
+      if (descriptor != null) {
+        descriptor.navigate(true);
+      }
     }
-    return concatLine.toString();
   }
-  
 }
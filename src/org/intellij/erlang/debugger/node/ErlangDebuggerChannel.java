@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.node;
+
+import com.ericsson.otp.erlang.OtpErlangDecodeException;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpExternal;
+import com.ericsson.otp.erlang.OtpInputStream;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import static org.intellij.erlang.debugger.ErlangDebuggerLog.LOG;
+
+/**
+ * Frames Erlang terms over a socket channel the way {@code gen_tcp} does with {@code {packet, 4}}: a 4-byte
+ * big-endian size followed by the external term format including the version tag.
+ * <p>
+ * All buffers are reused between messages. An outgoing frame is a direct header buffer and a direct payload
+ * buffer written with a single gather-write, incoming bytes are accumulated in one buffer and terms are decoded
+ * in place. A partially received frame stays in the buffer until the rest of it arrives.
+ * <p>
+ * Not thread-safe, the debugger node sends and receives from its server loop thread only.
+ */
+public class ErlangDebuggerChannel implements Closeable {
+  private static final int HEADER_SIZE = 4;
+  private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+  private final SocketChannel myChannel;
+  private final Selector mySelector;
+  private final TermOutputStream myTermOut = new TermOutputStream();
+  private final ByteBuffer myHeader = ByteBuffer.allocateDirect(HEADER_SIZE + 1);
+  private final ByteBuffer[] myFrame = new ByteBuffer[2];
+  private ByteBuffer myPayload = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+  // kept in "write" mode: [0, position) holds received bytes, the first frame starts at myFrameStart
+  private ByteBuffer myReceiveBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+  private int myFrameStart;
+
+  public ErlangDebuggerChannel(@NotNull SocketChannel channel) throws IOException {
+    myChannel = channel;
+    myChannel.configureBlocking(false);
+    myChannel.socket().setTcpNoDelay(true);
+    mySelector = Selector.open();
+    myChannel.register(mySelector, SelectionKey.OP_READ);
+    myFrame[0] = myHeader;
+  }
+
+  public void send(@NotNull OtpErlangObject term) throws IOException {
+    myTermOut.reset();
+    myTermOut.write_any(term);
+    int size = myTermOut.size();
+
+    if (myPayload.capacity() < size) {
+      myPayload = ByteBuffer.allocateDirect(Math.max(size, 2 * myPayload.capacity()));
+    }
+    myPayload.clear();
+    myTermOut.copyTo(myPayload);
+    myPayload.flip();
+    myHeader.clear();
+    myHeader.putInt(1 + size).put((byte) OtpExternal.versionTag).flip();
+    myFrame[1] = myPayload;
+
+    while (myPayload.hasRemaining()) {
+      if (myChannel.write(myFrame) == 0) {
+        awaitWritable();
+      }
+    }
+  }
+
+  /**
+   * Returns the next received term, waiting for at most timeoutMillis for more bytes if no complete frame
+   * has been buffered yet.
+   *
+   * @return a decoded term or null if no complete frame arrived in time or the frame could not be decoded.
+   * @throws SocketException if the connection was closed by the peer.
+   */
+  @Nullable
+  public OtpErlangObject receive(long timeoutMillis) throws IOException {
+    if (!hasCompleteFrame()) {
+      if (mySelector.select(timeoutMillis) > 0) {
+        mySelector.selectedKeys().clear();
+        readAvailable();
+      }
+      if (!hasCompleteFrame()) return null;
+    }
+    int objectSize = myReceiveBuffer.getInt(myFrameStart);
+    int objectStart = myFrameStart + HEADER_SIZE;
+    myFrameStart = objectStart + objectSize;
+    if (myFrameStart == myReceiveBuffer.position()) {
+      myReceiveBuffer.clear();
+      myFrameStart = 0;
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Incoming packet size: " + objectSize + " bytes");
+    }
+    return decode(myReceiveBuffer.array(), objectStart, objectSize);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      mySelector.close();
+    }
+    finally {
+      myChannel.close();
+    }
+  }
+
+  private boolean hasCompleteFrame() {
+    int buffered = myReceiveBuffer.position() - myFrameStart;
+    return buffered >= HEADER_SIZE && buffered - HEADER_SIZE >= myReceiveBuffer.getInt(myFrameStart);
+  }
+
+  private void readAvailable() throws IOException {
+    int read;
+    do {
+      ensureReceiveCapacity();
+      read = myChannel.read(myReceiveBuffer);
+      if (read < 0) {
+        throw new SocketException("A socket was closed.");
+      }
+    }
+    while (read > 0 && !myReceiveBuffer.hasRemaining());
+  }
+
+  /**
+   * Makes room for the rest of the first buffered frame, or at least for some more bytes of it.
+   */
+  private void ensureReceiveCapacity() {
+    int buffered = myReceiveBuffer.position() - myFrameStart;
+    int frameSize = buffered >= HEADER_SIZE ? HEADER_SIZE + myReceiveBuffer.getInt(myFrameStart) : 0;
+    int required = Math.max(frameSize, buffered + 1);
+    if (myReceiveBuffer.capacity() - myFrameStart >= required) return;
+
+    ByteBuffer target = myReceiveBuffer.capacity() >= required
+                        ? myReceiveBuffer
+                        : ByteBuffer.allocate(Math.max(required, 2 * myReceiveBuffer.capacity()));
+    System.arraycopy(myReceiveBuffer.array(), myFrameStart, target.array(), 0, buffered);
+    target.clear().position(buffered);
+    myReceiveBuffer = target;
+    myFrameStart = 0;
+  }
+
+  private void awaitWritable() throws IOException {
+    SelectionKey key = myChannel.keyFor(mySelector);
+    key.interestOps(SelectionKey.OP_WRITE);
+    try {
+      mySelector.select();
+      mySelector.selectedKeys().clear();
+    }
+    finally {
+      key.interestOps(SelectionKey.OP_READ);
+    }
+  }
+
+  @Nullable
+  private static OtpErlangObject decode(@NotNull byte[] bytes, int offset, int length) {
+    try {
+      return new OtpInputStream(bytes, offset, length, 0).read_any();
+    }
+    catch (OtpErlangDecodeException e) {
+      LOG.warn("Failed to decode an erlang term.", e);
+      return null;
+    }
+  }
+
+  private static class TermOutputStream extends OtpOutputStream {
+    void copyTo(@NotNull ByteBuffer buffer) {
+      buffer.put(buf, 0, count);
+    }
+  }
+}
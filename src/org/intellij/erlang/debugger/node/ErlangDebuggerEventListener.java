@@ -31,6 +31,7 @@ public interface ErlangDebuggerEventListener {
   void failedToSetBreakpoint(String module, int line, String errorMessage);
   void breakpointIsSet(String module, int line);
   void breakpointReached(@Nullable OtpErlangPid pid, List<ErlangProcessSnapshot> snapshots);
+  void breakpointLogged(String module, int line, boolean logMessage, @Nullable String logValue);
   void debuggerStopped();
   void handleEvaluationResponse(OtpErlangObject response);
   void printMessage(String messageText, MessageType type);
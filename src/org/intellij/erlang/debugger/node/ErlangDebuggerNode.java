@@ -27,15 +27,12 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.net.SocketException;
-import java.net.SocketTimeoutException;
-import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -44,7 +41,6 @@ import static org.intellij.erlang.debugger.ErlangDebuggerLog.LOG;
 
 public class ErlangDebuggerNode {
   private static final int RECEIVE_TIMEOUT = 50;
-  private static final int RETRIES_ON_TIMEOUT = 10;
 
   private OtpErlangPid myLastSuspendedPid;
 
@@ -86,8 +82,22 @@ public class ErlangDebuggerNode {
     myLastSuspendedPid = pid;
   }
 
-  public void setBreakpoint(@NotNull String module, int line, String conditionExpression) {
-    addCommand(ErlangDebuggerCommandsProducer.getSetBreakpointCommand(module, line, conditionExpression));
+  /**
+   * Sets a breakpoint whose condition, hit count and log output are handled by the debugger node. The node
+   * reports a hit only if the breakpoint suspends, otherwise it just sends the log output. A suspending breakpoint
+   * sends the value of its log expression before the hit.
+   *
+   * @param hitCount suspend on every hitCount-th hit satisfying the condition, 0 to suspend on every such hit.
+   */
+  public void setBreakpoint(@NotNull String module,
+                            int line,
+                            @NotNull String conditionExpression,
+                            int hitCount,
+                            boolean suspend,
+                            boolean logMessage,
+                            @NotNull String logExpression) {
+    addCommand(ErlangDebuggerCommandsProducer.getSetBreakpointCommand(module, line, conditionExpression, hitCount,
+                                                                      suspend, logMessage, logExpression));
   }
 
   public void removeBreakpoint(@NotNull String module, int line) {
@@ -98,6 +108,13 @@ public class ErlangDebuggerNode {
     addCommand(ErlangDebuggerCommandsProducer.getInterpretModulesCommand(moduleSourcePaths));
   }
 
+  /**
+   * Registers modules which the node interprets right before they are loaded by a debugged process.
+   */
+  public void interpretModulesOnDemand(@NotNull Map<String, String> moduleSourcePaths) {
+    addCommand(ErlangDebuggerCommandsProducer.getInterpretOnDemandCommand(moduleSourcePaths));
+  }
+
   public void runDebugger(@NotNull String module, @NotNull String function, @NotNull List<String> args) {
     addCommand(ErlangDebuggerCommandsProducer.getRunDebuggerCommand(module, function, args));
   }
@@ -145,17 +162,19 @@ public class ErlangDebuggerNode {
     try {
       Exception cachedException = null;
       LOG.debug("Opening a server socket.");
-      try (ServerSocket serverSocket = new ServerSocket(0)) {
-        portFuture.set(serverSocket.getLocalPort());
+      try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+        serverChannel.bind(new InetSocketAddress(0));
+        int port = serverChannel.socket().getLocalPort();
+        portFuture.set(port);
 
-        LOG.debug("Listening on port " + serverSocket.getLocalPort() + ".");
+        LOG.debug("Listening on port " + port + ".");
 
-        try (Socket debuggerSocket = serverSocket.accept()) {
+        try (ErlangDebuggerChannel debuggerChannel = new ErlangDebuggerChannel(serverChannel.accept())) {
           LOG.debug("Debugger connected, closing the server socket.");
-          serverSocket.close();
+          serverChannel.close();
           myEventListener.debuggerStarted();
           LOG.debug("Starting send/receive loop.");
-          serverLoop(debuggerSocket);
+          serverLoop(debuggerChannel);
         }
         catch (Exception e) {
           cachedException = e;
@@ -189,21 +208,19 @@ public class ErlangDebuggerNode {
     }
   }
 
-  private void serverLoop(@NotNull Socket debuggerSocket) throws IOException {
-    debuggerSocket.setSoTimeout(RECEIVE_TIMEOUT);
-
+  private void serverLoop(@NotNull ErlangDebuggerChannel channel) throws IOException {
     while (!isStopped()) {
       if (!isStopped()) {
-        receiveMessage(debuggerSocket);
+        receiveMessage(channel);
       }
       if (!isStopped()) {
-        sendMessages(debuggerSocket);
+        sendMessages(channel);
       }
     }
   }
 
-  private void receiveMessage(@NotNull Socket socket) throws SocketException {
-    OtpErlangObject receivedMessage = receive(socket);
+  private void receiveMessage(@NotNull ErlangDebuggerChannel channel) throws SocketException {
+    OtpErlangObject receivedMessage = receive(channel);
     if (receivedMessage == null) return;
 
     LOG.debug("Message received: " + receivedMessage);
@@ -217,26 +234,19 @@ public class ErlangDebuggerNode {
     LOG.debug("Message processed: " + messageRecognized);
   }
 
-  private void sendMessages(@NotNull Socket socket) throws SocketException {
+  private void sendMessages(@NotNull ErlangDebuggerChannel channel) throws SocketException {
     synchronized (myCommandsQueue) {
       while (!myCommandsQueue.isEmpty()) {
         OtpErlangTuple message = myCommandsQueue.remove().toMessage();
         LOG.debug("Sending message: " + message);
-        send(socket, message);
+        send(channel, message);
       }
     }
   }
 
-  private static void send(@NotNull Socket socket, @NotNull OtpErlangObject message) throws SocketException {
+  private static void send(@NotNull ErlangDebuggerChannel channel, @NotNull OtpErlangObject message) throws SocketException {
     try {
-      OutputStream out = socket.getOutputStream();
-
-      byte[] bytes = new OtpOutputStream(message).toByteArray();
-      byte[] sizeBytes = ByteBuffer.allocate(4).putInt(1 + bytes.length).array();
-
-      out.write(sizeBytes);
-      out.write(OtpExternal.versionTag);
-      out.write(bytes);
+      channel.send(message);
     }
     catch (SocketException e) {
       throw e;
@@ -247,17 +257,9 @@ public class ErlangDebuggerNode {
   }
 
   @Nullable
-  private static OtpErlangObject receive(@NotNull Socket socket) throws SocketException {
+  private static OtpErlangObject receive(@NotNull ErlangDebuggerChannel channel) throws SocketException {
     try {
-      InputStream in = socket.getInputStream();
-
-      int objectSize = readObjectSize(in);
-      if (objectSize == -1) return null;
-
-      LOG.debug("Incoming packet size: " + objectSize + " bytes");
-
-      byte[] objectBytes = readBytes(in, objectSize, true);
-      return objectBytes == null ? null : decode(objectBytes);
+      return channel.receive(RECEIVE_TIMEOUT);
     }
     catch (SocketException e) {
       throw e;
@@ -267,68 +269,4 @@ public class ErlangDebuggerNode {
     }
     return null;
   }
-
-  private static int readObjectSize(@NotNull InputStream in) throws SocketException {
-    byte[] bytes = readBytes(in, 4, false);
-    return bytes != null ? ByteBuffer.wrap(bytes).getInt() : -1;
-  }
-
-  /**
-   * Reads size bytes from passed socket input stream.
-   * <p/>
-   * Makes #RETRIES_ON_TIMEOUT attempts to read input unless the read request is not forced and no bytes were read.
-   *
-   * @param in
-   * @param size
-   * @param force
-   * @return bytes read or null if the request was not forced and it timed out, or if an I/O exception occurred.
-   * @throws SocketException when a socket exception is thrown from passed input stream or if a number of
-   *                         retry attempts was exceeded.
-   */
-  @Nullable
-  private static byte[] readBytes(@NotNull InputStream in, int size, boolean force) throws SocketException {
-    try {
-      int bytesReadTotal = 0;
-      byte[] buffer = new byte[size];
-
-      int attemptsMade = 0;
-      while (size != bytesReadTotal) {
-        try {
-          int bytesRead = in.read(buffer, bytesReadTotal, size - bytesReadTotal);
-          if (bytesRead < 0) {
-            throw new SocketException("A socket was closed.");
-          }
-          bytesReadTotal += bytesRead;
-        }
-        catch (SocketTimeoutException e) {
-          // if we're not forced to read, but we touched the stream, we're forced
-          if (bytesReadTotal == 0 && !force) {
-            return null;
-          }
-          if (++attemptsMade >= RETRIES_ON_TIMEOUT) {
-            throw e;
-          }
-        }
-      }
-      return buffer;
-    }
-    catch (SocketException e) {
-      throw e;
-    }
-    catch (IOException e) {
-      LOG.debug(e);
-      return null;
-    }
-  }
-
-  @Nullable
-  private static OtpErlangObject decode(@NotNull byte[] bytes) {
-    try {
-      return new OtpInputStream(bytes).read_any();
-    }
-    catch (OtpErlangDecodeException e) {
-      LOG.warn("Failed to decode an erlang term.", e);
-      return null;
-    }
-  }
 }
@@ -24,6 +24,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.Map;
 
 public final class ErlangDebuggerCommandsProducer {
   private ErlangDebuggerCommandsProducer() {
@@ -32,8 +33,12 @@ public final class ErlangDebuggerCommandsProducer {
   @NotNull
   public static ErlangDebuggerCommand getSetBreakpointCommand(@NotNull String module,
                                                               int line,
-                                                              String conditionExpression) {
-    return new SetBreakpointCommand(module, line, conditionExpression);
+                                                              String conditionExpression,
+                                                              int hitCount,
+                                                              boolean suspend,
+                                                              boolean logMessage,
+                                                              @NotNull String logExpression) {
+    return new SetBreakpointCommand(module, line, conditionExpression, hitCount, suspend, logMessage, logExpression);
   }
 
   @NotNull
@@ -51,6 +56,11 @@ public final class ErlangDebuggerCommandsProducer {
     return new InterpretModulesCommand(moduleSourcePaths);
   }
 
+  @NotNull
+  public static ErlangDebuggerCommand getInterpretOnDemandCommand(@NotNull Map<String, String> moduleSourcePaths) {
+    return new InterpretOnDemandCommand(moduleSourcePaths);
+  }
+
   @NotNull
   public static ErlangDebuggerCommand getDebugRemoteNodeCommand(@NotNull String nodeName, @Nullable String cookie) {
     return new DebugRemoteNodeCommand(nodeName, cookie);
@@ -117,12 +127,25 @@ public final class ErlangDebuggerCommandsProducer {
     private final String myModule;
     private final int myLine;
     private final String myCondition;
-
-    SetBreakpointCommand(@NotNull String module, int line, String conditionExpression) {
+    private final int myHitCount;
+    private final boolean mySuspend;
+    private final boolean myLogMessage;
+    private final String myLogExpression;
+
+    SetBreakpointCommand(@NotNull String module,
+                         int line,
+                         String conditionExpression,
+                         int hitCount,
+                         boolean suspend,
+                         boolean logMessage,
+                         @NotNull String logExpression) {
       myModule = module;
       myLine = line + 1;
       myCondition = conditionExpression;
-
+      myHitCount = hitCount;
+      mySuspend = suspend;
+      myLogMessage = logMessage;
+      myLogExpression = logExpression;
     }
 
     @NotNull
@@ -132,9 +155,20 @@ public final class ErlangDebuggerCommandsProducer {
         new OtpErlangAtom("set_breakpoint"),
         new OtpErlangAtom(myModule),
         new OtpErlangInt(myLine),
-        new OtpErlangString(myCondition)
+        new OtpErlangString(myCondition),
+        new OtpErlangList(new OtpErlangObject[]{
+          option("hit_count", new OtpErlangInt(myHitCount)),
+          option("suspend", new OtpErlangAtom(mySuspend)),
+          option("log_message", new OtpErlangAtom(myLogMessage)),
+          option("log_expression", new OtpErlangString(myLogExpression))
+        })
       });
     }
+
+    @NotNull
+    private static OtpErlangTuple option(@NotNull String name, @NotNull OtpErlangObject value) {
+      return new OtpErlangTuple(new OtpErlangObject[]{new OtpErlangAtom(name), value});
+    }
   }
 
   private static abstract class AbstractPidCommand implements ErlangDebuggerCommand {
@@ -194,6 +228,31 @@ public final class ErlangDebuggerCommandsProducer {
     }
   }
 
+  private static class InterpretOnDemandCommand implements ErlangDebuggerCommand {
+    private final Map<String, String> myModuleSourcePaths;
+
+    public InterpretOnDemandCommand(@NotNull Map<String, String> moduleSourcePaths) {
+      myModuleSourcePaths = moduleSourcePaths;
+    }
+
+    @NotNull
+    @Override
+    public OtpErlangTuple toMessage() {
+      OtpErlangObject[] modules = new OtpErlangObject[myModuleSourcePaths.size()];
+      int i = 0;
+      for (Map.Entry<String, String> module : myModuleSourcePaths.entrySet()) {
+        modules[i++] = new OtpErlangTuple(new OtpErlangObject[]{
+          new OtpErlangAtom(module.getKey()),
+          new OtpErlangString(module.getValue())
+        });
+      }
+      return new OtpErlangTuple(new OtpErlangObject[]{
+        new OtpErlangAtom("interpret_on_demand"),
+        new OtpErlangList(modules)
+      });
+    }
+  }
+
   private static class DebugRemoteNodeCommand implements ErlangDebuggerCommand {
     private final String myNodeName;
     private final String myCookie;
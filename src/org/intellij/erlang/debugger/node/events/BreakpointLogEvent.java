@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.node.events;
+
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import org.intellij.erlang.debugger.node.ErlangDebuggerEventListener;
+import org.intellij.erlang.debugger.node.ErlangDebuggerNode;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sent by the node instead of a breakpoint hit when the breakpoint does not suspend and should log.
+ */
+class BreakpointLogEvent extends ErlangDebuggerEvent {
+  public static final String NAME = "breakpoint_log";
+
+  private final String myModule;
+  private final int myLine;
+  private final boolean myLogMessage;
+  private final String myLogValue;
+
+  public BreakpointLogEvent(@NotNull OtpErlangTuple message) throws DebuggerEventFormatException {
+    myModule = OtpErlangTermUtil.getAtomText(message.elementAt(1));
+    if (myModule == null) throw new DebuggerEventFormatException();
+
+    Integer line = OtpErlangTermUtil.getIntegerValue(message.elementAt(2));
+    if (line == null) throw new DebuggerEventFormatException();
+    myLine = line.intValue() - 1;
+
+    myLogMessage = "true".equals(OtpErlangTermUtil.getAtomText(message.elementAt(3)));
+
+    OtpErlangObject value = message.elementAt(4);
+    myLogValue = value instanceof OtpErlangBinary
+                 ? new String(((OtpErlangBinary) value).binaryValue(), StandardCharsets.UTF_8)
+                 : null;
+  }
+
+  @Override
+  public void process(ErlangDebuggerNode debuggerNode, @NotNull ErlangDebuggerEventListener eventListener) {
+    eventListener.breakpointLogged(myModule, myLine, myLogMessage, myLogValue);
+  }
+}
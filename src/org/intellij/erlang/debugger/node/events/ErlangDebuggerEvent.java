@@ -41,6 +41,8 @@ public abstract class ErlangDebuggerEvent {
           return new SetBreakpointResponseEvent(messageTuple);
         case BreakpointReachedEvent.NAME:
           return new BreakpointReachedEvent(messageTuple);
+        case BreakpointLogEvent.NAME:
+          return new BreakpointLogEvent(messageTuple);
         case DebugRemoteNodeResponseEvent.NAME:
           return new DebugRemoteNodeResponseEvent(messageTuple);
         case EvaluateResponseEvent.NAME:
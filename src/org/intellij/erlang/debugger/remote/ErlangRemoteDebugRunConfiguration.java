@@ -41,6 +41,13 @@ public class ErlangRemoteDebugRunConfiguration extends ErlangRunConfigurationBas
     setInterpretScope(ErlangRunConfigurationBase.SCOPE_IN_BREAK_POINT_FILE);
   }
 
+  // processes of a remote node are already running and cannot be given the error handler interpreting on demand
+  @Override
+  public int getInterpretScope() {
+    int scope = super.getInterpretScope();
+    return scope == SCOPE_ON_DEMAND ? SCOPE_IN_BREAK_POINT_FILE : scope;
+  }
+
   @Override
   public boolean isUseTestCodePath() {
     return false;
@@ -18,28 +18,48 @@ package org.intellij.erlang.debugger.xdebug;
 
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.ObjectUtils;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.index.ErlangModuleIndex;
+import org.intellij.erlang.psi.ErlangCompositeElement;
 import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangFunction;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.intellij.erlang.utils.ErlangModulesUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Resolves module names and functions reported by the debugger node to source locations.
+ * <p>
+ * Results are cached for the debug session and dropped whenever PSI or the VFS structure changes,
+ * so repainting stack frames does not query indices again.
+ */
 public class ErlangDebugLocationResolver {
   private final Project myProject;
   private final GlobalSearchScope mySessionSearchScope;
   private final PsiManager myPsiManager;
+  private final PsiModificationTracker myModificationTracker;
+
+  private final Map<String, Ref<VirtualFile>> myModuleFiles = new ConcurrentHashMap<>();
+  private final Map<String, Integer> myFunctionOffsets = new ConcurrentHashMap<>();
+  private volatile long myModificationStamp = -1;
 
   public ErlangDebugLocationResolver(@NotNull Project project, @Nullable Module module, boolean includeTests) {
     myProject = project;
     myPsiManager = PsiManager.getInstance(myProject);
+    myModificationTracker = PsiModificationTracker.SERVICE.getInstance(myProject);
     mySessionSearchScope = module != null ?
       ErlangModulesUtil.getModuleWithDependenciesScope(module, includeTests) :
       GlobalSearchScope.projectScope(myProject);
@@ -52,16 +72,66 @@ public class ErlangDebugLocationResolver {
 
   @Nullable
   public VirtualFile resolveModuleFile(@Nullable String moduleName) {
-    List<VirtualFile> virtualFiles = moduleName == null ? ContainerUtil.emptyList() :
-      ErlangModuleIndex.getVirtualFilesByName(myProject, moduleName, mySessionSearchScope);
-    if (virtualFiles.isEmpty() && moduleName != null)
-      virtualFiles = ErlangModuleIndex.getVirtualFilesByName(myProject, moduleName, GlobalSearchScope.projectScope(myProject));
-    return ContainerUtil.getFirstItem(virtualFiles);
+    if (moduleName == null) return null;
+    dropOutdatedCaches();
+    Ref<VirtualFile> cached = myModuleFiles.get(moduleName);
+    if (cached == null || cached.get() != null && !cached.get().isValid()) {
+      cached = Ref.create(doResolveModuleFile(moduleName));
+      myModuleFiles.put(moduleName, cached);
+    }
+    return cached.get();
+  }
+
+  /**
+   * @param funExpressionArity arity of the fun expression inside of the function, or -1 for the function itself
+   * @return offset of the function or fun expression in the module file, 0 if it is not found,
+   * or -1 if the module itself is not found.
+   */
+  public int resolveFunctionOffset(@NotNull String moduleName, @NotNull String functionName, int functionArity,
+                                   int funExpressionArity) {
+    dropOutdatedCaches();
+    String key = moduleName + ":" + functionName + "/" + functionArity + ":" + funExpressionArity;
+    Integer offset = myFunctionOffsets.get(key);
+    if (offset == null) {
+      offset = doResolveFunctionOffset(moduleName, functionName, functionArity, funExpressionArity);
+      myFunctionOffsets.put(key, offset);
+    }
+    return offset;
   }
 
   @Nullable
   public ErlangFile findPsi(@Nullable VirtualFile moduleFile) {
-    PsiFile module = moduleFile != null ? myPsiManager.findFile(moduleFile) : null;
+    PsiFile module = moduleFile != null && moduleFile.isValid() ? myPsiManager.findFile(moduleFile) : null;
     return ObjectUtils.tryCast(module, ErlangFile.class);
   }
+
+  @Nullable
+  private VirtualFile doResolveModuleFile(@NotNull String moduleName) {
+    List<VirtualFile> virtualFiles = ErlangModuleIndex.getVirtualFilesByName(myProject, moduleName, mySessionSearchScope);
+    if (virtualFiles.isEmpty())
+      virtualFiles = ErlangModuleIndex.getVirtualFilesByName(myProject, moduleName, GlobalSearchScope.projectScope(myProject));
+    return ContainerUtil.getFirstItem(virtualFiles);
+  }
+
+  private int doResolveFunctionOffset(@NotNull String moduleName, @NotNull String functionName, int functionArity,
+                                      int funExpressionArity) {
+    ErlangFile erlangModule = resolveModule(moduleName);
+    if (erlangModule == null) return -1;
+
+    //TODO use fun expression name to improve resolution (?)
+    ErlangFunction function = erlangModule.getFunction(functionName, functionArity);
+    ErlangCompositeElement clarifyingElement = funExpressionArity >= 0 && function != null ?
+      ErlangPsiImplUtil.findFunExpression(function, funExpressionArity) : function;
+    return clarifyingElement != null ? clarifyingElement.getTextOffset() : 0;
+  }
+
+  private void dropOutdatedCaches() {
+    long stamp = myModificationTracker.getModificationCount() +
+                 VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS.getModificationCount();
+    if (stamp != myModificationStamp) {
+      myModuleFiles.clear();
+      myFunctionOffsets.clear();
+      myModificationStamp = stamp;
+    }
+  }
 }
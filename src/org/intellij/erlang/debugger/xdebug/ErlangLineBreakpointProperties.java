@@ -17,9 +17,23 @@
 package org.intellij.erlang.debugger.xdebug;
 
 import com.intellij.xdebugger.breakpoints.XBreakpointProperties;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class ErlangLineBreakpointProperties extends XBreakpointProperties<ErlangLineBreakpointProperties> {
+  private int myHitCount;
+
+  /**
+   * The breakpoint suspends on every hitCount-th hit which satisfies its condition, 0 means on every such hit.
+   */
+  public int getHitCount() {
+    return myHitCount;
+  }
+
+  public void setHitCount(int hitCount) {
+    myHitCount = hitCount;
+  }
+
   @Nullable
   @Override
   public ErlangLineBreakpointProperties getState() {
@@ -27,6 +41,7 @@ public class ErlangLineBreakpointProperties extends XBreakpointProperties<Erlang
   }
 
   @Override
-  public void loadState(ErlangLineBreakpointProperties state) {
+  public void loadState(@NotNull ErlangLineBreakpointProperties state) {
+    myHitCount = state.myHitCount;
   }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.xdebug;
+
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
+import com.intellij.xdebugger.breakpoints.ui.XBreakpointCustomPropertiesPanel;
+import com.intellij.xdebugger.impl.breakpoints.XBreakpointBase;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.awt.*;
+
+class ErlangLineBreakpointPropertiesPanel extends XBreakpointCustomPropertiesPanel<XLineBreakpoint<ErlangLineBreakpointProperties>> {
+  private final JBIntSpinner myHitCount = new JBIntSpinner(0, 0, Integer.MAX_VALUE);
+  private final JPanel myPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+
+  ErlangLineBreakpointPropertiesPanel() {
+    JBLabel label = new JBLabel("Suspend on every Nth hit (0 for every hit):");
+    label.setLabelFor(myHitCount);
+    myPanel.add(label);
+    myPanel.add(myHitCount);
+  }
+
+  @NotNull
+  @Override
+  public JComponent getComponent() {
+    return myPanel;
+  }
+
+  @Override
+  public void saveTo(@NotNull XLineBreakpoint<ErlangLineBreakpointProperties> breakpoint) {
+    ErlangLineBreakpointProperties properties = breakpoint.getProperties();
+    int hitCount = myHitCount.getNumber();
+    if (properties != null && properties.getHitCount() != hitCount) {
+      properties.setHitCount(hitCount);
+      ((XBreakpointBase<?, ?, ?>) breakpoint).fireBreakpointChanged();
+    }
+  }
+
+  @Override
+  public void loadFrom(@NotNull XLineBreakpoint<ErlangLineBreakpointProperties> breakpoint) {
+    ErlangLineBreakpointProperties properties = breakpoint.getProperties();
+    myHitCount.setNumber(properties != null ? properties.getHitCount() : 0);
+  }
+}
@@ -26,6 +26,7 @@ import com.intellij.util.Processor;
 import com.intellij.xdebugger.XDebuggerUtil;
 import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
 import com.intellij.xdebugger.breakpoints.XLineBreakpointType;
+import com.intellij.xdebugger.breakpoints.ui.XBreakpointCustomPropertiesPanel;
 import com.intellij.xdebugger.evaluation.XDebuggerEditorsProvider;
 import org.intellij.erlang.ErlangFileType;
 import org.intellij.erlang.ErlangTypes;
@@ -55,6 +56,12 @@ public class ErlangLineBreakpointType extends XLineBreakpointType<ErlangLineBrea
     return new ErlangDebuggerProvider();
   }
 
+  @NotNull
+  @Override
+  public XBreakpointCustomPropertiesPanel<XLineBreakpoint<ErlangLineBreakpointProperties>> createCustomPropertiesPanel(@NotNull Project project) {
+    return new ErlangLineBreakpointPropertiesPanel();
+  }
+
   @Override
   public boolean canPutAt(@NotNull VirtualFile file, int line, @NotNull Project project) {
     if (file.getFileType() != ErlangFileType.MODULE) return false;
@@ -24,10 +24,6 @@ import com.intellij.xdebugger.XDebuggerUtil;
 import com.intellij.xdebugger.XSourcePosition;
 import org.intellij.erlang.debugger.node.ErlangProcessSnapshot;
 import org.intellij.erlang.debugger.node.ErlangTraceElement;
-import org.intellij.erlang.psi.ErlangCompositeElement;
-import org.intellij.erlang.psi.ErlangFile;
-import org.intellij.erlang.psi.ErlangFunction;
-import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -171,18 +167,9 @@ public final class ErlangSourcePosition {
     }
 
     XSourcePosition position = ApplicationManager.getApplication().runReadAction((Computable<XSourcePosition>) () -> {
-      ErlangFile erlangModule = resolver.resolveModule(module);
-      if (erlangModule == null) return null;
-
-      //TODO use fun expression name to improve resolution (?)
-      ErlangFunction function = erlangModule.getFunction(functionName, functionArity);
-      ErlangCompositeElement clarifyingElement = inFunExpression && function != null ?
-        ErlangPsiImplUtil.findFunExpression(function, funExpressionArity) : function;
-
-      VirtualFile virtualFile = erlangModule.getVirtualFile();
-      int offset = clarifyingElement != null ? clarifyingElement.getTextOffset() : 0;
-
-      return XDebuggerUtil.getInstance().createPositionByOffset(virtualFile, offset);
+      int offset = resolver.resolveFunctionOffset(module, functionName, functionArity, inFunExpression ? funExpressionArity : -1);
+      VirtualFile virtualFile = offset >= 0 ? resolver.resolveModuleFile(module) : null;
+      return virtualFile != null ? XDebuggerUtil.getInstance().createPositionByOffset(virtualFile, offset) : null;
     });
 
     return position != null ?
@@ -27,12 +27,20 @@ import com.intellij.execution.ui.ConsoleView;
 import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.execution.ui.ExecutionConsole;
 import com.intellij.icons.AllIcons;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.MessageType;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.PathUtil;
 import com.intellij.util.ResourceUtil;
 import com.intellij.util.containers.ContainerUtil;
@@ -41,12 +49,15 @@ import com.intellij.util.io.URLUtil;
 import com.intellij.xdebugger.XDebugProcess;
 import com.intellij.xdebugger.XDebugSession;
 import com.intellij.xdebugger.XDebugSessionListener;
+import com.intellij.xdebugger.XExpression;
 import com.intellij.xdebugger.XSourcePosition;
+import com.intellij.xdebugger.breakpoints.SuspendPolicy;
 import com.intellij.xdebugger.breakpoints.XBreakpointHandler;
 import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
 import com.intellij.xdebugger.evaluation.XDebuggerEditorsProvider;
 import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
 import com.intellij.xdebugger.frame.XExecutionStack;
+import com.intellij.xdebugger.frame.XStackFrame;
 import com.intellij.xdebugger.frame.XSuspendContext;
 import com.intellij.xdebugger.impl.XDebugSessionImpl;
 import org.intellij.erlang.debugger.node.*;
@@ -54,6 +65,10 @@ import org.intellij.erlang.debugger.remote.ErlangRemoteDebugRunConfiguration;
 import org.intellij.erlang.debugger.remote.ErlangRemoteDebugRunningState;
 import org.intellij.erlang.debugger.xdebug.xvalue.ErlangXValueFactory;
 import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangFunction;
+import org.intellij.erlang.psi.ErlangGlobalFunctionCallExpression;
+import org.intellij.erlang.psi.ErlangQAtom;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.intellij.erlang.runconfig.ErlangRunConfigurationBase;
 import org.intellij.erlang.runconfig.ErlangRunningState;
 import org.intellij.erlang.utils.ErlangModulesUtil;
@@ -82,6 +97,7 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
     new ConcurrentHashMap<>();
   private Queue<XDebuggerEvaluator.XEvaluationCallback> myCallbackQueue = new LinkedBlockingQueue<>();
   private Set<String> InterpretedModules = new HashSet<>();
+  private final Map<String, String> myOnDemandModules = new ConcurrentHashMap<>();
   private boolean softUpdate = true;
 
   public ErlangXDebugProcess(@NotNull XDebugSession session, ExecutionEnvironment env) throws ExecutionException {
@@ -259,6 +275,17 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
     return getLineBreakpoint(breakPosition);
   }
 
+  @Override
+  public void breakpointLogged(String module, int line, boolean logMessage, @Nullable String logValue) {
+    ConsoleView console = getSession().getConsoleView();
+    if (logMessage) {
+      console.print("Breakpoint reached at " + module + ":" + (line + 1) + "\n", ConsoleViewContentType.LOG_INFO_OUTPUT);
+    }
+    if (logValue != null) {
+      console.print(logValue + "\n", ConsoleViewContentType.NORMAL_OUTPUT);
+    }
+  }
+
   @Override
   public void debuggerStopped() {
     getSession().reportMessage("Debug process stopped", MessageType.INFO);
@@ -271,28 +298,39 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
   }
   private void setModulesToInterpret() {
     ErlangRunConfigurationBase<?> runConfiguration = getRunConfiguration();
-    Collection<ErlangFile> erlangModules = new ArrayList<>();
+    Set<String> notToInterpret = runConfiguration.getDebugOptions().getModulesNotToInterpret();
+    Collection<VirtualFile> erlangModules = new ArrayList<>();
     if(runConfiguration.getInterpretScope() != ErlangRunConfigurationBase.SCOPE_NONE) {
       switch (runConfiguration.getInterpretScope()) {
         case ErlangRunConfigurationBase.SCOPE_IN_BREAK_POINT_FILE:
           return;
+        case ErlangRunConfigurationBase.SCOPE_ON_DEMAND: {
+          for (VirtualFile file : ErlangModulesUtil.getErlangModuleFiles(runConfiguration.getProject())) {
+            String moduleName = file.getNameWithoutExtension();
+            if (!notToInterpret.contains(moduleName)) {
+              myOnDemandModules.putIfAbsent(moduleName, PathUtil.getLocalPath(file));
+            }
+          }
+          myDebuggerNode.interpretModulesOnDemand(new HashMap<>(myOnDemandModules));
+          return;
+        }
         case ErlangRunConfigurationBase.SCOPE_IN_MODULE: {
           Module tarModule = runConfiguration.getConfigurationModule().getModule();
           assert tarModule != null;
-          erlangModules = ErlangModulesUtil.getErlangModules(tarModule, runConfiguration.isUseTestCodePath());
+          erlangModules = ErlangModulesUtil.getErlangModuleFiles(tarModule, runConfiguration.isUseTestCodePath());
           break;
         }
         case ErlangRunConfigurationBase.SCOPE_IN_PROJECT: {
-          erlangModules = ErlangModulesUtil.getErlangModules(runConfiguration.getProject());
+          erlangModules = ErlangModulesUtil.getErlangModuleFiles(runConfiguration.getProject());
           break;
         }
       }
     }
     else{
       if (runConfiguration.isUseTestCodePath()) {
-        HashSet<ErlangFile> erlangTestModules = new HashSet<>();
+        HashSet<VirtualFile> erlangTestModules = new HashSet<>();
         for (Module module : runConfiguration.getModules()) {
-          erlangTestModules.addAll(ErlangModulesUtil.getErlangModules(module, true));
+          erlangTestModules.addAll(ErlangModulesUtil.getErlangModuleFiles(module, true));
         }
         erlangTestModules.addAll(erlangModules);
         erlangModules = erlangTestModules;
@@ -300,14 +338,12 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
       else
       {
         Project project = myExecutionEnvironment.getProject();
-        erlangModules = ErlangModulesUtil.getErlangModules(project);
+        erlangModules = ErlangModulesUtil.getErlangModuleFiles(project);
       }
     }
-    Set<String> notToInterpret = runConfiguration.getDebugOptions().getModulesNotToInterpret();
     List<String> moduleSourcePaths = new ArrayList<>(erlangModules.size());
-    for (ErlangFile erlangModule : erlangModules) {
-      VirtualFile file = erlangModule.getVirtualFile();
-      if (file != null && !notToInterpret.contains(file.getNameWithoutExtension())) {
+    for (VirtualFile file : erlangModules) {
+      if (!notToInterpret.contains(file.getNameWithoutExtension())) {
         moduleSourcePaths.add(PathUtil.getLocalPath(file));
       }
     }
@@ -315,6 +351,47 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
     myDebuggerNode.interpretModules(moduleSourcePaths);
   }
 
+  /**
+   * With on-demand interpretation, modules called on the current line are interpreted before stepping into them:
+   * the node-side hook only sees modules which are not loaded yet.
+   */
+  private void interpretCalledModules(@Nullable XSuspendContext context) {
+    if (myOnDemandModules.isEmpty() || context == null) return;
+    XExecutionStack executionStack = context.getActiveExecutionStack();
+    XStackFrame topFrame = executionStack != null ? executionStack.getTopFrame() : null;
+    XSourcePosition position = topFrame != null ? topFrame.getSourcePosition() : null;
+    if (position == null) return;
+
+    List<String> moduleSourcePaths = new ArrayList<>();
+    for (String moduleName : ReadAction.compute(() -> getCalledModules(position))) {
+      ContainerUtil.addIfNotNull(moduleSourcePaths, myOnDemandModules.remove(moduleName));
+    }
+    if (!moduleSourcePaths.isEmpty()) {
+      InterpretedModules.addAll(moduleSourcePaths);
+      myDebuggerNode.interpretModules(moduleSourcePaths);
+    }
+  }
+
+  @NotNull
+  private Set<String> getCalledModules(@NotNull XSourcePosition position) {
+    PsiFile file = PsiManager.getInstance(mySession.getProject()).findFile(position.getFile());
+    Document document = file != null ? PsiDocumentManager.getInstance(file.getProject()).getDocument(file) : null;
+    if (!(file instanceof ErlangFile) || document == null || position.getLine() >= document.getLineCount()) {
+      return Collections.emptySet();
+    }
+    TextRange line = new TextRange(document.getLineStartOffset(position.getLine()), document.getLineEndOffset(position.getLine()));
+    PsiElement scope = PsiTreeUtil.getParentOfType(file.findElementAt(line.getStartOffset()), ErlangFunction.class);
+    Set<String> calledModules = new HashSet<>();
+    for (ErlangGlobalFunctionCallExpression call : PsiTreeUtil.findChildrenOfType(scope != null ? scope : file,
+                                                                               ErlangGlobalFunctionCallExpression.class)) {
+      ErlangQAtom moduleAtom = call.getModuleRef().getQAtom();
+      if (line.contains(moduleAtom.getTextRange())) {
+        calledModules.add(ErlangPsiImplUtil.getName(moduleAtom));
+      }
+    }
+    return calledModules;
+  }
+
   @NotNull
   @Override
   public ExecutionConsole createConsole() {
@@ -343,6 +420,7 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
 
   @Override
   public void startStepInto(@Nullable XSuspendContext context) {
+    interpretCalledModules(context);
     myDebuggerNode.stepInto();
   }
 
@@ -378,17 +456,22 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
     if (breakpointPosition == null) return;
     myPositionToLineBreakpointMap.put(breakpointPosition, breakpoint);
     String filePath = PathUtil.getLocalPath(breakpointPosition.getFile());
+    myOnDemandModules.remove(breakpointPosition.getErlangModuleName());
     if (!InterpretedModules.contains(filePath)){
       ArrayList<String> L = new ArrayList<>(1);
       L.add(filePath);
       InterpretedModules.add(filePath);
       myDebuggerNode.interpretModules(L);
     }
-    if (breakpoint.getConditionExpression() != null){
-      myDebuggerNode.setBreakpoint(breakpointPosition.getErlangModuleName(), breakpointPosition.getLine(), breakpoint.getConditionExpression().getExpression());
-    }
-    else
-      myDebuggerNode.setBreakpoint(breakpointPosition.getErlangModuleName(), breakpointPosition.getLine(), "");
+    XExpression condition = breakpoint.getConditionExpression();
+    XExpression logExpression = breakpoint.getLogExpressionObject();
+    ErlangLineBreakpointProperties properties = breakpoint.getProperties();
+    myDebuggerNode.setBreakpoint(breakpointPosition.getErlangModuleName(), breakpointPosition.getLine(),
+                                 condition != null ? condition.getExpression() : "",
+                                 properties != null ? properties.getHitCount() : 0,
+                                 breakpoint.getSuspendPolicy() != SuspendPolicy.NONE,
+                                 breakpoint.isLogMessage(),
+                                 logExpression != null ? logExpression.getExpression() : "");
   }
 
   void removeBreakpoint(XLineBreakpoint<ErlangLineBreakpointProperties> breakpoint,
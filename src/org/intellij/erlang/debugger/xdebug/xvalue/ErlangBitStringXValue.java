@@ -18,7 +18,7 @@ package org.intellij.erlang.debugger.xdebug.xvalue;
 
 import com.ericsson.otp.erlang.OtpErlangBitstr;
 import com.intellij.xdebugger.XDebugSession;
-import com.intellij.xdebugger.frame.ImmediateFullValueEvaluator;
+import com.intellij.xdebugger.frame.XFullValueEvaluator;
 import com.intellij.xdebugger.frame.XValueChildrenList;
 import com.intellij.xdebugger.frame.XValueNode;
 import com.intellij.xdebugger.frame.XValuePlace;
@@ -27,6 +27,8 @@ import org.intellij.erlang.debugger.xdebug.ErlangSourcePosition;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.charset.StandardCharsets;
+
 class ErlangBitStringXValue extends ErlangArrayXValueBase<OtpErlangBitstr> {
   public ErlangBitStringXValue(OtpErlangBitstr value,
                                String name, XDebugSession session) {
@@ -41,18 +43,43 @@ class ErlangBitStringXValue extends ErlangArrayXValueBase<OtpErlangBitstr> {
   @Nullable
   @Override
   protected XValuePresentation getPresentation(@NotNull XValueNode node, @NotNull XValuePlace place) {
-    //TODO apply string detection heuristics (see http://www.erlang.org/doc/apps/stdlib/unicode_usage.html)
-    final String textValue = new String(getValue().binaryValue());
-    if (textValue.length() > XValueNode.MAX_VALUE_LENGTH) {
-      node.setFullValueEvaluator(new ImmediateFullValueEvaluator(textValue));
+    byte[] bytes = getValue().binaryValue();
+    String text = ErlangTermText.getPrintablePrefix(bytes, XValueNode.MAX_VALUE_LENGTH);
+    boolean cut = bytes.length > XValueNode.MAX_VALUE_LENGTH || hasOmittedChildren();
+    if (text != null && cut) {
+      node.setFullValueEvaluator(new XFullValueEvaluator() {
+        @Override
+        public void startEvaluation(@NotNull XFullValueEvaluationCallback callback) {
+          callback.evaluated(new String(bytes, StandardCharsets.UTF_8));
+        }
+      });
     }
+    String bytesText = text == null ? getBytesText(bytes) : null;
     return new XValuePresentation() {
       @Override
       public void renderValue(@NotNull XValueTextRenderer renderer) {
         renderer.renderSpecialSymbol("<<");
-        renderer.renderStringValue(textValue, "\"\\", XValueNode.MAX_VALUE_LENGTH);
+        if (text != null) {
+          renderer.renderStringValue(text, "\"\\", XValueNode.MAX_VALUE_LENGTH);
+        }
+        else {
+          renderer.renderValue(bytesText);
+        }
+        if (cut) {
+          renderer.renderSpecialSymbol(ErlangTermText.ELLIPSIS);
+        }
         renderer.renderSpecialSymbol(">>");
       }
     };
   }
+
+  @NotNull
+  private static String getBytesText(@NotNull byte[] bytes) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < bytes.length && builder.length() < XValueNode.MAX_VALUE_LENGTH; i++) {
+      if (i > 0) builder.append(',');
+      builder.append(bytes[i] & 0xFF);
+    }
+    return builder.toString();
+  }
 }
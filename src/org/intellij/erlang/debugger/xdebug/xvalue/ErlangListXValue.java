@@ -19,7 +19,11 @@ package org.intellij.erlang.debugger.xdebug.xvalue;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.intellij.xdebugger.XDebugSession;
 import com.intellij.xdebugger.frame.XValueChildrenList;
+import com.intellij.xdebugger.frame.XValueNode;
+import com.intellij.xdebugger.frame.XValuePlace;
+import com.intellij.xdebugger.frame.presentation.XValuePresentation;
 import org.intellij.erlang.debugger.xdebug.ErlangSourcePosition;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 class ErlangListXValue extends ErlangArrayXValueBase<OtpErlangList> {
@@ -31,4 +35,21 @@ class ErlangListXValue extends ErlangArrayXValueBase<OtpErlangList> {
   protected void computeChild(XValueChildrenList children, int childIdx) {
     addIndexedChild(children, getValue().elementAt(childIdx), childIdx, getSession());
   }
+
+  @Nullable
+  @Override
+  protected XValuePresentation getPresentation(@NotNull XValueNode node, @NotNull XValuePlace place) {
+    String text = ErlangTermText.getPrintablePrefix(getValue(), XValueNode.MAX_VALUE_LENGTH);
+    if (text == null) return null;
+    boolean cut = getValue().arity() > XValueNode.MAX_VALUE_LENGTH || hasOmittedChildren();
+    return new XValuePresentation() {
+      @Override
+      public void renderValue(@NotNull XValueTextRenderer renderer) {
+        renderer.renderStringValue(text, "\"\\", XValueNode.MAX_VALUE_LENGTH);
+        if (cut) {
+          renderer.renderSpecialSymbol(ErlangTermText.ELLIPSIS);
+        }
+      }
+    };
+  }
 }
@@ -22,13 +22,19 @@ import com.intellij.xdebugger.XDebugSession;
 import com.intellij.xdebugger.frame.XValueChildrenList;
 
 public class ErlangMapXValue extends ErlangArrayXValueBase<OtpErlangMap> {
+  private OtpErlangObject[] myKeys;
+
   public ErlangMapXValue(OtpErlangMap value, String name, XDebugSession session) {
     super(value, name, value.arity(), session);
   }
 
   @Override
   protected void computeChild(XValueChildrenList children, int childIdx) {
-    OtpErlangObject key = getValue().keys()[childIdx];
+    // keys() copies all keys
+    if (myKeys == null) {
+      myKeys = getValue().keys();
+    }
+    OtpErlangObject key = myKeys[childIdx];
     OtpErlangObject value = getValue().get(key);
     addIndexedChild(children, new ErlangMappingXValue(key, value, getName(), getSession()), childIdx);
   }
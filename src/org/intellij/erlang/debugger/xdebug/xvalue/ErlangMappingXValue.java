@@ -46,8 +46,8 @@ class ErlangMappingXValue extends ErlangXValueBase<OtpErlangTuple> {
 
   @NotNull
   @Override
-  protected String getStringRepr() {
-    return getMappingKey() + " => " + getMappingValue();
+  protected String getStringRepr(int limit) {
+    return ErlangTermText.print(getMappingKey(), limit) + " => " + ErlangTermText.print(getMappingValue(), limit);
   }
 
   private OtpErlangObject getMappingKey() {
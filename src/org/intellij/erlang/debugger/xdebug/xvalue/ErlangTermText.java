@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.xdebug.xvalue;
+
+import com.ericsson.otp.erlang.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Size-bounded text of debugger values.
+ * <p>
+ * Terms are printed only up to a length limit, so the presentation of a huge value does not depend on its size,
+ * and string detection looks at a bounded prefix of a list or binary only. Terms truncated by the debugger node
+ * (see remote_debugger_notifier:summarize/1) arrive as {'$truncated', Prefix, Size}.
+ */
+final class ErlangTermText {
+  static final String TRUNCATED = "$truncated";
+  static final String ELLIPSIS = "...";
+
+  private ErlangTermText() {
+  }
+
+  static boolean isTruncated(@NotNull OtpErlangObject term) {
+    if (!(term instanceof OtpErlangTuple)) return false;
+    OtpErlangTuple tuple = (OtpErlangTuple) term;
+    return tuple.arity() == 3 &&
+           tuple.elementAt(0) instanceof OtpErlangAtom &&
+           TRUNCATED.equals(((OtpErlangAtom) tuple.elementAt(0)).atomValue()) &&
+           tuple.elementAt(2) instanceof OtpErlangLong;
+  }
+
+  @NotNull
+  static OtpErlangObject getTruncatedPrefix(@NotNull OtpErlangObject truncated) {
+    return ((OtpErlangTuple) truncated).elementAt(1);
+  }
+
+  static long getTruncatedSize(@NotNull OtpErlangObject truncated) {
+    return ((OtpErlangLong) ((OtpErlangTuple) truncated).elementAt(2)).longValue();
+  }
+
+  /**
+   * Returns the text of a term, cut at about limit characters and ending with an ellipsis if it was cut.
+   */
+  @NotNull
+  static String print(@NotNull OtpErlangObject term, int limit) {
+    StringBuilder builder = new StringBuilder();
+    if (!append(builder, term, limit)) {
+      builder.append(ELLIPSIS);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Returns the text of the first window elements of a proper list if they are all printable characters.
+   */
+  @Nullable
+  static String getPrintablePrefix(@NotNull OtpErlangList list, int window) {
+    int arity = list.arity();
+    if (arity == 0 || list.getLastTail() != null) return null;
+    StringBuilder builder = new StringBuilder(Math.min(arity, window));
+    for (int i = 0; i < arity && i < window; i++) {
+      OtpErlangObject element = list.elementAt(i);
+      if (!(element instanceof OtpErlangLong)) return null;
+      long codePoint = ((OtpErlangLong) element).longValue();
+      if (!isPrintable(codePoint)) return null;
+      builder.appendCodePoint((int) codePoint);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Returns the text of the first window bytes of a binary if they are printable UTF-8, a character cut by
+   * the window is dropped.
+   */
+  @Nullable
+  static String getPrintablePrefix(@NotNull byte[] bytes, int window) {
+    if (bytes.length == 0) return null;
+    CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPORT)
+      .onUnmappableCharacter(CodingErrorAction.REPORT);
+    ByteBuffer in = ByteBuffer.wrap(bytes, 0, Math.min(bytes.length, window));
+    CharBuffer out = CharBuffer.allocate(in.remaining());
+    boolean wholeBinary = bytes.length <= window;
+    if (decoder.decode(in, out, wholeBinary).isError()) return null;
+    if (wholeBinary && (decoder.flush(out).isError() || in.hasRemaining())) return null;
+    out.flip();
+    for (int i = 0; i < out.length(); ) {
+      int codePoint = Character.codePointAt(out, i);
+      if (!isPrintable(codePoint)) return null;
+      i += Character.charCount(codePoint);
+    }
+    return out.toString();
+  }
+
+  // io_lib:printable_unicode_list/1
+  private static boolean isPrintable(long c) {
+    return c >= 32 && c <= 126 ||
+           c >= 160 && c < 0xD800 ||
+           c > 0xDFFF && c < 0xFFFE ||
+           c > 0xFFFF && c <= 0x10FFFF ||
+           c == '\n' || c == '\r' || c == '\t' || c == 0x0B || c == '\b' || c == '\f' || c == 0x1B || c == 0x07;
+  }
+
+  /**
+   * @return false if the text was cut.
+   */
+  private static boolean append(@NotNull StringBuilder builder, @NotNull OtpErlangObject term, int limit) {
+    if (builder.length() >= limit) return false;
+    if (isTruncated(term)) {
+      append(builder, getTruncatedPrefix(term), limit);
+      return false;
+    }
+    if (term instanceof OtpErlangList) {
+      OtpErlangList list = (OtpErlangList) term;
+      builder.append('[');
+      for (int i = 0; i < list.arity(); i++) {
+        if (i > 0) builder.append(',');
+        if (!append(builder, list.elementAt(i), limit)) return false;
+      }
+      OtpErlangObject tail = list.getLastTail();
+      if (tail != null) {
+        builder.append('|');
+        if (!append(builder, tail, limit)) return false;
+      }
+      builder.append(']');
+    }
+    else if (term instanceof OtpErlangTuple) {
+      OtpErlangTuple tuple = (OtpErlangTuple) term;
+      builder.append('{');
+      for (int i = 0; i < tuple.arity(); i++) {
+        if (i > 0) builder.append(',');
+        if (!append(builder, tuple.elementAt(i), limit)) return false;
+      }
+      builder.append('}');
+    }
+    else if (term instanceof OtpErlangMap) {
+      OtpErlangMap map = (OtpErlangMap) term;
+      builder.append("#{");
+      boolean first = true;
+      for (OtpErlangObject key : map.keys()) {
+        if (!first) builder.append(',');
+        first = false;
+        if (!append(builder, key, limit)) return false;
+        builder.append(" => ");
+        if (!append(builder, map.get(key), limit)) return false;
+      }
+      builder.append('}');
+    }
+    else {
+      String text = term.toString();
+      if (builder.length() + text.length() > limit) {
+        builder.append(text, 0, Math.max(0, limit - builder.length()));
+        return false;
+      }
+      builder.append(text);
+    }
+    return true;
+  }
+}
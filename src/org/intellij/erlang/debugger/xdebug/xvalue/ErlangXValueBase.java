@@ -30,6 +30,7 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.ui.SimpleTextAttributes;
 import com.intellij.util.ThreeState;
 import com.intellij.xdebugger.XDebugSession;
 import com.intellij.xdebugger.XExpression;
@@ -50,6 +51,7 @@ class ErlangXValueBase<T extends OtpErlangObject> extends XValue {
   private final int myChildrenCount;
   private final String myName;
   private int myNextChildIdxToCompute;
+  private long myOriginalSize = -1;
   private final XDebugSession mySession;
 
   protected ErlangXValueBase(T value, String name, XDebugSession session) {
@@ -75,6 +77,17 @@ class ErlangXValueBase<T extends OtpErlangObject> extends XValue {
     return myName;
   }
 
+  /**
+   * Marks the value as a prefix of a term of the given size which the debugger node did not send in full.
+   */
+  void setOriginalSize(long originalSize) {
+    myOriginalSize = originalSize;
+  }
+
+  protected boolean hasOmittedChildren() {
+    return myOriginalSize > myChildrenCount;
+  }
+
   @Override
   public void computeChildren(@NotNull XCompositeNode node) {
     int nextToLastChildIdx = Math.min(myNextChildIdxToCompute + XCompositeNode.MAX_CHILDREN_TO_SHOW, myChildrenCount);
@@ -87,6 +100,10 @@ class ErlangXValueBase<T extends OtpErlangObject> extends XValue {
     if (!computedAllChildren) {
       node.tooManyChildren(myChildrenCount - myNextChildIdxToCompute);
     }
+    else if (hasOmittedChildren()) {
+      node.setMessage((myOriginalSize - myChildrenCount) + " more elements were not transferred from the node",
+                      null, SimpleTextAttributes.GRAYED_ATTRIBUTES, null);
+    }
     node.addChildren(children, computedAllChildren);
   }
 
@@ -97,10 +114,15 @@ class ErlangXValueBase<T extends OtpErlangObject> extends XValue {
       node.setPresentation(getIcon(), presentation, hasChildren());
     }
     else {
-      String repr = getStringRepr();
+      String repr = getStringRepr(XValueNode.MAX_VALUE_LENGTH);
       if (repr.length() > XValueNode.MAX_VALUE_LENGTH) {
-        node.setFullValueEvaluator(new ImmediateFullValueEvaluator(repr));
-        repr = repr.substring(0, XValueNode.MAX_VALUE_LENGTH - 3) + "...";
+        node.setFullValueEvaluator(new XFullValueEvaluator() {
+          @Override
+          public void startEvaluation(@NotNull XFullValueEvaluationCallback callback) {
+            callback.evaluated(getStringRepr(Integer.MAX_VALUE));
+          }
+        });
+        repr = repr.substring(0, XValueNode.MAX_VALUE_LENGTH - 3) + ErlangTermText.ELLIPSIS;
       }
       node.setPresentation(getIcon(), getType(), repr, hasChildren());
     }
@@ -156,12 +178,15 @@ class ErlangXValueBase<T extends OtpErlangObject> extends XValue {
 
   @Nullable
   protected String getType() {
-    return null;
+    return hasOmittedChildren() ? "size = " + myOriginalSize : null;
   }
 
+  /**
+   * @return the text of the value, longer than limit only if it was cut.
+   */
   @NotNull
-  protected String getStringRepr() {
-    return myValue.toString();
+  protected String getStringRepr(int limit) {
+    return ErlangTermText.print(myValue, limit);
   }
 
   protected Icon getIcon() {
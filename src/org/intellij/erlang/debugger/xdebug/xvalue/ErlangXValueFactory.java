@@ -26,6 +26,13 @@ public final class ErlangXValueFactory {
   }
 
   public static XValue create(OtpErlangObject object, String name, XDebugSession session) {
+    if (ErlangTermText.isTruncated(object)) {
+      XValue prefix = create(ErlangTermText.getTruncatedPrefix(object), name, session);
+      if (prefix instanceof ErlangXValueBase) {
+        ((ErlangXValueBase<?>) prefix).setOriginalSize(ErlangTermText.getTruncatedSize(object));
+      }
+      return prefix;
+    }
     if (object instanceof OtpErlangLong || object instanceof OtpErlangDouble) {
       return new ErlangNumericXValue(object, name, session);
     }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.documentation;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads EEP-48 documentation, either from the "Docs" chunk of a .beam file or from a doc/chunks/*.chunk file,
+ * and renders it into the same fragment keys as {@link ErlangSdkDocPageIndex}.
+ */
+final class ErlangDocChunkReader {
+  private static final String DOCS_CHUNK_ID = "Docs";
+  private static final String FORMAT_ERLANG_HTML = "application/erlang+html";
+  private static final String LANGUAGE = "en";
+
+  private ErlangDocChunkReader() {
+  }
+
+  @Nullable
+  static Map<String, String> read(@NotNull File file, @NotNull String moduleName) {
+    try {
+      byte[] bytes = FileUtil.loadFileBytes(file);
+      byte[] chunk = file.getName().endsWith(".beam") ? findBeamChunk(bytes, DOCS_CHUNK_ID) : bytes;
+      if (chunk == null) return null;
+      OtpErlangObject docs = new OtpInputStream(chunk).read_any();
+      return docs instanceof OtpErlangTuple ? render((OtpErlangTuple) docs, moduleName) : null;
+    } catch (IOException | OtpErlangException e) { // Ignore
+      return null;
+    }
+  }
+
+  @Nullable
+  private static byte[] findBeamChunk(@NotNull byte[] beam, @NotNull String chunkId) {
+    ByteBuffer buffer = ByteBuffer.wrap(beam);
+    if (beam.length < 12 || buffer.getInt(0) != fourCC("FOR1") || buffer.getInt(8) != fourCC("BEAM")) return null;
+    int expected = fourCC(chunkId);
+    int position = 12;
+    while (position + 8 <= beam.length) {
+      int id = buffer.getInt(position);
+      int size = buffer.getInt(position + 4);
+      if (size < 0 || position + 8 + size > beam.length) return null;
+      if (id == expected) {
+        byte[] chunk = new byte[size];
+        System.arraycopy(beam, position + 8, chunk, 0, size);
+        return chunk;
+      }
+      position += 8 + ((size + 3) & ~3);
+    }
+    return null;
+  }
+
+  private static int fourCC(@NotNull String id) {
+    byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+    return ByteBuffer.wrap(bytes).getInt();
+  }
+
+  // {docs_v1, Anno, BeamLanguage, Format, ModuleDoc, Metadata, Docs}
+  @Nullable
+  private static Map<String, String> render(@NotNull OtpErlangTuple docs, @NotNull String moduleName) {
+    if (docs.arity() != 7 || !isAtom(docs.elementAt(0), "docs_v1")) return null;
+    boolean erlangHtml = FORMAT_ERLANG_HTML.equals(binaryText(docs.elementAt(3)));
+    Map<String, String> fragments = new HashMap<>();
+
+    String moduleDoc = renderDoc(docs.elementAt(4), erlangHtml);
+    if (moduleDoc != null) {
+      fragments.put(ErlangSdkDocPageIndex.MODULE_KEY,
+                    "<h3>MODULE</h3><div class=\"REFBODY\">" + moduleName + "</div>\n" +
+                    "<h3>DESCRIPTION</h3>\n<div class=\"REFBODY\">" + moduleDoc + "</div>\n");
+    }
+
+    OtpErlangObject entries = docs.elementAt(6);
+    if (!(entries instanceof OtpErlangList)) return fragments;
+    for (OtpErlangObject entry : (OtpErlangList) entries) {
+      // {{Kind, Name, Arity}, Anno, Signature, Doc, Metadata}
+      if (!(entry instanceof OtpErlangTuple) || ((OtpErlangTuple) entry).arity() != 5) continue;
+      OtpErlangTuple docEntry = (OtpErlangTuple) entry;
+      String key = entryKey(docEntry.elementAt(0));
+      if (key == null || fragments.containsKey(key) || isAtom(docEntry.elementAt(3), "hidden")) continue;
+      StringBuilder builder = new StringBuilder("<p>");
+      OtpErlangObject signature = docEntry.elementAt(2);
+      if (signature instanceof OtpErlangList) {
+        for (OtpErlangObject signatureLine : (OtpErlangList) signature) {
+          String text = binaryText(signatureLine);
+          if (text != null) {
+            builder.append("<span class=\"bold_code\">").append(StringUtil.escapeXmlEntities(text)).append("</span><br>");
+          }
+        }
+      }
+      builder.append("</p>\n");
+      String doc = renderDoc(docEntry.elementAt(3), erlangHtml);
+      if (doc != null) {
+        builder.append("<div class=\"REFBODY\">").append(doc).append("</div>\n");
+      }
+      fragments.put(key, builder.toString());
+    }
+    return fragments;
+  }
+
+  @Nullable
+  private static String entryKey(@NotNull OtpErlangObject kindNameArity) {
+    if (!(kindNameArity instanceof OtpErlangTuple) || ((OtpErlangTuple) kindNameArity).arity() != 3) return null;
+    OtpErlangTuple tuple = (OtpErlangTuple) kindNameArity;
+    OtpErlangObject name = tuple.elementAt(1);
+    if (!(name instanceof OtpErlangAtom)) return null;
+    String nameText = ((OtpErlangAtom) name).atomValue();
+    if (isAtom(tuple.elementAt(0), "function")) {
+      return nameText + "-" + tuple.elementAt(2);
+    }
+    if (isAtom(tuple.elementAt(0), "type")) {
+      return "type-" + nameText;
+    }
+    return null;
+  }
+
+  @Nullable
+  private static String renderDoc(@NotNull OtpErlangObject doc, boolean erlangHtml) {
+    if (!(doc instanceof OtpErlangMap)) return null;
+    OtpErlangObject localized = ((OtpErlangMap) doc).get(new OtpErlangBinary(LANGUAGE.getBytes(StandardCharsets.UTF_8)));
+    if (localized == null) return null;
+    if (erlangHtml) {
+      StringBuilder builder = new StringBuilder();
+      appendErlangHtml(builder, localized);
+      return builder.toString();
+    }
+    String text = binaryText(localized);
+    return text != null ? "<pre>" + StringUtil.escapeXmlEntities(text) + "</pre>" : null;
+  }
+
+  // Content is binary() | [binary() | {Tag :: atom(), Attributes :: [{atom(), binary()}], Content}]
+  private static void appendErlangHtml(@NotNull StringBuilder builder, @NotNull OtpErlangObject content) {
+    if (content instanceof OtpErlangList) {
+      for (OtpErlangObject element : (OtpErlangList) content) {
+        appendErlangHtml(builder, element);
+      }
+    }
+    else if (content instanceof OtpErlangTuple && ((OtpErlangTuple) content).arity() == 3) {
+      OtpErlangTuple element = (OtpErlangTuple) content;
+      if (!(element.elementAt(0) instanceof OtpErlangAtom)) return;
+      String tag = ((OtpErlangAtom) element.elementAt(0)).atomValue();
+      builder.append('<').append(tag);
+      if (element.elementAt(1) instanceof OtpErlangList) {
+        for (OtpErlangObject attribute : (OtpErlangList) element.elementAt(1)) {
+          if (!(attribute instanceof OtpErlangTuple) || ((OtpErlangTuple) attribute).arity() != 2) continue;
+          OtpErlangObject attributeName = ((OtpErlangTuple) attribute).elementAt(0);
+          String value = binaryText(((OtpErlangTuple) attribute).elementAt(1));
+          if (attributeName instanceof OtpErlangAtom && value != null) {
+            builder.append(' ').append(((OtpErlangAtom) attributeName).atomValue())
+              .append("=\"").append(StringUtil.escapeXmlEntities(value)).append('"');
+          }
+        }
+      }
+      builder.append('>');
+      appendErlangHtml(builder, element.elementAt(2));
+      builder.append("</").append(tag).append('>');
+    }
+    else {
+      String text = binaryText(content);
+      if (text != null) {
+        builder.append(StringUtil.escapeXmlEntities(text));
+      }
+    }
+  }
+
+  @Nullable
+  private static String binaryText(@Nullable OtpErlangObject object) {
+    return object instanceof OtpErlangBinary ? new String(((OtpErlangBinary) object).binaryValue(), StandardCharsets.UTF_8) : null;
+  }
+
+  private static boolean isAtom(@Nullable OtpErlangObject object, @NotNull String atom) {
+    return object instanceof OtpErlangAtom && atom.equals(((OtpErlangAtom) object).atomValue());
+  }
+}
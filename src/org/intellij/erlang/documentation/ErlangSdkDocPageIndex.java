@@ -0,0 +1,270 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.documentation;
+
+import com.intellij.openapi.util.TextRange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.intellij.codeInsight.documentation.DocumentationManagerProtocol.PSI_ELEMENT_PROTOCOL;
+
+/**
+ * Anchors of a single OTP HTML reference page mapped to the byte ranges of their documentation.
+ * <p>
+ * Keys are the in-page references without the leading '#': "name-arity" for functions,
+ * "type-name" for types and {@link #MODULE_KEY} for the module description.
+ */
+final class ErlangSdkDocPageIndex {
+  static final String MODULE_KEY = "";
+
+  private static final Pattern PATTERN_FUNC_BEGIN = Pattern.compile("<a name=\"(.*?)\"></a>");
+  private static final Pattern PATTERN_BIF_BEGIN = Pattern.compile(
+    "<a name=\"(.*?)\"><span class=\"bold_code\">.*?</span></a><br>");
+  private static final Pattern PATTERN_END_OF_DOC = Pattern.compile("^<div class=\"footer\">$");
+  private static final Pattern PATTERN_TYPE_BEGIN = Pattern.compile(
+    "^ {6}<span class=\"bold_code\"><a name=\"type-(.*?)\">.*?</span><br></p>$");
+  private static final Pattern PATTERN_MODULE_BEGIN = Pattern.compile("^ {2}<h3>MODULE</h3>$");
+  private static final Pattern PATTERN_EXPORTS = Pattern.compile("^ {2}<h3>EXPORTS</h3>$");
+
+  private static final Pattern PATTERN_HREF = Pattern.compile("<a href=\"(.*?)\">");
+  private static final Pattern PATTERN_EVALUATED_LINK = Pattern.compile("javascript:erlhref\\('.*?','.*?','(.*?)'\\);");
+  private static final Pattern PATTERN_EXTERNAL_LINK = Pattern.compile("(.*)\\.html#(.*)");
+
+  private static final byte[] ANCHOR_MARKER = "<a name=\"".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] HEADER_MARKER = "<h3>".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FOOTER_MARKER = "<div class=\"footer\">".getBytes(StandardCharsets.US_ASCII);
+
+  private final long myLength;
+  private final long myTimestamp;
+  @NotNull private final Map<String, TextRange> mySegments;
+
+  private ErlangSdkDocPageIndex(long length, long timestamp, @NotNull Map<String, TextRange> segments) {
+    myLength = length;
+    myTimestamp = timestamp;
+    mySegments = segments;
+  }
+
+  boolean isUpToDate(long length, long timestamp) {
+    return myLength == length && myTimestamp == timestamp;
+  }
+
+  @Nullable
+  TextRange getSegment(@NotNull String key) {
+    return mySegments.get(key);
+  }
+
+  /**
+   * Scans the page once. Only lines containing one of the marker byte sequences are decoded and matched,
+   * the rest of the page is skipped at the byte level.
+   */
+  @NotNull
+  static ErlangSdkDocPageIndex build(@NotNull byte[] content, long length, long timestamp) {
+    Map<String, TextRange> segments = new HashMap<>();
+    List<String> openFunctions = new ArrayList<>();
+    int functionsStart = -1;
+    String openType = null;
+    int typeStart = -1;
+    int moduleStart = -1;
+    boolean moduleDone = false;
+
+    int lineStart = 0;
+    while (lineStart < content.length) {
+      int lineEnd = indexOf(content, (byte) '\n', lineStart);
+      boolean anchor = contains(content, lineStart, lineEnd, ANCHOR_MARKER);
+      boolean header = contains(content, lineStart, lineEnd, HEADER_MARKER);
+      boolean footer = contains(content, lineStart, lineEnd, FOOTER_MARKER);
+      if (anchor || header || footer) {
+        String line = decodeLine(content, lineStart, lineEnd);
+
+        List<String> functionAnchors = anchor ? findFunctionAnchors(line) : new ArrayList<>();
+        if (!functionAnchors.isEmpty() || footer && PATTERN_END_OF_DOC.matcher(line).matches()) {
+          addSegments(segments, openFunctions, functionsStart, lineStart);
+          openFunctions.clear();
+        }
+        if (!functionAnchors.isEmpty()) {
+          openFunctions.addAll(functionAnchors);
+          functionsStart = lineStart;
+        }
+
+        Matcher typeMatcher = anchor ? PATTERN_TYPE_BEGIN.matcher(line) : null;
+        boolean typeBegin = typeMatcher != null && typeMatcher.matches();
+        boolean exports = header && PATTERN_EXPORTS.matcher(line).matches();
+        if (openType != null && (typeBegin || exports)) {
+          segments.putIfAbsent(openType, new TextRange(typeStart, lineStart));
+          openType = null;
+        }
+        if (typeBegin) {
+          openType = "type-" + typeMatcher.group(1);
+          typeStart = lineStart;
+        }
+
+        if (moduleStart >= 0 && !moduleDone && exports) {
+          segments.put(MODULE_KEY, new TextRange(moduleStart, lineStart));
+          moduleDone = true;
+        }
+        if (moduleStart < 0 && header && PATTERN_MODULE_BEGIN.matcher(line).matches()) {
+          moduleStart = lineStart;
+        }
+      }
+      lineStart = lineEnd + 1;
+    }
+
+    addSegments(segments, openFunctions, functionsStart, content.length);
+    if (openType != null) {
+      segments.putIfAbsent(openType, new TextRange(typeStart, content.length));
+    }
+    if (moduleStart >= 0 && !moduleDone) {
+      segments.put(MODULE_KEY, new TextRange(moduleStart, content.length));
+    }
+    return new ErlangSdkDocPageIndex(length, timestamp, segments);
+  }
+
+  /**
+   * Converts the raw text of a segment into the documentation fragment: the anchor line is kept as is,
+   * every following line is terminated with a line feed and all links are rewritten to psi element links.
+   */
+  @NotNull
+  static String render(@NotNull String segmentText, @NotNull String moduleName) {
+    StringBuilder builder = new StringBuilder(segmentText.length() + 256);
+    int lineStart = 0;
+    boolean first = true;
+    while (lineStart < segmentText.length()) {
+      int lineEnd = segmentText.indexOf('\n', lineStart);
+      if (lineEnd < 0) lineEnd = segmentText.length();
+      int textEnd = lineEnd > lineStart && segmentText.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+      appendCorrectedLine(builder, segmentText.substring(lineStart, textEnd), moduleName);
+      if (!first) {
+        builder.append("\n");
+      }
+      first = false;
+      lineStart = lineEnd + 1;
+    }
+    return builder.toString();
+  }
+
+  void write(@NotNull DataOutput out) throws IOException {
+    out.writeLong(myLength);
+    out.writeLong(myTimestamp);
+    out.writeInt(mySegments.size());
+    for (Map.Entry<String, TextRange> entry : mySegments.entrySet()) {
+      out.writeUTF(entry.getKey());
+      out.writeInt(entry.getValue().getStartOffset());
+      out.writeInt(entry.getValue().getEndOffset());
+    }
+  }
+
+  @NotNull
+  static ErlangSdkDocPageIndex read(@NotNull DataInput in) throws IOException {
+    long length = in.readLong();
+    long timestamp = in.readLong();
+    int size = in.readInt();
+    Map<String, TextRange> segments = new HashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      String key = in.readUTF();
+      segments.put(key, new TextRange(in.readInt(), in.readInt()));
+    }
+    return new ErlangSdkDocPageIndex(length, timestamp, segments);
+  }
+
+  @NotNull
+  private static List<String> findFunctionAnchors(@NotNull String line) {
+    List<String> anchors = new ArrayList<>();
+    Matcher matcher = PATTERN_FUNC_BEGIN.matcher(line);
+    while (matcher.find()) {
+      anchors.add(matcher.group(1));
+    }
+    matcher = PATTERN_BIF_BEGIN.matcher(line);
+    while (matcher.find()) {
+      anchors.add(matcher.group(1));
+    }
+    return anchors;
+  }
+
+  private static void addSegments(@NotNull Map<String, TextRange> segments, @NotNull List<String> keys, int start, int end) {
+    for (String key : keys) {
+      segments.putIfAbsent(key, new TextRange(start, end));
+    }
+  }
+
+  @NotNull
+  private static String decodeLine(@NotNull byte[] content, int lineStart, int lineEnd) {
+    int textEnd = lineEnd > lineStart && content[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+    return new String(content, lineStart, textEnd - lineStart, StandardCharsets.UTF_8);
+  }
+
+  private static int indexOf(@NotNull byte[] content, byte b, int from) {
+    for (int i = from; i < content.length; i++) {
+      if (content[i] == b) return i;
+    }
+    return content.length;
+  }
+
+  private static boolean contains(@NotNull byte[] content, int from, int to, @NotNull byte[] marker) {
+    int last = to - marker.length;
+    outer:
+    for (int i = from; i <= last; i++) {
+      for (int j = 0; j < marker.length; j++) {
+        if (content[i + j] != marker[j]) continue outer;
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private static void appendCorrectedLine(@NotNull StringBuilder builder, @NotNull String line, @NotNull String moduleName) {
+    Matcher matcher = PATTERN_HREF.matcher(line);
+    int lastCopiedChar = 0;
+    while (matcher.find()) {
+      MatchResult matchResult = matcher.toMatchResult();
+      builder.append(line, lastCopiedChar, matchResult.start());
+      builder.append("<a href=\"")
+        .append(convertLink(matchResult.group(1), moduleName))
+        .append("\">");
+      lastCopiedChar = matchResult.end();
+    }
+    builder.append(line.substring(lastCopiedChar));
+  }
+
+  @NotNull
+  private static String convertLink(@NotNull String href, @NotNull String moduleName) {
+    Matcher evaluatedLinkMatcher = PATTERN_EVALUATED_LINK.matcher(href);
+    String concreteHref = evaluatedLinkMatcher.matches() ? evaluatedLinkMatcher.group(1) : href;
+    Matcher externalLinkMatcher = PATTERN_EXTERNAL_LINK.matcher(concreteHref);
+    if (externalLinkMatcher.matches()) {
+      return PSI_ELEMENT_PROTOCOL + externalLinkMatcher.group(1) + "#" + externalLinkMatcher.group(2);
+    }
+    if (concreteHref.charAt(0) == '#') {
+      return PSI_ELEMENT_PROTOCOL + moduleName + concreteHref;
+    }
+    if (concreteHref.endsWith(".html")) {
+      return PSI_ELEMENT_PROTOCOL + concreteHref.substring(0, concreteHref.length() - 5);
+    }
+    return href;
+  }
+}
@@ -23,37 +23,25 @@ import com.intellij.openapi.roots.JavadocOrderRootType;
 import com.intellij.openapi.roots.OrderEntry;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
-import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.util.ObjectUtils;
 import com.intellij.util.ResourceUtil;
 import com.intellij.util.Url;
 import com.intellij.util.containers.ContainerUtil;
-import com.intellij.util.net.HttpConfigurable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.builtInWebServer.BuiltInWebBrowserUrlProviderKt;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.util.*;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static com.intellij.codeInsight.documentation.DocumentationManagerProtocol.PSI_ELEMENT_PROTOCOL;
 
 abstract class ErlangSdkDocProviderBase implements ElementDocProvider {
-  private static final Pattern PATTERN_HREF = Pattern.compile("<a href=\"(.*?)\">");
-  private static final Pattern PATTERN_EVALUATED_LINK = Pattern.compile("javascript:erlhref\\('.*?','.*?','(.*?)'\\);");
-  private static final Pattern PATTERN_EXTERNAL_LINK = Pattern.compile("(.*)\\.html#(.*)");
-
   static final String HTTP_STYLE;
   static {
     String css;
@@ -88,26 +76,24 @@ abstract class ErlangSdkDocProviderBase implements ElementDocProvider {
   @Nullable
   @Override
   public String getDocText() {
-    List<String> fileUrls = getFileUrls(getOrderEntries(), myVirtualFile);
-    List<String> httpUrls = getExternalDocUrls();
-    List<String> urls = new ArrayList<>(fileUrls.size() + httpUrls.size());
-    urls.addAll(fileUrls);
-    urls.addAll(httpUrls);
-    for (String urlString : urls) {
-      BufferedReader reader = createReader(urlString);
-      if (reader == null) {
-        continue;
+    ErlangSdkDocStore docStore = ErlangSdkDocStore.getInstance();
+    String docKey = StringUtil.trimStart(getInDocRef(), "#");
+    String moduleName = myVirtualFile.getNameWithoutExtension();
+    for (File localPage : getLocalDocPages(getOrderEntries(), myVirtualFile, docStore)) {
+      String fragment = docStore.getLocalFragment(localPage, docKey, moduleName);
+      if (fragment != null) {
+        return decorateRetrievedHtml(fragment);
       }
-      try {
-        String retrievedHtml = retrieveDoc(reader);
-        if (retrievedHtml != null) {
-          return decorateRetrievedHtml(retrievedHtml);
-        }
-      } finally {
-        try {
-          reader.close();
-        } catch (IOException e) { // Ignore
-        }
+    }
+    String chunkFragment = docStore.getDocChunkFragment(myVirtualFile, docKey);
+    if (chunkFragment != null) {
+      return decorateRetrievedHtml(chunkFragment);
+    }
+    for (String httpUrl : getExternalDocUrls()) {
+      String pageUrl = ObjectUtils.notNull(StringUtil.substringBefore(httpUrl, "#"), httpUrl);
+      String fragment = docStore.getRemoteFragment(pageUrl, docKey, moduleName);
+      if (fragment != null) {
+        return decorateRetrievedHtml(fragment);
       }
     }
     return null;
@@ -122,60 +108,9 @@ abstract class ErlangSdkDocProviderBase implements ElementDocProvider {
     return myOrderEntries;
   }
 
-  @Nullable
-  private String retrieveDoc(@NotNull BufferedReader reader) {
-    try {
-      String line;
-      boolean functionDocFound = false;
-      while ((line = reader.readLine()) != null) {
-        if (isDocBegin(line)) {
-          functionDocFound = true;
-          break;
-        }
-      }
-      if (!functionDocFound) {
-        return null;
-      }
-      StringBuilder builder = new StringBuilder(1024);
-      appendCorrectedLine(builder, line);
-      while ((line = reader.readLine()) != null && !isDocEnd(line)) {
-        appendCorrectedLine(builder, line);
-        builder.append("\n");
-      }
-      return builder.toString();
-    } catch (IOException e) { // Ignore
-    } finally {
-      try {
-        reader.close();
-      } catch (IOException e) { // Ignore
-      }
-    }
-    return null;
-  }
-
-  private void appendCorrectedLine(@NotNull StringBuilder builder, @NotNull String line) {
-    Matcher matcher = PATTERN_HREF.matcher(line);
-    int lastCopiedChar = 0;
-    while (matcher.find()) {
-      MatchResult matchResult = matcher.toMatchResult();
-      builder.append(line, lastCopiedChar, matchResult.start());
-      String linkHref = matchResult.group(1);
-      String convertedLink = convertLink(linkHref);
-      builder.append("<a href=\"")
-        .append(convertedLink)
-        .append("\">");
-      lastCopiedChar = matchResult.end();
-    }
-    builder.append(line.substring(lastCopiedChar));
-  }
-
   @NotNull
   protected abstract String getInDocRef();
 
-  protected abstract boolean isDocEnd(@NotNull String line);
-
-  protected abstract boolean isDocBegin(@NotNull String line);
-
   @NotNull
   private List<String> getHttpUrls(@NotNull List<OrderEntry> orderEntries,
                                    @NotNull VirtualFile virtualFile,
@@ -219,40 +154,24 @@ abstract class ErlangSdkDocProviderBase implements ElementDocProvider {
   }
 
   @NotNull
-  private static List<String> getFileUrls(@NotNull List<OrderEntry> orderEntries,
-                                          @NotNull VirtualFile virtualFile) {
-    Set<String> fileUrls = null;
+  private static List<File> getLocalDocPages(@NotNull List<OrderEntry> orderEntries,
+                                             @NotNull VirtualFile virtualFile,
+                                             @NotNull ErlangSdkDocStore docStore) {
+    Set<File> localPages = null;
     for (OrderEntry orderEntry : orderEntries) {
       VirtualFile[] docRootFiles = orderEntry.getFiles(JavadocOrderRootType.getInstance());
       String sdkHttpDocRelPath = httpDocRelPath(virtualFile);
       for (VirtualFile docRootFile : docRootFiles) {
         if (docRootFile.isInLocalFileSystem()) {
-          if (fileUrls == null) {
-            fileUrls = new HashSet<>();
+          if (localPages == null) {
+            localPages = new LinkedHashSet<>();
           }
-          fileUrls.add(docRootFile.getUrl() + "/" + sdkHttpDocRelPath);
+          docStore.scheduleIndexing(docRootFile);
+          localPages.add(new File(docRootFile.getPath(), sdkHttpDocRelPath));
         }
       }
     }
-    return fileUrls != null ? new ArrayList<>(fileUrls) : Collections.emptyList();
-  }
-
-  @Nullable
-  private static BufferedReader createReader(@NotNull String urlString) {
-    try {
-      URL url = BrowserUtil.getURL(urlString);
-      if (url == null) {
-        return null;
-      }
-      if (url.getProtocol().equals("http")) {
-        return createHttpReader(url);
-      }
-      else if (url.getProtocol().equals("file")) {
-        return createFileReader(url);
-      }
-    } catch (Exception e) { // Ignore
-    }
-    return null;
+    return localPages != null ? new ArrayList<>(localPages) : Collections.emptyList();
   }
 
   @NotNull
@@ -280,48 +199,8 @@ abstract class ErlangSdkDocProviderBase implements ElementDocProvider {
     return "";
   }
 
-  @NotNull
-  private static BufferedReader createHttpReader(@NotNull URL url) throws IOException {
-    HttpConfigurable httpConfigurable = HttpConfigurable.getInstance();
-    httpConfigurable.prepareURL(url.toString());
-    URLConnection urlConnection = url.openConnection();
-    String contentEncoding = urlConnection.getContentEncoding();
-    InputStream inputStream = urlConnection.getInputStream();
-    InputStreamReader inputStreamReader = contentEncoding != null
-      ? new InputStreamReader(inputStream, contentEncoding)
-      : new InputStreamReader(inputStream);
-    return new BufferedReader(inputStreamReader);
-  }
-
-  @Nullable
-  private static BufferedReader createFileReader(@NotNull URL url) {
-    try {
-      InputStreamReader stream = new InputStreamReader(url.openStream(), CharsetToolkit.UTF8_CHARSET);
-      return new BufferedReader(stream);
-    } catch (IOException e) {
-      return null;
-    }
-  }
-
   @NotNull
   private static String decorateRetrievedHtml(@NotNull String retrievedHtml) {
     return "<html>\n" + HTTP_STYLE + "<body>\n" + retrievedHtml + "</body></html>\n";
   }
-
-  @NotNull
-  private String convertLink(@NotNull String href) {
-    Matcher evaluatedLinkMatcher = PATTERN_EVALUATED_LINK.matcher(href);
-    String concreteHref = evaluatedLinkMatcher.matches() ? evaluatedLinkMatcher.group(1) : href;
-    Matcher externalLinkMatcher = PATTERN_EXTERNAL_LINK.matcher(concreteHref);
-    if (externalLinkMatcher.matches()) {
-      return PSI_ELEMENT_PROTOCOL + externalLinkMatcher.group(1) + "#" + externalLinkMatcher.group(2);
-    }
-    if (concreteHref.charAt(0) == '#') {
-      return PSI_ELEMENT_PROTOCOL + myVirtualFile.getNameWithoutExtension() + concreteHref;
-    }
-    if (concreteHref.endsWith(".html")) {
-      return PSI_ELEMENT_PROTOCOL + concreteHref.substring(0, concreteHref.length() - 5);
-    }
-    return href;
-  }
 }
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.documentation;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.SLRUMap;
+import com.intellij.util.io.HttpRequests;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application-wide store of Erlang SDK documentation.
+ * <p>
+ * Every HTML reference page is scanned once into an {@link ErlangSdkDocPageIndex}, which is persisted per
+ * documentation directory in the IDE system directory. Fragments are read from the page by offset and kept in
+ * an LRU cache, as are the contents of remote pages. Pages of an SDK documentation root are indexed in the
+ * background on first use.
+ */
+public final class ErlangSdkDocStore {
+  private static final Logger LOG = Logger.getInstance(ErlangSdkDocStore.class);
+  private static final int INDEX_VERSION = 1;
+  private static final String HTML_EXTENSION = "html";
+  private static final String NO_DOC = "";
+
+  private final Map<String, ErlangSdkDocPageIndex> myLocalPages = new ConcurrentHashMap<>();
+  private final Set<String> myLoadedDirectories = ConcurrentHashMap.newKeySet();
+  private final Set<String> myScheduledRoots = ConcurrentHashMap.newKeySet();
+  private final SLRUMap<String, String> myFragments = new SLRUMap<>(128, 64);
+  private final SLRUMap<String, Map<String, String>> myDocChunks = new SLRUMap<>(16, 16);
+  private final SLRUMap<String, RemotePage> myRemotePages = new SLRUMap<>(8, 8);
+
+  @NotNull
+  public static ErlangSdkDocStore getInstance() {
+    return ServiceManager.getService(ErlangSdkDocStore.class);
+  }
+
+  /**
+   * Schedules indexing of all HTML pages of a local SDK documentation root, at most once per root.
+   */
+  void scheduleIndexing(@NotNull VirtualFile docRoot) {
+    if (!docRoot.isInLocalFileSystem() || ApplicationManager.getApplication().isUnitTestMode()) return;
+    String rootPath = docRoot.getPath();
+    if (!myScheduledRoots.add(rootPath)) return;
+    ApplicationManager.getApplication().executeOnPooledThread(() -> indexDocRoot(new File(rootPath)));
+  }
+
+  @Nullable
+  String getLocalFragment(@NotNull File page, @NotNull String key, @NotNull String moduleName) {
+    long length = page.length();
+    long timestamp = page.lastModified();
+    if (length == 0L) return null;
+    String cacheKey = page.getPath() + ":" + timestamp + "#" + key;
+    String cached = getCachedFragment(cacheKey);
+    if (cached != null) return StringUtil.nullize(cached);
+
+    String fragment = null;
+    try {
+      ErlangSdkDocPageIndex index = getPageIndex(page, length, timestamp);
+      TextRange segment = index.getSegment(key);
+      if (segment != null) {
+        fragment = ErlangSdkDocPageIndex.render(readSegment(page, segment), moduleName);
+      }
+    } catch (IOException e) {
+      LOG.debug("Failed to read documentation page " + page, e);
+      return null;
+    }
+    cacheFragment(cacheKey, fragment);
+    return fragment;
+  }
+
+  @Nullable
+  String getRemoteFragment(@NotNull String url, @NotNull String key, @NotNull String moduleName) {
+    String cacheKey = url + "#" + key;
+    String cached = getCachedFragment(cacheKey);
+    if (cached != null) return StringUtil.nullize(cached);
+
+    RemotePage page = getRemotePage(url);
+    if (page == null) return null;
+    TextRange segment = page.myIndex.getSegment(key);
+    String fragment = segment != null
+                      ? ErlangSdkDocPageIndex.render(new String(page.myContent, segment.getStartOffset(), segment.getLength(),
+                                                                StandardCharsets.UTF_8), moduleName)
+                      : null;
+    cacheFragment(cacheKey, fragment);
+    return fragment;
+  }
+
+  /**
+   * Fetches and indexes a remote module page once, the fragments of its other functions and types are then read
+   * from the cached content. Failed fetches are not cached.
+   */
+  @Nullable
+  private RemotePage getRemotePage(@NotNull String url) {
+    synchronized (myRemotePages) {
+      RemotePage cached = myRemotePages.get(url);
+      if (cached != null) return cached;
+    }
+    byte[] content;
+    try {
+      content = HttpRequests.request(url).readBytes(null);
+    } catch (IOException e) {
+      LOG.debug("Failed to fetch documentation page " + url, e);
+      return null;
+    }
+    RemotePage page = new RemotePage(content, ErlangSdkDocPageIndex.build(content, content.length, 0L));
+    synchronized (myRemotePages) {
+      myRemotePages.put(url, page);
+    }
+    return page;
+  }
+
+  /**
+   * Looks up EEP-48 documentation of a module: doc/chunks/Module.chunk next to the application sources first,
+   * then the "Docs" chunk of ebin/Module.beam.
+   */
+  @Nullable
+  String getDocChunkFragment(@NotNull VirtualFile sourceFile, @NotNull String key) {
+    VirtualFile sourceDir = sourceFile.getParent();
+    VirtualFile appDir = sourceDir != null ? sourceDir.getParent() : null;
+    if (appDir == null || !appDir.isInLocalFileSystem()) return null;
+    String moduleName = sourceFile.getNameWithoutExtension();
+    File[] candidates = {
+      new File(appDir.getPath(), "doc/chunks/" + moduleName + ".chunk"),
+      new File(appDir.getPath(), "ebin/" + moduleName + ".beam"),
+    };
+    for (File candidate : candidates) {
+      if (!candidate.isFile()) continue;
+      Map<String, String> fragments = getDocChunk(candidate, moduleName);
+      String fragment = fragments.get(key);
+      if (fragment != null) return fragment;
+    }
+    return null;
+  }
+
+  @NotNull
+  private Map<String, String> getDocChunk(@NotNull File file, @NotNull String moduleName) {
+    String cacheKey = file.getPath() + ":" + file.lastModified();
+    synchronized (myDocChunks) {
+      Map<String, String> cached = myDocChunks.get(cacheKey);
+      if (cached != null) return cached;
+    }
+    Map<String, String> fragments = ErlangDocChunkReader.read(file, moduleName);
+    if (fragments == null) {
+      fragments = Collections.emptyMap();
+    }
+    synchronized (myDocChunks) {
+      myDocChunks.put(cacheKey, fragments);
+    }
+    return fragments;
+  }
+
+  @NotNull
+  private ErlangSdkDocPageIndex getPageIndex(@NotNull File page, long length, long timestamp) throws IOException {
+    File directory = page.getParentFile();
+    if (directory != null) {
+      loadDirectory(directory);
+    }
+    ErlangSdkDocPageIndex index = myLocalPages.get(page.getPath());
+    if (index == null || !index.isUpToDate(length, timestamp)) {
+      index = ErlangSdkDocPageIndex.build(FileUtil.loadFileBytes(page), length, timestamp);
+      myLocalPages.put(page.getPath(), index);
+    }
+    return index;
+  }
+
+  @NotNull
+  private static String readSegment(@NotNull File page, @NotNull TextRange segment) throws IOException {
+    byte[] bytes = new byte[segment.getLength()];
+    try (RandomAccessFile file = new RandomAccessFile(page, "r")) {
+      file.seek(segment.getStartOffset());
+      file.readFully(bytes);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Nullable
+  private String getCachedFragment(@NotNull String cacheKey) {
+    synchronized (myFragments) {
+      return myFragments.get(cacheKey);
+    }
+  }
+
+  private void cacheFragment(@NotNull String cacheKey, @Nullable String fragment) {
+    synchronized (myFragments) {
+      myFragments.put(cacheKey, fragment != null ? fragment : NO_DOC);
+    }
+  }
+
+  private void indexDocRoot(@NotNull File docRoot) {
+    long start = System.currentTimeMillis();
+    int pages = 0;
+    File[] appDirs = new File(docRoot, "lib").listFiles();
+    File[] rootDirs = docRoot.listFiles((dir, name) -> name.startsWith("erts"));
+    for (File[] dirs : new File[][]{appDirs, rootDirs}) {
+      if (dirs == null) continue;
+      for (File appDir : dirs) {
+        pages += indexDirectory(new File(appDir, "doc/html"));
+      }
+    }
+    LOG.info("Indexed " + pages + " Erlang SDK documentation pages in " + docRoot + " in " +
+             (System.currentTimeMillis() - start) + " ms");
+  }
+
+  private int indexDirectory(@NotNull File directory) {
+    File[] pages = directory.listFiles((dir, name) -> FileUtilRt.extensionEquals(name, HTML_EXTENSION));
+    if (pages == null || pages.length == 0) return 0;
+    loadDirectory(directory);
+    int rebuilt = 0;
+    for (File page : pages) {
+      long length = page.length();
+      long timestamp = page.lastModified();
+      ErlangSdkDocPageIndex index = myLocalPages.get(page.getPath());
+      if (index != null && index.isUpToDate(length, timestamp)) continue;
+      try {
+        getPageIndex(page, length, timestamp);
+        rebuilt++;
+      } catch (IOException e) {
+        LOG.debug("Failed to index documentation page " + page, e);
+      }
+    }
+    if (rebuilt > 0) {
+      saveDirectory(directory, pages);
+    }
+    return pages.length;
+  }
+
+  private void loadDirectory(@NotNull File directory) {
+    if (!myLoadedDirectories.add(directory.getPath())) return;
+    File storage = getStorageFile(directory);
+    if (!storage.isFile()) return;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storage)))) {
+      if (in.readInt() != INDEX_VERSION) return;
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        String pageName = in.readUTF();
+        myLocalPages.putIfAbsent(new File(directory, pageName).getPath(), ErlangSdkDocPageIndex.read(in));
+      }
+    } catch (IOException e) {
+      LOG.debug("Failed to load documentation index " + storage, e);
+    }
+  }
+
+  private void saveDirectory(@NotNull File directory, @NotNull File[] pages) {
+    File storage = getStorageFile(directory);
+    FileUtil.createParentDirs(storage);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(storage)))) {
+      List<File> indexedPages = new ArrayList<>(pages.length);
+      for (File page : pages) {
+        if (myLocalPages.containsKey(page.getPath())) indexedPages.add(page);
+      }
+      out.writeInt(INDEX_VERSION);
+      out.writeInt(indexedPages.size());
+      for (File page : indexedPages) {
+        out.writeUTF(page.getName());
+        myLocalPages.get(page.getPath()).write(out);
+      }
+    } catch (IOException e) {
+      LOG.debug("Failed to save documentation index " + storage, e);
+    }
+  }
+
+  @NotNull
+  private static File getStorageFile(@NotNull File directory) {
+    File appDir = directory.getParentFile() != null ? directory.getParentFile().getParentFile() : null;
+    String name = (appDir != null ? appDir.getName() : directory.getName()) + "-" +
+                  Integer.toHexString(FileUtil.pathHashCode(directory.getPath())) + ".idx";
+    return new File(PathManager.getSystemPath(), "erlang-sdk-docs/" + name);
+  }
+
+  private static final class RemotePage {
+    @NotNull private final byte[] myContent;
+    @NotNull private final ErlangSdkDocPageIndex myIndex;
+
+    private RemotePage(@NotNull byte[] content, @NotNull ErlangSdkDocPageIndex index) {
+      myContent = content;
+      myIndex = index;
+    }
+  }
+}
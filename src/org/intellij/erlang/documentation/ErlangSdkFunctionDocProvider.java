@@ -20,16 +20,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 final class ErlangSdkFunctionDocProvider extends ErlangSdkDocProviderBase {
-  private static final Pattern PATTERN_FUNC_BEGIN = Pattern.compile(
-    "<a name=\"(.*?)\"></a>");
-  private static final Pattern PATTERN_BIF_BEGIN = Pattern.compile(
-    "<a name=\"(.*?)\"><span class=\"bold_code\">.*?</span></a><br>");
-  private static final Pattern PATTERN_END_OF_DOC = Pattern.compile("^<div class=\"footer\">$");
-
   @NotNull private final String myFuncSignature;
 
   public ErlangSdkFunctionDocProvider(@NotNull Project project, @NotNull String functionName, int functionArity,
@@ -43,27 +34,4 @@ final class ErlangSdkFunctionDocProvider extends ErlangSdkDocProviderBase {
   protected String getInDocRef() {
     return "#" + myFuncSignature;
   }
-
-  @Override
-  public boolean isDocBegin(@NotNull String line) {
-    Matcher matcher = PATTERN_FUNC_BEGIN.matcher(line);
-    while (matcher.find()) {
-      if (matcher.group(1).equals(myFuncSignature)) {
-        return true;
-      }
-    }
-    matcher = PATTERN_BIF_BEGIN.matcher(line);
-    while (matcher.find()) {
-      if (matcher.group(1).equals(myFuncSignature)) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  @Override
-  public boolean isDocEnd(@NotNull String line) {
-    return PATTERN_FUNC_BEGIN.matcher(line).find() || PATTERN_BIF_BEGIN.matcher(line).find()
-      || PATTERN_END_OF_DOC.matcher(line).matches();
-  }
 }
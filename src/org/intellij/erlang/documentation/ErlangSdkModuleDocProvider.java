@@ -20,12 +20,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Pattern;
-
 final class ErlangSdkModuleDocProvider extends ErlangSdkDocProviderBase {
-  private static final Pattern PATTERN_MODULE_BEGIN = Pattern.compile("^ {2}<h3>MODULE</h3>$");
-  private static final Pattern PATTERN_MODULE_END = Pattern.compile("^ {2}<h3>EXPORTS</h3>$");
-
   public ErlangSdkModuleDocProvider(@NotNull Project project, @NotNull VirtualFile virtualFile) {
     super(project, virtualFile);
   }
@@ -35,14 +30,4 @@ final class ErlangSdkModuleDocProvider extends ErlangSdkDocProviderBase {
   protected String getInDocRef() {
     return "";
   }
-
-  @Override
-  public boolean isDocBegin(@NotNull String line) {
-    return PATTERN_MODULE_BEGIN.matcher(line).matches();
-  }
-
-  @Override
-  public boolean isDocEnd(@NotNull String line) {
-    return PATTERN_MODULE_END.matcher(line).matches();
-  }
 }
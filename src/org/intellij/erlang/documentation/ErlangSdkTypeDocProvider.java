@@ -20,14 +20,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 final class ErlangSdkTypeDocProvider extends ErlangSdkDocProviderBase {
-  private static final Pattern PATTERN_TYPE_BEGIN = Pattern.compile(
-    "^ {6}<span class=\"bold_code\"><a name=\"type-(.*?)\">.*?</span><br></p>$");
-  private static final Pattern PATTERN_FUNC_BEGIN = Pattern.compile("^ {2}<h3>EXPORTS</h3>$");
-
   @NotNull private final String myTypeName;
 
   public ErlangSdkTypeDocProvider(@NotNull Project project, @NotNull VirtualFile virtualFile, @NotNull String typeName) {
@@ -40,15 +33,4 @@ final class ErlangSdkTypeDocProvider extends ErlangSdkDocProviderBase {
   protected String getInDocRef() {
     return "#type-" + myTypeName;
   }
-
-  @Override
-  protected boolean isDocBegin(@NotNull String line) {
-    Matcher matcher = PATTERN_TYPE_BEGIN.matcher(line);
-    return matcher.matches() && matcher.group(1).equals(myTypeName);
-  }
-
-  @Override
-  protected boolean isDocEnd(@NotNull String line) {
-    return PATTERN_TYPE_BEGIN.matcher(line).matches() || PATTERN_FUNC_BEGIN.matcher(line).matches();
-  }
 }
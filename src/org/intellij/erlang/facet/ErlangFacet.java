@@ -30,6 +30,16 @@ public class ErlangFacet extends Facet<ErlangFacetConfiguration> {
     super(facetType, module, name, configuration, underlyingFacet);
   }
 
+  @Override
+  public void initFacet() {
+    ErlangFacetConfiguration.MODIFICATION_TRACKER.incModificationCount();
+  }
+
+  @Override
+  public void disposeFacet() {
+    ErlangFacetConfiguration.MODIFICATION_TRACKER.incModificationCount();
+  }
+
   @Nullable
   public static ErlangFacet getFacet(@NotNull Module module) {
     return FacetManager.getInstance(module).getFacetByType(ErlangFacetType.TYPE_ID);
@@ -21,6 +21,7 @@ import com.intellij.facet.ui.FacetEditorContext;
 import com.intellij.facet.ui.FacetEditorTab;
 import com.intellij.facet.ui.FacetValidatorsManager;
 import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.facet.ui.ErlangFacetEditor;
 import org.intellij.erlang.jps.model.ErlangModuleExtensionProperties;
@@ -33,6 +34,11 @@ import java.util.Collections;
 import java.util.List;
 
 public class ErlangFacetConfiguration implements FacetConfiguration, PersistentStateComponent<ErlangModuleExtensionProperties> {
+  /**
+   * Incremented whenever any Erlang facet is created, disposed or gets its global includes changed.
+   */
+  public static final SimpleModificationTracker MODIFICATION_TRACKER = new SimpleModificationTracker();
+
   private ErlangModuleExtensionProperties myState = new ErlangModuleExtensionProperties();
   @Override
   public FacetEditorTab[] createEditorTabs(FacetEditorContext editorContext, FacetValidatorsManager validatorsManager) {
@@ -48,6 +54,7 @@ public class ErlangFacetConfiguration implements FacetConfiguration, PersistentS
   @Override
   public void loadState(@NotNull ErlangModuleExtensionProperties state) {
     myState = state;
+    MODIFICATION_TRACKER.incModificationCount();
   }
 
   public List<String> getParseTransforms() {
@@ -68,5 +75,6 @@ public class ErlangFacetConfiguration implements FacetConfiguration, PersistentS
 
   public void setGlobalIncludes(Iterable<String> globalIncludes){
     myState.myGlobalIncludes = new ArrayList<>(ContainerUtil.newLinkedHashSet(globalIncludes));
+    MODIFICATION_TRACKER.incModificationCount();
   }
 }
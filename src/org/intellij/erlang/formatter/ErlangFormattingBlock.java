@@ -21,12 +21,12 @@ import com.intellij.formatting.alignment.AlignmentStrategy;
 import com.intellij.lang.ASTNode;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.TextRange;
-import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.TokenType;
 import com.intellij.psi.codeStyle.CommonCodeStyleSettings;
 import com.intellij.psi.formatter.WrappingUtil;
 import com.intellij.psi.formatter.common.AbstractBlock;
+import com.intellij.psi.impl.source.tree.LeafElement;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.tree.TokenSet;
@@ -150,7 +150,7 @@ public class ErlangFormattingBlock extends AbstractBlock {
   }
 
   private static boolean shouldCreateBlockFor(ASTNode node) {
-    return node.getTextRange().getLength() != 0 && node.getElementType() != TokenType.WHITE_SPACE;
+    return node.getTextLength() != 0 && node.getElementType() != TokenType.WHITE_SPACE;
   }
 
   private ErlangFormattingBlock createChildBlock(ASTNode parent,
@@ -180,16 +180,16 @@ public class ErlangFormattingBlock extends AbstractBlock {
 
   @Nullable
   private WrapType calculateWrapType(@NotNull ASTNode parent, @NotNull ASTNode node) {
+    // leaves are never expressions, so tokens of large forms are skipped without creating their psi
+    if (node instanceof LeafElement) return null;
     IElementType parentType = parent.getElementType();
-    PsiElement nodePsi = node.getPsi();
-    PsiElement parentPsi = parent.getPsi();
-    if (parentType == ERL_CLAUSE_BODY && nodePsi instanceof ErlangExpression) {
+    if (parentType == ERL_CLAUSE_BODY && node.getPsi() instanceof ErlangExpression) {
       return WrappingUtil.getWrapType(myErlangSettings.EXPRESSION_IN_CLAUSE_WRAP);
     }
-    if (parentType == ERL_ARGUMENT_LIST && nodePsi instanceof ErlangExpression) {
+    if (parentType == ERL_ARGUMENT_LIST && node.getPsi() instanceof ErlangExpression) {
       return WrappingUtil.getWrapType(mySettings.CALL_PARAMETERS_WRAP);
     }
-    if (parentPsi instanceof ErlangFakeBinaryExpression && nodePsi instanceof ErlangExpression) {
+    if (parent.getPsi() instanceof ErlangFakeBinaryExpression && node.getPsi() instanceof ErlangExpression) {
       return WrappingUtil.getWrapType(mySettings.BINARY_OPERATION_WRAP);
     }
     return null;
@@ -244,7 +244,7 @@ public class ErlangFormattingBlock extends AbstractBlock {
       Alignment alignment = myAlignmentStrategy.getAlignment(parentType, childType);
       if (alignment != null &&
         childType == ERL_CLAUSE_BODY && myErlangSettings.ALIGN_FUNCTION_CLAUSES &&
-        (myErlangSettings.NEW_LINE_AFTER_ARROW == ErlangCodeStyleSettings.NewLineAfterArrow.FORCE || StringUtil.countNewLines(child.getText()) > 0)) {
+        (myErlangSettings.NEW_LINE_AFTER_ARROW == ErlangCodeStyleSettings.NewLineAfterArrow.FORCE || child.textContains('\n'))) {
         return null; // redesign this hack
       }
       return alignment;
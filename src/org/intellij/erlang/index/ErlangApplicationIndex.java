@@ -21,20 +21,22 @@ import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.CompilerModuleExtension;
 import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.MultiMap;
 import com.intellij.util.indexing.*;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 public class ErlangApplicationIndex extends ScalarIndexExtension<String> {
   private static final ID<String, Void> ERLANG_APPLICATION_INDEX = ID.create("ErlangApplicationIndex");
@@ -82,59 +84,103 @@ public class ErlangApplicationIndex extends ScalarIndexExtension<String> {
 
   @Nullable
   public static VirtualFile getApplicationDirectoryByName(@NotNull String appName, @NotNull GlobalSearchScope searchScope) {
-    ApplicationPathExtractingProcessor processor = new ApplicationPathExtractingProcessor();
-    FileBasedIndex.getInstance().processValues(ERLANG_APPLICATION_INDEX, appName, null, processor, searchScope);
     Project project = searchScope.getProject();
-    if (project != null) {
-      processAppFiles(getAppFilesFromEbinDirectories(project, appName), appName, processor);
+    if (project == null) {
+      ApplicationPathExtractingProcessor processor = new ApplicationPathExtractingProcessor();
+      FileBasedIndex.getInstance().processValues(ERLANG_APPLICATION_INDEX, appName, null, processor, searchScope);
+      return processor.getApplicationPath();
     }
-
-    return processor.getApplicationPath();
+    return getApplicationDirectories(project).getDirectory(appName, searchScope);
   }
 
   public static List<VirtualFile> getAllApplicationDirectories(@NotNull Project project, @NotNull final GlobalSearchScope searchScope) {
-    final ArrayList<VirtualFile> result = new ArrayList<>();
-    final FileBasedIndex index = FileBasedIndex.getInstance();
-    final List<VirtualFile> appFilesFromEbinDirectories = getAppFilesFromEbinDirectories(project, null);
+    return getApplicationDirectories(project).getAllDirectories(searchScope);
+  }
 
-    index.processAllKeys(ERLANG_APPLICATION_INDEX, appName -> {
-      ApplicationPathExtractingProcessor processor = new ApplicationPathExtractingProcessor();
-      index.processValues(ERLANG_APPLICATION_INDEX, appName, null, processor, searchScope);
-      processAppFiles(appFilesFromEbinDirectories, appName, processor);
-      //TODO examine: processor does not get called for some appNames when running
+  /**
+   * Application files of the project by application name, both indexed and found in ebin compiler output directories,
+   * recomputed on root and file structure changes.
+   */
+  @NotNull
+  private static ApplicationDirectories getApplicationDirectories(@NotNull Project project) {
+    return CachedValuesManager.getManager(project).getCachedValue(project, () ->
+      CachedValueProvider.Result.create(new ApplicationDirectories(project), ProjectRootManager.getInstance(project),
+                                        VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS));
+  }
+
+  private static final class ApplicationDirectories {
+    private final GlobalSearchScope myAllScope;
+    private final MultiMap<String, VirtualFile> myIndexedAppFiles = MultiMap.createLinked();
+    private final MultiMap<String, VirtualFile> myEbinAppFiles = MultiMap.createLinked();
+    private final Map<String, VirtualFile> myAllScopeDirectories = new LinkedHashMap<>();
+
+    ApplicationDirectories(@NotNull Project project) {
+      myAllScope = GlobalSearchScope.allScope(project);
+      FileBasedIndex index = FileBasedIndex.getInstance();
+      List<String> appNames = new ArrayList<>();
+      index.processAllKeys(ERLANG_APPLICATION_INDEX, appName -> {
+        appNames.add(appName);
+        return true;
+      }, project);
+      for (String appName : appNames) {
+        myIndexedAppFiles.putValues(appName, index.getContainingFiles(ERLANG_APPLICATION_INDEX, appName, myAllScope));
+      }
+      for (VirtualFile appFile : getAppFilesFromEbinDirectories(project)) {
+        myEbinAppFiles.putValue(getApplicationName(appFile), appFile);
+      }
+      //TODO examine: there may be no files for some appNames when running
       //              ErlangSmallIdeHighlightingTest.testIncludeFromOtpIncludeDirResolve()
       //              it seems, that index is reused for different tests, thus we obtain keys (appNames)
       //              which are not valid anymore...
-      ContainerUtil.addIfNotNull(result, processor.getApplicationPath());
-      return true;
-    }, project);
+      for (String appName : ContainerUtil.union(myIndexedAppFiles.keySet(), myEbinAppFiles.keySet())) {
+        VirtualFile directory = chooseDirectory(appName, myAllScope);
+        if (directory != null) {
+          myAllScopeDirectories.put(appName, directory);
+        }
+      }
+    }
 
-    return result;
-  }
+    @Nullable
+    VirtualFile getDirectory(@NotNull String appName, @NotNull GlobalSearchScope searchScope) {
+      return myAllScope.equals(searchScope) ? myAllScopeDirectories.get(appName) : chooseDirectory(appName, searchScope);
+    }
 
-  private static void processAppFiles(List<VirtualFile> appFiles, String appName, FileBasedIndex.ValueProcessor<Void> processor) {
-    for (VirtualFile appFile : appFiles) {
-      if (appName.equals(getApplicationName(appFile))) {
-        processor.process(appFile, null);
+    @NotNull
+    List<VirtualFile> getAllDirectories(@NotNull GlobalSearchScope searchScope) {
+      if (myAllScope.equals(searchScope)) return new ArrayList<>(myAllScopeDirectories.values());
+      List<VirtualFile> result = new ArrayList<>();
+      for (String appName : ContainerUtil.union(myIndexedAppFiles.keySet(), myEbinAppFiles.keySet())) {
+        ContainerUtil.addIfNotNull(result, chooseDirectory(appName, searchScope));
+      }
+      return result;
+    }
+
+    // application files from ebin output directories are taken regardless of the scope
+    @Nullable
+    private VirtualFile chooseDirectory(@NotNull String appName, @NotNull GlobalSearchScope searchScope) {
+      ApplicationPathExtractingProcessor processor = new ApplicationPathExtractingProcessor();
+      for (VirtualFile appFile : myIndexedAppFiles.get(appName)) {
+        if (appFile.isValid() && searchScope.contains(appFile)) {
+          processor.process(appFile, null);
+        }
+      }
+      for (VirtualFile appFile : myEbinAppFiles.get(appName)) {
+        if (appFile.isValid()) {
+          processor.process(appFile, null);
+        }
       }
+      return processor.getApplicationPath();
     }
   }
 
-  private static List<VirtualFile> getAppFilesFromEbinDirectories(@NotNull Project project, @Nullable String appName) {
+  @NotNull
+  private static List<VirtualFile> getAppFilesFromEbinDirectories(@NotNull Project project) {
     List<VirtualFile> appFiles = new ArrayList<>();
     for (Module m : ModuleManager.getInstance(project).getModules()) {
       CompilerModuleExtension moduleExtension = ModuleRootManager.getInstance(m).getModuleExtension(CompilerModuleExtension.class);
       VirtualFile outputDir = moduleExtension != null ? moduleExtension.getCompilerOutputPath() : null;
       if (outputDir == null || !outputDir.isDirectory() || !"ebin".equals(outputDir.getName())) continue;
 
-      if (appName != null) {
-        VirtualFile appFile = outputDir.findChild(appName + DOT_APP);
-        if (appFile != null && !appFile.isDirectory()) {
-          appFiles.add(appFile);
-        }
-        continue;
-      }
-
       for (VirtualFile file : outputDir.getChildren()) {
         if (ErlangApplicationInputFilter.isApplicationFile(file)) {
           appFiles.add(file);
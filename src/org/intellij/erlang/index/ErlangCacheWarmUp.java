@@ -0,0 +1,214 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.index;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.ErlangFileType;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pre-computes cross-module caches once indexing has finished after a project is opened, so that the first
+ * highlighting of a file does not have to.
+ * <p>
+ * Headers and behaviours are ranked by the number of project modules including or implementing them, as recorded by
+ * {@link ErlangIncludeIndex} and {@link ErlangBehaviourUsageIndex}. The most used ones get their include closures,
+ * definitions, callbacks and exports computed. The work runs as a cancellable background task on at most
+ * "erlang.cache.warmup.threads" threads, 0 turns it off.
+ */
+public class ErlangCacheWarmUp implements StartupActivity, DumbAware {
+  private static final Logger LOG = Logger.getInstance(ErlangCacheWarmUp.class);
+  private static final int HEADERS_LIMIT = 50;
+  private static final int BEHAVIOURS_LIMIT = 20;
+
+  @Override
+  public void runActivity(@NotNull Project project) {
+    if (ApplicationManager.getApplication().isUnitTestMode()) return;
+    int threads = Registry.intValue("erlang.cache.warmup.threads");
+    if (threads <= 0) return;
+    DumbService.getInstance(project).runWhenSmart(() -> {
+      if (project.isDisposed()) return;
+      ProgressManager.getInstance().run(new Task.Backgroundable(project, "Warming up Erlang caches", true) {
+        @Override
+        public void run(@NotNull ProgressIndicator indicator) {
+          warmUp(project, threads, indicator);
+        }
+      });
+    });
+  }
+
+  public static void warmUp(@NotNull Project project, int threads, @NotNull ProgressIndicator indicator) {
+    long start = System.currentTimeMillis();
+    indicator.setIndeterminate(false);
+    indicator.setText("Reading Erlang module and application indexes");
+    ReadAction.nonBlocking(() -> {
+      ErlangModuleIndex.getProjectModuleNames(project);
+      return ErlangApplicationIndex.getAllApplicationDirectories(project, GlobalSearchScope.allScope(project));
+    }).inSmartMode(project).wrapProgress(indicator).executeSynchronously();
+
+    indicator.setText("Computing caches of the most included Erlang headers");
+    List<VirtualFile> headers = ReadAction.nonBlocking(() -> getMostIncludedHeaders(project, HEADERS_LIMIT))
+      .inSmartMode(project).wrapProgress(indicator).executeSynchronously();
+    computeConcurrently(project, headers, threads, indicator, 0.0, 0.5, ErlangCacheWarmUp::warmUpHeader);
+
+    indicator.setText("Computing caches of the most used Erlang behaviours");
+    List<VirtualFile> behaviours = ReadAction.nonBlocking(() -> {
+      List<VirtualFile> files = new ArrayList<>();
+      for (String name : getMostImplementedBehaviourNames(project, BEHAVIOURS_LIMIT)) {
+        files.addAll(ErlangModuleIndex.getVirtualFilesByName(project, name, GlobalSearchScope.allScope(project)));
+      }
+      return files;
+    }).inSmartMode(project).wrapProgress(indicator).executeSynchronously();
+    computeConcurrently(project, behaviours, threads, indicator, 0.5, 1.0, ErlangCacheWarmUp::warmUpBehaviour);
+
+    LOG.info("Warmed up Erlang caches of " + headers.size() + " headers and " + behaviours.size() + " behaviours in " +
+             (System.currentTimeMillis() - start) + " ms");
+  }
+
+  /**
+   * Ranks project headers by the number of project modules including a header with their file name, as recorded by
+   * {@link ErlangIncludeIndex}, so no include is resolved.
+   */
+  @NotNull
+  static List<VirtualFile> getMostIncludedHeaders(@NotNull Project project, int limit) {
+    GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+    List<VirtualFile> headers = new ArrayList<>();
+    for (String name : getMostUsed(ErlangIncludeIndex.getIncludingModuleCounts(project, scope), Integer.MAX_VALUE)) {
+      for (VirtualFile header : FilenameIndex.getVirtualFilesByName(project, name, scope)) {
+        if (headers.size() == limit) return headers;
+        if (header.getFileType() == ErlangFileType.HEADER) headers.add(header);
+      }
+    }
+    return headers;
+  }
+
+  /**
+   * Ranks behaviours by the number of project modules declaring them, as recorded by {@link ErlangBehaviourUsageIndex}.
+   */
+  @NotNull
+  static List<String> getMostImplementedBehaviourNames(@NotNull Project project, int limit) {
+    return getMostUsed(ErlangBehaviourUsageIndex.getImplementingModuleCounts(project, GlobalSearchScope.projectScope(project)),
+                       limit);
+  }
+
+  @Nullable
+  private static Object warmUpHeader(@NotNull ErlangFile header) {
+    Set<ErlangFile> closure = new HashSet<>();
+    Deque<ErlangFile> queue = new ArrayDeque<>();
+    queue.add(header);
+    while (!queue.isEmpty()) {
+      ErlangFile file = queue.poll();
+      if (!closure.add(file)) continue;
+      // lookups build the name maps
+      file.getMacros("");
+      file.getRecord("");
+      file.getType("");
+      queue.addAll(ErlangPsiImplUtil.getDirectlyIncludedFiles(file));
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Object warmUpBehaviour(@NotNull ErlangFile behaviour) {
+    behaviour.getCallbackMap();
+    behaviour.getOptionalCallbacks();
+    // builds the set of exported signatures
+    behaviour.isExported("");
+    return null;
+  }
+
+  @NotNull
+  private static <K> List<K> getMostUsed(@NotNull Map<K, Integer> usages, int limit) {
+    List<Map.Entry<K, Integer>> entries = new ArrayList<>(usages.entrySet());
+    entries.sort(Map.Entry.<K, Integer>comparingByValue().reversed());
+    return ContainerUtil.map(entries.subList(0, Math.min(limit, entries.size())), Map.Entry::getKey);
+  }
+
+  /**
+   * Applies the computation to every file in a non-blocking read action on a bounded pool and advances the indicator
+   * from one fraction to the other.
+   */
+  @NotNull
+  private static <T> List<T> computeConcurrently(@NotNull Project project,
+                                                 @NotNull List<VirtualFile> files,
+                                                 int threads,
+                                                 @NotNull ProgressIndicator indicator,
+                                                 double fromFraction,
+                                                 double toFraction,
+                                                 @NotNull Function<ErlangFile, T> computation) {
+    indicator.checkCanceled();
+    ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Erlang Cache Warm-Up", threads);
+    AtomicInteger done = new AtomicInteger();
+    try {
+      List<Future<T>> futures = new ArrayList<>(files.size());
+      for (VirtualFile file : files) {
+        futures.add(executor.submit(() -> {
+          T result = ReadAction.nonBlocking(() -> {
+            PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+            return psiFile instanceof ErlangFile ? computation.apply((ErlangFile) psiFile) : null;
+          }).inSmartMode(project).wrapProgress(indicator).executeSynchronously();
+          indicator.setFraction(fromFraction + (toFraction - fromFraction) * done.incrementAndGet() / files.size());
+          return result;
+        }));
+      }
+      List<T> results = new ArrayList<>(files.size());
+      for (Future<T> future : futures) {
+        try {
+          ContainerUtil.addIfNotNull(results, future.get());
+        }
+        catch (ExecutionException e) {
+          if (e.getCause() instanceof ProcessCanceledException) throw (ProcessCanceledException) e.getCause();
+          LOG.warn(e.getCause());
+        }
+      }
+      return results;
+    }
+    catch (InterruptedException e) {
+      throw new ProcessCanceledException(e);
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.index;
+
+import com.intellij.codeInsight.completion.PrefixMatcher;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import gnu.trove.THashMap;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Maps names of exported functions to their arities in each module file. The module name is the file name.
+ */
+public class ErlangExportedFunctionIndex extends FileBasedIndexExtension<String, List<Integer>> {
+  private static final ID<String, List<Integer>> INDEX = ID.create("erlang.exported.function.index");
+  private static final int INDEX_VERSION = 1;
+
+  public interface ExportedFunctionProcessor {
+    /**
+     * @return false to stop processing
+     */
+    boolean process(@NotNull String moduleName, @NotNull String functionName, int arity);
+  }
+
+  @NotNull
+  @Override
+  public ID<String, List<Integer>> getName() {
+    return INDEX;
+  }
+
+  @Override
+  public int getVersion() {
+    return INDEX_VERSION;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, List<Integer>, FileContent> getIndexer() {
+    return inputData -> {
+      Map<String, List<Integer>> result = new THashMap<>();
+      PsiFile file = inputData.getPsiFile();
+      if (file instanceof ErlangFile) {
+        for (ErlangFunction function : ((ErlangFile) file).getExportedFunctions()) {
+          result.computeIfAbsent(function.getName(), name -> new ArrayList<>(1)).add(function.getArity());
+        }
+      }
+      for (List<Integer> arities : result.values()) {
+        Collections.sort(arities);
+      }
+      return result;
+    };
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<List<Integer>> getValueExternalizer() {
+    return new DataExternalizer<List<Integer>>() {
+      @Override
+      public void save(@NotNull DataOutput out, List<Integer> arities) throws IOException {
+        DataInputOutputUtil.writeINT(out, arities.size());
+        for (int arity : arities) {
+          DataInputOutputUtil.writeINT(out, arity);
+        }
+      }
+
+      @Override
+      public List<Integer> read(@NotNull DataInput in) throws IOException {
+        int size = DataInputOutputUtil.readINT(in);
+        List<Integer> arities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          arities.add(DataInputOutputUtil.readINT(in));
+        }
+        return arities;
+      }
+    };
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return ErlangIndexUtil.ERLANG_MODULE_FILTER;
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  /**
+   * Feeds exported functions whose "module:function" name may match the prefix to the processor.
+   * <p>
+   * With a colon in the prefix the part before it selects modules and the part after it filters their functions.
+   * Otherwise a match may start in the module name and continue into the function name ("fmba" for
+   * "fake_module:bar"), so all functions of modules matched by any leading part of the prefix are fed, followed by
+   * the functions matched by the whole prefix in the remaining modules. Candidates are not checked against the
+   * whole prefix, that is left to the caller.
+   */
+  public static void processExportedFunctions(@NotNull Project project,
+                                              @NotNull PrefixMatcher matcher,
+                                              @NotNull ExportedFunctionProcessor processor) {
+    String prefix = matcher.getPrefix();
+    int colon = prefix.indexOf(':');
+    if (colon >= 0) {
+      PrefixMatcher moduleMatcher = matcher.cloneWithPrefix(prefix.substring(0, colon));
+      PrefixMatcher functionMatcher = matcher.cloneWithPrefix(prefix.substring(colon + 1));
+      processModules(project, moduleMatcher::prefixMatches, functionMatcher, new HashSet<>(), processor);
+      return;
+    }
+    if (prefix.isEmpty()) {
+      processModules(project, moduleName -> true, null, new HashSet<>(), processor);
+      return;
+    }
+
+    List<PrefixMatcher> leadingMatchers = new ArrayList<>(prefix.length());
+    for (int i = 1; i <= prefix.length(); i++) {
+      leadingMatchers.add(matcher.cloneWithPrefix(prefix.substring(0, i)));
+    }
+    Set<VirtualFile> processedFiles = new HashSet<>();
+    Condition<String> moduleCondition = moduleName -> ContainerUtil.exists(leadingMatchers, m -> m.prefixMatches(moduleName));
+    if (!processModules(project, moduleCondition, null, processedFiles, processor)) return;
+
+    GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+    CommonProcessors.CollectProcessor<String> names = new CommonProcessors.CollectProcessor<String>() {
+      @Override
+      protected boolean accept(String name) {
+        return matcher.prefixMatches(name);
+      }
+    };
+    FileBasedIndex.getInstance().processAllKeys(INDEX, names, scope, null);
+    for (String name : names.getResults()) {
+      ProgressManager.checkCanceled();
+      boolean proceed = FileBasedIndex.getInstance().processValues(INDEX, name, null, (file, arities) ->
+        processedFiles.contains(file) || processArities(file.getNameWithoutExtension(), name, arities, processor), scope);
+      if (!proceed) return;
+    }
+  }
+
+  private static boolean processModules(@NotNull Project project,
+                                        @NotNull Condition<String> moduleCondition,
+                                        @Nullable PrefixMatcher functionMatcher,
+                                        @NotNull Set<VirtualFile> processedFiles,
+                                        @NotNull ExportedFunctionProcessor processor) {
+    GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+    FileBasedIndex index = FileBasedIndex.getInstance();
+    for (String moduleName : ErlangModuleIndex.getNames(project)) {
+      if (!moduleCondition.value(moduleName)) continue;
+      for (VirtualFile file : ErlangModuleIndex.getVirtualFilesByName(project, moduleName, scope)) {
+        ProgressManager.checkCanceled();
+        if (!processedFiles.add(file)) continue;
+        for (Map.Entry<String, List<Integer>> entry : index.getFileData(INDEX, file, project).entrySet()) {
+          String functionName = entry.getKey();
+          if (functionMatcher != null && !functionMatcher.prefixMatches(functionName)) continue;
+          if (!processArities(moduleName, functionName, entry.getValue(), processor)) return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean processArities(@NotNull String moduleName,
+                                        @NotNull String functionName,
+                                        @NotNull List<Integer> arities,
+                                        @NotNull ExportedFunctionProcessor processor) {
+    for (int arity : arities) {
+      if (!processor.process(moduleName, functionName, arity)) return false;
+    }
+    return true;
+  }
+}
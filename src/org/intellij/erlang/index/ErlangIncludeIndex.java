@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import gnu.trove.THashMap;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangInclude;
+import org.intellij.erlang.psi.ErlangIncludeLib;
+import org.intellij.erlang.psi.ErlangIncludeString;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * Maps file names of the headers included by a module, through include or include_lib, to the module file.
+ * Include paths are not resolved, headers with the same name are not told apart.
+ */
+public class ErlangIncludeIndex extends ScalarIndexExtension<String> {
+  private static final ID<String, Void> INDEX = ID.create("erlang.include.index");
+  private static final int INDEX_VERSION = 1;
+
+  @NotNull
+  @Override
+  public ID<String, Void> getName() {
+    return INDEX;
+  }
+
+  @Override
+  public int getVersion() {
+    return INDEX_VERSION;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, Void, FileContent> getIndexer() {
+    return inputData -> {
+      Map<String, Void> result = new THashMap<>();
+      PsiFile file = inputData.getPsiFile();
+      if (file instanceof ErlangFile) {
+        for (ErlangInclude include : ((ErlangFile) file).getIncludes()) {
+          addHeaderName(result, include.getIncludeStringSafe());
+        }
+        for (ErlangIncludeLib includeLib : ((ErlangFile) file).getIncludeLibs()) {
+          addHeaderName(result, includeLib.getIncludeStringSafe());
+        }
+      }
+      return result;
+    };
+  }
+
+  private static void addHeaderName(@NotNull Map<String, Void> result, @Nullable ErlangIncludeString includeString) {
+    if (includeString == null) return;
+    String path = StringUtil.unquoteString(includeString.getText());
+    String name = StringUtil.substringAfterLast(path, "/");
+    name = name != null ? name : path;
+    if (!name.isEmpty()) result.put(name, null);
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return ErlangIndexUtil.ERLANG_MODULE_FILTER;
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  /**
+   * @return the number of modules in the scope including a header with that file name, for every such name.
+   */
+  @NotNull
+  public static Map<String, Integer> getIncludingModuleCounts(@NotNull Project project, @NotNull GlobalSearchScope scope) {
+    return ErlangIndexUtil.getContainingFileCounts(INDEX, project, scope);
+  }
+}
@@ -16,8 +16,16 @@
 
 package org.intellij.erlang.index;
 
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.ID;
 import org.intellij.erlang.ErlangFileType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public final class ErlangIndexUtil {
   private ErlangIndexUtil() {
@@ -27,4 +35,21 @@ public final class ErlangIndexUtil {
   public static final FileBasedIndex.InputFilter ERLANG_HRL_FILTER = file -> file.getFileType() == ErlangFileType.HEADER;
   public static final FileBasedIndex.InputFilter ERLANG_ALL_FILTER = file -> file.getFileType() == ErlangFileType.MODULE
                                                                              ||file.getFileType() == ErlangFileType.TERMS;
+
+  /**
+   * @return the number of files in the scope containing the key, for every key of the index contained in any of them.
+   */
+  @NotNull
+  static Map<String, Integer> getContainingFileCounts(@NotNull ID<String, Void> indexId,
+                                                      @NotNull Project project,
+                                                      @NotNull GlobalSearchScope scope) {
+    FileBasedIndex index = FileBasedIndex.getInstance();
+    Map<String, Integer> counts = new HashMap<>();
+    for (String key : index.getAllKeys(indexId, project)) {
+      ProgressManager.checkCanceled();
+      int count = index.getContainingFiles(indexId, key, scope).size();
+      if (count > 0) counts.put(key, count);
+    }
+    return counts;
+  }
 }
@@ -21,14 +21,20 @@ import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.Function;
+import com.intellij.util.Processor;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.indexing.*;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
+import org.intellij.erlang.ErlangFileType;
 import org.intellij.erlang.psi.ErlangFile;
 import org.intellij.erlang.psi.ErlangModule;
 import org.jetbrains.annotations.NotNull;
@@ -83,6 +89,29 @@ public class ErlangModuleIndex extends ScalarIndexExtension<String> {
     return FileBasedIndex.getInstance().getAllKeys(ERLANG_MODULE_INDEX, project);
   }
 
+  /**
+   * Feeds module names to the processor until it returns false.
+   */
+  public static boolean processNames(@NotNull Project project, @NotNull Processor<String> processor) {
+    return FileBasedIndex.getInstance().processAllKeys(ERLANG_MODULE_INDEX, processor, project);
+  }
+
+  /**
+   * Names of modules under the project content roots, recomputed on root and file structure changes.
+   */
+  @NotNull
+  public static Set<String> getProjectModuleNames(@NotNull Project project) {
+    return CachedValuesManager.getManager(project).getCachedValue(project, () -> {
+      Set<String> names = new HashSet<>();
+      for (VirtualFile file : FilenameIndex.getAllFilesByExt(project, ErlangFileType.MODULE.getDefaultExtension(),
+                                                            GlobalSearchScope.projectScope(project))) {
+        names.add(file.getNameWithoutExtension());
+      }
+      return CachedValueProvider.Result.create(names, ProjectRootManager.getInstance(project),
+                                               VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+    });
+  }
+
   @NotNull
   public static List<ErlangModule> getModulesByName(@NotNull Project project, @NotNull String name, @NotNull GlobalSearchScope searchScope) {
     return getByName(project, name, searchScope, ErlangFile::getModule);
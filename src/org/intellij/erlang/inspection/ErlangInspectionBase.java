@@ -18,26 +18,19 @@ package org.intellij.erlang.inspection;
 
 import com.intellij.codeInsight.daemon.impl.actions.AbstractSuppressByNoInspectionCommentFix;
 import com.intellij.codeInspection.*;
-import com.intellij.lang.Commenter;
-import com.intellij.lang.LanguageCommenters;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.*;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.IncorrectOperationException;
 import com.intellij.util.ObjectUtils;
-import org.intellij.erlang.ErlangLanguage;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 abstract public class ErlangInspectionBase extends LocalInspectionTool implements CustomSuppressableInspectionTool {
   private static final PsiElementVisitor DUMMY_VISITOR = new PsiElementVisitor() { };
-  private static final Pattern SUPPRESS_PATTERN = Pattern.compile(SuppressionUtil.COMMON_SUPPRESS_REGEXP);
 
   @NotNull
   @Override
@@ -87,60 +80,10 @@ abstract public class ErlangInspectionBase extends LocalInspectionTool implement
 
   @Override
   public boolean isSuppressedFor(@NotNull PsiElement element) {
-    return isSuppressedForParent(element, ErlangFunction.class) ||
-      isSuppressedForParent(element, ErlangAttribute.class) ||
-      isSuppressedForExpression(element);
-  }
-
-  private boolean isSuppressedForExpression(@Nullable PsiElement element) {
-    return isSuppressedForElement(getTopmostExpression(element));
+    PsiFile file = element.getContainingFile();
+    return file != null && ErlangSuppressionMap.getInstance(file).isSuppressed(element.getTextRange().getStartOffset(), getMySuppressId());
   }
 
-  @Nullable
-  private static ErlangExpression getTopmostExpression(@Nullable PsiElement element) {
-    ErlangExpression expression = PsiTreeUtil.getParentOfType(element, ErlangExpression.class);
-    while (expression != null && !(expression.getParent() instanceof ErlangClauseBody)) {
-      expression = PsiTreeUtil.getParentOfType(expression, ErlangExpression.class);
-    }
-    return expression;
-  }
-
-  private boolean isSuppressedForParent(PsiElement element, Class<? extends ErlangCompositeElement> parentClass) {
-    PsiElement parent = PsiTreeUtil.getParentOfType(element, parentClass, false);
-    if (parent == null) return false;
-    return isSuppressedForElement(parent);
-  }
-  
-  private boolean isSuppressedForElement(@Nullable PsiElement element) {
-    if (element == null) return false;
-    Commenter commenter = LanguageCommenters.INSTANCE.forLanguage(ErlangLanguage.INSTANCE);
-    String prefix = ObjectUtils.notNull(commenter == null ? null : commenter.getLineCommentPrefix(), "");
-    
-    PsiElement prevSibling = element.getPrevSibling();
-    if (prevSibling == null) {
-      PsiElement parent = element.getParent();
-      if (parent != null) {
-        prevSibling = parent.getPrevSibling();
-      }
-    }
-    while (prevSibling instanceof PsiComment || prevSibling instanceof PsiWhiteSpace) {
-      if (prevSibling instanceof PsiComment) {
-        int prefixLength = prefix.length();
-        String text = prevSibling.getText();
-        if (text.length() >= prefixLength && isSuppressedInComment(text.substring(prefixLength).trim())) {
-          return true;
-        }
-      }
-      prevSibling = prevSibling.getPrevSibling();
-    }
-    return false;
-  }
-
-  private boolean isSuppressedInComment(String commentText) {
-    Matcher m = SUPPRESS_PATTERN.matcher(commentText);
-    return m.matches() && SuppressionUtil.isInspectionToolIdMentioned(m.group(1), getMySuppressId());
-  }
-  
   @NotNull
   private String getMySuppressId() { // todo: rewrite with the new suppression API
     return getShortName().replace("Inspection", "");
@@ -170,8 +113,8 @@ abstract public class ErlangInspectionBase extends LocalInspectionTool implement
     @Override
     @Nullable
     protected PsiElement getContainer(PsiElement context) {
-      if (myContainerClass == ErlangExpression.class) return getTopmostExpression(context);
-      return PsiTreeUtil.getParentOfType(context, myContainerClass);
+      return PsiTreeUtil.findFirstParent(context, true, element -> myContainerClass.isInstance(element) &&
+                                                                   ErlangSuppressionMap.isSuppressionContainer(element));
     }
 
     @Override
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.inspection;
+
+import com.intellij.codeInspection.SuppressionUtil;
+import com.intellij.lang.Commenter;
+import com.intellij.lang.LanguageCommenters;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.ObjectUtils;
+import org.intellij.erlang.ErlangLanguage;
+import org.intellij.erlang.psi.ErlangAttribute;
+import org.intellij.erlang.psi.ErlangClauseBody;
+import org.intellij.erlang.psi.ErlangExpression;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangFunction;
+import org.intellij.erlang.psi.ErlangGuard;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Suppression comments of a file, parsed once per file modification.
+ * <p>
+ * A "noinspection" line comment suppresses the inspections it mentions in the suppression container it precedes,
+ * see {@link #isSuppressionContainer(PsiElement)}. The map keeps the text ranges of such elements sorted by start offset, outer ranges
+ * first, and links every range to the innermost range enclosing it, so a check is a binary search followed by a
+ * walk up the enclosing ranges.
+ */
+final class ErlangSuppressionMap {
+  private static final Pattern SUPPRESS_PATTERN = Pattern.compile(SuppressionUtil.COMMON_SUPPRESS_REGEXP);
+  private static final ErlangSuppressionMap EMPTY = new ErlangSuppressionMap(new ArrayList<>());
+
+  private final int[] myStarts;
+  private final int[] myEnds;
+  private final int[] myParents;
+  private final String[][] myIds;
+
+  private ErlangSuppressionMap(@NotNull List<Suppression> suppressions) {
+    suppressions.sort(Comparator.comparingInt((Suppression s) -> s.myRange.getStartOffset())
+                        .thenComparing(s -> -s.myRange.getEndOffset()));
+    List<Suppression> merged = new ArrayList<>(suppressions.size());
+    for (Suppression suppression : suppressions) {
+      Suppression last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+      if (last != null && last.myRange.equals(suppression.myRange)) {
+        last.myIds = ArrayUtil.mergeArrays(last.myIds, suppression.myIds);
+      }
+      else {
+        merged.add(suppression);
+      }
+    }
+    int size = merged.size();
+    myStarts = new int[size];
+    myEnds = new int[size];
+    myParents = new int[size];
+    myIds = new String[size][];
+    for (int i = 0; i < size; i++) {
+      Suppression suppression = merged.get(i);
+      myStarts[i] = suppression.myRange.getStartOffset();
+      myEnds[i] = suppression.myRange.getEndOffset();
+      myIds[i] = suppression.myIds;
+      int parent = i - 1;
+      while (parent >= 0 && myEnds[parent] < myEnds[i]) {
+        parent = myParents[parent];
+      }
+      myParents[i] = parent;
+    }
+  }
+
+  @NotNull
+  static ErlangSuppressionMap getInstance(@NotNull PsiFile file) {
+    return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(build(file), file));
+  }
+
+  boolean isSuppressed(int offset, @NotNull String inspectionId) {
+    int index = findLastStartingAtOrBefore(offset);
+    while (index >= 0) {
+      if (offset < myEnds[index]) {
+        for (String ids : myIds[index]) {
+          if (SuppressionUtil.isInspectionToolIdMentioned(ids, inspectionId)) return true;
+        }
+      }
+      index = myParents[index];
+    }
+    return false;
+  }
+
+  private int findLastStartingAtOrBefore(int offset) {
+    int low = 0;
+    int high = myStarts.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (myStarts[middle] <= offset) {
+        low = middle + 1;
+      }
+      else {
+        high = middle - 1;
+      }
+    }
+    return high;
+  }
+
+  @NotNull
+  private static ErlangSuppressionMap build(@NotNull PsiFile file) {
+    Commenter commenter = LanguageCommenters.INSTANCE.forLanguage(ErlangLanguage.INSTANCE);
+    String prefix = ObjectUtils.notNull(commenter == null ? null : commenter.getLineCommentPrefix(), "");
+    List<Suppression> suppressions = new ArrayList<>();
+    for (PsiComment comment : PsiTreeUtil.findChildrenOfType(file, PsiComment.class)) {
+      String ids = getSuppressedIds(comment.getText(), prefix);
+      if (ids == null) continue;
+      PsiElement next = comment.getNextSibling();
+      while (next instanceof PsiComment || next instanceof PsiWhiteSpace) {
+        next = next.getNextSibling();
+      }
+      if (next == null) continue;
+      // a comment also applies to the first child of the element it precedes
+      for (PsiElement element : new PsiElement[]{next, next.getFirstChild()}) {
+        if (isSuppressionContainer(element)) {
+          suppressions.add(new Suppression(element.getTextRange(), ids));
+        }
+      }
+    }
+    return suppressions.isEmpty() ? EMPTY : new ErlangSuppressionMap(suppressions);
+  }
+
+  @Nullable
+  private static String getSuppressedIds(@NotNull String commentText, @NotNull String prefix) {
+    if (commentText.length() < prefix.length()) return null;
+    Matcher m = SUPPRESS_PATTERN.matcher(commentText.substring(prefix.length()).trim());
+    return m.matches() ? m.group(1) : null;
+  }
+
+  /**
+   * Functions, attributes and the top-level expressions of a clause body, a guard or a terms file.
+   * The suppression fixes put their comments before the same elements.
+   */
+  static boolean isSuppressionContainer(@Nullable PsiElement element) {
+    if (element instanceof ErlangFunction || element instanceof ErlangAttribute) return true;
+    if (!(element instanceof ErlangExpression)) return false;
+    PsiElement parent = element.getParent();
+    return parent instanceof ErlangClauseBody || parent instanceof ErlangGuard || parent instanceof ErlangFile;
+  }
+
+  private static final class Suppression {
+    private final TextRange myRange;
+    private String[] myIds;
+
+    Suppression(@NotNull TextRange range, @NotNull String ids) {
+      myRange = range;
+      myIds = new String[]{ids};
+    }
+  }
+}
@@ -31,6 +31,7 @@ import org.intellij.erlang.psi.ErlangClauseBody;
 import org.intellij.erlang.psi.ErlangQVar;
 import org.intellij.erlang.psi.ErlangVisitor;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.psi.impl.ErlangVariableFlow;
 import org.intellij.erlang.quickfixes.ErlangQuickFixBase;
 import org.jetbrains.annotations.NotNull;
 
@@ -57,11 +58,19 @@ public class ErlangUnboundVariableInspection extends ErlangInspectionBase {
         }
         else {
           PsiElement resolve = reference.resolve();
-          if (resolve instanceof ErlangQVar && getClauseScope(resolve) != null)
-          {
-            if (findValInClauseButNotDefine(resolve, o) == null) return;
-            registerProblem(holder, o, "Variable " + "'" + o.getText() + "' is bound in case, but not all branch bound", new ErlangIntroduceVariableInCaseQuickFix());
+          if (!(resolve instanceof ErlangQVar)) return;
+          ErlangVariableFlow flow = ErlangVariableFlow.getFlow(o);
+          if (flow != null && flow.isAnalyzed(o)) {
+            if (!flow.isUnsafe(o)) return;
+            if (flow.getUnboundBranch(o) == null) {
+              registerProblem(holder, o, "Variable " + "'" + o.getText() + "' is bound in try, but unsafe to use after it");
+              return;
+            }
           }
+          else if (getClauseScope(resolve) == null || findValInClauseButNotDefine(resolve, o) == null) {
+            return;
+          }
+          registerProblem(holder, o, "Variable " + "'" + o.getText() + "' is bound in case, but not all branch bound", new ErlangIntroduceVariableInCaseQuickFix());
         }
       }
     };
@@ -117,10 +126,17 @@ public class ErlangUnboundVariableInspection extends ErlangInspectionBase {
     public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
       PsiElement psiElement = descriptor.getPsiElement();
       if (!(psiElement instanceof ErlangQVar)) return;
-      PsiReference reference = psiElement.getReference();
-      PsiElement resolve = reference == null ? null:reference.resolve();
-      if (resolve ==null) return;
-      PsiElement anchor = findValInClauseButNotDefine(resolve, psiElement);
+      ErlangVariableFlow flow = ErlangVariableFlow.getFlow(psiElement);
+      PsiElement anchor;
+      if (flow != null && flow.isAnalyzed((ErlangQVar) psiElement)) {
+        anchor = flow.getUnboundBranch((ErlangQVar) psiElement);
+      }
+      else {
+        PsiReference reference = psiElement.getReference();
+        PsiElement resolve = reference == null ? null : reference.resolve();
+        if (resolve == null) return;
+        anchor = findValInClauseButNotDefine(resolve, psiElement);
+      }
       PsiElement parent = anchor == null?null:anchor.getParent();
       if (anchor != null && parent != null) {
         Editor editor = PsiUtilBase.findEditor(anchor);
@@ -25,6 +25,7 @@ import com.intellij.psi.search.searches.ReferencesSearch;
 import com.intellij.util.Query;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.psi.impl.ErlangVariableFlow;
 import org.intellij.erlang.quickfixes.ErlangRenameVariableFix;
 import org.jetbrains.annotations.NotNull;
 
@@ -35,6 +36,7 @@ public class ErlangUnusedVariableInspection extends ErlangInspectionBase {
   protected void checkFile(@NotNull ErlangFile file, @NotNull final ProblemsHolder problemsHolder) {
     for (ErlangFunction function : file.getFunctions()) {
       for (final ErlangFunctionClause functionClause : function.getFunctionClauseList()) {
+        ErlangVariableFlow flow = ErlangVariableFlow.getFlow(functionClause);
         functionClause.accept(new ErlangRecursiveVisitor() {
           @Override
           public void visitQVar(@NotNull ErlangQVar o) {
@@ -43,6 +45,7 @@ public class ErlangUnusedVariableInspection extends ErlangInspectionBase {
             PsiReference reference = o.getReference();
             PsiElement resolve = reference != null ? reference.resolve() : null;
             if (resolve != null) return;
+            if (flow != null && flow.isUsedBinding(o)) return;
 
             Query<PsiReference> search = ReferencesSearch.search(o, new LocalSearchScope(functionClause));
             for (PsiReference ref : search) {
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.inspection.batch;
+
+import com.intellij.codeHighlighting.HighlightDisplayLevel;
+import com.intellij.codeInsight.daemon.HighlightDisplayKey;
+import com.intellij.codeInspection.*;
+import com.intellij.codeInspection.ex.LocalInspectionToolWrapper;
+import com.intellij.lang.annotation.HighlightSeverity;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.profile.codeInspection.InspectionProjectProfileManager;
+import com.intellij.psi.*;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.intellij.erlang.BaseErlangFileType;
+import org.intellij.erlang.ErlangFileType;
+import org.intellij.erlang.ErlangLanguage;
+import org.intellij.erlang.inspection.ErlangInspectionBase;
+import org.intellij.erlang.psi.ErlangFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs Erlang inspections over a set of files outside of the editor.
+ * <p>
+ * Every file is inspected by all the inspections in a single read action on a bounded pool of workers, so
+ * the number of files analysed at the same time never exceeds the requested parallelism.
+ */
+public final class ErlangBatchInspector {
+  private final Project myProject;
+  private final List<LocalInspectionToolWrapper> myInspections;
+  private final int myParallelism;
+  private final InspectionProfile myProfile;
+
+  public ErlangBatchInspector(@NotNull Project project, @NotNull List<LocalInspectionToolWrapper> inspections, int parallelism) {
+    myProject = project;
+    myInspections = inspections;
+    myParallelism = Math.max(1, parallelism);
+    myProfile = InspectionProjectProfileManager.getInstance(project).getCurrentProfile();
+  }
+
+  /**
+   * Returns the Erlang inspections registered in the plugin, either the given ones or the ones enabled by default.
+   */
+  @NotNull
+  public static List<LocalInspectionToolWrapper> getInspections(@Nullable Collection<String> shortNames) {
+    List<LocalInspectionToolWrapper> inspections = new ArrayList<>();
+    for (LocalInspectionEP ep : LocalInspectionEP.LOCAL_INSPECTION.getExtensionList()) {
+      if (!ErlangLanguage.INSTANCE.getID().equals(ep.language)) continue;
+      if (shortNames != null ? !shortNames.contains(ep.getShortName()) : !ep.enabledByDefault) continue;
+      LocalInspectionToolWrapper wrapper = new LocalInspectionToolWrapper(ep);
+      if (wrapper.getTool() instanceof ErlangInspectionBase) {
+        inspections.add(wrapper);
+      }
+    }
+    return inspections;
+  }
+
+  @NotNull
+  public static List<VirtualFile> getProjectFiles(@NotNull Project project) {
+    return ReadAction.compute(() -> {
+      GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+      List<VirtualFile> files = new ArrayList<>();
+      for (BaseErlangFileType fileType : ErlangFileType.TYPES) {
+        files.addAll(FileTypeIndex.getFiles(fileType, scope));
+      }
+      return files;
+    });
+  }
+
+  @NotNull
+  public ErlangInspectionReport inspect(@NotNull Collection<VirtualFile> files) throws InterruptedException, ExecutionException {
+    ErlangInspectionReport report = new ErlangInspectionReport();
+    for (LocalInspectionToolWrapper inspection : myInspections) {
+      report.addInspection(inspection.getShortName(), inspection.getDisplayName());
+    }
+    ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Erlang Batch Inspections", myParallelism);
+    try {
+      List<Future<?>> futures = new ArrayList<>(files.size());
+      for (VirtualFile file : files) {
+        futures.add(executor.submit(() -> ProgressManager.getInstance().runProcess(
+          () -> ReadAction.run(() -> inspect(file, report)), new EmptyProgressIndicator())));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    return report;
+  }
+
+  private void inspect(@NotNull VirtualFile file, @NotNull ErlangInspectionReport report) {
+    if (!file.isValid()) return;
+    PsiFile psiFile = PsiManager.getInstance(myProject).findFile(file);
+    Document document = psiFile != null ? PsiDocumentManager.getInstance(myProject).getDocument(psiFile) : null;
+    if (!(psiFile instanceof ErlangFile) || document == null) return;
+    String path = getRelativePath(file);
+    InspectionManager manager = InspectionManager.getInstance(myProject);
+
+    for (LocalInspectionToolWrapper inspection : myInspections) {
+      LocalInspectionTool tool = inspection.getTool();
+      long start = System.nanoTime();
+      ProblemsHolder holder = new ProblemsHolder(manager, psiFile, false);
+      LocalInspectionToolSession session = new LocalInspectionToolSession(psiFile, 0, psiFile.getTextLength());
+      tool.inspectionStarted(session, false);
+      PsiElementVisitor visitor = tool.buildVisitor(holder, false, session);
+      psiFile.accept(new PsiRecursiveElementWalkingVisitor() {
+        @Override
+        public void visitElement(@NotNull PsiElement element) {
+          element.accept(visitor);
+          super.visitElement(element);
+        }
+      });
+      tool.inspectionFinished(session, holder);
+      List<ProblemDescriptor> results = holder.getResults();
+      report.addTime(inspection.getShortName(), System.nanoTime() - start);
+
+      ErlangInspectionReport.Severity severity = getSeverity(getLevel(inspection, psiFile));
+      for (ProblemDescriptor descriptor : results) {
+        PsiElement element = descriptor.getPsiElement();
+        if (element == null || tool.isSuppressedFor(element)) continue;
+        int offset = getStartOffset(descriptor, element);
+        int line = document.getLineNumber(offset);
+        report.addProblem(new ErlangInspectionReport.Problem(path, line + 1, offset - document.getLineStartOffset(line) + 1,
+                                                             inspection.getShortName(), severity,
+                                                             ProblemDescriptorUtil.renderDescriptionMessage(descriptor, element)));
+      }
+    }
+  }
+
+  @NotNull
+  private String getRelativePath(@NotNull VirtualFile file) {
+    VirtualFile baseDir = myProject.getBaseDir();
+    String relativePath = baseDir != null ? VfsUtilCore.getRelativePath(file, baseDir) : null;
+    return relativePath != null ? relativePath : file.getPath();
+  }
+
+  private static int getStartOffset(@NotNull ProblemDescriptor descriptor, @NotNull PsiElement element) {
+    TextRange rangeInElement = descriptor.getTextRangeInElement();
+    return element.getTextRange().getStartOffset() + (rangeInElement != null ? rangeInElement.getStartOffset() : 0);
+  }
+
+  // the level configured in the project profile, as used by the editor highlighting
+  @NotNull
+  private HighlightDisplayLevel getLevel(@NotNull LocalInspectionToolWrapper inspection, @NotNull PsiFile file) {
+    HighlightDisplayKey key = HighlightDisplayKey.find(inspection.getShortName());
+    return key != null ? myProfile.getErrorLevel(key, file) : inspection.getDefaultLevel();
+  }
+
+  @NotNull
+  private static ErlangInspectionReport.Severity getSeverity(@NotNull HighlightDisplayLevel level) {
+    HighlightSeverity severity = level.getSeverity();
+    if (severity.compareTo(HighlightSeverity.ERROR) >= 0) return ErlangInspectionReport.Severity.ERROR;
+    if (severity.compareTo(HighlightSeverity.WARNING) >= 0) return ErlangInspectionReport.Severity.WARNING;
+    return ErlangInspectionReport.Severity.INFO;
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.inspection.batch;
+
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Problems found by {@link ErlangBatchInspector} together with the time spent in every inspection.
+ * Problems and timings may be added concurrently.
+ */
+public final class ErlangInspectionReport {
+  private final Map<String, String> myInspections = new LinkedHashMap<>();
+  private final Map<String, AtomicLong> myTimes = new ConcurrentHashMap<>();
+  private final Queue<Problem> myProblems = new ConcurrentLinkedQueue<>();
+
+  void addInspection(@NotNull String shortName, @NotNull String displayName) {
+    myInspections.put(shortName, displayName);
+    myTimes.put(shortName, new AtomicLong());
+  }
+
+  void addTime(@NotNull String shortName, long nanos) {
+    myTimes.get(shortName).addAndGet(nanos);
+  }
+
+  void addProblem(@NotNull Problem problem) {
+    myProblems.add(problem);
+  }
+
+  @NotNull
+  public List<Problem> getProblems() {
+    List<Problem> problems = new ArrayList<>(myProblems);
+    problems.sort(Comparator.comparing((Problem p) -> p.myPath).thenComparingInt(p -> p.myLine).thenComparingInt(p -> p.myColumn)
+                    .thenComparing(p -> p.myInspection));
+    return problems;
+  }
+
+  public long getTimeMs(@NotNull String shortName) {
+    AtomicLong nanos = myTimes.get(shortName);
+    return nanos != null ? nanos.get() / 1_000_000 : 0;
+  }
+
+  public boolean hasProblems() {
+    return !myProblems.isEmpty();
+  }
+
+  public void writeSarif(@NotNull Writer out) throws IOException {
+    List<Problem> problems = getProblems();
+    JsonWriter json = new JsonWriter(out);
+    json.setIndent("  ");
+    json.beginObject();
+    json.name("$schema").value("https://json.schemastore.org/sarif-2.1.0.json");
+    json.name("version").value("2.1.0");
+    json.name("runs").beginArray().beginObject();
+
+    json.name("tool").beginObject().name("driver").beginObject();
+    json.name("name").value("intellij-erlang");
+    json.name("rules").beginArray();
+    for (Map.Entry<String, String> inspection : myInspections.entrySet()) {
+      json.beginObject();
+      json.name("id").value(inspection.getKey());
+      json.name("shortDescription").beginObject().name("text").value(inspection.getValue()).endObject();
+      json.name("properties").beginObject().name("timeMs").value(getTimeMs(inspection.getKey())).endObject();
+      json.endObject();
+    }
+    json.endArray();
+    json.endObject().endObject();
+
+    json.name("results").beginArray();
+    for (Problem problem : problems) {
+      json.beginObject();
+      json.name("ruleId").value(problem.myInspection);
+      json.name("level").value(problem.mySeverity.mySarifLevel);
+      json.name("message").beginObject().name("text").value(problem.myMessage).endObject();
+      json.name("locations").beginArray().beginObject();
+      json.name("physicalLocation").beginObject();
+      json.name("artifactLocation").beginObject()
+        .name("uri").value(problem.myPath)
+        .name("uriBaseId").value("%SRCROOT%")
+        .endObject();
+      json.name("region").beginObject()
+        .name("startLine").value(problem.myLine)
+        .name("startColumn").value(problem.myColumn)
+        .endObject();
+      json.endObject();
+      json.endObject().endArray();
+      json.endObject();
+    }
+    json.endArray();
+
+    json.endObject().endArray();
+    json.endObject();
+    json.flush();
+  }
+
+  public void writeCheckstyle(@NotNull Writer out) throws IOException {
+    out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    out.write("<checkstyle version=\"8.0\">\n");
+    String currentPath = null;
+    for (Problem problem : getProblems()) {
+      if (!problem.myPath.equals(currentPath)) {
+        if (currentPath != null) out.write("  </file>\n");
+        currentPath = problem.myPath;
+        out.write("  <file name=\"" + StringUtil.escapeXmlEntities(currentPath) + "\">\n");
+      }
+      out.write("    <error line=\"" + problem.myLine + "\" column=\"" + problem.myColumn + "\"" +
+                " severity=\"" + problem.mySeverity.myCheckstyleSeverity + "\"" +
+                " message=\"" + StringUtil.escapeXmlEntities(problem.myMessage) + "\"" +
+                " source=\"" + problem.myInspection + "\"/>\n");
+    }
+    if (currentPath != null) out.write("  </file>\n");
+    out.write("</checkstyle>\n");
+    out.flush();
+  }
+
+  /**
+   * Prints inspections sorted by the time spent in them, the most expensive first.
+   */
+  public void writeTimings(@NotNull PrintStream out) {
+    Map<String, Integer> problemCounts = new HashMap<>();
+    for (Problem problem : myProblems) {
+      problemCounts.merge(problem.myInspection, 1, Integer::sum);
+    }
+    List<String> inspections = new ArrayList<>(myInspections.keySet());
+    inspections.sort(Comparator.comparingLong(this::getTimeMs).reversed());
+    int width = 0;
+    for (String inspection : inspections) {
+      width = Math.max(width, inspection.length());
+    }
+    for (String inspection : inspections) {
+      out.println(String.format("  %-" + width + "s %10d ms %8d problems",
+                                inspection, getTimeMs(inspection), problemCounts.getOrDefault(inspection, 0)));
+    }
+  }
+
+  public enum Severity {
+    ERROR("error", "error"),
+    WARNING("warning", "warning"),
+    INFO("note", "info");
+
+    private final String mySarifLevel;
+    private final String myCheckstyleSeverity;
+
+    Severity(@NotNull String sarifLevel, @NotNull String checkstyleSeverity) {
+      mySarifLevel = sarifLevel;
+      myCheckstyleSeverity = checkstyleSeverity;
+    }
+  }
+
+  public static final class Problem {
+    private final String myPath;
+    private final int myLine;
+    private final int myColumn;
+    private final String myInspection;
+    private final Severity mySeverity;
+    private final String myMessage;
+
+    /**
+     * @param line   1-based line
+     * @param column 1-based column
+     */
+    Problem(@NotNull String path, int line, int column, @NotNull String inspection, @NotNull Severity severity, @NotNull String message) {
+      myPath = path;
+      myLine = line;
+      myColumn = column;
+      myInspection = inspection;
+      mySeverity = severity;
+      myMessage = message;
+    }
+
+    @NotNull
+    public String getPath() {
+      return myPath;
+    }
+
+    public int getLine() {
+      return myLine;
+    }
+
+    public int getColumn() {
+      return myColumn;
+    }
+
+    @NotNull
+    public String getInspection() {
+      return myInspection;
+    }
+
+    @NotNull
+    public Severity getSeverity() {
+      return mySeverity;
+    }
+
+    @NotNull
+    public String getMessage() {
+      return myMessage;
+    }
+  }
+}
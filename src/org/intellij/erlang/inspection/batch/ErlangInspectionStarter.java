@@ -0,0 +1,189 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.inspection.batch;
+
+import com.intellij.codeInspection.ex.LocalInspectionToolWrapper;
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.ui.UIUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Headless entry point for running Erlang inspections on CI:
+ * <pre>
+ * idea erlang-inspect &lt;project-path&gt; [--format=sarif|checkstyle] [--output=&lt;file&gt;] [--threads=&lt;n&gt;]
+ *                     [--inspections=&lt;short name&gt;,...]
+ * </pre>
+ * The project is opened and indexed once, then all its Erlang files are inspected in parallel. Progress and
+ * per-inspection timings are printed to the standard error, so without --output the standard output carries
+ * nothing but the report. Problems get the severity configured in the project inspection profile. The exit code is 0 if nothing was found, 1 if there are problems
+ * and 2 on a usage error or failure.
+ */
+public class ErlangInspectionStarter implements ApplicationStarter {
+  private static final Logger LOG = Logger.getInstance(ErlangInspectionStarter.class);
+  private static final String USAGE = "Usage: erlang-inspect <project-path> [--format=sarif|checkstyle] [--output=<file>] " +
+                                      "[--threads=<n>] [--inspections=<short name>,...]";
+
+  @Override
+  public String getCommandName() {
+    return "erlang-inspect";
+  }
+
+  @Override
+  public boolean isHeadless() {
+    return true;
+  }
+
+  @Override
+  public void main(@NotNull String[] args) {
+    Future<Integer> future = ApplicationManager.getApplication().executeOnPooledThread(() -> run(args));
+    int exitCode;
+    try {
+      exitCode = waitFor(future);
+    }
+    catch (Exception e) {
+      LOG.error("Erlang inspections failed", e);
+      exitCode = 2;
+    }
+    System.exit(exitCode);
+  }
+
+  // project opening and indexing need the event queue, so it is pumped while waiting on the event dispatch thread
+  private static int waitFor(@NotNull Future<Integer> future) throws Exception {
+    if (!ApplicationManager.getApplication().isDispatchThread()) return future.get();
+    while (true) {
+      try {
+        return future.get(50, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException e) {
+        UIUtil.dispatchAllInvocationEvents();
+      }
+    }
+  }
+
+  private static int run(@NotNull String[] args) throws Exception {
+    Options options = Options.parse(args);
+    if (options == null) {
+      System.err.println(USAGE);
+      return 2;
+    }
+    List<LocalInspectionToolWrapper> inspections = ErlangBatchInspector.getInspections(options.myInspections);
+    if (inspections.isEmpty()) {
+      System.err.println("No Erlang inspections to run");
+      return 2;
+    }
+
+    Ref<Project> projectRef = Ref.create();
+    ApplicationManager.getApplication().invokeAndWait(() -> projectRef.set(ProjectUtil.openOrImport(options.myProjectPath, null, false)));
+    Project project = projectRef.get();
+    if (project == null) {
+      System.err.println("Cannot open project " + options.myProjectPath);
+      return 2;
+    }
+
+    long start = System.currentTimeMillis();
+    DumbService.getInstance(project).waitForSmartMode();
+    System.err.println("Indexed in " + (System.currentTimeMillis() - start) + " ms");
+
+    start = System.currentTimeMillis();
+    List<VirtualFile> files = ErlangBatchInspector.getProjectFiles(project);
+    ErlangInspectionReport report = new ErlangBatchInspector(project, inspections, options.myThreads).inspect(files);
+    System.err.println("Inspected " + files.size() + " files with " + inspections.size() + " inspections on " +
+                       options.myThreads + " threads in " + (System.currentTimeMillis() - start) + " ms");
+    report.writeTimings(System.err);
+
+    try (Writer out = createWriter(options.myOutput)) {
+      if (options.myCheckstyle) {
+        report.writeCheckstyle(out);
+      }
+      else {
+        report.writeSarif(out);
+      }
+    }
+    return report.hasProblems() ? 1 : 0;
+  }
+
+  @NotNull
+  private static Writer createWriter(@Nullable String output) throws IOException {
+    if (output == null) {
+      return new OutputStreamWriter(new FilterOutputStream(System.out) {
+        @Override
+        public void close() throws IOException {
+          flush();
+        }
+      }, StandardCharsets.UTF_8);
+    }
+    File file = new File(output);
+    FileUtil.createParentDirs(file);
+    return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+  }
+
+  private static final class Options {
+    private String myProjectPath;
+    private String myOutput;
+    private boolean myCheckstyle;
+    private int myThreads = Runtime.getRuntime().availableProcessors();
+    private List<String> myInspections;
+
+    @Nullable
+    static Options parse(@NotNull String[] args) {
+      Options options = new Options();
+      // args[0] is the command name
+      for (int i = 1; i < args.length; i++) {
+        String arg = args[i];
+        String value = StringUtil.substringAfter(arg, "=");
+        if (arg.startsWith("--format=")) {
+          if (!"sarif".equals(value) && !"checkstyle".equals(value)) return null;
+          options.myCheckstyle = "checkstyle".equals(value);
+        }
+        else if (arg.startsWith("--output=")) {
+          options.myOutput = value;
+        }
+        else if (arg.startsWith("--threads=")) {
+          options.myThreads = StringUtil.parseInt(value, 0);
+          if (options.myThreads <= 0) return null;
+        }
+        else if (arg.startsWith("--inspections=")) {
+          options.myInspections = StringUtil.split(StringUtil.notNullize(value), ",");
+        }
+        else if (arg.startsWith("--") || options.myProjectPath != null) {
+          return null;
+        }
+        else {
+          options.myProjectPath = new File(arg).getAbsolutePath();
+        }
+      }
+      return options.myProjectPath != null ? options : null;
+    }
+  }
+}
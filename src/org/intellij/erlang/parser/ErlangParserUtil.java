@@ -32,7 +32,6 @@ import com.intellij.psi.tree.TokenSet;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.indexing.IndexingDataKeys;
-import gnu.trove.TObjectLongHashMap;
 import org.intellij.erlang.ErlangBraceMatcher;
 import org.intellij.erlang.ErlangFileType;
 import org.intellij.erlang.ErlangTypes;
@@ -72,20 +71,37 @@ public class ErlangParserUtil extends GeneratedParserUtilBase {
     return fileType == ErlangFileType.APP || fileType == ErlangFileType.TERMS;
   }
 
-  private static final Key<TObjectLongHashMap<String>> MODES_KEY = Key.create("MODES_KEY");
+  // Parsing modes used by the grammar. Every mode is a slot of a small per-builder array: a counter for
+  // enterMode/exitMode and a stack of on/off bits for withOn/withCleared.
+  private static final int ELSE_MODE = 0;
+  private static final int ATOM_ATTRIBUTE_MODE = 1;
+  private static final int GUARD_MODE = 2;
+  private static final int MODES_COUNT = 3;
 
-  private static TObjectLongHashMap<String> getParsingModes(PsiBuilder builder_) {
-    TObjectLongHashMap<String> flags = builder_.getUserData(MODES_KEY);
-    if (flags == null) builder_.putUserData(MODES_KEY, flags = new TObjectLongHashMap<>());
-    return flags;
+  private static final Key<long[]> MODES_KEY = Key.create("MODES_KEY");
+
+  private static int getModeSlot(String mode) {
+    switch (mode) {
+      case "ELSE": return ELSE_MODE;
+      case "ATOM_ATTRIBUTE": return ATOM_ATTRIBUTE_MODE;
+      case "GUARD": return GUARD_MODE;
+      default: throw new IllegalArgumentException("Unknown parsing mode: " + mode);
+    }
+  }
+
+  private static long[] getParsingModes(PsiBuilder builder_) {
+    if (builder_ instanceof MyBuilder) return ((MyBuilder) builder_).modes;
+    long[] modes = builder_.getUserData(MODES_KEY);
+    if (modes == null) builder_.putUserData(MODES_KEY, modes = new long[MODES_COUNT]);
+    return modes;
   }
 
   public static boolean isModeOn(PsiBuilder builder_, @SuppressWarnings("UnusedParameters") int level, String mode) {
-    return getParsingModes(builder_).get(mode) > 0;
+    return getParsingModes(builder_)[getModeSlot(mode)] > 0;
   }
 
   public static boolean isModeOff(PsiBuilder builder_, @SuppressWarnings("UnusedParameters") int level, String mode) {
-    return getParsingModes(builder_).get(mode) == 0;
+    return getParsingModes(builder_)[getModeSlot(mode)] == 0;
   }
 
   public static boolean withOn(PsiBuilder builder_, int level_, String mode, Parser parser) {
@@ -97,26 +113,25 @@ public class ErlangParserUtil extends GeneratedParserUtilBase {
   }
 
   private static boolean withImpl(PsiBuilder builder_, int level_, String mode, boolean onOff, Parser whenOn, Parser whenOff) {
-    TObjectLongHashMap<String> map = getParsingModes(builder_);
-    long prev = map.get(mode);
+    long[] modes = getParsingModes(builder_);
+    int slot = getModeSlot(mode);
+    long prev = modes[slot];
     boolean change = ((prev & 1) == 0) == onOff;
-    if (change) map.put(mode, prev << 1 | (onOff? 1 : 0));
+    if (change) modes[slot] = prev << 1 | (onOff? 1 : 0);
     boolean result = (change ? whenOn : whenOff).parse(builder_, level_);
-    if (change) map.put(mode, prev);
+    if (change) modes[slot] = prev;
     return result;
   }
 
   public static boolean enterMode(PsiBuilder builder_, @SuppressWarnings("UnusedParameters") int level, String mode) {
-    TObjectLongHashMap<String> flags = getParsingModes(builder_);
-    if (!flags.increment(mode)) flags.put(mode, 1);
+    getParsingModes(builder_)[getModeSlot(mode)]++;
     return true;
   }
 
   public static boolean exitMode(PsiBuilder builder_, @SuppressWarnings("UnusedParameters") int level, String mode) {
-    TObjectLongHashMap<String> flags = getParsingModes(builder_);
-    long count = flags.get(mode);
-    if (count == 1) flags.remove(mode);
-    else if (count > 1) flags.put(mode, count -1);
+    long[] modes = getParsingModes(builder_);
+    int slot = getModeSlot(mode);
+    if (modes[slot] > 0) modes[slot]--;
     else builder_.error("Could not exit inactive '" + mode + "' mode at offset " + builder_.getCurrentOffset());
     return true;
   }
@@ -136,6 +151,7 @@ public class ErlangParserUtil extends GeneratedParserUtilBase {
 
   private static class MyBuilder extends Builder {
     private final boolean indexing;
+    private final long[] modes = new long[MODES_COUNT];
 
     private MyBuilder(PsiBuilder builder, ErrorState state, PsiParser parser, boolean indexing) {
       super(builder, state, parser);
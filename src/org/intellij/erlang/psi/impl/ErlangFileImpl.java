@@ -21,6 +21,7 @@ import com.intellij.ide.scratch.ScratchFileType;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.*;
@@ -34,7 +35,9 @@ import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.*;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.containers.MultiMap;
+import com.intellij.util.containers.WeakInterner;
 import gnu.trove.THashMap;
+import gnu.trove.THashSet;
 import org.intellij.erlang.BaseErlangFileType;
 import org.intellij.erlang.ErlangFileType;
 import org.intellij.erlang.ErlangLanguage;
@@ -53,6 +56,9 @@ import static java.util.Collections.*;
 import static org.intellij.erlang.psi.impl.ErlangPsiImplUtil.*;
 
 public class ErlangFileImpl extends PsiFileBase implements ErlangFile, PsiNameIdentifierOwner {
+  private static final Key<FormAtoms> FORM_ATOMS = Key.create("ERLANG_FORM_STANDALONE_ATOMS");
+  private static final WeakInterner<String> ATOM_INTERNER = new WeakInterner<>();
+
   private final CachedValue<ErlangModule> myModuleValue =
     createCachedValue(new ValueProvider<ErlangModule>() {
       @Nullable
@@ -274,12 +280,12 @@ public class ErlangFileImpl extends PsiFileBase implements ErlangFile, PsiNameId
         return unmodifiableSet(calcNoAutoImportSignatures());
       }
     });
-  private final CachedValue<Set<PsiElement>> myConfigKeys =
-    createCachedValue(new ValueProvider<Set<PsiElement>>() {
+  private final CachedValue<List<PsiElement>> myConfigKeys =
+    createCachedValue(new ValueProvider<List<PsiElement>>() {
       @NotNull
       @Override
-      public Set<PsiElement> computeValue() {
-        return unmodifiableSet(calcConfigKeys());
+      public List<PsiElement> computeValue() {
+        return unmodifiableList(calcConfigKeys());
       }
     });
   private final CachedValue<Set<String>> myStandAloneAtoms =
@@ -579,18 +585,15 @@ public class ErlangFileImpl extends PsiFileBase implements ErlangFile, PsiNameId
     return myExportedFunctionValue.getValue();
   }
 
-  private Set<PsiElement> calcConfigKeys() {
-    HashSet<PsiElement> keys = new HashSet<>();
-    if (getFileType() != ErlangFileType.TERMS)
-      return keys;
-    PsiElement child = getFirstChild();
-    while (child != null){
+  private List<PsiElement> calcConfigKeys() {
+    if (getFileType() != ErlangFileType.TERMS) return emptyList();
+    ArrayList<PsiElement> keys = new ArrayList<>();
+    for (PsiElement child = getFirstChild(); child != null; child = child.getNextSibling()) {
       if (child instanceof ErlangTupleExpression) {
-        PsiElement key = ((ErlangTupleExpression) child).getExpressionList().get(0);
-        ContainerUtil.addIfNotNull(keys, key);
+        ContainerUtil.addIfNotNull(keys, ContainerUtil.getFirstItem(((ErlangTupleExpression) child).getExpressionList()));
       }
-      child = child.getNextSibling();
     }
+    keys.trimToSize();
     return keys;
   }
 
@@ -601,17 +604,40 @@ public class ErlangFileImpl extends PsiFileBase implements ErlangFile, PsiNameId
   }
 
   private Set<String> calcStandAloneAtoms() {
-    HashSet<String> erlangQAtoms = new HashSet<>();
-    if (getFileType() != ErlangFileType.MODULE) return erlangQAtoms;
-    accept(new ErlangRecursiveVisitor() {
+    if (getFileType() != ErlangFileType.MODULE) return emptySet();
+    Set<String> atoms = new THashSet<>();
+    processChildrenDummyAware(this, form -> {
+      if (form instanceof ErlangCompositeElement) {
+        Collections.addAll(atoms, getStandAloneAtoms((ErlangCompositeElement) form));
+      }
+      return true;
+    });
+    return atoms;
+  }
+
+  /**
+   * Standalone atoms of a top-level form. They are kept on the form together with its text length and hash, so
+   * after an edit only the changed forms are walked again.
+   */
+  @NotNull
+  private static String[] getStandAloneAtoms(@NotNull ErlangCompositeElement form) {
+    CharSequence text = form.getNode().getChars();
+    int hash = StringUtil.stringHashCode(text);
+    FormAtoms cached = form.getUserData(FORM_ATOMS);
+    if (cached != null && cached.myLength == text.length() && cached.myHash == hash) return cached.myAtoms;
+
+    Set<String> atoms = new THashSet<>();
+    form.accept(new ErlangRecursiveVisitor() {
       @Override
       public void visitQAtom(@NotNull ErlangQAtom o) {
-        if (ErlangPsiImplUtil.standaloneAtom(o) && o.getAtom() != null){
-          erlangQAtoms.add(o.getText());
+        if (ErlangPsiImplUtil.standaloneAtom(o) && o.getAtom() != null) {
+          atoms.add(ATOM_INTERNER.intern(o.getText()));
         }
       }
     });
-    return erlangQAtoms;
+    String[] result = atoms.isEmpty() ? ArrayUtilRt.EMPTY_STRING_ARRAY : ArrayUtilRt.toStringArray(atoms);
+    form.putUserData(FORM_ATOMS, new FormAtoms(text.length(), hash, result));
+    return result;
   }
 
   @NotNull
@@ -774,6 +800,8 @@ public class ErlangFileImpl extends PsiFileBase implements ErlangFile, PsiNameId
 
   @Nullable
   public ErlangImportFunction getImportedFunction(String name, final int arity) {
+    ErlangFileStub stub = getStub();
+    if (stub != null && !stub.isImported(name, arity)) return null;
     MultiMap<String, ErlangImportFunction> importsMap = myImportsMap.getValue();
     Collection<ErlangImportFunction> importFunctions = importsMap.get(name);
     return ContainerUtil.find(importFunctions, importFunction -> arity == ErlangPsiImplUtil.getArity(importFunction));
@@ -890,6 +918,18 @@ public class ErlangFileImpl extends PsiFileBase implements ErlangFile, PsiNameId
     return Arrays.asList(stub.getChildrenByType(elementType, arrayFactory));
   }
 
+  private static final class FormAtoms {
+    private final int myLength;
+    private final int myHash;
+    private final String[] myAtoms;
+
+    FormAtoms(int length, int hash, @NotNull String[] atoms) {
+      myLength = length;
+      myHash = hash;
+      myAtoms = atoms;
+    }
+  }
+
   private abstract class ValueProvider<T> implements CachedValueProvider<T> {
     @NotNull
     @Override
@@ -17,12 +17,15 @@
 package org.intellij.erlang.psi.impl;
 
 import com.intellij.codeInsight.completion.BasicInsertHandler;
+import com.intellij.codeInsight.completion.CompletionResultSet;
 import com.intellij.codeInsight.completion.InsertHandler;
 import com.intellij.codeInsight.completion.InsertionContext;
+import com.intellij.codeInsight.completion.PrefixMatcher;
 import com.intellij.codeInsight.completion.PrioritizedLookupElement;
 import com.intellij.codeInsight.completion.util.ParenthesesInsertHandler;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
+import com.intellij.codeInsight.lookup.LookupElementDecorator;
 import com.intellij.execution.console.LanguageConsoleImpl;
 import com.intellij.lang.ASTNode;
 import com.intellij.navigation.ItemPresentation;
@@ -64,6 +67,7 @@ import org.intellij.erlang.console.ErlangConsoleView;
 import org.intellij.erlang.debugger.xdebug.ErlangExprCodeFragment;
 import org.intellij.erlang.icons.ErlangIcons;
 import org.intellij.erlang.index.ErlangApplicationIndex;
+import org.intellij.erlang.index.ErlangExportedFunctionIndex;
 import org.intellij.erlang.index.ErlangModuleIndex;
 import org.intellij.erlang.parser.ErlangParserUtil;
 import org.intellij.erlang.psi.*;
@@ -798,26 +802,27 @@ public class ErlangPsiImplUtil {
     }
   }
 
-  @NotNull
-  public static Collection<LookupElement> getAllExportedFunctionsWithModuleLookupElements(@NotNull Project project,
-                                                                                          boolean withArity,
-                                                                                          @Nullable String exclude) {
-    List<LookupElement> lookupElements = new SmartList<>();
-    for (String moduleName : ErlangModuleIndex.getNames(project)) {
-      if (moduleName.equals(exclude)) continue;
-      for (ErlangFunction function : getExternalFunctionForCompletion(project, moduleName)) {
-        String functionName = function.getName();
-        String fullName = moduleName + ":" + functionName;
-        int arity = function.getArity();
-        lookupElements.add(
-          PrioritizedLookupElement.withPriority(
-            LookupElementBuilder.create(function, fullName)
-              .withIcon(ErlangIcons.FUNCTION).withTailText("/" + arity)
-              .withInsertHandler(getInsertHandler(functionName, moduleName, arity, withArity)),
-            ErlangCompletionContributor.EXTERNAL_FUNCTIONS_PRIORITY));
-      }
-    }
-    return lookupElements;
+  /**
+   * Adds "module:function" lookup elements for exported functions matching the result set prefix as they are found.
+   * The functions themselves are resolved only when a lookup element is asked for its PSI element.
+   */
+  public static void addAllExportedFunctionsWithModuleLookupElements(@NotNull CompletionResultSet result,
+                                                                     @NotNull Project project,
+                                                                     boolean withArity,
+                                                                     @Nullable String exclude) {
+    PrefixMatcher matcher = result.getPrefixMatcher();
+    ErlangExportedFunctionIndex.processExportedFunctions(project, matcher, (moduleName, functionName, arity) -> {
+      if (result.isStopped()) return false;
+      String fullName = moduleName + ":" + functionName;
+      if (moduleName.equals(exclude) || !matcher.prefixMatches(fullName)) return true;
+      LookupElement element = LookupElementBuilder.create(fullName + "/" + arity, fullName)
+        .withIcon(ErlangIcons.FUNCTION).withTailText("/" + arity)
+        .withInsertHandler(getInsertHandler(functionName, moduleName, arity, withArity));
+      result.addElement(
+        PrioritizedLookupElement.withPriority(new ExportedFunctionLookupElement(element, project, moduleName, functionName, arity),
+                                              ErlangCompletionContributor.EXTERNAL_FUNCTIONS_PRIORITY));
+      return true;
+    });
   }
 
   private static void addBifs(@NotNull List<LookupElement> lookupElements, @NotNull Collection<ErlangBifDescriptor> bifs, boolean withArity) {
@@ -1335,10 +1340,9 @@ public class ErlangPsiImplUtil {
     //let's search in include directories
     if (containingVirtualFile != null) {
       Module module = ModuleUtilCore.findModuleForFile(containingVirtualFile, project);
-      for (VirtualFile includeDir : ErlangIncludeDirectoryUtil.getIncludeDirectories(module)) {
-        ErlangFile includedFile = getRelativeErlangFile(project, relativePath, includeDir);
-        if (includedFile != null) return new SmartList<>(includedFile);
-      }
+      VirtualFile includedVirtualFile = ErlangIncludeDirectoryUtil.findIncludedFile(module, relativePath);
+      PsiFile includedFile = includedVirtualFile != null ? PsiManager.getInstance(project).findFile(includedVirtualFile) : null;
+      if (includedFile instanceof ErlangFile) return new SmartList<>((ErlangFile) includedFile);
     }
 
     //TODO consider providing source roots functionality to small IDEs
@@ -2205,6 +2209,35 @@ public class ErlangPsiImplUtil {
     return false;
   }
 
+  private static class ExportedFunctionLookupElement extends LookupElementDecorator<LookupElement> {
+    private final Project myProject;
+    private final String myModuleName;
+    private final String myFunctionName;
+    private final int myArity;
+
+    ExportedFunctionLookupElement(@NotNull LookupElement delegate,
+                                  @NotNull Project project,
+                                  @NotNull String moduleName,
+                                  @NotNull String functionName,
+                                  int arity) {
+      super(delegate);
+      myProject = project;
+      myModuleName = moduleName;
+      myFunctionName = functionName;
+      myArity = arity;
+    }
+
+    @Nullable
+    @Override
+    public PsiElement getPsiElement() {
+      for (ErlangFile file : ErlangModuleIndex.getFilesByName(myProject, myModuleName, GlobalSearchScope.allScope(myProject))) {
+        ErlangFunction function = file.getFunction(myFunctionName, myArity);
+        if (function != null) return function;
+      }
+      return null;
+    }
+  }
+
   public static class ErlangFunctionCallArgumentBase<T extends PsiElement> extends PatternCondition<T> {
     protected ErlangFunctionCallArgumentBase(@Nullable String debugMethodName) {
       super(debugMethodName);
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.psi.impl;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.SmartList;
+import org.intellij.erlang.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Variable dataflow of a single function clause.
+ * <p>
+ * The clause is walked once in evaluation order. At every point the walk keeps the set of definitely bound
+ * variables, the maybe-bound ones (bound in some branches of a case, if, receive or try only) together with
+ * a branch which does not bind them, and the binding occurrences that may reach it. The result is cached on
+ * the clause and answers both "is this use unsafe?" and "is this binding ever read?".
+ */
+public final class ErlangVariableFlow {
+  private final Set<ErlangQVar> myUses = new HashSet<>();
+  private final Map<ErlangQVar, PsiElement> myUnsafeUses = new HashMap<>();
+  private final Set<ErlangQVar> myBindings = new HashSet<>();
+  private final Set<ErlangQVar> myUsedBindings = new HashSet<>();
+
+  private ErlangVariableFlow(@NotNull ErlangFunctionClause clause) {
+    State state = new State();
+    ErlangArgumentDefinitionList arguments = clause.getArgumentDefinitionList();
+    if (arguments != null) {
+      bindPattern(arguments, state, false);
+    }
+    walk(clause.getClauseGuard(), state);
+    walk(clause.getClauseBody(), state);
+  }
+
+  /**
+   * Returns the flow of the function clause containing the element, or null if the element is not inside a
+   * function clause (record definitions, macros, attributes).
+   */
+  @Nullable
+  public static ErlangVariableFlow getFlow(@NotNull PsiElement element) {
+    ErlangFunctionClause clause = PsiTreeUtil.getTopmostParentOfType(element, ErlangFunctionClause.class);
+    if (clause == null) return null;
+    return CachedValuesManager.getCachedValue(clause, () ->
+      CachedValueProvider.Result.create(new ErlangVariableFlow(clause), clause));
+  }
+
+  public boolean isAnalyzed(@NotNull ErlangQVar var) {
+    return myUses.contains(var) || myBindings.contains(var);
+  }
+
+  /**
+   * A use is unsafe if the variable is bound on some but not all paths leading to it.
+   */
+  public boolean isUnsafe(@NotNull ErlangQVar use) {
+    return myUnsafeUses.containsKey(use);
+  }
+
+  /**
+   * Returns the clause body of a branch which leaves an unsafe variable unbound, null for bindings made
+   * inside a try expression.
+   */
+  @Nullable
+  public PsiElement getUnboundBranch(@NotNull ErlangQVar use) {
+    return myUnsafeUses.get(use);
+  }
+
+  public boolean isUsedBinding(@NotNull ErlangQVar binding) {
+    return myUsedBindings.contains(binding);
+  }
+
+  private void walk(@Nullable PsiElement element, @NotNull State state) {
+    if (element == null) return;
+    if (element instanceof ErlangQVar) {
+      use((ErlangQVar) element, state);
+    }
+    else if (element instanceof ErlangAssignmentExpression) {
+      ErlangAssignmentExpression assignment = (ErlangAssignmentExpression) element;
+      walk(assignment.getRight(), state);
+      bindPattern(assignment.getLeft(), state, false);
+    }
+    else if (element instanceof ErlangCaseExpression) {
+      ErlangCaseExpression caseExpression = (ErlangCaseExpression) element;
+      walk(caseExpression.getExpression(), state);
+      walkClauses(caseExpression.getCrClauseList(), null, state);
+    }
+    else if (element instanceof ErlangIfExpression) {
+      walkIf((ErlangIfExpression) element, state);
+    }
+    else if (element instanceof ErlangReceiveExpression) {
+      ErlangReceiveExpression receive = (ErlangReceiveExpression) element;
+      ErlangAfterClauseBody after = receive.getAfterClauseBody();
+      if (after != null) {
+        walk(after.getExpression(), state);
+      }
+      walkClauses(receive.getCrClauseList(), after, state);
+    }
+    else if (element instanceof ErlangTryExpression) {
+      walkTry((ErlangTryExpression) element, state);
+    }
+    else if (element instanceof ErlangFunExpression) {
+      walkFun((ErlangFunExpression) element, state);
+    }
+    else if (element instanceof ErlangListComprehension) {
+      walkComprehension(element, state.copy());
+    }
+    else {
+      walkChildren(element, state);
+    }
+  }
+
+  private void walkChildren(@NotNull PsiElement element, @NotNull State state) {
+    for (PsiElement child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof ErlangCompositeElement) {
+        walk(child, state);
+      }
+    }
+  }
+
+  // fun heads shadow outer variables and nothing bound inside a fun is visible after it
+  private void walkFun(@NotNull ErlangFunExpression fun, @NotNull State state) {
+    ErlangFunClauses funClauses = fun.getFunClauses();
+    if (funClauses == null) {
+      walkChildren(fun, state);
+      return;
+    }
+    for (ErlangFunClause funClause : funClauses.getFunClauseList()) {
+      State clauseState = state.copy();
+      bindPattern(funClause.getArgumentDefinition(), clauseState, true);
+      bindPattern(funClause.getArgumentDefinitionList(), clauseState, true);
+      walk(funClause.getClauseGuard(), clauseState);
+      walk(funClause.getClauseBody(), clauseState);
+    }
+  }
+
+  private void walkComprehension(@NotNull PsiElement comprehension, @NotNull State state) {
+    List<ErlangLcExpression> qualifiers = PsiTreeUtil.getChildrenOfTypeAsList(comprehension, ErlangLcExpression.class);
+    for (ErlangLcExpression qualifier : qualifiers) {
+      walk(qualifier.getExpression(), state);
+      bindPattern(qualifier.getArgumentDefinition(), state, true);
+    }
+    for (PsiElement child = comprehension.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof ErlangCompositeElement && !(child instanceof ErlangLcExpression)) {
+        walk(child, state);
+      }
+    }
+  }
+
+  private void walkClauses(@NotNull List<ErlangCrClause> clauses, @Nullable ErlangAfterClauseBody after, @NotNull State state) {
+    List<State> branches = new ArrayList<>();
+    List<PsiElement> bodies = new ArrayList<>();
+    for (ErlangCrClause clause : clauses) {
+      State branch = state.copy();
+      bindPattern(clause.getArgumentDefinition(), branch, false);
+      walk(clause.getClauseGuard(), branch);
+      walk(clause.getClauseBody(), branch);
+      branches.add(branch);
+      bodies.add(clause.getClauseBody());
+    }
+    if (after != null) {
+      State branch = state.copy();
+      walk(after.getClauseBody(), branch);
+      branches.add(branch);
+      bodies.add(after.getClauseBody());
+    }
+    state.merge(branches, bodies);
+  }
+
+  private void walkIf(@NotNull ErlangIfExpression ifExpression, @NotNull State state) {
+    List<State> branches = new ArrayList<>();
+    List<PsiElement> bodies = new ArrayList<>();
+    for (ErlangIfClause clause : ifExpression.getIfClauseList()) {
+      State branch = state.copy();
+      walk(clause.getGuard(), branch);
+      walk(clause.getClauseBody(), branch);
+      branches.add(branch);
+      bodies.add(clause.getClauseBody());
+    }
+    state.merge(branches, bodies);
+  }
+
+  // nothing bound inside a try expression is safe to use after it
+  private void walkTry(@NotNull ErlangTryExpression tryExpression, @NotNull State state) {
+    List<ErlangTryExpressionsClause> expressionClauses = tryExpression.getTryExpressionsClauseList();
+    List<State> parts = new ArrayList<>();
+    State body = state.copy();
+    if (!expressionClauses.isEmpty()) {
+      walk(expressionClauses.get(0), body);
+    }
+    parts.add(body);
+    for (ErlangCrClause clause : tryExpression.getCrClauseList()) {
+      State branch = body.copy();
+      bindPattern(clause.getArgumentDefinition(), branch, false);
+      walk(clause.getClauseGuard(), branch);
+      walk(clause.getClauseBody(), branch);
+      parts.add(branch);
+    }
+    ErlangTryClauses catchClauses = tryExpression.getTryClauses();
+    if (catchClauses != null) {
+      for (ErlangTryClause clause : catchClauses.getTryClauseList()) {
+        State branch = state.copy();
+        for (ErlangArgumentDefinition argument : clause.getArgumentDefinitionList()) {
+          bindPattern(argument, branch, false);
+        }
+        walk(clause.getClauseGuard(), branch);
+        walk(clause.getClauseBody(), branch);
+        parts.add(branch);
+      }
+    }
+    if (expressionClauses.size() > 1) {
+      State after = state.copy();
+      walk(expressionClauses.get(1), after);
+      parts.add(after);
+    }
+    state.mergeUnsafe(parts);
+  }
+
+  private void bindPattern(@Nullable PsiElement pattern, @NotNull State state, boolean shadow) {
+    if (pattern == null) return;
+    Set<String> boundHere = new HashSet<>();
+    for (ErlangQVar var : PsiTreeUtil.findChildrenOfType(pattern, ErlangQVar.class)) {
+      if (ErlangPsiImplUtil.isForceSkipped(var)) continue;
+      String name = var.getName();
+      if (boundHere.contains(name) || !shadow && state.myBound.contains(name)) {
+        use(var, state);
+        continue;
+      }
+      if (!shadow && state.myMaybeBound.containsKey(name)) {
+        use(var, state);
+      }
+      myBindings.add(var);
+      boundHere.add(name);
+      state.bind(name, var);
+    }
+  }
+
+  private void use(@NotNull ErlangQVar var, @NotNull State state) {
+    if (ErlangPsiImplUtil.isForceSkipped(var)) return;
+    String name = var.getName();
+    myUses.add(var);
+    List<ErlangQVar> reaching = state.myReaching.get(name);
+    if (reaching != null) {
+      myUsedBindings.addAll(reaching);
+    }
+    if (!state.myBound.contains(name) && state.myMaybeBound.containsKey(name)) {
+      myUnsafeUses.put(var, state.myMaybeBound.get(name));
+    }
+  }
+
+  private static final class State {
+    private final Set<String> myBound;
+    private final Map<String, PsiElement> myMaybeBound;
+    private final Map<String, List<ErlangQVar>> myReaching;
+
+    State() {
+      this(new HashSet<>(), new HashMap<>(), new HashMap<>());
+    }
+
+    private State(@NotNull Set<String> bound,
+                  @NotNull Map<String, PsiElement> maybeBound,
+                  @NotNull Map<String, List<ErlangQVar>> reaching) {
+      myBound = bound;
+      myMaybeBound = maybeBound;
+      myReaching = reaching;
+    }
+
+    @NotNull
+    State copy() {
+      return new State(new HashSet<>(myBound), new HashMap<>(myMaybeBound), new HashMap<>(myReaching));
+    }
+
+    // reaching lists are never modified in place, so copies may share them
+    void bind(@NotNull String name, @NotNull ErlangQVar var) {
+      myBound.add(name);
+      myMaybeBound.remove(name);
+      myReaching.put(name, new SmartList<>(var));
+    }
+
+    void merge(@NotNull List<State> branches, @NotNull List<PsiElement> bodies) {
+      if (branches.isEmpty()) return;
+      for (String name : collectNewNames(branches)) {
+        PsiElement unboundBranch = null;
+        boolean boundEverywhere = true;
+        for (int i = 0; i < branches.size(); i++) {
+          State branch = branches.get(i);
+          if (branch.myBound.contains(name)) continue;
+          boundEverywhere = false;
+          unboundBranch = branch.myMaybeBound.containsKey(name) ? branch.myMaybeBound.get(name) : bodies.get(i);
+          break;
+        }
+        if (boundEverywhere) {
+          myBound.add(name);
+          myMaybeBound.remove(name);
+        }
+        else {
+          myMaybeBound.put(name, unboundBranch);
+        }
+      }
+      mergeReaching(branches);
+    }
+
+    void mergeUnsafe(@NotNull List<State> parts) {
+      for (String name : collectNewNames(parts)) {
+        if (!myMaybeBound.containsKey(name)) {
+          myMaybeBound.put(name, null);
+        }
+      }
+      mergeReaching(parts);
+    }
+
+    @NotNull
+    private Set<String> collectNewNames(@NotNull List<State> branches) {
+      Set<String> names = new LinkedHashSet<>();
+      for (State branch : branches) {
+        names.addAll(branch.myBound);
+        names.addAll(branch.myMaybeBound.keySet());
+      }
+      names.removeAll(myBound);
+      return names;
+    }
+
+    private void mergeReaching(@NotNull List<State> branches) {
+      Set<String> names = new HashSet<>();
+      for (State branch : branches) {
+        names.addAll(branch.myReaching.keySet());
+      }
+      for (String name : names) {
+        List<ErlangQVar> merged = null;
+        for (State branch : branches) {
+          List<ErlangQVar> reaching = branch.myReaching.get(name);
+          if (reaching == null || reaching == merged) continue;
+          if (merged == null) {
+            merged = reaching;
+            continue;
+          }
+          List<ErlangQVar> union = new SmartList<>(merged);
+          for (ErlangQVar var : reaching) {
+            if (!union.contains(var)) union.add(var);
+          }
+          merged = union;
+        }
+        myReaching.put(name, merged);
+      }
+    }
+  }
+}
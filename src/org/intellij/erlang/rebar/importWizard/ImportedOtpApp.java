@@ -16,19 +16,20 @@
 
 package org.intellij.erlang.rebar.importWizard;
 
+import com.ericsson.otp.erlang.OtpErlangObject;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.util.PsiTreeUtil;
-import com.intellij.util.containers.ContainerUtil;
-import org.intellij.erlang.psi.*;
-import org.intellij.erlang.utils.ErlangTermFileUtil;
 import org.intellij.erlang.rebar.util.RebarConfigUtil;
+import org.intellij.erlang.utils.ErlangTermReader;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -56,22 +57,22 @@ final class ImportedOtpApp {
 
 
   private void InitApp(@NotNull VirtualFile root,
-                       @Nullable final VirtualFile appConfig,
+                       @Nullable Path appConfig,
                        Boolean isRebar3,
                        Boolean isRoot) {
-    myName = appConfig == null ? root.getName() : getApplicationName(appConfig);
+    myName = appConfig == null ? root.getName() : getApplicationName(appConfig.getFileName().toString());
     myIsWriteAble = true;
     myIsRebar3 = isRebar3;
     myRoot = root;
+    if (appConfig != null) addDependenciesFromAppFile(appConfig);
+    List<OtpErlangObject> rebarConfig = readTerms(VfsUtilCore.virtualToIoFile(root).toPath().resolve("rebar.config"));
     ApplicationManager.getApplication().runReadAction(() -> {
-      if (appConfig != null) addDependenciesFromAppFile(appConfig);
-      addInfoFromRebarConfig();
+      if (rebarConfig != null) addInfoFromRebarConfig(rebarConfig);
       if (isRebar3 && isRoot){
         // rebar3 root module is empty， but has apps
         VirtualFile appsFile = root.findChild("apps");
         if (appsFile != null){
           myAppDirPath = appsFile.getPath();
-          RebarConfigUtil.calcApps(appsFile, myApps);
         }
       }
       else {
@@ -81,7 +82,7 @@ final class ImportedOtpApp {
       }
     });
   }
-  public ImportedOtpApp(@NotNull VirtualFile root, final VirtualFile appConfig, Boolean isRebar3){
+  public ImportedOtpApp(@NotNull VirtualFile root, @NotNull Path appConfig, Boolean isRebar3){
     InitApp(root, appConfig, isRebar3, false);
   }
   public ImportedOtpApp(@NotNull VirtualFile root, Boolean isRebar3) {
@@ -89,8 +90,18 @@ final class ImportedOtpApp {
   }
 
   @NotNull
-  private static String getApplicationName(@NotNull VirtualFile appConfig) {
-    return StringUtil.trimEnd(StringUtil.trimEnd(appConfig.getName(), ".src"), ".app");
+  static String getApplicationName(@NotNull String appConfigName) {
+    return StringUtil.trimEnd(StringUtil.trimEnd(appConfigName, ".src"), ".app");
+  }
+
+  @Nullable
+  private static List<OtpErlangObject> readTerms(@NotNull Path file) {
+    if (!Files.isRegularFile(file)) return null;
+    try {
+      return ErlangTermReader.read(file);
+    } catch (IOException | RuntimeException e) { // a broken config must not stop the import of the other applications
+      return null;
+    }
   }
 
 
@@ -167,50 +178,22 @@ final class ImportedOtpApp {
     return result;
   }
 
-  private void addInfoFromRebarConfig() {
-    VirtualFile rebarConfig = myRoot.findChild("rebar.config");
-    ErlangFile rebarConfigPsi = rebarConfig != null ? ErlangTermFileUtil.createPsi(rebarConfig) : null;
-    if (rebarConfigPsi == null) return;
-    addDependenciesFromRebarConfig(rebarConfigPsi);
-    addIncludePathsFromRebarConfig(rebarConfigPsi);
-    addParseTransformsFromRebarConfig(rebarConfigPsi);
-    addExtraSourceDirFromRebarConfig(rebarConfigPsi);
-  }
-
-  private void addExtraSourceDirFromRebarConfig(ErlangFile rebarConfig) {
-    RebarConfigUtil.getExtraSrcDirs(rebarConfig)
-                   .forEach(path -> addPath(myRoot, path, mySourcePaths));
-  }
-
-  private void addDependenciesFromAppFile(@NotNull VirtualFile appFile) {
-    ErlangFile appConfigPsi = ErlangTermFileUtil.createPsi(appFile);
-    List<ErlangTupleExpression> applicationDescriptors = ErlangTermFileUtil.getConfigSections(appConfigPsi, "application");
-    ErlangListExpression appAttributes = PsiTreeUtil.getChildOfType(ContainerUtil.getFirstItem(applicationDescriptors), ErlangListExpression.class);
-    ErlangTermFileUtil.processConfigSection(appAttributes, "applications", deps -> {
-      ErlangListExpression dependencyAppsList = deps instanceof ErlangListExpression ? (ErlangListExpression) deps : null;
-      if (dependencyAppsList != null) {
-        for (ErlangExpression depExpression : dependencyAppsList.getExpressionList()) {
-          ErlangQAtom depApp = PsiTreeUtil.getChildOfType(depExpression, ErlangQAtom.class);
-          ErlangAtom appNameAtom = depApp != null ? depApp.getAtom() : null;
-          if (appNameAtom != null) {
-            myDeps.add(appNameAtom.getName());
-          }
-        }
-      }
-    });
-  }
-
-  private void addDependenciesFromRebarConfig(ErlangFile rebarConfig) {
+  private void addInfoFromRebarConfig(@NotNull List<OtpErlangObject> rebarConfig) {
     myDeps.addAll(RebarConfigUtil.getDependencyAppNames(rebarConfig));
-  }
-  private void addIncludePathsFromRebarConfig(ErlangFile rebarConfig) {
     for (String includePath : RebarConfigUtil.getIncludePaths(rebarConfig)) {
       addPath(myRoot, includePath, myIncludePaths);
     }
+    myParseTransforms.addAll(RebarConfigUtil.getParseTransforms(rebarConfig));
+    for (String extraSrcDir : RebarConfigUtil.getExtraSrcDirs(rebarConfig)) {
+      addPath(myRoot, extraSrcDir, mySourcePaths);
+    }
   }
 
-  private void addParseTransformsFromRebarConfig(ErlangFile rebarConfig) {
-    myParseTransforms.addAll(RebarConfigUtil.getParseTransforms(rebarConfig));
+  private void addDependenciesFromAppFile(@NotNull Path appFile) {
+    List<OtpErlangObject> appConfig = readTerms(appFile);
+    if (appConfig != null) {
+      myDeps.addAll(RebarConfigUtil.getApplicationDependencies(appConfig));
+    }
   }
 
   private static void addPath(VirtualFile base, String relativeIncludePath, Set<VirtualFile> paths) {
@@ -232,6 +215,10 @@ final class ImportedOtpApp {
     return myApps;
   }
 
+  public void addApps(Collection<String> apps) {
+    myApps.addAll(apps);
+  }
+
   public Boolean isRebar3() {
     return myIsRebar3;
   }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.rebar.importWizard;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Finds OTP application directories (with src/*.app.src or ebin/*.app) with java.nio on a bounded pool, bypassing
+ * the VFS. Build output, VCS metadata and priv directories are never entered, and every application is created and
+ * reported to the progress indicator as soon as it is found.
+ */
+final class RebarAppScanner {
+  private static final Logger LOG = Logger.getInstance(RebarAppScanner.class);
+  private static final Set<String> SKIPPED_DIRECTORIES = ContainerUtil.newHashSet("_build", ".git", "priv");
+
+  private final ProgressIndicator myIndicator;
+  private final Predicate<Path> myExcludedDirectory;
+  private final AtomicInteger myFoundApps = new AtomicInteger();
+
+  RebarAppScanner(@NotNull ProgressIndicator indicator, @NotNull Predicate<Path> excludedDirectory) {
+    myIndicator = indicator;
+    myExcludedDirectory = excludedDirectory;
+  }
+
+  /**
+   * Looks for applications among the subdirectories of the root, or at any depth below it if recursive, and passes
+   * the directory and the application resource file of each one to the factory. The factory is called concurrently
+   * and may return null to skip an application.
+   */
+  @NotNull
+  <T> List<T> scan(@NotNull Path root, boolean recursive, @NotNull BiFunction<Path, Path, T> appFactory) {
+    if (!Files.isDirectory(root)) return new ArrayList<>();
+    int threads = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Rebar Project Scanner", threads);
+    Walk<T> walk = new Walk<>(executor, recursive, appFactory);
+    try {
+      walk.submit(root);
+      while (!walk.myDone.await(100, TimeUnit.MILLISECONDS)) {
+        myIndicator.checkCanceled();
+      }
+    }
+    catch (InterruptedException e) {
+      throw new ProcessCanceledException(e);
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    Throwable failure = walk.myFailure.get();
+    if (failure instanceof ProcessCanceledException) throw (ProcessCanceledException) failure;
+    if (failure != null) LOG.warn(failure);
+    return new ArrayList<>(walk.myApps);
+  }
+
+  @Nullable
+  static Path findAppResourceFile(@NotNull Path appRoot) {
+    Path appResourceFile = findFileByExtension(appRoot.resolve("src"), ".app.src");
+    return appResourceFile != null ? appResourceFile : findFileByExtension(appRoot.resolve("ebin"), ".app");
+  }
+
+  @Nullable
+  private static Path findFileByExtension(@NotNull Path dir, @NotNull String extension) {
+    if (!Files.isDirectory(dir)) return null;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + extension)) {
+      for (Path file : files) {
+        if (Files.isRegularFile(file)) return file;
+      }
+    }
+    catch (IOException e) {
+      LOG.debug("Failed to list " + dir, e);
+    }
+    return null;
+  }
+
+  private boolean isSkipped(@NotNull Path dir) {
+    Path name = dir.getFileName();
+    return name == null || SKIPPED_DIRECTORIES.contains(name.toString()) || myExcludedDirectory.test(dir);
+  }
+
+  private final class Walk<T> {
+    private final ExecutorService myExecutor;
+    private final boolean myRecursive;
+    private final BiFunction<Path, Path, T> myAppFactory;
+    private final Queue<T> myApps = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger myPending = new AtomicInteger();
+    private final CountDownLatch myDone = new CountDownLatch(1);
+    private final AtomicReference<Throwable> myFailure = new AtomicReference<>();
+
+    Walk(@NotNull ExecutorService executor, boolean recursive, @NotNull BiFunction<Path, Path, T> appFactory) {
+      myExecutor = executor;
+      myRecursive = recursive;
+      myAppFactory = appFactory;
+    }
+
+    void submit(@NotNull Path dir) {
+      myPending.incrementAndGet();
+      myExecutor.execute(() -> {
+        try {
+          if (myFailure.get() == null) visit(dir);
+        }
+        catch (Throwable t) {
+          myFailure.compareAndSet(null, t);
+        }
+        finally {
+          if (myPending.decrementAndGet() == 0) myDone.countDown();
+        }
+      });
+    }
+
+    private void visit(@NotNull Path dir) {
+      myIndicator.checkCanceled();
+      myIndicator.setText2(dir.toString());
+      List<Path> children = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, Files::isDirectory)) {
+        stream.forEach(children::add);
+      }
+      catch (IOException e) {
+        LOG.debug("Failed to list " + dir, e);
+        return;
+      }
+      for (Path child : children) {
+        if (isSkipped(child)) continue;
+        Path appResourceFile = findAppResourceFile(child);
+        T app = appResourceFile != null ? myAppFactory.apply(child, appResourceFile) : null;
+        if (app != null) {
+          myApps.add(app);
+          myIndicator.setText("Found " + myFoundApps.incrementAndGet() + " applications: " + child.getFileName());
+        }
+        // symbolic links are not followed below the scanned directories to avoid cycles
+        if (myRecursive && !Files.isSymbolicLink(child)) submit(child);
+      }
+    }
+  }
+}
@@ -42,7 +42,6 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.openapi.vfs.newvfs.impl.VirtualDirectoryImpl;
 import com.intellij.packaging.artifacts.ModifiableArtifactModel;
 import com.intellij.projectImport.ProjectImportBuilder;
@@ -62,7 +61,10 @@ import org.jetbrains.annotations.Nullable;
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 public class RebarProjectImportBuilder extends ProjectImportBuilder<ImportedOtpApp> {
@@ -159,9 +161,11 @@ public class RebarProjectImportBuilder extends ProjectImportBuilder<ImportedOtpA
     boolean isRebar3 = (null != myProjectRoot.findChild("_build"));
     ProgressManager.getInstance().run(new Task.Modal(getCurrentProject(), "Scanning Rebar Projects", true) {
       public void run(@NotNull final ProgressIndicator indicator) {
+        Path rootPath = VfsUtilCore.virtualToIoFile(projectRoot).toPath();
+        RebarAppScanner scanner = new RebarAppScanner(indicator, dir -> isExamplesDirectory(dir) || isRelDirectory(rootPath, dir));
         rootApp = new ImportedOtpApp(projectRoot, isRebar3);
-        myFoundOtpApps = createAppsOtpApps(indicator, projectRoot);
-        myFoundOtpApps.addAll(createDepsOtpApps(indicator, projectRoot));
+        myFoundOtpApps = createAppsOtpApps(scanner, rootPath);
+        myFoundOtpApps.addAll(createDepsOtpApps(scanner, rootPath));
       }
     });
 
@@ -179,76 +183,58 @@ public class RebarProjectImportBuilder extends ProjectImportBuilder<ImportedOtpA
 
 
   @NotNull
-  private ArrayList<ImportedOtpApp> createDepsOtpApps(@NotNull ProgressIndicator indicator,
-                                                      @NotNull VirtualFile projectRoot) {
-    VirtualFile depsRoot = getDepsDir(projectRoot);
-    final ArrayList<ImportedOtpApp> importedOtpApps = new ArrayList<>();
+  private List<ImportedOtpApp> createDepsOtpApps(@NotNull RebarAppScanner scanner, @NotNull Path projectRoot) {
+    Path depsRoot = getDepsDir(projectRoot);
     if (depsRoot == null) {
-      return importedOtpApps;
+      return new ArrayList<>();
+    }
+    Boolean isRebar3 = rootApp.isRebar3();
+    Set<String> apps = rootApp.getApps();
+    List<ImportedOtpApp> importedOtpApps = scanner.scan(depsRoot, false, (appDir, appResourceFile) ->
+      isRebar3 && apps.contains(appDir.getFileName().toString()) ? null : createImportedOtpApp(appDir, appResourceFile, isRebar3));
+    for (ImportedOtpApp importedOtpApp : importedOtpApps) {
+      importedOtpApp.setGroup("lib");
     }
-    VfsUtilCore.visitChildrenRecursively(depsRoot, new VirtualFileVisitor<Void>(VirtualFileVisitor.SKIP_ROOT) {
-      @Override
-      public boolean visitFile(@NotNull VirtualFile file) {
-        indicator.checkCanceled();
-        if (file.isDirectory()) {
-          indicator.setText2(file.getPath());
-          if (isExamplesDirectory(file) || isRelDirectory(projectRoot.getPath(), file.getPath())) return false;
-          if (rootApp.isRebar3() && rootApp.getApps().contains(file.getName())) {
-            return false;
-          }
-        }
-        ImportedOtpApp importedOtpApp = createImportedOtpApp(file, rootApp.isRebar3());
-        if (null != importedOtpApp) {
-          importedOtpApp.setGroup("lib");
-          ContainerUtil.addAllNotNull(importedOtpApps, importedOtpApp);
-        }
-        return false;
-      }
-    });
     return importedOtpApps;
   }
 
-  private ArrayList<ImportedOtpApp> createAppsOtpApps(@NotNull ProgressIndicator indicator,
-                                                      @NotNull VirtualFile projectRoot) {
-    VirtualFile appsRoot = projectRoot.findChild("apps");
-    final ArrayList<ImportedOtpApp> importedOtpApps = new ArrayList<>();
-    if (appsRoot == null) {
-      return importedOtpApps;
-    }
+  @NotNull
+  private List<ImportedOtpApp> createAppsOtpApps(@NotNull RebarAppScanner scanner, @NotNull Path projectRoot) {
     Boolean isRebar3 = rootApp.isRebar3();
-    List<String> globalIncludes = ContainerUtil.map(rootApp.getIncludePaths(), VirtualFile::getPath);
-    VfsUtilCore.visitChildrenRecursively(appsRoot, new VirtualFileVisitor<Void>(VirtualFileVisitor.SKIP_ROOT) {
-      @Override
-      public boolean visitFile(@NotNull VirtualFile file) {
-        indicator.checkCanceled();
-        if (file.isDirectory()) {
-          indicator.setText2(file.getPath());
-          if (isRebar3 && rootApp.getApps().contains(file.getName())) {
-            ImportedOtpApp importedOtpApp = createImportedOtpApp(file, isRebar3);
-            if (null != importedOtpApp) {
-              importedOtpApp.setGroup("apps");
-              importedOtpApp.addGlobalIncludes(globalIncludes);
-              importedOtpApp.addParseTransforms(rootApp.getParseTransforms());
-              importedOtpApp.addDeps(rootApp.getName());
-              ContainerUtil.addAllNotNull(importedOtpApps, importedOtpApp);
-            }
-          }
-        }
-        return false;
-      }
+    if (!isRebar3) {
+      return new ArrayList<>();
+    }
+    // applications at any depth below apps/ are known to the root app, the ones right in apps/ become modules
+    Path appsRoot = projectRoot.resolve("apps");
+    Set<String> appNames = ConcurrentHashMap.newKeySet();
+    List<ImportedOtpApp> importedOtpApps = scanner.scan(appsRoot, true, (appDir, appResourceFile) -> {
+      appNames.add(ImportedOtpApp.getApplicationName(appResourceFile.getFileName().toString()));
+      return appsRoot.equals(appDir.getParent()) ? createImportedOtpApp(appDir, appResourceFile, true) : null;
     });
+    rootApp.addApps(appNames);
+    importedOtpApps.removeIf(importedOtpApp -> !appNames.contains(importedOtpApp.getRoot().getName()));
+
+    List<String> globalIncludes = ContainerUtil.map(rootApp.getIncludePaths(), VirtualFile::getPath);
+    for (ImportedOtpApp importedOtpApp : importedOtpApps) {
+      importedOtpApp.setGroup("apps");
+      importedOtpApp.addGlobalIncludes(globalIncludes);
+      importedOtpApp.addParseTransforms(rootApp.getParseTransforms());
+      importedOtpApp.addDeps(rootApp.getName());
+    }
     return importedOtpApps;
   }
 
 
   @Nullable
-  private static VirtualFile getDepsDir(@NotNull VirtualFile projectRoot) {
-    VirtualFile deps = projectRoot.findFileByRelativePath("_build/default/lib");
-    return deps != null ? deps : projectRoot.findChild("deps");
+  private static Path getDepsDir(@NotNull Path projectRoot) {
+    Path deps = projectRoot.resolve(FileUtil.join("_build", "default", "lib"));
+    if (Files.isDirectory(deps)) return deps;
+    deps = projectRoot.resolve("deps");
+    return Files.isDirectory(deps) ? deps : null;
   }
 
-  private static boolean isRelDirectory(String projectRootPath, String path) {
-    return (projectRootPath + "/rel").equals(path);
+  private static boolean isRelDirectory(@NotNull Path projectRoot, @NotNull Path path) {
+    return projectRoot.resolve("rel").equals(path);
   }
 
   @SuppressWarnings("DialogTitleCapitalization")
@@ -465,41 +451,19 @@ public class RebarProjectImportBuilder extends ProjectImportBuilder<ImportedOtpA
   }
 
 
-  private boolean isExamplesDirectory(VirtualFile virtualFile) {
-    return "examples".equals(virtualFile.getName()) && !myImportExamples;
-  }
-
-  @Nullable
-  private static ImportedOtpApp createImportedOtpApp(@NotNull VirtualFile appRoot, Boolean isRebar3) {
-    VirtualFile appResourceFile = findAppResourceFile(appRoot);
-    if (appResourceFile == null) {
-      return null;
-    }
-    return new ImportedOtpApp(appRoot, appResourceFile, isRebar3);
-  }
-
-  @Nullable
-  private static VirtualFile findAppResourceFile(@NotNull VirtualFile applicationRoot) {
-    VirtualFile appResourceFile = null;
-    VirtualFile sourceDir = applicationRoot.findChild("src");
-    if (sourceDir != null) {
-      appResourceFile = findFileByExtension(sourceDir, "app.src");
-    }
-    if (appResourceFile == null) {
-      VirtualFile ebinDir = applicationRoot.findChild("ebin");
-      if (ebinDir != null) {
-        appResourceFile = findFileByExtension(ebinDir, "app");
-      }
-    }
-    return appResourceFile;
+  private boolean isExamplesDirectory(@NotNull Path dir) {
+    return "examples".equals(dir.getFileName().toString()) && !myImportExamples;
   }
 
   @Nullable
-  private static VirtualFile findFileByExtension(@NotNull VirtualFile dir, @NotNull String extension) {
-    for (VirtualFile file : dir.getChildren()) {
-      if (!file.isDirectory() && file.getName().endsWith(extension)) return file;
+  private static ImportedOtpApp createImportedOtpApp(@NotNull Path appRoot, @NotNull Path appResourceFile, Boolean isRebar3) {
+    File appRootFile = appRoot.toFile();
+    LocalFileSystem fileSystem = LocalFileSystem.getInstance();
+    VirtualFile appRootDir = fileSystem.findFileByIoFile(appRootFile);
+    if (appRootDir == null) {
+      appRootDir = fileSystem.refreshAndFindFileByIoFile(appRootFile);
     }
-    return null;
+    return appRootDir != null ? new ImportedOtpApp(appRootDir, appResourceFile, isRebar3) : null;
   }
 
   private static boolean findIdeaModuleFiles(@NotNull List<ImportedOtpApp> importedOtpApps) {
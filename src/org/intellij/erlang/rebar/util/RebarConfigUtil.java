@@ -16,22 +16,24 @@
 
 package org.intellij.erlang.rebar.util;
 
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
-import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.utils.ErlangTermFileUtil;
+import org.intellij.erlang.utils.ErlangTermReader;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
 public final class RebarConfigUtil {
   private RebarConfigUtil() {
@@ -54,49 +56,75 @@ public final class RebarConfigUtil {
   }
 
   @NotNull
-  public static List<String> getExtraSrcDirs(@NotNull ErlangFile rebarConfig) {
-    final List<String> srcDirs = new ArrayList<>();
-    ErlangTermFileUtil.processConfigSection(rebarConfig, "extra_src_dirs", srcDirList -> {
-      if (srcDirList instanceof ErlangListExpression) {
-        List<ErlangExpression> expressionList = ((ErlangListExpression) srcDirList).getExpressionList();
-        expressionList.forEach(erlangExpression -> {
-          String path = erlangExpression.getText();
-          if (path.length() > 2) {
-            path = path.substring(1, path.length() - 1);
-            srcDirs.add(path);
-          }
-        });
+  public static List<String> getIncludePaths(@NotNull List<OtpErlangObject> rebarConfig) {
+    List<String> includePaths = new ArrayList<>();
+    ErlangTermReader.processConfigSection(rebarConfig, "erl_opts", section -> ErlangTermReader.processConfigSection(ErlangTermReader.asList(section), "i", includeOptionValue -> {
+      Iterable<OtpErlangObject> paths = ErlangTermReader.asList(includeOptionValue);
+      for (OtpErlangObject path : paths != null ? paths : Collections.singletonList(includeOptionValue)) {
+        ContainerUtil.addIfNotNull(includePaths, ErlangTermReader.getStringValue(path));
+      }
+    }));
+    return includePaths;
+  }
+
+  @NotNull
+  public static List<String> getExtraSrcDirs(@NotNull List<OtpErlangObject> rebarConfig) {
+    List<String> srcDirs = new ArrayList<>();
+    ErlangTermReader.processConfigSection(rebarConfig, "extra_src_dirs", srcDirList -> {
+      Iterable<OtpErlangObject> dirs = ErlangTermReader.asList(srcDirList);
+      if (dirs == null) return;
+      for (OtpErlangObject dir : dirs) {
+        // "dir" or {"dir", Options}
+        OtpErlangObject path = dir instanceof OtpErlangTuple && ((OtpErlangTuple) dir).arity() > 0 ? ((OtpErlangTuple) dir).elementAt(0) : dir;
+        ContainerUtil.addIfNotNull(srcDirs, ErlangTermReader.getStringValue(path));
       }
     });
     return srcDirs;
   }
 
-
   @NotNull
-  public static List<String> getDependencyAppNames(@NotNull ErlangFile rebarConfig) {
-    final List<String> dependencyAppNames = new ArrayList<>();
-    ErlangTermFileUtil.processConfigSection(rebarConfig, "deps", tuplesList -> {
-      List<ErlangTupleExpression> dependencyTuples = ErlangTermFileUtil.findNamedTuples(tuplesList);
-      for (ErlangTupleExpression namedTuple : dependencyTuples) {
-        dependencyAppNames.add(ErlangTermFileUtil.getNameOfNamedTuple(namedTuple));
+  public static List<String> getDependencyAppNames(@NotNull List<OtpErlangObject> rebarConfig) {
+    List<String> dependencyAppNames = new ArrayList<>();
+    ErlangTermReader.processConfigSection(rebarConfig, "deps", deps -> {
+      Iterable<OtpErlangObject> dependencies = ErlangTermReader.asList(deps);
+      if (dependencies == null) return;
+      for (OtpErlangObject dependency : dependencies) {
+        // rebar3 package dependencies may be plain atoms
+        String name = ErlangTermReader.getNameOfNamedTuple(dependency);
+        ContainerUtil.addIfNotNull(dependencyAppNames, name != null ? name : ErlangTermReader.getAtomName(dependency));
       }
     });
     return dependencyAppNames;
   }
 
   @NotNull
-  public static List<String> getParseTransforms(@Nullable ErlangFile rebarConfig) {
-    final List<String> parseTransforms = new ArrayList<>();
-    ErlangTermFileUtil.processConfigSection(rebarConfig, "erl_opts", section -> ErlangTermFileUtil.processConfigSection(section, "parse_transform", configExpression -> {
-      ErlangQAtom parseTransform = PsiTreeUtil.getChildOfType(configExpression, ErlangQAtom.class);
-      ErlangAtom parseTransformAtom = parseTransform != null ? parseTransform.getAtom() : null;
-      if (parseTransformAtom != null) {
-        parseTransforms.add(parseTransformAtom.getName());
-      }
-    }));
+  public static List<String> getParseTransforms(@NotNull List<OtpErlangObject> rebarConfig) {
+    List<String> parseTransforms = new ArrayList<>();
+    ErlangTermReader.processConfigSection(rebarConfig, "erl_opts", section -> ErlangTermReader.processConfigSection(ErlangTermReader.asList(section), "parse_transform",
+      parseTransform -> ContainerUtil.addIfNotNull(parseTransforms, ErlangTermReader.getAtomName(parseTransform))));
     return parseTransforms;
   }
 
+  /**
+   * Reads the applications listed in an {application, Name, Attributes} resource file.
+   */
+  @NotNull
+  public static List<String> getApplicationDependencies(@NotNull List<OtpErlangObject> appResource) {
+    List<String> applications = new ArrayList<>();
+    for (OtpErlangObject term : appResource) {
+      if (!"application".equals(ErlangTermReader.getNameOfNamedTuple(term)) || ((OtpErlangTuple) term).arity() < 3) continue;
+      ErlangTermReader.processConfigSection(ErlangTermReader.asList(((OtpErlangTuple) term).elementAt(2)), "applications", deps -> {
+        Iterable<OtpErlangObject> apps = ErlangTermReader.asList(deps);
+        if (apps == null) return;
+        for (OtpErlangObject app : apps) {
+          ContainerUtil.addIfNotNull(applications, ErlangTermReader.getAtomName(app));
+        }
+      });
+      break;
+    }
+    return applications;
+  }
+
   @NotNull
   private static String getStringLiteralText(@NotNull ErlangStringLiteral literal) {
     return StringUtil.unquoteString(literal.getString().getText());
@@ -108,45 +136,4 @@ public final class RebarConfigUtil {
     PsiFile rebarConfigPsi = rebarConfig != null && !rebarConfig.isDirectory() ? PsiManager.getInstance(project).findFile(rebarConfig) : null;
     return rebarConfigPsi instanceof ErlangFile ? (ErlangFile) rebarConfigPsi : null;
   }
-
-  public static void calcApps(VirtualFile appDir, Set<String> apps) {
-    VfsUtilCore.visitChildrenRecursively(appDir, new VirtualFileVisitor<Void>() {
-      @Override
-      public boolean visitFile(@NotNull VirtualFile file) {
-        if (file.isDirectory()) {
-          VirtualFile appResourceFile = findAppResourceFile(file);
-          if (appResourceFile != null) {
-            String appName = StringUtil.trimEnd(StringUtil.trimEnd(appResourceFile.getName(), ".src"), ".app");
-            apps.add(appName);
-          }
-          return true;
-        }
-        return true;
-      }
-    });
-  }
-
-  @Nullable
-  public static VirtualFile findAppResourceFile(@NotNull VirtualFile applicationRoot) {
-    VirtualFile appResourceFile = null;
-    VirtualFile sourceDir = applicationRoot.findChild("src");
-    if (sourceDir != null) {
-      appResourceFile = findFileByExtension(sourceDir, "app.src");
-    }
-    if (appResourceFile == null) {
-      VirtualFile ebinDir = applicationRoot.findChild("ebin");
-      if (ebinDir != null) {
-        appResourceFile = findFileByExtension(ebinDir, "app");
-      }
-    }
-    return appResourceFile;
-  }
-
-  @Nullable
-  private static VirtualFile findFileByExtension(@NotNull VirtualFile dir, @NotNull String extension) {
-    for (VirtualFile file : dir.getChildren()) {
-      if (!file.isDirectory() && file.getName().endsWith(extension)) return file;
-    }
-    return null;
-  }
 }
@@ -20,16 +20,21 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.roots.ContentEntry;
 import com.intellij.openapi.roots.ModifiableRootModel;
 import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.io.FileUtil;
-import com.intellij.openapi.vfs.LocalFileSystem;
-import com.intellij.openapi.vfs.VfsUtilCore;
-import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.*;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.facet.ErlangFacet;
+import org.intellij.erlang.facet.ErlangFacetConfiguration;
 import org.intellij.erlang.jps.model.ErlangIncludeSourceRootType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.List;
 
 public final class ErlangIncludeDirectoryUtil {
@@ -39,14 +44,49 @@ public final class ErlangIncludeDirectoryUtil {
   @NotNull
   public static List<VirtualFile> getIncludeDirectories(@Nullable Module module) {
     if (module == null) return ContainerUtil.emptyList();
+    return CachedValuesManager.getManager(module.getProject()).getCachedValue(module, () ->
+      CachedValueProvider.Result.create(computeIncludeDirectories(module),
+                                        ProjectRootManager.getInstance(module.getProject()),
+                                        ErlangFacetConfiguration.MODIFICATION_TRACKER,
+                                        VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS));
+  }
+
+  /**
+   * Finds a file by the path written in an include attribute, relative to the first include directory of the module
+   * that contains it.
+   */
+  @Nullable
+  public static VirtualFile findIncludedFile(@Nullable Module module, @NotNull String relativePath) {
+    if (module == null) return null;
+    List<VirtualFile> includeDirs = getIncludeDirectories(module);
+    if (isIndexedHeaderPath(relativePath)) {
+      return ErlangIncludeHeaderCache.getInstance(module.getProject()).findHeader(includeDirs, relativePath);
+    }
+    for (VirtualFile includeDir : includeDirs) {
+      VirtualFile file = VfsUtilCore.findRelativeFile(relativePath, includeDir);
+      if (file != null) return file;
+    }
+    return null;
+  }
+
+  @NotNull
+  private static List<VirtualFile> computeIncludeDirectories(@NotNull Module module) {
     ModuleRootManager rootManager = ModuleRootManager.getInstance(module);
     List<VirtualFile> includeDirs = rootManager.getSourceRoots(ErlangIncludeSourceRootType.INSTANCE);
     ErlangFacet facet = ErlangFacet.getFacet(module);
     if (facet != null){
-      List<VirtualFile> globalIncludes = ContainerUtil.map(facet.getConfiguration().getGlobalIncludes(), path -> LocalFileSystem.getInstance().findFileByPath(path));
+      List<VirtualFile> globalIncludes = ContainerUtil.mapNotNull(facet.getConfiguration().getGlobalIncludes(), path -> LocalFileSystem.getInstance().findFileByPath(path));
       includeDirs.addAll(globalIncludes);
     }
-    return includeDirs;
+    return Collections.unmodifiableList(includeDirs);
+  }
+
+  private static boolean isIndexedHeaderPath(@NotNull String relativePath) {
+    if (!FileUtilRt.extensionEquals(relativePath, "hrl") || StringUtil.startsWithChar(relativePath, '/')) return false;
+    for (String segment : StringUtil.split(relativePath, "/")) {
+      if (segment.equals(".") || segment.equals("..")) return false;
+    }
+    return true;
   }
 
   public static void markAsIncludeDirectory(@NotNull ContentEntry contentEntry, @NotNull VirtualFile directory) {
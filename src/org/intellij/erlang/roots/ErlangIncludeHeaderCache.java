@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.roots;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.util.text.CaseInsensitiveStringHashingStrategy;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Header files of include directories by their path relative to the directory. The headers of a directory are
+ * collected on first use and dropped when a file is created, deleted, copied, moved or renamed under it, so
+ * changes elsewhere in the project keep the headers of all include directories.
+ */
+public final class ErlangIncludeHeaderCache {
+  private final Map<String, Map<String, VirtualFile>> myHeaders = new ConcurrentHashMap<>();
+
+  public ErlangIncludeHeaderCache(@NotNull Project project) {
+    project.getMessageBus().connect(project).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          if (event instanceof VFileContentChangeEvent) continue;
+          if (event instanceof VFilePropertyChangeEvent &&
+              !VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent) event).getPropertyName())) {
+            continue;
+          }
+          invalidate(event.getPath());
+          if (event instanceof VFileMoveEvent) {
+            invalidate(((VFileMoveEvent) event).getOldParent().getPath());
+            invalidate(((VFileMoveEvent) event).getNewParent().getPath());
+          }
+          if (event instanceof VFileCopyEvent) invalidate(((VFileCopyEvent) event).getNewParent().getPath());
+        }
+      }
+    });
+  }
+
+  @NotNull
+  static ErlangIncludeHeaderCache getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, ErlangIncludeHeaderCache.class);
+  }
+
+  /**
+   * @return the header with the relative path in the first include directory containing one.
+   */
+  @Nullable
+  VirtualFile findHeader(@NotNull List<VirtualFile> includeDirs, @NotNull String relativePath) {
+    for (VirtualFile includeDir : includeDirs) {
+      VirtualFile header = getHeaders(includeDir).get(relativePath);
+      if (header != null) return header;
+    }
+    return null;
+  }
+
+  @NotNull
+  private Map<String, VirtualFile> getHeaders(@NotNull VirtualFile includeDir) {
+    Map<String, VirtualFile> headers = myHeaders.get(includeDir.getPath());
+    if (headers == null) {
+      headers = collectHeaders(includeDir);
+      myHeaders.put(includeDir.getPath(), headers);
+    }
+    return headers;
+  }
+
+  private void invalidate(@NotNull String path) {
+    myHeaders.keySet().removeIf(dirPath -> FileUtil.isAncestor(dirPath, path, false) || FileUtil.isAncestor(path, dirPath, true));
+  }
+
+  @NotNull
+  private static Map<String, VirtualFile> collectHeaders(@NotNull VirtualFile includeDir) {
+    Map<String, VirtualFile> headers = SystemInfo.isFileSystemCaseSensitive
+                                       ? new HashMap<>()
+                                       : new THashMap<>(CaseInsensitiveStringHashingStrategy.INSTANCE);
+    VfsUtilCore.visitChildrenRecursively(includeDir, new VirtualFileVisitor<Void>() {
+      @Override
+      public boolean visitFile(@NotNull VirtualFile file) {
+        if (!file.isDirectory() && FileUtilRt.extensionEquals(file.getName(), "hrl")) {
+          String relativePath = VfsUtilCore.getRelativePath(file, includeDir);
+          if (relativePath != null) {
+            headers.putIfAbsent(relativePath, file);
+          }
+        }
+        return true;
+      }
+    });
+    return headers;
+  }
+}
@@ -51,6 +51,7 @@ public abstract class ErlangRunConfigurationBase<RunningState extends ErlangRunn
   public static final int SCOPE_IN_BREAK_POINT_FILE = 0;
   public static final int SCOPE_IN_MODULE = 1;
   public static final int SCOPE_IN_PROJECT = 2;
+  public static final int SCOPE_ON_DEMAND = 3;
 
   public ErlangRunConfigurationBase(String name, ErlangModuleBasedConfiguration configurationModule, ConfigurationFactory factory) {
     super(name, configurationModule, factory);
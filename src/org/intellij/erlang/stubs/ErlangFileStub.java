@@ -21,9 +21,13 @@ import com.intellij.psi.stubs.PsiFileStubImpl;
 import com.intellij.psi.tree.IStubFileElementType;
 import com.intellij.util.io.StringRef;
 import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangImportFunction;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.intellij.erlang.stubs.types.ErlangFileElementType;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -31,6 +35,8 @@ public class ErlangFileStub extends PsiFileStubImpl<ErlangFile> {
   private final boolean myExportAll;
   private final StringRef myParseTransformsRef;
   private final boolean myIsBehaviour;
+  private final StringRef myImportedFunctionsRef;
+  private final Set<String> myImportedFunctions;
 
   public ErlangFileStub(ErlangFile file) {
     super(file);
@@ -40,13 +46,24 @@ public class ErlangFileStub extends PsiFileStubImpl<ErlangFile> {
     String join = StringUtil.join(transforms, ",");
     myParseTransformsRef = StringRef.fromString(join);
     myIsBehaviour = file.isBehaviour();
+    myImportedFunctions = new HashSet<>();
+    for (ErlangImportFunction importFunction : file.getImportedFunctions()) {
+      myImportedFunctions.add(ErlangPsiImplUtil.getName(importFunction) + "/" + ErlangPsiImplUtil.getArity(importFunction));
+    }
+    myImportedFunctionsRef = StringRef.fromString(StringUtil.join(myImportedFunctions, "\n"));
   }
 
-  public ErlangFileStub(ErlangFile file, boolean exportAll, StringRef parseTransformsRef, boolean isBehaviour) {
+  public ErlangFileStub(ErlangFile file, boolean exportAll, StringRef parseTransformsRef, boolean isBehaviour,
+                        StringRef importedFunctionsRef) {
     super(file);
     myExportAll = exportAll;
     myParseTransformsRef = parseTransformsRef;
     myIsBehaviour = isBehaviour;
+    myImportedFunctionsRef = importedFunctionsRef;
+    String importedFunctions = StringRef.toString(importedFunctionsRef);
+    myImportedFunctions = StringUtil.isEmpty(importedFunctions)
+                          ? Collections.emptySet()
+                          : new HashSet<>(StringUtil.split(importedFunctions, "\n"));
   }
 
   public boolean isExportAll() {
@@ -62,6 +79,18 @@ public class ErlangFileStub extends PsiFileStubImpl<ErlangFile> {
     return myIsBehaviour;
   }
 
+  /**
+   * Imported functions as "name/arity" signatures separated by line breaks.
+   */
+  @Nullable
+  public String getImportedFunctions() {
+    return StringRef.toString(myImportedFunctionsRef);
+  }
+
+  public boolean isImported(@NotNull String name, int arity) {
+    return myImportedFunctions.contains(name + "/" + arity);
+  }
+
   @Override
   public IStubFileElementType getType() {
     return ErlangFileElementType.INSTANCE;
@@ -17,20 +17,17 @@
 package org.intellij.erlang.stubs.index;
 
 import com.intellij.openapi.project.Project;
-import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StringStubIndexExtension;
 import com.intellij.psi.stubs.StubIndex;
 import com.intellij.psi.stubs.StubIndexKey;
+import com.intellij.util.Processor;
 import org.intellij.erlang.psi.ErlangModule;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
-
 public class ErlangBehaviourModuleIndex extends StringStubIndexExtension<ErlangModule> {
-  private static final String KEY_NAME = "erlang.behaviour.module";
-  private static final StubIndexKey<String, ErlangModule> KEY = StubIndexKey.createIndexKey(KEY_NAME);
-  private static final int VERSION = 0;
+  private static final StubIndexKey<String, ErlangModule> KEY = StubIndexKey.createIndexKey("erlang.behaviour.module");
+  private static final int VERSION = 1;
 
   @Override
   public int getVersion() {
@@ -42,12 +39,14 @@ public class ErlangBehaviourModuleIndex extends StringStubIndexExtension<ErlangM
     return KEY;
   }
 
-  @NotNull
-  public static Collection<ErlangModule> getModules(@NotNull Project project, @NotNull GlobalSearchScope scope) {
-    return StubIndex.getElements(KEY, KEY_NAME, project, scope, ErlangModule.class);
+  /**
+   * Feeds names of behaviour modules to the processor until it returns false.
+   */
+  public static boolean processNames(@NotNull Project project, @NotNull Processor<String> processor) {
+    return StubIndex.getInstance().processAllKeys(KEY, project, processor);
   }
 
-  public static void indicateOccurence(@NotNull IndexSink sink) {
-    sink.occurrence(KEY, KEY_NAME);
+  public static void indicateOccurence(@NotNull IndexSink sink, @NotNull String moduleName) {
+    sink.occurrence(KEY, moduleName);
   }
 }
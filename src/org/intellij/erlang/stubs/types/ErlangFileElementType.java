@@ -31,7 +31,7 @@ import org.jetbrains.annotations.NotNull;
 import java.io.IOException;
 
 public class ErlangFileElementType extends IStubFileElementType<ErlangFileStub> {
-  private static final int VERSION = 4;
+  private static final int VERSION = 5;
   public static final IStubFileElementType INSTANCE = new ErlangFileElementType();
 
   private ErlangFileElementType() {
@@ -62,12 +62,14 @@ public class ErlangFileElementType extends IStubFileElementType<ErlangFileStub>
     dataStream.writeBoolean(stub.isExportAll());
     dataStream.writeName(stub.getParseTransforms());
     dataStream.writeBoolean(stub.isBehaviour());
+    dataStream.writeName(stub.getImportedFunctions());
   }
 
   @NotNull
   @Override
   public ErlangFileStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
-    return new ErlangFileStub(null, dataStream.readBoolean(), dataStream.readName(), dataStream.readBoolean());
+    return new ErlangFileStub(null, dataStream.readBoolean(), dataStream.readName(), dataStream.readBoolean(),
+                              dataStream.readName());
   }
 
   @NotNull
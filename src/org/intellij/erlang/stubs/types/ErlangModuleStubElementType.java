@@ -63,8 +63,9 @@ public class ErlangModuleStubElementType extends ErlangNamedStubElementType<Erla
   @Override
   public void indexStub(@NotNull ErlangModuleStub stub, @NotNull IndexSink sink) {
     ErlangFileStub fileStub = (ErlangFileStub) stub.getParentStub();
-    if (fileStub.isBehaviour()) {
-      ErlangBehaviourModuleIndex.indicateOccurence(sink);
+    String name = stub.getName();
+    if (fileStub.isBehaviour() && name != null) {
+      ErlangBehaviourModuleIndex.indicateOccurence(sink, name);
     }
   }
 }
@@ -89,6 +89,15 @@ public final class ErlangModulesUtil {
     return erlangModules;
   }
 
+  @NotNull
+  public static Collection<VirtualFile> getErlangModuleFiles(@NotNull Project project) {
+    HashSet<VirtualFile> erlangModules = new HashSet<>();
+    for (Module module : ModuleManager.getInstance(project).getModules()) {
+      addFiles(module, false, erlangModules, ErlangFileType.MODULE);
+    }
+    return erlangModules;
+  }
+
   @NotNull
   public static Collection<ErlangFile> getErlangModules(@NotNull Module module, boolean onlyTestModules) {
     return addErlangFiles(module, onlyTestModules, new HashSet<>(), ErlangFileType.MODULE);
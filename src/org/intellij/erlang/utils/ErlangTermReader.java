@@ -0,0 +1,520 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.utils;
+
+import com.ericsson.otp.erlang.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reader of Erlang term files (rebar.config, *.app.src, *.app) which does not build PSI.
+ * <p>
+ * Terms are read into jinterface objects: atoms, strings, numbers, lists, tuples, maps and binaries of string and
+ * byte segments. Like the PSI-based reading it replaces, the reader is lenient: containers left open are closed at
+ * the next full stop or at the end of the text, and a term it cannot read is skipped up to the next full stop.
+ */
+public final class ErlangTermReader {
+  private final CharSequence myText;
+  private int myOffset;
+
+  private ErlangTermReader(@NotNull CharSequence text) {
+    myText = text;
+  }
+
+  @NotNull
+  public static List<OtpErlangObject> read(@NotNull Path file) throws IOException {
+    return read(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+  }
+
+  @NotNull
+  public static List<OtpErlangObject> read(@NotNull CharSequence text) {
+    return new ErlangTermReader(text).readTerms();
+  }
+
+  /**
+   * Passes the value of every {SectionName, Value} tuple among the terms to the consumer.
+   */
+  public static void processConfigSection(@Nullable Iterable<OtpErlangObject> terms,
+                                          @NotNull String sectionName,
+                                          @NotNull Consumer<OtpErlangObject> sectionConsumer) {
+    if (terms == null) return;
+    for (OtpErlangObject term : terms) {
+      if (sectionName.equals(getNameOfNamedTuple(term)) && ((OtpErlangTuple) term).arity() >= 2) {
+        sectionConsumer.accept(((OtpErlangTuple) term).elementAt(1));
+      }
+    }
+  }
+
+  @Nullable
+  public static String getNameOfNamedTuple(@Nullable OtpErlangObject term) {
+    OtpErlangTuple tuple = term instanceof OtpErlangTuple ? (OtpErlangTuple) term : null;
+    return tuple != null && tuple.arity() > 0 ? getAtomName(tuple.elementAt(0)) : null;
+  }
+
+  @Nullable
+  public static String getAtomName(@Nullable OtpErlangObject term) {
+    return term instanceof OtpErlangAtom ? ((OtpErlangAtom) term).atomValue() : null;
+  }
+
+  @Nullable
+  public static String getStringValue(@Nullable OtpErlangObject term) {
+    if (term instanceof OtpErlangString) return ((OtpErlangString) term).stringValue();
+    if (term instanceof OtpErlangBinary) return new String(((OtpErlangBinary) term).binaryValue(), StandardCharsets.UTF_8);
+    return null;
+  }
+
+  @Nullable
+  public static Iterable<OtpErlangObject> asList(@Nullable OtpErlangObject term) {
+    return term instanceof OtpErlangList ? (OtpErlangList) term : null;
+  }
+
+  @NotNull
+  private List<OtpErlangObject> readTerms() {
+    List<OtpErlangObject> terms = new ArrayList<>();
+    while (skipWhitespace()) {
+      int start = myOffset;
+      try {
+        OtpErlangObject term = readTerm();
+        skipWhitespace();
+        if (isFullStop()) myOffset++;
+        else if (myOffset < myText.length()) throw new SyntaxError();
+        terms.add(term);
+      }
+      catch (SyntaxError e) {
+        skipToFullStop(start);
+      }
+    }
+    return terms;
+  }
+
+  @NotNull
+  private OtpErlangObject readTerm() {
+    if (!skipWhitespace()) throw new SyntaxError();
+    char c = myText.charAt(myOffset);
+    switch (c) {
+      case '{':
+        myOffset++;
+        return new OtpErlangTuple(readElements('}'));
+      case '[':
+        myOffset++;
+        return readList();
+      case '"':
+        return new OtpErlangString(readStrings());
+      case '\'':
+        myOffset++;
+        return createAtom(readQuoted('\''));
+      case '$':
+        myOffset++;
+        return new OtpErlangLong(readCharacter());
+      case '#':
+        if (lookingAt("#{")) {
+          myOffset += 2;
+          return readMap();
+        }
+        throw new SyntaxError();
+      case '<':
+        if (lookingAt("<<")) {
+          myOffset += 2;
+          return readBinary();
+        }
+        throw new SyntaxError();
+      default:
+        if (isDigit(c) || (c == '-' || c == '+') && isDigit(charAt(myOffset + 1))) return readNumber();
+        if (c >= 'a' && c <= 'z') return createAtom(readName());
+        throw new SyntaxError();
+    }
+  }
+
+  @NotNull
+  private OtpErlangObject[] readElements(char closing) {
+    List<OtpErlangObject> elements = new ArrayList<>();
+    while (true) {
+      if (!skipWhitespace() || isFullStop()) break;
+      if (myText.charAt(myOffset) == closing) {
+        myOffset++;
+        break;
+      }
+      if (!elements.isEmpty()) {
+        if (myText.charAt(myOffset) != ',') throw new SyntaxError();
+        myOffset++;
+      }
+      elements.add(readTerm());
+    }
+    return elements.toArray(new OtpErlangObject[0]);
+  }
+
+  @NotNull
+  private OtpErlangObject readList() {
+    List<OtpErlangObject> elements = new ArrayList<>();
+    OtpErlangObject tail = null;
+    while (true) {
+      if (!skipWhitespace() || isFullStop()) break;
+      char c = myText.charAt(myOffset);
+      if (c == ']') {
+        myOffset++;
+        break;
+      }
+      if (!elements.isEmpty()) {
+        if (c == '|' && tail == null) {
+          myOffset++;
+          tail = readTerm();
+          continue;
+        }
+        if (c != ',' || tail != null) throw new SyntaxError();
+        myOffset++;
+      }
+      elements.add(readTerm());
+    }
+    OtpErlangObject[] array = elements.toArray(new OtpErlangObject[0]);
+    if (tail == null) return new OtpErlangList(array);
+    try {
+      return new OtpErlangList(array, tail);
+    }
+    catch (OtpErlangException e) {
+      throw new SyntaxError();
+    }
+  }
+
+  @NotNull
+  private OtpErlangObject readMap() {
+    List<OtpErlangObject> keys = new ArrayList<>();
+    List<OtpErlangObject> values = new ArrayList<>();
+    while (true) {
+      if (!skipWhitespace() || isFullStop()) break;
+      if (myText.charAt(myOffset) == '}') {
+        myOffset++;
+        break;
+      }
+      if (!keys.isEmpty()) {
+        if (myText.charAt(myOffset) != ',') throw new SyntaxError();
+        myOffset++;
+      }
+      keys.add(readTerm());
+      skipWhitespace();
+      if (lookingAt("=>") || lookingAt(":=")) myOffset += 2;
+      else throw new SyntaxError();
+      values.add(readTerm());
+    }
+    return new OtpErlangMap(keys.toArray(new OtpErlangObject[0]), values.toArray(new OtpErlangObject[0]));
+  }
+
+  // <<"text", "text"/utf8, 1, $a>>; segment sizes are not supported
+  @NotNull
+  private OtpErlangObject readBinary() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    boolean first = true;
+    while (true) {
+      if (!skipWhitespace() || isFullStop()) break;
+      if (lookingAt(">>")) {
+        myOffset += 2;
+        break;
+      }
+      if (!first) {
+        if (myText.charAt(myOffset) != ',') throw new SyntaxError();
+        myOffset++;
+        skipWhitespace();
+      }
+      first = false;
+      String text = charAt(myOffset) == '"' ? readStrings() : null;
+      long value = text == null ? readIntegerSegment() : 0;
+      boolean utf8 = false;
+      skipWhitespace();
+      if (charAt(myOffset) == '/') {
+        myOffset++;
+        utf8 = readTypeSpecifiers().contains("utf8");
+      }
+      if (text == null) {
+        bytes.write((int) value);
+      }
+      else if (utf8) {
+        byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        bytes.write(encoded, 0, encoded.length);
+      }
+      else {
+        for (int i = 0; i < text.length(); i++) {
+          bytes.write(text.charAt(i));
+        }
+      }
+    }
+    return new OtpErlangBinary(bytes.toByteArray());
+  }
+
+  // utf8, big-unsigned-integer, ...
+  @NotNull
+  private List<String> readTypeSpecifiers() {
+    List<String> specifiers = new ArrayList<>();
+    while (true) {
+      skipWhitespace();
+      specifiers.add(readName());
+      if (charAt(myOffset) != '-') return specifiers;
+      myOffset++;
+    }
+  }
+
+  private long readIntegerSegment() {
+    OtpErlangObject segment = readTerm();
+    if (!(segment instanceof OtpErlangLong)) throw new SyntaxError();
+    return ((OtpErlangLong) segment).longValue();
+  }
+
+  @NotNull
+  private OtpErlangObject readNumber() {
+    boolean negative = myText.charAt(myOffset) == '-';
+    if (negative || myText.charAt(myOffset) == '+') myOffset++;
+    String digits = readDigits(10);
+    if (charAt(myOffset) == '#') {
+      myOffset++;
+      int radix = Integer.parseInt(digits);
+      if (radix < 2 || radix > 36) throw new SyntaxError();
+      String value = readDigits(radix);
+      if (value.isEmpty()) throw new SyntaxError();
+      return createInteger(negative, new BigInteger(value, radix));
+    }
+    if (charAt(myOffset) == '.' && isDigit(charAt(myOffset + 1))) {
+      myOffset++;
+      StringBuilder number = new StringBuilder(negative ? "-" : "").append(digits).append('.').append(readDigits(10));
+      char e = charAt(myOffset);
+      if (e == 'e' || e == 'E') {
+        number.append('e');
+        myOffset++;
+        if (charAt(myOffset) == '-' || charAt(myOffset) == '+') number.append(myText.charAt(myOffset++));
+        number.append(readDigits(10));
+      }
+      try {
+        return new OtpErlangDouble(Double.parseDouble(number.toString()));
+      }
+      catch (NumberFormatException ex) {
+        throw new SyntaxError();
+      }
+    }
+    return createInteger(negative, new BigInteger(digits));
+  }
+
+  @NotNull
+  private String readDigits(int radix) {
+    StringBuilder digits = new StringBuilder();
+    while (myOffset < myText.length()) {
+      char c = myText.charAt(myOffset);
+      if (Character.digit(c, radix) >= 0) digits.append(c);
+      else if (c != '_' || digits.length() == 0) break;
+      myOffset++;
+    }
+    return digits.toString();
+  }
+
+  @NotNull
+  private static OtpErlangLong createInteger(boolean negative, @NotNull BigInteger value) {
+    BigInteger signed = negative ? value.negate() : value;
+    return signed.bitLength() < 64 ? new OtpErlangLong(signed.longValue()) : new OtpErlangLong(signed);
+  }
+
+  @NotNull
+  private String readName() {
+    int start = myOffset;
+    while (myOffset < myText.length()) {
+      char c = myText.charAt(myOffset);
+      if (!Character.isLetterOrDigit(c) && c != '_' && c != '@') break;
+      myOffset++;
+    }
+    if (start == myOffset) throw new SyntaxError();
+    return myText.subSequence(start, myOffset).toString();
+  }
+
+  @NotNull
+  private static OtpErlangAtom createAtom(@NotNull String name) {
+    try {
+      return new OtpErlangAtom(name);
+    }
+    catch (IllegalArgumentException e) {
+      throw new SyntaxError();
+    }
+  }
+
+  // adjacent string literals are concatenated: "a" "b" is "ab"
+  @NotNull
+  private String readStrings() {
+    StringBuilder text = new StringBuilder();
+    do {
+      myOffset++;
+      text.append(readQuoted('"'));
+      skipWhitespace();
+    } while (charAt(myOffset) == '"');
+    return text.toString();
+  }
+
+  @NotNull
+  private String readQuoted(char quote) {
+    StringBuilder text = new StringBuilder();
+    while (myOffset < myText.length()) {
+      char c = myText.charAt(myOffset++);
+      if (c == quote) return text.toString();
+      if (c == '\\') text.appendCodePoint(readEscape());
+      else text.append(c);
+    }
+    throw new SyntaxError();
+  }
+
+  private int readCharacter() {
+    if (myOffset >= myText.length()) throw new SyntaxError();
+    char c = myText.charAt(myOffset++);
+    if (c == '\\') return readEscape();
+    if (Character.isHighSurrogate(c) && myOffset < myText.length()) {
+      return Character.toCodePoint(c, myText.charAt(myOffset++));
+    }
+    return c;
+  }
+
+  private int readEscape() {
+    if (myOffset >= myText.length()) throw new SyntaxError();
+    char c = myText.charAt(myOffset++);
+    switch (c) {
+      case 'b': return '\b';
+      case 'd': return 127;
+      case 'e': return 27;
+      case 'f': return '\f';
+      case 'n': return '\n';
+      case 'r': return '\r';
+      case 's': return ' ';
+      case 't': return '\t';
+      case 'v': return 11;
+      case '^':
+        if (myOffset >= myText.length()) throw new SyntaxError();
+        return myText.charAt(myOffset++) & 31;
+      case 'x':
+        return readHexEscape();
+      default:
+        if (c >= '0' && c <= '7') {
+          int code = c - '0';
+          for (int i = 0; i < 2 && charAt(myOffset) >= '0' && charAt(myOffset) <= '7'; i++) {
+            code = code * 8 + myText.charAt(myOffset++) - '0';
+          }
+          return code;
+        }
+        return c;
+    }
+  }
+
+  // \xHH or \x{H...}
+  private int readHexEscape() {
+    boolean braced = charAt(myOffset) == '{';
+    int start = braced ? myOffset + 1 : myOffset;
+    int end = braced ? indexOf('}', start) : Math.min(start + 2, myText.length());
+    if (end < 0) throw new SyntaxError();
+    int code = parseHex(start, end);
+    if (!Character.isValidCodePoint(code)) throw new SyntaxError();
+    myOffset = braced ? end + 1 : end;
+    return code;
+  }
+
+  private int parseHex(int start, int end) {
+    try {
+      return Integer.parseInt(myText.subSequence(start, end).toString(), 16);
+    }
+    catch (NumberFormatException e) {
+      throw new SyntaxError();
+    }
+  }
+
+  /**
+   * Skips whitespace and comments, returns false at the end of the text.
+   */
+  private boolean skipWhitespace() {
+    while (myOffset < myText.length()) {
+      char c = myText.charAt(myOffset);
+      if (c == '%') {
+        while (myOffset < myText.length() && myText.charAt(myOffset) != '\n') myOffset++;
+      }
+      else if (Character.isWhitespace(c)) {
+        myOffset++;
+      }
+      else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void skipToFullStop(int start) {
+    myOffset = start;
+    while (myOffset < myText.length()) {
+      char c = myText.charAt(myOffset);
+      if (isFullStop()) {
+        myOffset++;
+        return;
+      }
+      myOffset++;
+      if (c == '%') {
+        while (myOffset < myText.length() && myText.charAt(myOffset) != '\n') myOffset++;
+      }
+      else if (c == '$') {
+        myOffset += charAt(myOffset) == '\\' ? 2 : 1;
+      }
+      else if (c == '"' || c == '\'') {
+        while (myOffset < myText.length() && myText.charAt(myOffset) != c) {
+          myOffset += myText.charAt(myOffset) == '\\' ? 2 : 1;
+        }
+        myOffset++;
+      }
+    }
+  }
+
+  // a full stop is a dot followed by whitespace, a comment or the end of the text
+  private boolean isFullStop() {
+    if (charAt(myOffset) != '.') return false;
+    char next = charAt(myOffset + 1);
+    return next == 0 || next == '%' || Character.isWhitespace(next);
+  }
+
+  private boolean lookingAt(@NotNull String prefix) {
+    for (int i = 0; i < prefix.length(); i++) {
+      if (charAt(myOffset + i) != prefix.charAt(i)) return false;
+    }
+    return true;
+  }
+
+  private int indexOf(char c, int from) {
+    for (int i = from; i < myText.length(); i++) {
+      if (myText.charAt(i) == c) return i;
+    }
+    return -1;
+  }
+
+  private char charAt(int offset) {
+    return offset < myText.length() ? myText.charAt(offset) : 0;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static final class SyntaxError extends RuntimeException {
+    SyntaxError() {
+      super(null, null, false, false);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+-module(debug_condition_tests).
+
+% Calls the breakpoint checks as the interpreter does. The test process stands in for the notifier.
+
+-include_lib("eunit/include/eunit.hrl").
+-include("process_names.hrl").
+-include("remote_debugger_messages.hrl").
+
+plain_breakpoint_is_not_checked_test() ->
+  with_breakpoints(fun() ->
+    ?assertEqual({ok, undefined}, debug_condition:set(m, 1, "", []))
+  end).
+
+suspending_breakpoint_logs_expression_value_test() ->
+  with_breakpoints(fun() ->
+    {ok, Key} = debug_condition:set(m, 2, "", [{log_message, true}, {log_expression, "X + 1"}]),
+    ?assert(debug_condition:check(Key, [{'X', 1}])),
+    ?assertEqual(#breakpoint_log{module = m, line = 2, message = false, value = <<"2">>}, receive_message())
+  end).
+
+non_suspending_breakpoint_logs_message_and_value_test() ->
+  with_breakpoints(fun() ->
+    Options = [{suspend, false}, {log_message, true}, {log_expression, "X + 1"}],
+    {ok, Key} = debug_condition:set(m, 3, "", Options),
+    ?assertNot(debug_condition:check(Key, [{'X', 1}])),
+    ?assertEqual(#breakpoint_log{module = m, line = 3, message = true, value = <<"2">>}, receive_message())
+  end).
+
+unsatisfied_condition_logs_nothing_test() ->
+  with_breakpoints(fun() ->
+    {ok, Key} = debug_condition:set(m, 4, "X > 1", [{log_expression, "X"}]),
+    ?assertNot(debug_condition:check(Key, [{'X', 1}])),
+    receive Message -> ?assertEqual(no_message, Message) after 100 -> ok end
+  end).
+
+with_breakpoints(Test) ->
+  register(?RDEBUG_NOTIFIER, self()),
+  debug_condition:init(),
+  try
+    Test()
+  after
+    ets:delete(?RDEBUG_BREAKPOINTS),
+    unregister(?RDEBUG_NOTIFIER)
+  end.
+
+receive_message() ->
+  receive
+    Message -> Message
+  after 5000 ->
+    erlang:error(timeout)
+  end.
@@ -0,0 +1,71 @@
+-module(remote_debugger_listener_tests).
+
+% Runs the listener as the IDE does and talks to it through its mailbox. The test process stands in for both
+% the debugger and the notifier. Connecting to a live node requires the test node to be distributed.
+
+-include_lib("eunit/include/eunit.hrl").
+-include("process_names.hrl").
+-include("remote_debugger_messages.hrl").
+
+debug_remote_node_keeps_listener_running_test() ->
+  with_listener(fun(Listener) ->
+    Listener ! #debug_remote_node{node = node(), cookie = nocookie},
+    ?assertEqual(#debug_remote_node_response{node = node(), status = ok}, receive_message()),
+    assert_listening(Listener)
+  end).
+
+failed_debug_remote_node_keeps_listener_running_test() ->
+  with_listener(fun(Listener) ->
+    Listener ! #debug_remote_node{node = 'missing@nohost', cookie = nocookie},
+    ?assertMatch(#debug_remote_node_response{node = 'missing@nohost', status = {error, _}}, receive_message()),
+    assert_listening(Listener)
+  end).
+
+% the debugged process only spawns a process, which is the first to call the on-demand module
+module_first_called_from_spawned_process_is_interpreted_test() ->
+  SourcePath = compile_on_demand_module(spawned_on_demand),
+  with_listener(fun(Listener) ->
+    Listener ! #interpret_on_demand{modules = [{spawned_on_demand, SourcePath}]},
+    Listener ! #run_debugger{module = erlang, function = spawn, args = "[spawned_on_demand, ping, []]"},
+    ?assertEqual(#interpret_modules_response{node = node(), statuses = [{spawned_on_demand, ok}]}, receive_message()),
+    ?assert(lists:member(spawned_on_demand, int:interpreted()))
+  end).
+
+% int needs the beam with debug_info next to the source
+compile_on_demand_module(Module) ->
+  {ok, Cwd} = file:get_cwd(),
+  Dir = filename:join(Cwd, "on_demand"),
+  SourcePath = filename:join(Dir, atom_to_list(Module) ++ ".erl"),
+  ok = filelib:ensure_dir(SourcePath),
+  ok = file:write_file(SourcePath, io_lib:format("-module(~s).~n-export([ping/0]).~nping() -> ok.~n", [Module])),
+  {ok, Module} = compile:file(SourcePath, [debug_info, {outdir, Dir}]),
+  true = code:add_patha(Dir),
+  SourcePath.
+
+% a breakpoint with an unparsable condition is answered without the interpreter
+assert_listening(Listener) ->
+  Listener ! #set_breakpoint{module = missing_module, line = 1, condition = "(", options = []},
+  ?assertMatch(#set_breakpoint_response{module = missing_module, line = 1, status = {error, _}}, receive_message()),
+  ?assert(is_process_alive(Listener)).
+
+with_listener(Test) ->
+  {ok, DebugRoot} = file:get_cwd(),
+  true = register(?RDEBUG_NOTIFIER, self()),
+  Listener = spawn(remote_debugger_listener, run, [self(), DebugRoot]),
+  MonitorRef = monitor(process, Listener),
+  try
+    ?assertEqual(#register_listener{pid = Listener}, receive_message()),
+    Test(Listener)
+  after
+    exit(Listener, kill),
+    receive {'DOWN', MonitorRef, process, Listener, _} -> ok end,
+    unregister(?RDEBUG_NOTIFIER)
+  end.
+
+% a crashed listener shows up as its 'DOWN' message
+receive_message() ->
+  receive
+    Message -> Message
+  after 10000 ->
+    timeout
+  end.
@@ -0,0 +1,34 @@
+-module(remote_debugger_notifier_tests).
+
+-include_lib("eunit/include/eunit.hrl").
+
+-define(SUMMARY_ELEMENTS, 10000).
+
+small_terms_are_kept_test() ->
+  Term = {ok, [1, 2, 3], #{a => <<"b">>, c => [d | e]}},
+  ?assertEqual(Term, remote_debugger_notifier:summarize(Term)).
+
+large_list_is_truncated_test() ->
+  List = lists:seq(1, 3 * ?SUMMARY_ELEMENTS),
+  ?assertEqual({'$truncated', lists:sublist(List, ?SUMMARY_ELEMENTS), 3 * ?SUMMARY_ELEMENTS},
+               remote_debugger_notifier:summarize(List)).
+
+map_of_summary_size_is_kept_test() ->
+  Map = maps:from_list([{N, N} || N <- lists:seq(1, ?SUMMARY_ELEMENTS)]),
+  ?assertEqual(Map, remote_debugger_notifier:summarize(Map)).
+
+large_map_keeps_whole_entries_test() ->
+  Map = maps:from_list([{N, {value, N}} || N <- lists:seq(1, 2 * ?SUMMARY_ELEMENTS)]),
+  {'$truncated', Prefix, Size} = remote_debugger_notifier:summarize(Map),
+  ?assertEqual(2 * ?SUMMARY_ELEMENTS, Size),
+  ?assert(is_map(Prefix)),
+  ?assert(map_size(Prefix) > 0),
+  ?assert(map_size(Prefix) < ?SUMMARY_ELEMENTS),
+  maps:fold(fun(Key, Value, ok) -> ?assertEqual(maps:get(Key, Map), Value), ok end, ok, Prefix).
+
+% the budget runs out inside the value of the first entry
+large_map_value_test() ->
+  Map = #{a => lists:seq(1, 2 * ?SUMMARY_ELEMENTS), b => 1},
+  {'$truncated', Prefix, 2} = remote_debugger_notifier:summarize(Map),
+  ?assertMatch(#{a := {'$truncated', _, 2 * ?SUMMARY_ELEMENTS}}, Prefix),
+  ?assertEqual([a], maps:keys(Prefix)).
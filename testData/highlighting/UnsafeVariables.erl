@@ -0,0 +1,34 @@
+-export([some_branches/1, all_branches/1, nested/1, in_try/1]).
+
+some_branches(X) ->
+  case X of
+    a -> Y = 1;
+    b -> ok
+  end,
+  <warning descr="Variable 'Y' is bound in case, but not all branch bound">Y</warning>.
+
+all_branches(X) ->
+  if
+    X > 0 -> Y = positive;
+    true -> Y = other
+  end,
+  Y.
+
+nested(X) ->
+  case X of
+    {a, Z} ->
+      case Z of
+        1 -> Y = one;
+        _ -> Y = many
+      end;
+    _ -> Y = none
+  end,
+  Y.
+
+in_try(X) ->
+  try X of
+    1 -> Y = one
+  catch
+    _:_ -> Y = other
+  end,
+  <warning descr="Variable 'Y' is bound in try, but unsafe to use after it">Y</warning>.
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.build;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.CapturingProcessHandler;
+import com.intellij.execution.process.ProcessOutput;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import org.intellij.erlang.jps.model.JpsErlangSdkType;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the EUnit tests of the debugger node modules (resources/debugger/src) against the tests SDK.
+ */
+public class ErlangDebuggerModulesTest extends UsefulTestCase {
+  private static final String DEBUGGER_SOURCES = "resources/debugger/src";
+  private static final String DEBUGGER_TESTS = "testData/debugger/eunit";
+  private static final int TIMEOUT = 60 * 1000;
+
+  private File myRoot;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myRoot = FileUtil.createTempDirectory("erlang-debugger", null);
+    FileUtil.copyDir(new File(DEBUGGER_SOURCES), myRoot);
+    FileUtil.copyDir(new File(DEBUGGER_TESTS), myRoot);
+    List<String> command = new ArrayList<>();
+    command.add(getSdkExecutable(JpsErlangSdkType.getByteCodeCompilerExecutable(JpsErlangSdkType.getTestsSdkPath())));
+    File[] sources = myRoot.listFiles((dir, name) -> name.endsWith(".erl"));
+    assertNotNull(sources);
+    for (File source : sources) {
+      command.add(source.getName());
+    }
+    assertSucceeded(run(command));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myRoot);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testListener() throws ExecutionException {
+    runTests("remote_debugger_listener_tests");
+  }
+
+  public void testNotifier() throws ExecutionException {
+    runTests("remote_debugger_notifier_tests");
+  }
+
+  public void testCondition() throws ExecutionException {
+    runTests("debug_condition_tests");
+  }
+
+  // the node is distributed, so that the debugger can connect to it
+  private void runTests(@NotNull String module) throws ExecutionException {
+    List<String> command = new ArrayList<>();
+    command.add(getSdkExecutable(JpsErlangSdkType.getByteCodeInterpreterExecutable(JpsErlangSdkType.getTestsSdkPath())));
+    command.add("-noshell");
+    command.add("-sname");
+    command.add(module + "_" + System.currentTimeMillis());
+    command.add("-pa");
+    command.add(".");
+    command.add("-eval");
+    command.add("case eunit:test(" + module + ", [verbose]) of ok -> halt(0); _ -> halt(1) end.");
+    assertSucceeded(run(command));
+  }
+
+  @NotNull
+  private ProcessOutput run(@NotNull List<String> command) throws ExecutionException {
+    GeneralCommandLine commandLine = new GeneralCommandLine(command).withWorkDirectory(myRoot);
+    return new CapturingProcessHandler(commandLine).runProcess(TIMEOUT);
+  }
+
+  @NotNull
+  private static String getSdkExecutable(@NotNull File executable) {
+    if (!executable.canExecute()) {
+      fail(JpsErlangSdkType.getSdkConfigurationFailureMessage());
+    }
+    return executable.getPath();
+  }
+
+  private static void assertSucceeded(@NotNull ProcessOutput output) {
+    assertFalse("Timed out:\n" + output.getStdout(), output.isTimeout());
+    assertEquals(output.getStdout() + output.getStderr(), 0, output.getExitCode());
+  }
+}
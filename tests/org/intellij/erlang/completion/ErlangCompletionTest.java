@@ -18,8 +18,15 @@ package org.intellij.erlang.completion;
 
 import com.intellij.codeInsight.completion.CompletionType;
 import com.intellij.codeInsight.lookup.Lookup;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
 import com.intellij.util.ArrayUtilRt;
 import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangFunction;
+import org.intellij.erlang.psi.ErlangModule;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 
 import java.util.HashSet;
@@ -263,6 +270,27 @@ public class ErlangCompletionTest extends ErlangCompletionTestBase {
     doTestVariants("foo() -> fake_mod<caret>", CompletionType.BASIC, 1, CheckType.EXCLUDES, "far", "fake_module:far");
   }
 
+  public void testModuleCompletionIsLimited() {
+    for (int i = 0; i < 5; i++) {
+      myFixture.addFileToProject("limited_module" + i + ".erl", "-module(limited_module" + i + ").");
+    }
+    Registry.get("erlang.completion.modules.limit").setValue("2", getTestRootDisposable());
+    myFixture.configureByText("a.erl", "foo() -> limited_mod<caret>");
+    myFixture.complete(CompletionType.BASIC, 1);
+    List<String> variants = myFixture.getLookupElementStrings();
+    assertNotNull(variants);
+    assertSize(2, ContainerUtil.filter(variants, variant -> variant.startsWith("limited_module") && !variant.contains(":")));
+  }
+
+  public void testFileAtomsFollowEdits() {
+    myFixture.configureByText("a.erl", "foo() -> first_atom.\nbar() -> <caret>ok.\n");
+    ErlangFile file = (ErlangFile) myFixture.getFile();
+    assertContainsElements(file.getStandAloneAtoms(), "first_atom");
+    myFixture.type("second_atom, ");
+    PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+    assertContainsElements(file.getStandAloneAtoms(), "first_atom", "second_atom");
+  }
+
   public void testFunctionCompletionByPartialName() {
     myFixture.configureByFiles("module-completion/fake_module.erl");
     doTestInclude("foo() -> fmba<caret>", "fake_module:bar");
@@ -280,6 +308,19 @@ public class ErlangCompletionTest extends ErlangCompletionTestBase {
     doTestInclude("foo() -> fm:ba<caret>", "fake_module:bar");
   }
 
+  public void testModuleFunctionLookupElementResolvesFunction() {
+    myFixture.configureByFiles("module-completion/fake_module.erl");
+    myFixture.configureByText("a.erl", "foo() -> fake_mod<caret>");
+    LookupElement[] elements = myFixture.complete(CompletionType.BASIC, 1);
+    assertNotNull(elements);
+    LookupElement element = ContainerUtil.find(elements, e -> "fake_module:tar".equals(e.getLookupString()));
+    assertNotNull(element);
+    PsiElement function = element.getPsiElement();
+    assertInstanceOf(function, ErlangFunction.class);
+    assertEquals("tar", ((ErlangFunction) function).getName());
+    assertEquals("fake_module.erl", function.getContainingFile().getName());
+  }
+
   public void testFunctionCompletionCheckFirst() {
     myFixture.configureByFiles("module-completion/fake_module.erl");
     myFixture.configureByText("a.erl", "bar() -> ok. foo() -> bar<caret>");
@@ -321,6 +362,13 @@ public class ErlangCompletionTest extends ErlangCompletionTestBase {
     // means "fake_module:bar/0", "fake_module:bar/1"
   }
 
+  public void testModuleFunctionCompletionSkipsNotExported() {
+    myFixture.configureByText("exported_module.erl", "-module(exported_module). -export([visible/0, visible/1]).\n" +
+                                                     "visible() -> ok. visible(A) -> A. hidden() -> ok.");
+    doTestVariants("foo() -> exported_module:<caret>", CompletionType.BASIC, 1, CheckType.EXCLUDES, "exported_module:hidden");
+    doTestInclude("foo() -> exmovi<caret>", "exported_module:visible");
+  }
+
   public void testModuleFunctionCompletionForEmptyText() {
     myFixture.configureByFiles("module-completion/fake_module.erl");
     doTestInclude("foo() -> <caret>.", "fake_module", "fake_module:bar", "fake_module:tar", "finish_after_on_load");
@@ -361,6 +409,18 @@ public class ErlangCompletionTest extends ErlangCompletionTestBase {
     doCheckResult("-behaviour(behaviour_mo<caret>).", "-behaviour(behaviour_module).");
   }
 
+  public void testBehaviourLookupElementResolvesModule() {
+    myFixture.configureByFiles("module-completion/behaviour_module.erl", "module-completion/behaviour_info_module.erl");
+    myFixture.configureByText("a.erl", "-behaviour(behaviour_<caret>).");
+    LookupElement[] elements = myFixture.complete(CompletionType.BASIC, 1);
+    assertNotNull(elements);
+    LookupElement element = ContainerUtil.find(elements, e -> "behaviour_module".equals(e.getLookupString()));
+    assertNotNull(element);
+    PsiElement module = element.getPsiElement();
+    assertInstanceOf(module, ErlangModule.class);
+    assertEquals("behaviour_module.erl", module.getContainingFile().getName());
+  }
+
   public void testBehaviourInfoCompletion() {
     myFixture.configureByFiles("module-completion/behaviour_info_module.erl");
     doCheckResult("-behaviour(behaviour_in<caret>).", "-behaviour(behaviour_info_module).");
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.console;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.testFramework.UsefulTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ErlangConsoleNodeSessionTest extends UsefulTestCase {
+  public void testPrintTerm() {
+    OtpErlangObject term = tuple(new OtpErlangAtom("ok"),
+                                 new OtpErlangString("text"),
+                                 new OtpErlangList(new OtpErlangObject[]{new OtpErlangLong(1), new OtpErlangLong(2)}, new OtpErlangAtom("tail")),
+                                 new OtpErlangMap(new OtpErlangObject[]{new OtpErlangAtom("key")}, new OtpErlangObject[]{new OtpErlangList()}),
+                                 new OtpErlangBinary("bin".getBytes(StandardCharsets.UTF_8)),
+                                 new OtpErlangBinary(new byte[]{0, (byte) 255}));
+    assertEquals("{ok,\"text\",[1,2|tail],#{key => []},<<\"bin\">>,<<0,255>>}", print(term));
+  }
+
+  public void testLargeTermIsPrintedInChunks() {
+    OtpErlangObject[] elements = new OtpErlangObject[20000];
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = new OtpErlangLong(i);
+    }
+    List<String> chunks = new ArrayList<>();
+    ErlangConsoleNodeSession.printTerm(new OtpErlangList(elements), chunks::add);
+    assertTrue(chunks.size() > 1);
+    for (String chunk : chunks) {
+      assertTrue(chunk.length() < 2 * ErlangConsoleNodeSession.CHUNK_SIZE);
+    }
+    String text = String.join("", chunks);
+    assertTrue(text.startsWith("[0,1,2,"));
+    assertTrue(text.endsWith(",19999]"));
+  }
+
+  public void testTokensAreSplitAtDots() {
+    OtpErlangObject var = tuple(new OtpErlangAtom("var"), new OtpErlangLong(1), new OtpErlangAtom("X"));
+    OtpErlangObject dot = tuple(new OtpErlangAtom("dot"), new OtpErlangLong(1));
+    List<OtpErlangList> sequences = ErlangConsoleNodeSession.splitAtDots(new OtpErlangList(new OtpErlangObject[]{var, dot, var, dot, var}));
+    assertSize(3, sequences);
+    assertEquals(2, sequences.get(0).arity());
+    assertEquals(1, sequences.get(2).arity());
+  }
+
+  @NotNull
+  private static String print(@NotNull OtpErlangObject term) {
+    StringBuilder builder = new StringBuilder();
+    ErlangConsoleNodeSession.printTerm(term, builder::append);
+    return builder.toString();
+  }
+
+  @NotNull
+  private static OtpErlangTuple tuple(@NotNull OtpErlangObject... elements) {
+    return new OtpErlangTuple(elements);
+  }
+}
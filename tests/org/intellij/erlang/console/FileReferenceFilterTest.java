@@ -16,20 +16,27 @@
 
 package org.intellij.erlang.console;
 
+import com.intellij.execution.filters.FileHyperlinkInfo;
 import com.intellij.execution.filters.Filter;
+import com.intellij.execution.filters.HyperlinkInfo;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
 import com.intellij.openapi.projectRoots.Sdk;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.sdk.ErlangSdkRelease;
 import org.intellij.erlang.sdk.ErlangSdkType;
 import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -51,7 +58,7 @@ public class FileReferenceFilterTest extends ErlangLightPlatformCodeInsightFixtu
     Filter.ResultItem item = resultItems.get(0);
     assertEquals(11, item.getHighlightStartOffset());
     assertEquals(31, item.getHighlightEndOffset());
-    assertNotNull(item.getHyperlinkInfo());
+    assertNotNull(getDescriptor(item.getHyperlinkInfo()));
   }
 
   public void testCompilationErrorAbsolutePath() {
@@ -63,7 +70,7 @@ public class FileReferenceFilterTest extends ErlangLightPlatformCodeInsightFixtu
     Filter.ResultItem item = resultItems.get(0);
     assertEquals(11, item.getHighlightStartOffset());
     assertEquals(32 + getProject().getBasePath().length(), item.getHighlightEndOffset());
-    assertNotNull(item.getHyperlinkInfo());
+    assertNotNull(getDescriptor(item.getHyperlinkInfo()));
   }
 
   public void testCompilationErrorMissingPath() {
@@ -74,7 +81,7 @@ public class FileReferenceFilterTest extends ErlangLightPlatformCodeInsightFixtu
     Filter.ResultItem item = resultItems.get(0);
     assertEquals(11, item.getHighlightStartOffset());
     assertEquals(31, item.getHighlightEndOffset());
-    assertNull(item.getHyperlinkInfo());
+    assertNull(getDescriptor(item.getHyperlinkInfo()));
   }
 
   public void testEunitErrorPath() {
@@ -85,7 +92,7 @@ public class FileReferenceFilterTest extends ErlangLightPlatformCodeInsightFixtu
     Filter.ResultItem item = resultItems.get(0);
     assertEquals(11, item.getHighlightStartOffset());
     assertEquals(37, item.getHighlightEndOffset());
-    assertNotNull(item.getHyperlinkInfo());
+    assertNotNull(getDescriptor(item.getHyperlinkInfo()));
   }
   
   public void testEunitFullErrorPath() {
@@ -97,7 +104,7 @@ public class FileReferenceFilterTest extends ErlangLightPlatformCodeInsightFixtu
     String canonicalPath = vFile.getCanonicalPath();
     String consoleOutput = "in function bisect_server_test:'-false_test/0-fun-0-'/0 (" + canonicalPath + ", line 14)";
     Filter.Result result = compilationErrorFilter.applyFilter(consoleOutput, consoleOutput.length());
-    assertNotNull(result.getFirstHyperlinkInfo());
+    assertNotNull(getDescriptor(result.getFirstHyperlinkInfo()));
   }
 
   public void testEunitFailurePath() {
@@ -108,21 +115,67 @@ public class FileReferenceFilterTest extends ErlangLightPlatformCodeInsightFixtu
     Filter.ResultItem item = resultItems.get(0);
     assertEquals(10, item.getHighlightStartOffset());
     assertEquals(48, item.getHighlightEndOffset());
-    assertNotNull(item.getHyperlinkInfo());
+    assertNotNull(getDescriptor(item.getHyperlinkInfo()));
   }
 
   public void testLinkToSdkFile() {
     FileReferenceFilter compilationErrorFilter = new FileReferenceFilter(getProject(), ErlangConsoleUtil.COMPILATION_ERROR_PATH);
     String consoleOutput = "some text||src/lists.erl:123: more text here";
     Filter.Result result = compilationErrorFilter.applyFilter(consoleOutput, consoleOutput.length());
-    assertNotNull(result.getFirstHyperlinkInfo());
+    assertNotNull(getDescriptor(result.getFirstHyperlinkInfo()));
   }
 
   public void testLinkToSdkFileNoSrc() {
     FileReferenceFilter compilationErrorFilter = new FileReferenceFilter(getProject(), ErlangConsoleUtil.COMPILATION_ERROR_PATH);
     String consoleOutput = "some text||lists.erl:123: more text here";
     Filter.Result result = compilationErrorFilter.applyFilter(consoleOutput, consoleOutput.length());
-    assertNotNull(result.getFirstHyperlinkInfo());
+    assertNotNull(getDescriptor(result.getFirstHyperlinkInfo()));
+  }
+
+  public void testEunitFailurePathSpanningLines() {
+    FileReferenceFilter compilationErrorFilter = new FileReferenceFilter(getProject(), ErlangConsoleUtil.EUNIT_FAILURE_PATH);
+    assertNull(compilationErrorFilter.applyFilter("some text [{file,\"src/a_module.erl\"},\n", 200));
+    String consoleOutput = "           {line,123}] more text here\n";
+    Filter.Result result = compilationErrorFilter.applyFilter(consoleOutput, 300);
+    Filter.ResultItem item = result.getResultItems().get(0);
+    assertEquals(300 - consoleOutput.length() - 20, item.getHighlightStartOffset());
+    assertEquals(300 - consoleOutput.length() - 4, item.getHighlightEndOffset());
+    assertNotNull(getDescriptor(item.getHyperlinkInfo()));
+  }
+
+  public void testLinesWithoutReferencesAreSkipped() {
+    FileReferenceFilter compilationErrorFilter = new FileReferenceFilter(getProject(), ErlangConsoleUtil.COMPILATION_ERROR_PATH);
+    assertNull(compilationErrorFilter.applyFilter("=INFO REPORT==== 18-Oct-2026::10:15:02 ===\n", 100));
+    assertNull(compilationErrorFilter.applyFilter("    application: sasl\n", 200));
+    String consoleOutput = "src/a_module.erl:12: Warning: variable 'X' is unused\n";
+    Filter.Result result = compilationErrorFilter.applyFilter(consoleOutput, 300);
+    assertEquals(300 - consoleOutput.length(), result.getResultItems().get(0).getHighlightStartOffset());
+  }
+
+  public void testThroughput() throws IOException {
+    List<String> recordedLines = FileUtil.loadLines(new File("testData/console/crashReports.log"));
+    int lineCount = 200000;
+    List<Filter> filters = Arrays.asList(new FileReferenceFilter(getProject(), ErlangConsoleUtil.COMPILATION_ERROR_PATH),
+                                         new FileReferenceFilter(getProject(), ErlangConsoleUtil.EUNIT_ERROR_PATH),
+                                         new FileReferenceFilter(getProject(), ErlangConsoleUtil.EUNIT_FAILURE_PATH));
+    PlatformTestUtil.startPerformanceTest("Filtering " + lineCount + " lines of crash reports", 2000, () -> {
+      int links = 0;
+      int entireLength = 0;
+      for (int i = 0; i < lineCount; i++) {
+        String line = recordedLines.get(i % recordedLines.size()) + "\n";
+        entireLength += line.length();
+        for (Filter filter : filters) {
+          if (filter.applyFilter(line, entireLength) != null) links++;
+        }
+      }
+      assertTrue(links > 0);
+    }).attempts(3).assertTiming();
+  }
+
+  @Nullable
+  private static OpenFileDescriptor getDescriptor(@Nullable HyperlinkInfo info) {
+    assertInstanceOf(info, FileHyperlinkInfo.class);
+    return ((FileHyperlinkInfo) info).getDescriptor();
   }
 
   @NotNull
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.xdebug.xvalue;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.testFramework.UsefulTestCase;
+
+import java.nio.charset.StandardCharsets;
+
+public class ErlangTermTextTest extends UsefulTestCase {
+  public void testPrintIsBounded() {
+    OtpErlangObject[] elements = new OtpErlangObject[200000];
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = new OtpErlangAtom("element");
+    }
+    String text = ErlangTermText.print(new OtpErlangList(elements), 100);
+    assertTrue(text.startsWith("[element,element,"));
+    assertTrue(text.endsWith(ErlangTermText.ELLIPSIS));
+    assertTrue(text.length() <= 100 + ErlangTermText.ELLIPSIS.length());
+  }
+
+  public void testPrintSmallTerm() {
+    OtpErlangTuple tuple = new OtpErlangTuple(new OtpErlangObject[]{new OtpErlangAtom("ok"), new OtpErlangLong(42)});
+    assertEquals("{ok,42}", ErlangTermText.print(tuple, 100));
+  }
+
+  public void testTruncatedTerm() {
+    OtpErlangList prefix = new OtpErlangList(new OtpErlangObject[]{new OtpErlangLong(1), new OtpErlangLong(2)});
+    OtpErlangTuple truncated = new OtpErlangTuple(new OtpErlangObject[]{
+      new OtpErlangAtom(ErlangTermText.TRUNCATED), prefix, new OtpErlangLong(200000)});
+    assertTrue(ErlangTermText.isTruncated(truncated));
+    assertEquals(200000, ErlangTermText.getTruncatedSize(truncated));
+    assertEquals("[1,2]" + ErlangTermText.ELLIPSIS, ErlangTermText.print(truncated, 100));
+  }
+
+  public void testPrintableListPrefix() {
+    OtpErlangObject[] chars = new OtpErlangObject[5000];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = new OtpErlangLong(i == 0 ? 0x43A : 'a');
+    }
+    assertEquals("кaa", ErlangTermText.getPrintablePrefix(new OtpErlangList(chars), 3));
+    assertNull(ErlangTermText.getPrintablePrefix(new OtpErlangList(new OtpErlangObject[]{new OtpErlangLong(1)}), 3));
+  }
+
+  public void testPrintableBinaryPrefix() {
+    byte[] bytes = "héllo".getBytes(StandardCharsets.UTF_8);
+    assertEquals("héllo", ErlangTermText.getPrintablePrefix(bytes, 100));
+    // the window ends inside of the two-byte character
+    assertEquals("h", ErlangTermText.getPrintablePrefix(bytes, 2));
+    assertNull(ErlangTermText.getPrintablePrefix(new byte[]{1, 2, 3}, 100));
+    assertNull(ErlangTermText.getPrintablePrefix(new byte[]{(byte) 0xFF, 'a'}, 100));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.documentation;
+
+import com.ericsson.otp.erlang.OtpExternal;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import org.intellij.erlang.utils.ErlangTermReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class ErlangDocChunkReaderTest extends UsefulTestCase {
+  private static final String ERLANG_HTML_DOCS =
+    "{docs_v1, [], erlang, <<\"application/erlang+html\">>,\n" +
+    " #{<<\"en\">> => [{p, [], [<<\"Module doc\">>]}]}, #{},\n" +
+    " [{{function, foo, 1}, [], [<<\"foo(X) -> ok\">>],\n" +
+    "   #{<<\"en\">> => [{p, [], [<<\"Returns \">>, {a, [{href, <<\"m#bar-0\">>}], [<<\"<ok>\">>]}]}]}, #{}},\n" +
+    "  {{type, t, 0}, [], [<<\"t()\">>], #{<<\"en\">> => [<<\"A type\">>]}, #{}},\n" +
+    "  {{function, secret, 0}, [], [<<\"secret()\">>], hidden, #{}},\n" +
+    "  {{callback, init, 1}, [], [<<\"init(Args)\">>], #{<<\"en\">> => [<<\"A callback\">>]}, #{}}]}.";
+
+  public void testChunkFile() throws IOException {
+    Map<String, String> fragments = ErlangDocChunkReader.read(createFile(".chunk", encode(ERLANG_HTML_DOCS)), "m");
+    assertNotNull(fragments);
+    assertSameElements(fragments.keySet(), ErlangSdkDocPageIndex.MODULE_KEY, "foo-1", "type-t");
+    assertEquals("<h3>MODULE</h3><div class=\"REFBODY\">m</div>\n" +
+                 "<h3>DESCRIPTION</h3>\n<div class=\"REFBODY\"><p>Module doc</p></div>\n",
+                 fragments.get(ErlangSdkDocPageIndex.MODULE_KEY));
+    assertEquals("<p><span class=\"bold_code\">foo(X) -&gt; ok</span><br></p>\n" +
+                 "<div class=\"REFBODY\"><p>Returns <a href=\"m#bar-0\">&lt;ok&gt;</a></p></div>\n",
+                 fragments.get("foo-1"));
+    assertEquals("<p><span class=\"bold_code\">t()</span><br></p>\n<div class=\"REFBODY\">A type</div>\n",
+                 fragments.get("type-t"));
+  }
+
+  public void testPlainTextDocs() throws IOException {
+    String docs = "{docs_v1, [], erlang, <<\"text/markdown\">>, none, #{},\n" +
+                  " [{{function, foo, 0}, [], [<<\"foo()\">>], #{<<\"en\">> => <<\"Uses `a < b`\">>}, #{}}]}.";
+    Map<String, String> fragments = ErlangDocChunkReader.read(createFile(".chunk", encode(docs)), "m");
+    assertNotNull(fragments);
+    assertSameElements(fragments.keySet(), "foo-0");
+    assertEquals("<p><span class=\"bold_code\">foo()</span><br></p>\n<div class=\"REFBODY\"><pre>Uses `a &lt; b`</pre></div>\n",
+                 fragments.get("foo-0"));
+  }
+
+  public void testBeamDocsChunk() throws IOException {
+    byte[] docs = encode(ERLANG_HTML_DOCS);
+    Map<String, String> fragments = ErlangDocChunkReader.read(createFile(".beam", beam(docs)), "m");
+    assertEquals(ErlangDocChunkReader.read(createFile(".chunk", docs), "m"), fragments);
+  }
+
+  public void testBeamWithoutDocsChunk() throws IOException {
+    assertNull(ErlangDocChunkReader.read(createFile(".beam", beam(null)), "m"));
+  }
+
+  public void testMalformedChunk() throws IOException {
+    assertNull(ErlangDocChunkReader.read(createFile(".chunk", "not a term".getBytes(StandardCharsets.US_ASCII)), "m"));
+    assertNull(ErlangDocChunkReader.read(createFile(".chunk", encode("{docs_v2}.")), "m"));
+  }
+
+  @NotNull
+  private static byte[] encode(@NotNull String term) {
+    OtpOutputStream out = new OtpOutputStream();
+    out.write1(OtpExternal.versionTag);
+    out.write_any(ErlangTermReader.read(term).get(0));
+    return out.toByteArray();
+  }
+
+  // FOR1 container with an unaligned "Atom" chunk before the optional "Docs" chunk
+  @NotNull
+  private static byte[] beam(@Nullable byte[] docs) throws IOException {
+    ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+    chunks.write(chunk("Atom", new byte[]{0, 0, 0, 1, 1}));
+    if (docs != null) {
+      chunks.write(chunk("Docs", docs));
+    }
+    ByteArrayOutputStream beam = new ByteArrayOutputStream();
+    beam.write("FOR1".getBytes(StandardCharsets.US_ASCII));
+    beam.write(ByteBuffer.allocate(4).putInt(chunks.size() + 4).array());
+    beam.write("BEAM".getBytes(StandardCharsets.US_ASCII));
+    chunks.writeTo(beam);
+    return beam.toByteArray();
+  }
+
+  @NotNull
+  private static byte[] chunk(@NotNull String id, @NotNull byte[] content) {
+    ByteBuffer buffer = ByteBuffer.allocate(8 + ((content.length + 3) & ~3));
+    buffer.put(id.getBytes(StandardCharsets.US_ASCII)).putInt(content.length).put(content);
+    return buffer.array();
+  }
+
+  @NotNull
+  private static File createFile(@NotNull String extension, @NotNull byte[] content) throws IOException {
+    File file = FileUtil.createTempFile("doc", extension, true);
+    FileUtil.writeToFile(file, content);
+    return file;
+  }
+}
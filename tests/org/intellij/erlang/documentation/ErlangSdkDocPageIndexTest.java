@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.documentation;
+
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+public class ErlangSdkDocPageIndexTest extends UsefulTestCase {
+  private static final String LISTS_PAGE = "testData/mockSdk-R15B02/lib/stdlib-1.18.2/doc/html/lists.html";
+
+  private byte[] myContent;
+  private ErlangSdkDocPageIndex myIndex;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myContent = FileUtil.loadFileBytes(new File(LISTS_PAGE));
+    myIndex = ErlangSdkDocPageIndex.build(myContent, myContent.length, 42L);
+  }
+
+  public void testModule() {
+    String text = getSegmentText(ErlangSdkDocPageIndex.MODULE_KEY);
+    assertTrue(text.startsWith("  <h3>MODULE</h3>\n<div class=\"REFBODY\">lists</div>"));
+    assertTrue(text.contains("<h3>DESCRIPTION</h3>"));
+    assertFalse(text.contains("<h3>EXPORTS</h3>"));
+  }
+
+  public void testFunction() {
+    String text = getSegmentText("foreach-2");
+    assertTrue(text.startsWith("    <p><a name=\"foreach-2\"></a><span class=\"bold_code\">foreach(Fun, List) -&gt; ok</span>"));
+    assertEquals(myIndex.getSegment("keydelete-3").getStartOffset(), myIndex.getSegment("foreach-2").getEndOffset());
+  }
+
+  public void testBif() {
+    String text = getSegmentText("member-2");
+    assertTrue(text.startsWith("    <p><a name=\"member-2\"><span class=\"bold_code\">member(Elem, List) -&gt; boolean()</span></a><br></p>"));
+  }
+
+  public void testLastFunctionEndsAtFooter() {
+    String footer = "<div class=\"footer\">";
+    assertFalse(getSegmentText("zipwith3-4").contains(footer));
+    int end = myIndex.getSegment("zipwith3-4").getEndOffset();
+    assertEquals(footer, new String(myContent, end, footer.length(), StandardCharsets.UTF_8));
+  }
+
+  public void testUnknownKey() {
+    assertNull(myIndex.getSegment("foreach-3"));
+    assertNull(myIndex.getSegment("type-foo"));
+  }
+
+  public void testTypes() {
+    String page = "  <h3>DATA TYPES</h3>\r\n" +
+                  "      <span class=\"bold_code\"><a name=\"type-a\">a()</a> = term()</span><br></p>\r\n" +
+                  "<div class=\"REFBODY\">First</div>\r\n" +
+                  "      <span class=\"bold_code\"><a name=\"type-b\">b()</a> = atom()</span><br></p>\r\n" +
+                  "<div class=\"REFBODY\">Second</div>\r\n" +
+                  "  <h3>EXPORTS</h3>\r\n";
+    byte[] content = page.getBytes(StandardCharsets.UTF_8);
+    ErlangSdkDocPageIndex index = ErlangSdkDocPageIndex.build(content, content.length, 0L);
+    assertEquals("      <span class=\"bold_code\"><a name=\"type-a\">a()</a> = term()</span><br></p>\r\n" +
+                 "<div class=\"REFBODY\">First</div>\r\n",
+                 index.getSegment("type-a").substring(page));
+    assertTrue(index.getSegment("type-b").substring(page).endsWith("<div class=\"REFBODY\">Second</div>\r\n"));
+  }
+
+  public void testRender() {
+    String segment = "<p><a name=\"foo-1\"></a>foo(X)</p>\r\n" +
+                     "<a href=\"#bar-0\">bar/0</a> <a href=\"io.html#format-2\">io:format/2</a>\r\n" +
+                     "<a href=\"javascript:erlhref('../../../../doc/../','stdlib','io.html');\">io</a>\r\n";
+    assertEquals("<p><a name=\"foo-1\"></a>foo(X)</p>" +
+                 "<a href=\"psi_element://lists#bar-0\">bar/0</a> <a href=\"psi_element://io#format-2\">io:format/2</a>\n" +
+                 "<a href=\"psi_element://io\">io</a>\n",
+                 ErlangSdkDocPageIndex.render(segment, "lists"));
+  }
+
+  public void testWriteAndRead() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      myIndex.write(out);
+    }
+    ErlangSdkDocPageIndex index = ErlangSdkDocPageIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertTrue(index.isUpToDate(myContent.length, 42L));
+    assertFalse(index.isUpToDate(myContent.length, 43L));
+    for (String key : new String[]{ErlangSdkDocPageIndex.MODULE_KEY, "foreach-2", "member-2", "zipwith3-4"}) {
+      assertEquals(myIndex.getSegment(key), index.getSegment(key));
+    }
+  }
+
+  @NotNull
+  private String getSegmentText(@NotNull String key) {
+    TextRange segment = myIndex.getSegment(key);
+    assertNotNull(segment);
+    return new String(myContent, segment.getStartOffset(), segment.getLength(), StandardCharsets.UTF_8);
+  }
+}
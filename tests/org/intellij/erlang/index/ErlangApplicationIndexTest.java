@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.index;
+
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.roots.CompilerModuleExtension;
+import com.intellij.openapi.roots.ModuleRootModificationUtil;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+
+public class ErlangApplicationIndexTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  public void testSourceApplicationFile() throws IOException {
+    assertDoesntContain(getApplicationDirectoryNames(), "srcapp");
+    PsiFile appFile = myFixture.addFileToProject("srcapp/src/srcapp.app.src", "{application, srcapp, []}.");
+    assertContainsElements(getApplicationDirectoryNames(), "srcapp");
+    delete(appFile.getVirtualFile());
+    assertDoesntContain(getApplicationDirectoryNames(), "srcapp");
+  }
+
+  public void testEbinApplicationFile() throws IOException {
+    assertDoesntContain(getApplicationDirectoryNames(), "ebinapp");
+    PsiFile appFile = myFixture.addFileToProject("ebinapp/ebin/ebinapp.app", "{application, ebinapp, []}.");
+    assertContainsElements(getApplicationDirectoryNames(), "ebinapp");
+    delete(appFile.getVirtualFile());
+    assertDoesntContain(getApplicationDirectoryNames(), "ebinapp");
+  }
+
+  public void testCompilerOutputApplicationFile() throws Exception {
+    // the output directory is outside of the content root, so its application files are not indexed
+    VirtualFile contentRoot = myFixture.getTempDirFixture().getFile("");
+    assertNotNull(contentRoot);
+    VirtualFile outputRoot = WriteAction.computeAndWait(() -> VfsUtil.createDirectoryIfMissing(contentRoot.getParent(), "outapp"));
+    VirtualFile ebin = WriteAction.computeAndWait(() -> VfsUtil.createDirectoryIfMissing(outputRoot, "ebin"));
+    CompilerModuleExtension extension = CompilerModuleExtension.getInstance(getModule());
+    assertNotNull(extension);
+    String outputUrl = extension.getCompilerOutputUrl();
+    boolean inherited = extension.isCompilerOutputPathInherited();
+    try {
+      ModuleRootModificationUtil.updateModel(getModule(), model -> {
+        CompilerModuleExtension modelExtension = model.getModuleExtension(CompilerModuleExtension.class);
+        modelExtension.inheritCompilerOutputPath(false);
+        modelExtension.setCompilerOutputPath(ebin);
+      });
+      assertDoesntContain(getApplicationDirectoryNames(), "outapp");
+      VirtualFile appFile = WriteAction.computeAndWait(() -> {
+        VirtualFile file = ebin.createChildData(this, "outapp.app");
+        VfsUtil.saveText(file, "{application, outapp, []}.");
+        return file;
+      });
+      assertContainsElements(getApplicationDirectoryNames(), "outapp");
+      delete(appFile);
+      assertDoesntContain(getApplicationDirectoryNames(), "outapp");
+    }
+    finally {
+      ModuleRootModificationUtil.updateModel(getModule(), model -> {
+        CompilerModuleExtension modelExtension = model.getModuleExtension(CompilerModuleExtension.class);
+        modelExtension.setCompilerOutputPath(outputUrl);
+        modelExtension.inheritCompilerOutputPath(inherited);
+      });
+      delete(outputRoot);
+    }
+  }
+
+  @NotNull
+  private List<String> getApplicationDirectoryNames() {
+    List<VirtualFile> directories = ErlangApplicationIndex.getAllApplicationDirectories(getProject(), GlobalSearchScope.allScope(getProject()));
+    return ContainerUtil.map(directories, VirtualFile::getName);
+  }
+
+  private void delete(@NotNull VirtualFile file) throws IOException {
+    WriteAction.runAndWait(() -> file.delete(this));
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.index;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ErlangCacheWarmUpTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myFixture.addFileToProject("include/a.hrl", "");
+    myFixture.addFileToProject("include/b.hrl", "");
+    myFixture.addFileToProject("app/include/c.hrl", "");
+    myFixture.addFileToProject("m1.erl", "-module(m1).\n-include(\"include/a.hrl\").\n-include(\"include/b.hrl\").\n");
+    myFixture.addFileToProject("m2.erl", "-module(m2).\n-include(\"include/a.hrl\").\n-include_lib(\"app/include/c.hrl\").\n");
+    myFixture.addFileToProject("m3.erl", "-module(m3).\n-include(\"include/a.hrl\").\n-include(\"app/include/c.hrl\").\n");
+    myFixture.addFileToProject("m4.erl", "-module(m4).\n-include(\"missing.hrl\").\n");
+  }
+
+  public void testHeadersAreRankedByIncludingModules() {
+    assertEquals(Arrays.asList("a.hrl", "c.hrl", "b.hrl"), getMostIncludedHeaderNames(10));
+  }
+
+  public void testHeadersAreLimited() {
+    assertEquals(Arrays.asList("a.hrl", "c.hrl"), getMostIncludedHeaderNames(2));
+  }
+
+  public void testBehavioursAreRankedByImplementingModules() {
+    myFixture.addFileToProject("b1.erl", "-module(b1).\n-behaviour(gen_server).\n-behaviour(supervisor).\n");
+    myFixture.addFileToProject("b2.erl", "-module(b2).\n-behaviour(gen_server).\n-behaviour(supervisor).\n");
+    myFixture.addFileToProject("b3.erl", "-module(b3).\n-behaviour(gen_server).\n-behaviour(application).\n");
+    assertEquals(Arrays.asList("gen_server", "supervisor", "application"),
+                 ErlangCacheWarmUp.getMostImplementedBehaviourNames(getProject(), 10));
+    assertEquals(Arrays.asList("gen_server", "supervisor"), ErlangCacheWarmUp.getMostImplementedBehaviourNames(getProject(), 2));
+  }
+
+  @NotNull
+  private List<String> getMostIncludedHeaderNames(int limit) {
+    return ContainerUtil.map(ErlangCacheWarmUp.getMostIncludedHeaders(getProject(), limit), VirtualFile::getName);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.inspection;
+
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * The comment added by "Suppress for expression" has to suppress the problem it was invoked on.
+ */
+public class ErlangSuppressionTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myFixture.enableInspections(ErlangUnboundVariableInspection.class);
+  }
+
+  public void testClauseBodyExpression() {
+    doTest("a.erl", "-module(a).\n-export([foo/0]).\nfoo() ->\n  ok,\n  <caret>X.\n");
+  }
+
+  public void testGuardExpression() {
+    doTest("a.erl", "-module(a).\n-export([foo/1]).\nfoo(X) when X > <caret>Y -> X.\n");
+  }
+
+  public void testTermsFile() {
+    doTest("a.config", "{foo, <caret>X}.\n");
+  }
+
+  private void doTest(@NotNull String fileName, @NotNull String text) {
+    myFixture.configureByText(fileName, text);
+    assertNotEmpty(getUnboundVariables());
+    launchIntention("Suppress for expression");
+    assertTrue(myFixture.getEditor().getDocument().getText().contains("noinspection ErlangUnboundVariable"));
+    assertEmpty(getUnboundVariables());
+  }
+
+  @NotNull
+  private List<HighlightInfo> getUnboundVariables() {
+    return ContainerUtil.filter(myFixture.doHighlighting(),
+                                info -> info.getDescription() != null && info.getDescription().endsWith("is unbound"));
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.inspection.batch;
+
+import com.intellij.codeHighlighting.HighlightDisplayLevel;
+import com.intellij.codeInsight.daemon.HighlightDisplayKey;
+import com.intellij.codeInspection.ex.InspectionProfileImpl;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.profile.codeInspection.InspectionProjectProfileManager;
+import org.intellij.erlang.inspection.ErlangUnboundVariableInspection;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ErlangBatchInspectorTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  public void testProblemsFromAllFiles() throws Exception {
+    ErlangInspectionReport report = inspect();
+    List<ErlangInspectionReport.Problem> problems = report.getProblems();
+    assertSize(2, problems);
+
+    ErlangInspectionReport.Problem problem = problems.get(0);
+    assertTrue(problem.getPath().endsWith("a.erl"));
+    assertEquals(3, problem.getLine());
+    assertEquals(9, problem.getColumn());
+    assertEquals("ErlangUnboundVariable", problem.getInspection());
+    assertEquals(ErlangInspectionReport.Severity.ERROR, problem.getSeverity());
+    assertEquals("Variable 'X' is unbound", problem.getMessage());
+    assertTrue(problems.get(1).getPath().endsWith("b.erl"));
+  }
+
+  public void testSeverityFromProfile() throws Exception {
+    myFixture.enableInspections(ErlangUnboundVariableInspection.class);
+    InspectionProfileImpl profile = InspectionProjectProfileManager.getInstance(getProject()).getCurrentProfile();
+    profile.setErrorLevel(HighlightDisplayKey.find("ErlangUnboundVariable"), HighlightDisplayLevel.WARNING, getProject());
+    List<ErlangInspectionReport.Problem> problems = inspect().getProblems();
+    assertSize(2, problems);
+    for (ErlangInspectionReport.Problem problem : problems) {
+      assertEquals(ErlangInspectionReport.Severity.WARNING, problem.getSeverity());
+    }
+  }
+
+  public void testCheckstyleOutput() throws Exception {
+    StringWriter out = new StringWriter();
+    inspect().writeCheckstyle(out);
+    String xml = out.toString();
+    assertTrue(xml, xml.contains("<error line=\"3\" column=\"9\" severity=\"error\" message=\"Variable &#39;X&#39; is unbound\" " +
+                                 "source=\"ErlangUnboundVariable\"/>"));
+  }
+
+  public void testSarifOutput() throws Exception {
+    StringWriter out = new StringWriter();
+    inspect().writeSarif(out);
+    String sarif = out.toString();
+    assertTrue(sarif, sarif.contains("\"ruleId\": \"ErlangUnboundVariable\""));
+    assertTrue(sarif, sarif.contains("\"startLine\": 3"));
+    assertTrue(sarif, sarif.contains("\"timeMs\""));
+  }
+
+  private ErlangInspectionReport inspect() throws Exception {
+    VirtualFile a = myFixture.addFileToProject("a.erl", "-module(a).\n-export([f/0]).\nf() -> {X}.\n").getVirtualFile();
+    VirtualFile b = myFixture.addFileToProject("b.erl", "-module(b).\n-export([g/0]).\ng() ->\n  Y.\n").getVirtualFile();
+    ErlangBatchInspector inspector = new ErlangBatchInspector(getProject(),
+                                                              ErlangBatchInspector.getInspections(Collections.singletonList("ErlangUnboundVariable")),
+                                                              2);
+    return inspector.inspect(Arrays.asList(b, a));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2014 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.performance;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.ThrowableRunnable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Collects per-operation latency samples of a scenario and writes their p50/p99 to {@code erlang.latency.report}
+ * ({@value #DEFAULT_REPORT_PATH} by default). The timing itself is asserted by the performance test.
+ */
+final class ErlangLatencyRecorder {
+  private static final String DEFAULT_REPORT_PATH = "build/reports/latency.properties";
+  private static final String REPORT_PATH = System.getProperty("erlang.latency.report", DEFAULT_REPORT_PATH);
+
+  private final String myScenario;
+  private final List<Long> mySamples = new ArrayList<>();
+
+  ErlangLatencyRecorder(@NotNull String scenario) {
+    myScenario = scenario;
+  }
+
+  <E extends Throwable> void time(@NotNull ThrowableRunnable<E> runnable) throws E {
+    long start = System.nanoTime();
+    runnable.run();
+    mySamples.add(System.nanoTime() - start);
+  }
+
+  double percentileMs(double percentile) {
+    if (mySamples.isEmpty()) return 0;
+    List<Long> sorted = new ArrayList<>(mySamples);
+    Collections.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100 * sorted.size()) - 1;
+    return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index))) / 1e6;
+  }
+
+  void writeReport() throws IOException {
+    File reportFile = new File(REPORT_PATH);
+    Properties report = new Properties();
+    if (reportFile.exists()) {
+      try (Reader reader = new InputStreamReader(new FileInputStream(reportFile), "UTF-8")) {
+        report.load(reader);
+      }
+    }
+    report.setProperty(myScenario + ".samples", String.valueOf(mySamples.size()));
+    report.setProperty(myScenario + ".p50", String.format(Locale.US, "%.2f", percentileMs(50)));
+    report.setProperty(myScenario + ".p99", String.format(Locale.US, "%.2f", percentileMs(99)));
+    FileUtil.createParentDirs(reportFile);
+    try (Writer writer = new OutputStreamWriter(new FileOutputStream(reportFile), "UTF-8")) {
+      report.store(writer, "Latencies in ms, see ErlangLatencyTest");
+    }
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.performance;
+
+import com.intellij.codeInsight.lookup.LookupManager;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.impl.source.resolve.reference.impl.PsiMultiReference;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import org.intellij.erlang.highlighting.ErlangHighlightingTestBase;
+import org.intellij.erlang.psi.ErlangFunctionCallExpression;
+import org.intellij.erlang.psi.ErlangQAtom;
+import org.intellij.erlang.psi.impl.ErlangQAtomReferenceImpl;
+import org.intellij.erlang.sdk.ErlangSdkRelease;
+import org.intellij.erlang.sdk.ErlangSdkType;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Latency of resolve, completion and highlighting on a generated multi-module project.
+ * <p>
+ * Every scenario is a performance test with cold resolve caches. Its per-operation p50/p99 are written to the
+ * {@link ErlangLatencyRecorder} report.
+ */
+public class ErlangLatencyTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private static final int MODULES = 150;
+  private static final int FUNCTIONS = 10;
+  private static final int INCLUDE_DEPTH = 15;
+  private static final int MAP_TYPES = 300;
+  private static final int MAP_FIELDS = 20;
+  private static final int CONFIGS = 5;
+  private static final int CONFIG_ITEMS = 2000;
+  private static final int ATTEMPTS = 30;
+
+  @Override
+  protected LightProjectDescriptor getProjectDescriptor() {
+    return new DefaultLightProjectDescriptor() {
+      @Override
+      public Sdk getSdk() {
+        return ErlangSdkType.createMockSdk("testData/mockSdk-R15B02/", ErlangSdkRelease.V_R15B02);
+      }
+    };
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    ErlangHighlightingTestBase.setUpInspections(myFixture);
+    setUpProjectSdk();
+    generateProject();
+  }
+
+  @Override
+  protected boolean isWriteActionRequired() {
+    return false;
+  }
+
+  public void testFunctionResolve() throws IOException {
+    PsiFile file = myFixture.configureFromTempProjectFile("mod_0.erl");
+    List<PsiReference> references = new ArrayList<>();
+    for (ErlangFunctionCallExpression call : PsiTreeUtil.findChildrenOfType(file, ErlangFunctionCallExpression.class)) {
+      PsiReference reference = call.getReference();
+      if (reference != null) references.add(reference);
+    }
+    measureResolve("functionResolve", 500, references);
+  }
+
+  public void testConfigKeyResolve() throws IOException {
+    PsiFile file = myFixture.configureFromTempProjectFile("mod_0.erl");
+    measureResolve("configKeyResolve", 500, atomReferences(file, "item_"));
+  }
+
+  public void testMapsFieldResolve() throws IOException {
+    PsiFile file = myFixture.configureFromTempProjectFile("mod_0.erl");
+    measureResolve("mapsFieldResolve", 1000, atomReferences(file, "field_"));
+  }
+
+  public void testGlobalFunctionCompletion() throws IOException {
+    myFixture.configureFromTempProjectFile("mod_0.erl");
+    measureCompletion("globalFunctionCompletion", 1500, "mod_1:f_<caret>");
+  }
+
+  public void testModuleCompletion() throws IOException {
+    myFixture.configureFromTempProjectFile("mod_0.erl");
+    measureCompletion("moduleCompletion", 1500, "mod_<caret>");
+  }
+
+  public void testHighlighting() throws IOException {
+    myFixture.configureFromTempProjectFile("mod_0.erl");
+    ErlangLatencyRecorder recorder = new ErlangLatencyRecorder("highlighting");
+    PlatformTestUtil.startPerformanceTest("erlang highlighting is slow", 5000, () -> recorder.time(() -> myFixture.doHighlighting()))
+      .setup(() -> PsiManager.getInstance(getProject()).dropPsiCaches())
+      .attempts(ATTEMPTS).assertTiming();
+    recorder.writeReport();
+  }
+
+  private void measureResolve(@NotNull String scenario, int expectedMs, @NotNull List<PsiReference> references) throws IOException {
+    assertTrue(scenario + ": no references to resolve", references.size() > 0);
+    ErlangLatencyRecorder recorder = new ErlangLatencyRecorder(scenario);
+    PlatformTestUtil.startPerformanceTest("erlang " + scenario + " is slow", expectedMs, () -> {
+      for (PsiReference reference : references) {
+        PsiManager.getInstance(getProject()).dropResolveCaches();
+        recorder.time(() -> assertNotNull(reference.getCanonicalText(), reference.resolve()));
+      }
+    }).attempts(ATTEMPTS).assertTiming();
+    recorder.writeReport();
+  }
+
+  private void measureCompletion(@NotNull String scenario, int expectedMs, @NotNull String prefix) throws IOException {
+    String text = myFixture.getEditor().getDocument().getText();
+    int offset = text.indexOf("-export");
+    String completionText = text.substring(0, offset) + "complete() -> " + prefix + ".\n" + text.substring(offset);
+    myFixture.configureByText("completion.erl", completionText);
+    ErlangLatencyRecorder recorder = new ErlangLatencyRecorder(scenario);
+    PlatformTestUtil.startPerformanceTest("erlang " + scenario + " is slow", expectedMs,
+                                          () -> recorder.time(() -> myFixture.completeBasic()))
+      .setup(() -> {
+        LookupManager.getInstance(getProject()).hideActiveLookup();
+        PsiManager.getInstance(getProject()).dropResolveCaches();
+      })
+      .attempts(ATTEMPTS).assertTiming();
+    recorder.writeReport();
+  }
+
+  @NotNull
+  private static List<PsiReference> atomReferences(@NotNull PsiFile file, @NotNull String prefix) {
+    List<PsiReference> references = new ArrayList<>();
+    Collection<ErlangQAtom> atoms = PsiTreeUtil.findChildrenOfType(file, ErlangQAtom.class);
+    for (ErlangQAtom atom : atoms) {
+      if (!atom.getText().startsWith(prefix)) continue;
+      PsiReference reference = findAtomReference(atom.getReference());
+      if (reference != null) references.add(reference);
+    }
+    return references;
+  }
+
+  @Nullable
+  private static PsiReference findAtomReference(@Nullable PsiReference reference) {
+    if (reference instanceof ErlangQAtomReferenceImpl) return reference;
+    if (!(reference instanceof PsiMultiReference)) return null;
+    for (PsiReference child : ((PsiMultiReference) reference).getReferences()) {
+      if (child instanceof ErlangQAtomReferenceImpl) return child;
+    }
+    return null;
+  }
+
+  private void generateProject() {
+    StringBuilder types = new StringBuilder();
+    for (int i = 0; i < MAP_TYPES; i++) {
+      types.append("-define(").append(mapTypeName(i).toUpperCase()).append("_t, #{");
+      for (int j = 0; j < MAP_FIELDS; j++) {
+        types.append(j > 0 ? ", " : "").append("field_").append(j).append(" => 0");
+      }
+      types.append("}).\n");
+    }
+    myFixture.addFileToProject("types.hrl", types.toString());
+
+    for (int i = 0; i < INCLUDE_DEPTH; i++) {
+      String text = i + 1 < INCLUDE_DEPTH
+                    ? "-include(\"inc_" + (i + 1) + ".hrl\").\n"
+                    : "included_fun(X) -> X.\n";
+      myFixture.addFileToProject("inc_" + i + ".hrl", text);
+    }
+
+    for (int c = 0; c < CONFIGS; c++) {
+      StringBuilder config = new StringBuilder();
+      for (int k = 0; k < CONFIG_ITEMS; k++) {
+        config.append("{item_").append(k).append(", [{id, ").append(k).append("}, {weight, ").append(k % 7).append("}]}.\n");
+      }
+      myFixture.addFileToProject("data_item_" + c + ".config", config.toString());
+    }
+
+    for (int i = 0; i < MODULES; i++) {
+      myFixture.addFileToProject("mod_" + i + ".erl", generateModule(i));
+    }
+  }
+
+  @NotNull
+  private static String generateModule(int index) {
+    StringBuilder text = new StringBuilder();
+    text.append("-module(mod_").append(index).append(").\n")
+        .append("-include(\"types.hrl\").\n")
+        .append("-include(\"inc_0.hrl\").\n")
+        .append("-export([");
+    for (int j = 0; j < FUNCTIONS; j++) {
+      text.append(j > 0 ? ", " : "").append("f_").append(j).append("/1");
+    }
+    text.append("]).\n\n");
+    String next = "mod_" + ((index + 1) % MODULES);
+    for (int j = 0; j < FUNCTIONS; j++) {
+      String mapType = mapTypeName((index * FUNCTIONS + j) % MAP_TYPES);
+      String variable = Character.toUpperCase(mapType.charAt(0)) + mapType.substring(1);
+      text.append("f_").append(j).append("(X) ->\n")
+          .append("  A = ").append(next).append(":f_").append(j).append("(X),\n")
+          .append("  B = ").append(j + 1 < FUNCTIONS ? "f_" + (j + 1) + "(A)" : "A").append(",\n")
+          .append("  C = included_fun(B),\n")
+          .append("  D = data_item_").append((index + j) % CONFIGS).append(":get(item_")
+          .append((index * FUNCTIONS + j) % CONFIG_ITEMS).append("),\n")
+          .append("  ").append(variable).append(" = ?").append(mapType.toUpperCase()).append("_t,\n")
+          .append("  ").append(variable).append("#{field_").append(j % MAP_FIELDS).append(" => {C, D}}.\n\n");
+    }
+    return text.toString();
+  }
+
+  // 0 -> "ba", 1 -> "bb", ...: distinct letter-only names, map type keys ignore anything but letters
+  @NotNull
+  private static String mapTypeName(int index) {
+    StringBuilder name = new StringBuilder();
+    int value = index + 26;
+    while (value > 0) {
+      name.insert(0, (char) ('a' + value % 26));
+      value /= 26;
+    }
+    return name.toString();
+  }
+}
@@ -16,7 +16,11 @@
 
 package org.intellij.erlang.performance;
 
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.codeStyle.CodeStyleManager;
 import com.intellij.testFramework.LightProjectDescriptor;
 import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
@@ -61,4 +65,31 @@ public class ErlangPerformanceTest extends ErlangLightPlatformCodeInsightFixture
   }
 
   public void testDialyzerDataflow() { doTest(5000); }
+
+  public void testFormattingSmallRangeOfLargeFile() {
+    StringBuilder text = new StringBuilder("-module(large).\n-compile(export_all).\n");
+    for (int i = 0; i < 3000; i++) {
+      text.append("function").append(i).append("(A, B) ->\n")
+          .append("  C = A+B,\n")
+          .append("  case C of\n")
+          .append("    0 -> {zero,[A,B]};\n")
+          .append("    _ when C > 10 -> lists:map(fun(X) -> X*2 end, [A, B, C]);\n")
+          .append("    _ -> #{a => A, b => B}\n")
+          .append("  end.\n")
+          .append("\n")
+          .append("%% comment ").append(i).append("\n")
+          .append("\n");
+    }
+    myFixture.configureByText("large.erl", text.toString());
+    Document document = myFixture.getEditor().getDocument();
+    assertTrue(document.getLineCount() > 30000);
+    int startOffset = document.getLineStartOffset(15000);
+    int endOffset = document.getLineEndOffset(15010);
+    PlatformTestUtil.startPerformanceTest("erlang range formatting is slow", 300, () ->
+      WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+        PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+        CodeStyleManager.getInstance(getProject()).reformatText(myFixture.getFile(), startOffset, endOffset);
+      })
+    ).attempts(10).assertTiming();
+  }
 }
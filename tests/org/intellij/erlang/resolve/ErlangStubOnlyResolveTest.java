@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.intellij.erlang.resolve;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.impl.PsiManagerEx;
+import com.intellij.psi.impl.source.PsiFileImpl;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Resolves references into other files with AST loading of those files prohibited, so that
+ * cross-file resolve keeps working from stubs alone.
+ */
+public class ErlangStubOnlyResolveTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private PsiFile myHeader;
+  private PsiFile myOtherModule;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myHeader = myFixture.addFileToProject("defs.hrl",
+                                          "-record(header_record, {field}).\n" +
+                                          "-define(HEADER_MACRO, 42).\n" +
+                                          "-type header_type() :: integer().\n" +
+                                          "-import(lists, [reverse/1]).\n" +
+                                          "header_fun(X) -> X.\n");
+    myOtherModule = myFixture.addFileToProject("other.erl",
+                                               "-module(other).\n" +
+                                               "-export([remote_fun/0]).\n" +
+                                               "-export_type([remote_type/0]).\n" +
+                                               "-type remote_type() :: atom().\n" +
+                                               "remote_fun() -> ok.\n");
+    myFixture.configureByText("a.erl",
+                              "-module(a).\n" +
+                              "-include(\"defs.hrl\").\n" +
+                              "-export([f/1]).\n" +
+                              "-spec f(header_type()) -> other:remote_type().\n" +
+                              "f(X) ->\n" +
+                              "  R = #header_record{},\n" +
+                              "  {?HEADER_MACRO, header_fun(X), other:remote_fun(), unknown_fun(X), R}.\n");
+    PsiManagerEx.getInstanceEx(getProject()).setAssertOnFileLoadingFilter(
+      file -> file.equals(myHeader.getVirtualFile()) || file.equals(myOtherModule.getVirtualFile()),
+      getTestRootDisposable());
+  }
+
+  public void testRecord()              { assertResolvesTo("header_record", myHeader); }
+  public void testMacro()               { assertResolvesTo("HEADER_MACRO", myHeader); }
+  public void testType()                { assertResolvesTo("header_type", myHeader); }
+  public void testFunction()            { assertResolvesTo("header_fun", myHeader); }
+  public void testRemoteType()          { assertResolvesTo("remote_type", myOtherModule); }
+  public void testRemoteFunction()      { assertResolvesTo("remote_fun", myOtherModule); }
+  public void testUnresolvedFunction()  { assertResolvesTo("unknown_fun", null); }
+
+  private void assertResolvesTo(@NotNull String name, @Nullable PsiFile expectedFile) {
+    int offset = myFixture.getEditor().getDocument().getText().indexOf(name);
+    assertTrue(name, offset >= 0);
+    PsiReference reference = myFixture.getFile().findReferenceAt(offset);
+    assertNotNull(name, reference);
+    PsiElement resolved = reference.resolve();
+    if (expectedFile == null) {
+      assertNull(name, resolved);
+    }
+    else {
+      assertNotNull(name, resolved);
+      assertEquals(name, expectedFile, resolved.getContainingFile());
+    }
+    assertNull("AST of " + myHeader.getName() + " was loaded", ((PsiFileImpl) myHeader).getTreeElement());
+    assertNull("AST of " + myOtherModule.getName() + " was loaded", ((PsiFileImpl) myOtherModule).getTreeElement());
+  }
+}
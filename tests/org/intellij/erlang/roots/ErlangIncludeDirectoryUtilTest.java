@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.roots;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+
+import java.io.IOException;
+
+public class ErlangIncludeDirectoryUtilTest extends CodeInsightFixtureTestCase {
+  private VirtualFile myIncludeDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    VirtualFile header = myFixture.addFileToProject("include/a.hrl", "").getVirtualFile();
+    myIncludeDir = header.getParent();
+    ApplicationManager.getApplication().runWriteAction(() -> ErlangIncludeDirectoryUtil.markAsIncludeDirectory(myModule, myIncludeDir));
+  }
+
+  public void testHeaderInChildDirectory() {
+    VirtualFile header = myFixture.addFileToProject("include/child/b.hrl", "").getVirtualFile();
+    assertEquals(header, ErlangIncludeDirectoryUtil.findIncludedFile(myModule, "child/b.hrl"));
+  }
+
+  public void testCreatedHeaderIsFound() {
+    assertNull(ErlangIncludeDirectoryUtil.findIncludedFile(myModule, "b.hrl"));
+    VirtualFile header = myFixture.addFileToProject("include/b.hrl", "").getVirtualFile();
+    assertEquals(header, ErlangIncludeDirectoryUtil.findIncludedFile(myModule, "b.hrl"));
+  }
+
+  public void testRenamedHeaderIsFound() throws IOException {
+    VirtualFile header = ErlangIncludeDirectoryUtil.findIncludedFile(myModule, "a.hrl");
+    assertNotNull(header);
+    WriteAction.run(() -> header.rename(this, "b.hrl"));
+    assertNull(ErlangIncludeDirectoryUtil.findIncludedFile(myModule, "a.hrl"));
+    assertEquals(header, ErlangIncludeDirectoryUtil.findIncludedFile(myModule, "b.hrl"));
+  }
+
+  public void testDeletedHeaderIsNotFound() throws IOException {
+    VirtualFile header = ErlangIncludeDirectoryUtil.findIncludedFile(myModule, "a.hrl");
+    assertNotNull(header);
+    WriteAction.run(() -> header.delete(this));
+    assertNull(ErlangIncludeDirectoryUtil.findIncludedFile(myModule, "a.hrl"));
+  }
+
+  public void testHeaderCaseFollowsFileSystem() {
+    VirtualFile header = ErlangIncludeDirectoryUtil.findIncludedFile(myModule, "A.hrl");
+    if (SystemInfo.isFileSystemCaseSensitive) {
+      assertNull(header);
+    }
+    else {
+      assertEquals(myIncludeDir.findChild("a.hrl"), header);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2015 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.utils;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.testFramework.UsefulTestCase;
+import org.intellij.erlang.rebar.util.RebarConfigUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ErlangTermReaderTest extends UsefulTestCase {
+  public void testLiterals() {
+    List<OtpErlangObject> terms = ErlangTermReader.read("{a, 'Quoted atom', \"con\" \"cat\", $a, $\\n, -12, 16#ff, 1_000, 2.5e1}.\n" +
+                                                        "#{key => [1, 2 | tail]}.\n" +
+                                                        "<<\"text\", 0, \"\\x{44f}\"/utf8>>.");
+    assertEquals(3, terms.size());
+    assertEquals("{a,'Quoted atom',\"concat\",97,10,-12,255,1000,25.0}", terms.get(0).toString());
+    assertEquals("#{key => [1,2|tail]}", terms.get(1).toString());
+    assertEquals("text\0\u044f", new String(((OtpErlangBinary) terms.get(2)).binaryValue(), StandardCharsets.UTF_8));
+  }
+
+  public void testCommentsAndFullStops() {
+    List<OtpErlangObject> terms = ErlangTermReader.read("%% {commented, out}.\n{dir, \"a.b\"}. % trailing\n{last}");
+    assertEquals("[{dir,\"a.b\"}, {last}]", terms.toString());
+  }
+
+  public void testRecovery() {
+    assertEquals("[{erl_opts,[{i,[\"./include\"]}]}]", ErlangTermReader.read("{erl_opts, [{i, [\"./include\"]}.").toString());
+    assertEquals("[{ok}]", ErlangTermReader.read("{bad Variable}. {ok}.").toString());
+  }
+
+  public void testInvalidCodePoint() {
+    assertEquals("[{ok}]", ErlangTermReader.read("{\"\\x{110000}\"}. {ok}.").toString());
+    assertEquals("[{ok}]", ErlangTermReader.read("'\\x{-1}'. {ok}.").toString());
+    assertEquals("[\"\udbff\udfff\"]", ErlangTermReader.read("\"\\x{10FFFF}\".").toString());
+  }
+
+  public void testRebarConfig() {
+    List<OtpErlangObject> config = ErlangTermReader.read("{erl_opts, [debug_info, {i, \"include\"}, {i, [\"a\", \"b\"]},\n" +
+                                                         "             {parse_transform, lager_transform}]}.\n" +
+                                                         "{deps, [jsx, {cowboy, \"2.9.0\"}, {lager, {git, \"url\", {tag, \"3.9\"}}}]}.\n" +
+                                                         "{extra_src_dirs, [\"bench\", {\"scripts\", [{recursive, true}]}]}.");
+    assertOrderedEquals(RebarConfigUtil.getIncludePaths(config), "include", "a", "b");
+    assertOrderedEquals(RebarConfigUtil.getParseTransforms(config), "lager_transform");
+    assertOrderedEquals(RebarConfigUtil.getDependencyAppNames(config), "jsx", "cowboy", "lager");
+    assertOrderedEquals(RebarConfigUtil.getExtraSrcDirs(config), "bench", "scripts");
+  }
+
+  public void testAppResource() {
+    List<OtpErlangObject> app = ErlangTermReader.read("{application, app,\n" +
+                                                      " [{vsn, \"1\"},\n" +
+                                                      "  {applications, [kernel, stdlib, cowboy]},\n" +
+                                                      "  {mod, {app, []}}]}.");
+    assertOrderedEquals(RebarConfigUtil.getApplicationDependencies(app), "kernel", "stdlib", "cowboy");
+  }
+}